@@ -21,6 +21,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -248,16 +249,10 @@ public class CacheFile<K, V> extends ExpirableCache<FItem<K>>
     }
   }
 
-  private ByteArrayOutputStream toBytes(Object obj) throws IOException {
-    ByteArrayOutputStream bout = new ByteArrayOutputStream();
-    ObjectOutputStream writer = null;
-    try {
-      writer = new ObjectOutputStream(bout);
-      writer.writeObject(obj);
-    } finally {
-      Io.close(writer);
-    }
-    return bout;
+  private void writeObject(ByteArrayOutputStream bout, Object obj) throws IOException {
+    ObjectOutputStream writer = new ObjectOutputStream(bout);
+    writer.writeObject(obj);
+    writer.flush();
   }
 
   @Override
@@ -274,10 +269,22 @@ public class CacheFile<K, V> extends ExpirableCache<FItem<K>>
   }
 
   private void write0(Entry<? extends K, ? extends V> entry) throws IOException {
-    ByteArrayOutputStream keyOut = toBytes(entry.getKey());
-    ByteArrayOutputStream valueOut = toBytes(entry.getValue());
-    int keySize = keyOut.getSize();
-    int valueSize = valueOut.getSize();
+    // header, key and value are written in one buffer and one gathering write
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    try {
+      bout.reserve(HEADER_SIZE);
+      writeObject(bout, entry.getKey());
+      int keySize = bout.getSize() - HEADER_SIZE;
+      writeObject(bout, entry.getValue());
+      int valueSize = bout.getSize() - HEADER_SIZE - keySize;
+      write0(entry, keySize, valueSize, bout);
+    } finally {
+      bout.release();
+    }
+  }
+
+  private void write0(Entry<? extends K, ? extends V> entry, int keySize, int valueSize,
+      ByteArrayOutputStream bout) throws IOException {
     int size = keySize + valueSize;
     FItem<K> select = null;
 
@@ -314,17 +321,13 @@ public class CacheFile<K, V> extends ExpirableCache<FItem<K>>
     } else {
       select.node.update();
     }
+    byte[] header = new byte[HEADER_SIZE];
+    ByteBuffer.wrap(header).put((byte) 1).putInt(select.entrySize).putInt(select.keySize)
+        .putInt(select.valueSize).putLong(select.expire);
+    bout.backfill(0, header, 0, HEADER_SIZE);
     file.seek(select.start);
-    file.writeBoolean(true);
-    file.writeInt(select.entrySize);
-    file.writeInt(select.keySize);
-    file.writeInt(select.valueSize);
-    file.writeLong(select.expire);
     table.put(entry.getKey(), select);
-    keyOut.writeTo(file);
-    valueOut.writeTo(file);
-    keyOut.release();
-    valueOut.release();
+    bout.writeTo(file.getChannel());
   }
 
   @Override
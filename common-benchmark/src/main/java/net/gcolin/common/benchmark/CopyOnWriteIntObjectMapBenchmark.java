@@ -0,0 +1,56 @@
+package net.gcolin.common.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.gcolin.common.collection.CopyOnWriteIntObjectMap;
+
+/**
+ * Read-mostly registry lookups from several threads.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class CopyOnWriteIntObjectMapBenchmark {
+
+	static final int SIZE = 64;
+
+	CopyOnWriteIntObjectMap<Object> copyOnWrite;
+	Map<Integer, Object> concurrentHashMap;
+
+	@Setup
+	public void setup() {
+		copyOnWrite = new CopyOnWriteIntObjectMap<>();
+		concurrentHashMap = new ConcurrentHashMap<>();
+		for (int i = 0; i < SIZE; i++) {
+			copyOnWrite.put(i, this);
+			concurrentHashMap.put(i, this);
+		}
+	}
+
+	@Benchmark
+	public void getCopyOnWrite(Blackhole bh) {
+		for (int i = 0; i < SIZE; i++) {
+			bh.consume(copyOnWrite.get(i));
+		}
+	}
+
+	@Benchmark
+	public void getConcurrentHashMap(Blackhole bh) {
+		for (int i = 0; i < SIZE; i++) {
+			bh.consume(concurrentHashMap.get(i));
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package net.gcolin.common.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.gcolin.common.collection.IntObjectMap;
+
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IntObjectMapBenchmark {
+
+	@Param({ "16", "1024" })
+	int size;
+
+	int[] keys;
+	IntObjectMap<Object> intObjectMap;
+	Map<Integer, Object> hashMap;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		keys = new int[size];
+		intObjectMap = new IntObjectMap<>();
+		hashMap = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			keys[i] = random.nextInt();
+			intObjectMap.put(keys[i], keys);
+			hashMap.put(keys[i], keys);
+		}
+	}
+
+	@Benchmark
+	public void getIntObjectMap(Blackhole bh) {
+		for (int i = 0; i < keys.length; i++) {
+			bh.consume(intObjectMap.get(keys[i]));
+		}
+	}
+
+	@Benchmark
+	public void getHashMap(Blackhole bh) {
+		for (int i = 0; i < keys.length; i++) {
+			bh.consume(hashMap.get(keys[i]));
+		}
+	}
+
+	@Benchmark
+	public IntObjectMap<Object> putIntObjectMap() {
+		IntObjectMap<Object> map = new IntObjectMap<>();
+		for (int i = 0; i < keys.length; i++) {
+			map.put(keys[i], keys);
+		}
+		return map;
+	}
+
+	@Benchmark
+	public Map<Integer, Object> putHashMap() {
+		Map<Integer, Object> map = new HashMap<>();
+		for (int i = 0; i < keys.length; i++) {
+			map.put(keys[i], keys);
+		}
+		return map;
+	}
+}
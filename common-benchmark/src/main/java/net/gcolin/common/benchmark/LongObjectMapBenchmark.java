@@ -0,0 +1,76 @@
+package net.gcolin.common.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.gcolin.common.collection.LongObjectMap;
+
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LongObjectMapBenchmark {
+
+	@Param({ "16", "1024" })
+	int size;
+
+	long[] keys;
+	LongObjectMap<Object> intObjectMap;
+	Map<Long, Object> hashMap;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		keys = new long[size];
+		intObjectMap = new LongObjectMap<>();
+		hashMap = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			keys[i] = random.nextLong();
+			intObjectMap.put(keys[i], keys);
+			hashMap.put(keys[i], keys);
+		}
+	}
+
+	@Benchmark
+	public void getLongObjectMap(Blackhole bh) {
+		for (int i = 0; i < keys.length; i++) {
+			bh.consume(intObjectMap.get(keys[i]));
+		}
+	}
+
+	@Benchmark
+	public void getHashMap(Blackhole bh) {
+		for (int i = 0; i < keys.length; i++) {
+			bh.consume(hashMap.get(keys[i]));
+		}
+	}
+
+	@Benchmark
+	public LongObjectMap<Object> putLongObjectMap() {
+		LongObjectMap<Object> map = new LongObjectMap<>();
+		for (int i = 0; i < keys.length; i++) {
+			map.put(keys[i], keys);
+		}
+		return map;
+	}
+
+	@Benchmark
+	public Map<Long, Object> putHashMap() {
+		Map<Long, Object> map = new HashMap<>();
+		for (int i = 0; i < keys.length; i++) {
+			map.put(keys[i], keys);
+		}
+		return map;
+	}
+}
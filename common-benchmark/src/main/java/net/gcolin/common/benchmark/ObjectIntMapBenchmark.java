@@ -0,0 +1,77 @@
+package net.gcolin.common.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.gcolin.common.collection.ObjectIntMap;
+
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ObjectIntMapBenchmark {
+
+	@Param({ "16", "1024" })
+	int size;
+
+	String[] keys;
+	ObjectIntMap<String> objectIntMap;
+	Map<String, Integer> hashMap;
+
+	@Setup
+	public void setup() {
+		keys = new String[size];
+		objectIntMap = new ObjectIntMap<>();
+		hashMap = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			keys[i] = "property" + i;
+			objectIntMap.put(keys[i], i);
+			hashMap.put(keys[i], i);
+		}
+	}
+
+	@Benchmark
+	public int getObjectIntMap() {
+		int sum = 0;
+		for (int i = 0; i < keys.length; i++) {
+			sum += objectIntMap.get(keys[i]);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int getHashMap() {
+		int sum = 0;
+		for (int i = 0; i < keys.length; i++) {
+			sum += hashMap.get(keys[i]);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public ObjectIntMap<String> putObjectIntMap() {
+		ObjectIntMap<String> map = new ObjectIntMap<>();
+		for (int i = 0; i < keys.length; i++) {
+			map.put(keys[i], i);
+		}
+		return map;
+	}
+
+	@Benchmark
+	public Map<String, Integer> putHashMap() {
+		Map<String, Integer> map = new HashMap<>();
+		for (int i = 0; i < keys.length; i++) {
+			map.put(keys[i], i);
+		}
+		return map;
+	}
+}
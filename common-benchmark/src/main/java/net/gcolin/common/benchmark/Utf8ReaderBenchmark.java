@@ -0,0 +1,63 @@
+package net.gcolin.common.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.gcolin.common.io.Utf8Reader;
+
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Utf8ReaderBenchmark {
+
+	@Param({ "ascii", "latin", "mixed" })
+	String charset;
+
+	@Param({ "32", "16384" })
+	int size;
+
+	byte[] bytes;
+	char[] chars;
+
+	@Setup
+	public void setup() {
+		bytes = Utf8Text.create(charset, size).getBytes(StandardCharsets.UTF_8);
+		chars = new char[1024];
+	}
+
+	@Benchmark
+	public int utf8Reader() throws IOException {
+		try (Reader reader = new Utf8Reader(new ByteArrayInputStream(bytes))) {
+			return read(reader);
+		}
+	}
+
+	@Benchmark
+	public int inputStreamReader() throws IOException {
+		try (Reader reader = new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)) {
+			return read(reader);
+		}
+	}
+
+	private int read(Reader reader) throws IOException {
+		int total = 0;
+		int read;
+		while ((read = reader.read(chars)) != -1) {
+			total += read;
+		}
+		return total;
+	}
+}
@@ -0,0 +1,30 @@
+package net.gcolin.common.benchmark;
+
+final class Utf8Text {
+
+	private static final String ASCII = "The quick brown fox jumps over the lazy dog. ";
+	private static final String LATIN = "Voix ambiguë d'un cœur qui, au zéphyr, préfère les jattes de kiwis. ";
+	private static final String MIXED = "price: 10€, 東京 😀 naïve ";
+
+	private Utf8Text() {
+	}
+
+	static String create(String charset, int size) {
+		String pattern;
+		switch (charset) {
+		case "latin":
+			pattern = LATIN;
+			break;
+		case "mixed":
+			pattern = MIXED;
+			break;
+		default:
+			pattern = ASCII;
+		}
+		StringBuilder str = new StringBuilder(size + pattern.length());
+		while (str.length() < size) {
+			str.append(pattern);
+		}
+		return str.toString();
+	}
+}
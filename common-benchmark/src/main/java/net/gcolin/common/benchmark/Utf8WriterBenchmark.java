@@ -0,0 +1,58 @@
+package net.gcolin.common.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.gcolin.common.io.Utf8Writer;
+
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Utf8WriterBenchmark {
+
+	@Param({ "ascii", "latin", "mixed" })
+	String charset;
+
+	@Param({ "32", "16384" })
+	int size;
+
+	String text;
+	ByteArrayOutputStream out;
+
+	@Setup
+	public void setup() {
+		text = Utf8Text.create(charset, size);
+		out = new ByteArrayOutputStream(size * 4);
+	}
+
+	@Benchmark
+	public int utf8Writer() throws IOException {
+		out.reset();
+		try (Writer writer = new Utf8Writer(out)) {
+			writer.write(text);
+		}
+		return out.size();
+	}
+
+	@Benchmark
+	public int outputStreamWriter() throws IOException {
+		out.reset();
+		try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+			writer.write(text);
+		}
+		return out.size();
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.common.collection;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+
+/**
+ * A thread safe map with int keys for read-mostly registries. The reads are
+ * lock-free and go to an immutable snapshot. Each write copies the snapshot and
+ * publishes it with a compare and set.
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ * @param <V> the type of mapped values
+ */
+public class CopyOnWriteIntObjectMap<V> {
+
+	private final AtomicReference<IntObjectMap<V>> snapshot = new AtomicReference<>(new IntObjectMap<>());
+
+	public int size() {
+		return snapshot.get().size();
+	}
+
+	public boolean isEmpty() {
+		return snapshot.get().isEmpty();
+	}
+
+	public V get(int key) {
+		return snapshot.get().get(key);
+	}
+
+	public boolean containsKey(int key) {
+		return snapshot.get().containsKey(key);
+	}
+
+	/**
+	 * Associate a value to a key.
+	 *
+	 * @param key   the key
+	 * @param value a non null value
+	 * @return the previous value or {@code null}
+	 */
+	public V put(int key, V value) {
+		while (true) {
+			IntObjectMap<V> current = snapshot.get();
+			IntObjectMap<V> next = current.copy();
+			V old = next.put(key, value);
+			if (snapshot.compareAndSet(current, next)) {
+				return old;
+			}
+		}
+	}
+
+	/**
+	 * Get the value of a key or create it. Under contention the factory may be
+	 * called more than once but only one value is published.
+	 *
+	 * @param key     the key
+	 * @param factory a factory that returns a non null value
+	 * @return the existing or the created value
+	 */
+	public V computeIfAbsent(int key, IntFunction<? extends V> factory) {
+		V value = get(key);
+		if (value != null) {
+			return value;
+		}
+		V created = factory.apply(key);
+		while (true) {
+			IntObjectMap<V> current = snapshot.get();
+			value = current.get(key);
+			if (value != null) {
+				return value;
+			}
+			IntObjectMap<V> next = current.copy();
+			next.put(key, created);
+			if (snapshot.compareAndSet(current, next)) {
+				return created;
+			}
+		}
+	}
+
+	/**
+	 * Remove a key.
+	 *
+	 * @param key the key
+	 * @return the removed value or {@code null}
+	 */
+	public V remove(int key) {
+		while (true) {
+			IntObjectMap<V> current = snapshot.get();
+			if (!current.containsKey(key)) {
+				return null;
+			}
+			IntObjectMap<V> next = current.copy();
+			V old = next.remove(key);
+			if (snapshot.compareAndSet(current, next)) {
+				return old;
+			}
+		}
+	}
+
+	public void clear() {
+		snapshot.set(new IntObjectMap<>());
+	}
+
+	/**
+	 * Iterate over the entries of the current snapshot.
+	 *
+	 * @param consumer an entry consumer
+	 */
+	public void forEach(IntObjectMap.EntryConsumer<? super V> consumer) {
+		snapshot.get().forEach(consumer);
+	}
+
+	/**
+	 * Get the keys of the current snapshot.
+	 *
+	 * @return a new array with the keys
+	 */
+	public int[] keys() {
+		return snapshot.get().keys();
+	}
+
+	@Override
+	public String toString() {
+		return snapshot.get().toString();
+	}
+}
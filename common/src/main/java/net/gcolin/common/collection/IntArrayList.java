@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.common.collection;
+
+import java.util.Arrays;
+
+/**
+ * A list of int based on an array. The values are not boxed.
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class IntArrayList {
+
+	private int[] data;
+	private int size;
+
+	public IntArrayList() {
+		this(8);
+	}
+
+	public IntArrayList(int capacity) {
+		data = new int[Math.max(1, capacity)];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Get a value.
+	 *
+	 * @param index the index
+	 * @return the value at the index
+	 */
+	public int get(int index) {
+		checkIndex(index);
+		return data[index];
+	}
+
+	/**
+	 * Replace a value.
+	 *
+	 * @param index the index
+	 * @param value the new value
+	 * @return the previous value
+	 */
+	public int set(int index, int value) {
+		checkIndex(index);
+		int old = data[index];
+		data[index] = value;
+		return old;
+	}
+
+	public void add(int value) {
+		if (size == data.length) {
+			data = Arrays.copyOf(data, size << 1);
+		}
+		data[size++] = value;
+	}
+
+	/**
+	 * Add values.
+	 *
+	 * @param values the values
+	 */
+	public void addAll(int... values) {
+		if (size + values.length > data.length) {
+			data = Arrays.copyOf(data, Math.max(size << 1, size + values.length));
+		}
+		System.arraycopy(values, 0, data, size, values.length);
+		size += values.length;
+	}
+
+	/**
+	 * Remove the value at an index.
+	 *
+	 * @param index the index
+	 * @return the removed value
+	 */
+	public int removeAt(int index) {
+		checkIndex(index);
+		int old = data[index];
+		System.arraycopy(data, index + 1, data, index, size - index - 1);
+		size--;
+		return old;
+	}
+
+	/**
+	 * Find a value.
+	 *
+	 * @param value the value
+	 * @return the index of the first occurrence or -1
+	 */
+	public int indexOf(int value) {
+		for (int i = 0; i < size; i++) {
+			if (data[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public boolean contains(int value) {
+		return indexOf(value) != -1;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public int[] toArray() {
+		return Arrays.copyOf(data, size);
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		str.append('[');
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				str.append(", ");
+			}
+			str.append(data[i]);
+		}
+		str.append(']');
+		return str.toString();
+	}
+}
@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.common.collection;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/**
+ * A map with int keys based on open addressing with linear probing. The keys
+ * are not boxed. Null values are not allowed.
+ *
+ * <p>
+ * This map is not thread safe. See {@link CopyOnWriteIntObjectMap} for a thread
+ * safe version.
+ * </p>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ * @param <V> the type of mapped values
+ */
+@SuppressWarnings("unchecked")
+public class IntObjectMap<V> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private int[] keys;
+	private Object[] values;
+	private int mask;
+	private int size;
+
+	public IntObjectMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create a map.
+	 *
+	 * @param expectedSize the number of entries the map can hold without resizing
+	 */
+	public IntObjectMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+		keys = new int[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+	}
+
+	private IntObjectMap(IntObjectMap<V> other) {
+		keys = other.keys.clone();
+		values = other.values.clone();
+		mask = other.mask;
+		size = other.size;
+	}
+
+	private static int hash(int key) {
+		int hash = key * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	private int indexOf(int key) {
+		int index = hash(key) & mask;
+		while (values[index] != null) {
+			if (keys[index] == key) {
+				return index;
+			}
+			index = (index + 1) & mask;
+		}
+		return -1;
+	}
+
+	public V get(int key) {
+		int index = indexOf(key);
+		return index == -1 ? null : (V) values[index];
+	}
+
+	public boolean containsKey(int key) {
+		return indexOf(key) != -1;
+	}
+
+	/**
+	 * Associate a value to a key.
+	 *
+	 * @param key   the key
+	 * @param value a non null value
+	 * @return the previous value or {@code null}
+	 */
+	public V put(int key, V value) {
+		Objects.requireNonNull(value);
+		int index = hash(key) & mask;
+		while (values[index] != null) {
+			if (keys[index] == key) {
+				V old = (V) values[index];
+				values[index] = value;
+				return old;
+			}
+			index = (index + 1) & mask;
+		}
+		keys[index] = key;
+		values[index] = value;
+		if (++size > (mask + 1) >> 1) {
+			rehash(values.length << 1);
+		}
+		return null;
+	}
+
+	/**
+	 * Get the value of a key or create it.
+	 *
+	 * @param key     the key
+	 * @param factory a factory that returns a non null value
+	 * @return the existing or the created value
+	 */
+	public V computeIfAbsent(int key, IntFunction<? extends V> factory) {
+		V value = get(key);
+		if (value == null) {
+			value = factory.apply(key);
+			put(key, value);
+		}
+		return value;
+	}
+
+	/**
+	 * Remove a key.
+	 *
+	 * @param key the key
+	 * @return the removed value or {@code null}
+	 */
+	public V remove(int key) {
+		int index = indexOf(key);
+		if (index == -1) {
+			return null;
+		}
+		V old = (V) values[index];
+		values[index] = null;
+		size--;
+		// shift back the following entries of the cluster
+		int last = index;
+		int current = (index + 1) & mask;
+		while (values[current] != null) {
+			int ideal = hash(keys[current]) & mask;
+			if (((current - ideal) & mask) >= ((current - last) & mask)) {
+				keys[last] = keys[current];
+				values[last] = values[current];
+				values[current] = null;
+				last = current;
+			}
+			current = (current + 1) & mask;
+		}
+		return old;
+	}
+
+	public void clear() {
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	/**
+	 * Iterate over the entries.
+	 *
+	 * @param consumer an entry consumer
+	 */
+	public void forEach(EntryConsumer<? super V> consumer) {
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) {
+				consumer.accept(keys[i], (V) values[i]);
+			}
+		}
+	}
+
+	/**
+	 * Get the keys.
+	 *
+	 * @return a new array with the keys
+	 */
+	public int[] keys() {
+		int[] result = new int[size];
+		int pos = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) {
+				result[pos++] = keys[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Create a copy of this map.
+	 *
+	 * @return a copy
+	 */
+	public IntObjectMap<V> copy() {
+		return new IntObjectMap<>(this);
+	}
+
+	private void rehash(int capacity) {
+		int[] oldKeys = keys;
+		Object[] oldValues = values;
+		keys = new int[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+		for (int i = 0; i < oldValues.length; i++) {
+			if (oldValues[i] != null) {
+				int index = hash(oldKeys[i]) & mask;
+				while (values[index] != null) {
+					index = (index + 1) & mask;
+				}
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		str.append('{');
+		forEach((k, v) -> {
+			if (str.length() > 1) {
+				str.append(", ");
+			}
+			str.append(k).append('=').append(v);
+		});
+		str.append('}');
+		return str.toString();
+	}
+
+	/**
+	 * An entry consumer.
+	 *
+	 * @param <V> the type of values
+	 */
+	@FunctionalInterface
+	public interface EntryConsumer<V> {
+
+		void accept(int key, V value);
+	}
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.common.collection;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A map with int values based on open addressing with linear probing. The
+ * values are not boxed. Null keys are not allowed.
+ *
+ * <p>
+ * This map is not thread safe.
+ * </p>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ * @param <K> the type of keys
+ */
+@SuppressWarnings("unchecked")
+public class ObjectIntMap<K> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private Object[] keys;
+	private int[] values;
+	private int mask;
+	private int size;
+	private final int noEntryValue;
+
+	public ObjectIntMap() {
+		this(DEFAULT_CAPACITY, -1);
+	}
+
+	/**
+	 * Create a map.
+	 *
+	 * @param expectedSize the number of entries the map can hold without resizing
+	 * @param noEntryValue the value returned by {@link #get(Object)} when the key
+	 *                     is absent
+	 */
+	public ObjectIntMap(int expectedSize, int noEntryValue) {
+		int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+		keys = new Object[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+		this.noEntryValue = noEntryValue;
+	}
+
+	private static int hash(Object key) {
+		int hash = key.hashCode() * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int getNoEntryValue() {
+		return noEntryValue;
+	}
+
+	private int indexOf(Object key) {
+		int index = hash(key) & mask;
+		Object current;
+		while ((current = keys[index]) != null) {
+			if (current == key || current.equals(key)) {
+				return index;
+			}
+			index = (index + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Get the value of a key.
+	 *
+	 * @param key the key
+	 * @return the value or the no entry value
+	 */
+	public int get(Object key) {
+		int index = indexOf(key);
+		return index == -1 ? noEntryValue : values[index];
+	}
+
+	public boolean containsKey(Object key) {
+		return indexOf(key) != -1;
+	}
+
+	/**
+	 * Associate a value to a key.
+	 *
+	 * @param key   a non null key
+	 * @param value the value
+	 * @return the previous value or the no entry value
+	 */
+	public int put(K key, int value) {
+		Objects.requireNonNull(key);
+		int index = hash(key) & mask;
+		Object current;
+		while ((current = keys[index]) != null) {
+			if (current == key || current.equals(key)) {
+				int old = values[index];
+				values[index] = value;
+				return old;
+			}
+			index = (index + 1) & mask;
+		}
+		keys[index] = key;
+		values[index] = value;
+		if (++size > (mask + 1) >> 1) {
+			rehash(keys.length << 1);
+		}
+		return noEntryValue;
+	}
+
+	/**
+	 * Remove a key.
+	 *
+	 * @param key the key
+	 * @return the removed value or the no entry value
+	 */
+	public int remove(Object key) {
+		int index = indexOf(key);
+		if (index == -1) {
+			return noEntryValue;
+		}
+		int old = values[index];
+		keys[index] = null;
+		size--;
+		// shift back the following entries of the cluster
+		int last = index;
+		int current = (index + 1) & mask;
+		while (keys[current] != null) {
+			int ideal = hash(keys[current]) & mask;
+			if (((current - ideal) & mask) >= ((current - last) & mask)) {
+				keys[last] = keys[current];
+				values[last] = values[current];
+				keys[current] = null;
+				last = current;
+			}
+			current = (current + 1) & mask;
+		}
+		return old;
+	}
+
+	public void clear() {
+		Arrays.fill(keys, null);
+		size = 0;
+	}
+
+	/**
+	 * Iterate over the entries.
+	 *
+	 * @param consumer an entry consumer
+	 */
+	public void forEach(EntryConsumer<? super K> consumer) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				consumer.accept((K) keys[i], values[i]);
+			}
+		}
+	}
+
+	private void rehash(int capacity) {
+		Object[] oldKeys = keys;
+		int[] oldValues = values;
+		keys = new Object[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				int index = hash(oldKeys[i]) & mask;
+				while (keys[index] != null) {
+					index = (index + 1) & mask;
+				}
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		str.append('{');
+		forEach((k, v) -> {
+			if (str.length() > 1) {
+				str.append(", ");
+			}
+			str.append(k).append('=').append(v);
+		});
+		str.append('}');
+		return str.toString();
+	}
+
+	/**
+	 * An entry consumer.
+	 *
+	 * @param <K> the type of keys
+	 */
+	@FunctionalInterface
+	public interface EntryConsumer<K> {
+
+		void accept(K key, int value);
+	}
+}
@@ -16,9 +16,13 @@
 package net.gcolin.common.io;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -29,6 +33,12 @@ import java.util.List;
  * </p>
  *
  * <p>
+ * The data is never concatenated: {@code toByteBuffers()}, {@code writeTo(GatheringByteChannel)}
+ * and {@code toInputStream()} expose the internal arrays. They must not be used after
+ * {@code release()} or {@code reset()}.
+ * </p>
+ *
+ * <p>
  * WARNING : to release all the byte, use {@code release()} to clear the data (release all bytes
  * expect one array), use {@code reset()}
  * </p>
@@ -134,6 +144,109 @@ public class ByteArrayOutputStream extends OutputStream {
     out.write(current, 0, index);
   }
 
+  /**
+   * Write the data to a blocking channel with gathering writes.
+   * 
+   * @param out a channel
+   * @return the number of bytes written
+   * @throws IOException if an I/O error occurs.
+   */
+  public long writeTo(GatheringByteChannel out) throws IOException {
+    ByteBuffer[] buffers = toByteBuffers();
+    long total = 0;
+    int first = 0;
+    while (first < buffers.length) {
+      total += out.write(buffers, first, buffers.length - first);
+      while (first < buffers.length && !buffers[first].hasRemaining()) {
+        first++;
+      }
+    }
+    return total;
+  }
+
+  /**
+   * Get the content of the output stream without copying it.
+   * 
+   * @return a buffer by internal byte array
+   */
+  public ByteBuffer[] toByteBuffers() {
+    ByteBuffer[] buffers = new ByteBuffer[all.size()];
+    for (int i = 0; i < buffers.length - 1; i++) {
+      buffers[i] = ByteBuffer.wrap(all.get(i), 0, Io.BUFFER_SIZE);
+    }
+    buffers[buffers.length - 1] = ByteBuffer.wrap(current, 0, index);
+    return buffers;
+  }
+
+  /**
+   * Read the content of the output stream without copying it. The data written after the
+   * creation of the input stream is not visible.
+   * 
+   * @return an input stream
+   */
+  public InputStream toInputStream() {
+    return new SegmentInputStream(all.toArray(new byte[all.size()][]), getSize());
+  }
+
+  /**
+   * Reserve bytes for writing them later with {@code backfill}. Useful for length prefixes.
+   * 
+   * @param len the number of bytes to reserve
+   * @return the position of the reserved bytes
+   */
+  public int reserve(int len) {
+    int position = getSize();
+    int rem = len;
+    while (rem > 0) {
+      if (current.length == index) {
+        enlarge();
+      }
+      int todo = Math.min(current.length - index, rem);
+      Arrays.fill(current, index, index + todo, (byte) 0);
+      index += todo;
+      rem -= todo;
+    }
+    return position;
+  }
+
+  /**
+   * Overwrite bytes already written or reserved.
+   * 
+   * @param position the position in the output stream
+   * @param array the data
+   * @param off the offset in the data
+   * @param len the length of the data
+   */
+  public void backfill(int position, byte[] array, int off, int len) {
+    if (position < 0 || position + len > getSize()) {
+      throw new IndexOutOfBoundsException("position: " + position + ", length: " + len
+          + ", size: " + getSize());
+    }
+    int chunk = position / Io.BUFFER_SIZE;
+    int chunkOffset = position % Io.BUFFER_SIZE;
+    int rem = len;
+    int offset = off;
+    while (rem > 0) {
+      int todo = Math.min(Io.BUFFER_SIZE - chunkOffset, rem);
+      System.arraycopy(array, offset, all.get(chunk), chunkOffset, todo);
+      offset += todo;
+      rem -= todo;
+      chunk++;
+      chunkOffset = 0;
+    }
+  }
+
+  /**
+   * Overwrite 4 bytes already written or reserved with a big-endian int.
+   * 
+   * @param position the position in the output stream
+   * @param value the int
+   */
+  public void backfillInt(int position, int value) {
+    backfill(position, new byte[] {(byte) (value >>> 24), (byte) (value >>> 16),
+        (byte) (value >>> 8), (byte) value}, 0, 4);
+  }
+
   /**
    * Recycle the internal byte arrays.
    */
@@ -156,4 +269,60 @@ public class ByteArrayOutputStream extends OutputStream {
     index = 0;
   }
 
+  private static class SegmentInputStream extends InputStream {
+
+    private final byte[][] chunks;
+    private final int size;
+    private int position;
+
+    SegmentInputStream(byte[][] chunks, int size) {
+      this.chunks = chunks;
+      this.size = size;
+    }
+
+    @Override
+    public int read() {
+      if (position == size) {
+        return -1;
+      }
+      int bt = chunks[position / Io.BUFFER_SIZE][position % Io.BUFFER_SIZE] & 0xFF;
+      position++;
+      return bt;
+    }
+
+    @Override
+    public int read(byte[] ba, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (position == size) {
+        return -1;
+      }
+      int total = Math.min(len, size - position);
+      int rem = total;
+      int offset = off;
+      while (rem > 0) {
+        int chunkOffset = position % Io.BUFFER_SIZE;
+        int todo = Math.min(Io.BUFFER_SIZE - chunkOffset, rem);
+        System.arraycopy(chunks[position / Io.BUFFER_SIZE], chunkOffset, ba, offset, todo);
+        offset += todo;
+        rem -= todo;
+        position += todo;
+      }
+      return total;
+    }
+
+    @Override
+    public long skip(long n) {
+      long skipped = Math.max(0, Math.min(n, size - position));
+      position += (int) skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return size - position;
+    }
+  }
+
 }
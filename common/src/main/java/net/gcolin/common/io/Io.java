@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.RandomAccessFile;
 import java.io.Reader;
 import java.io.Writer;
@@ -31,6 +32,7 @@ import java.lang.reflect.Array;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -360,7 +362,43 @@ public class Io {
 	 */
 	public static Reader reader(InputStream in) throws IOException {
 		UnicodeDetectingInputStream detectInputstream = new UnicodeDetectingInputStream(in);
-		return new InputStreamReader(detectInputstream, detectInputstream.getCharset());
+		return reader(detectInputstream, detectInputstream.getCharset());
+	}
+
+	/**
+	 * Create a reader from an input stream.
+	 * 
+	 * <p>
+	 * A {@link Utf8Reader} is returned for the UTF-8 charset
+	 * </p>
+	 * 
+	 * @param in      input stream
+	 * @param charset the charset
+	 * @return a reader
+	 */
+	public static Reader reader(InputStream in, Charset charset) {
+		if (StandardCharsets.UTF_8.equals(charset)) {
+			return new Utf8Reader(in);
+		}
+		return new InputStreamReader(in, charset);
+	}
+
+	/**
+	 * Create a writer from an output stream.
+	 * 
+	 * <p>
+	 * A {@link Utf8Writer} is returned for the UTF-8 charset
+	 * </p>
+	 * 
+	 * @param out     output stream
+	 * @param charset the charset
+	 * @return a writer
+	 */
+	public static Writer writer(OutputStream out, Charset charset) {
+		if (StandardCharsets.UTF_8.equals(charset)) {
+			return new Utf8Writer(out);
+		}
+		return new OutputStreamWriter(out, charset);
 	}
 
 	/**
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.common.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * An unsynchronized Reader that decodes UTF-8 from a pooled byte array. It
+ * replaces an {@code InputStreamReader} with the UTF-8 charset without the
+ * {@code CharsetDecoder} and its intermediate buffers.
+ *
+ * <p>
+ * The ASCII bytes are copied in a tight loop. A malformed sequence is replaced
+ * by {@code U+FFFD} like the JDK decoder does. The supplementary characters are
+ * decoded into surrogate pairs even when the pair is split between two reads.
+ * </p>
+ *
+ * <p>
+ * Release the byte array on close
+ * </p>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class Utf8Reader extends Reader {
+
+	private static final char REPLACEMENT = '\uFFFD';
+
+	private InputStream in;
+	private byte[] buf;
+	private int pos;
+	private int limit;
+	private char lowSurrogate;
+	private boolean eof;
+
+	public Utf8Reader(InputStream in) {
+		this.in = in;
+		buf = Io.takeBytes();
+	}
+
+	@Override
+	public int read() throws IOException {
+		ensureOpen();
+		if (lowSurrogate != 0) {
+			char ch = lowSurrogate;
+			lowSurrogate = 0;
+			return ch;
+		}
+		if (pos == limit && !fill()) {
+			return -1;
+		}
+		byte bt = buf[pos];
+		if (bt >= 0) {
+			pos++;
+			return bt;
+		}
+		int cp = decode();
+		if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+			return cp;
+		}
+		lowSurrogate = Character.lowSurrogate(cp);
+		return Character.highSurrogate(cp);
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException {
+		ensureOpen();
+		if (len == 0) {
+			return 0;
+		}
+		int ci = off;
+		int end = off + len;
+		if (lowSurrogate != 0) {
+			cbuf[ci++] = lowSurrogate;
+			lowSurrogate = 0;
+		}
+		while (ci < end) {
+			if (pos == limit && (ci > off || !fill())) {
+				break;
+			}
+			// ASCII fast path
+			byte[] b = buf;
+			int bi = pos;
+			int max = Math.min(limit, bi + end - ci);
+			byte bt;
+			while (bi < max && (bt = b[bi]) >= 0) {
+				cbuf[ci++] = (char) bt;
+				bi++;
+			}
+			pos = bi;
+			if (bi == max) {
+				continue;
+			}
+			int cp = decode();
+			if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+				cbuf[ci++] = (char) cp;
+			} else {
+				cbuf[ci++] = Character.highSurrogate(cp);
+				if (ci < end) {
+					cbuf[ci++] = Character.lowSurrogate(cp);
+				} else {
+					lowSurrogate = Character.lowSurrogate(cp);
+				}
+			}
+		}
+		return ci == off ? -1 : ci - off;
+	}
+
+	/**
+	 * Decode a multi-byte sequence at the current position.
+	 *
+	 * @return the code point or {@code U+FFFD} if the sequence is malformed
+	 * @throws IOException if an I/O error occurs
+	 */
+	private int decode() throws IOException {
+		int lead = buf[pos] & 0xFF;
+		int size;
+		int min;
+		int max;
+		if (lead >= 0xC2 && lead <= 0xDF) {
+			size = 2;
+			min = 0x80;
+			max = 0xBF;
+		} else if (lead >= 0xE0 && lead <= 0xEF) {
+			size = 3;
+			// no overlong form
+			min = lead == 0xE0 ? 0xA0 : 0x80;
+			max = 0xBF;
+		} else if (lead >= 0xF0 && lead <= 0xF4) {
+			size = 4;
+			// no overlong form and nothing above U+10FFFF
+			min = lead == 0xF0 ? 0x90 : 0x80;
+			max = lead == 0xF4 ? 0x8F : 0xBF;
+		} else {
+			pos++;
+			return REPLACEMENT;
+		}
+		int cp = lead & (0xFF >> (size + 1));
+		for (int i = 1; i < size; i++) {
+			if (pos + i == limit && !fillMore()) {
+				// truncated at the end of the stream
+				pos += i;
+				return REPLACEMENT;
+			}
+			int next = buf[pos + i] & 0xFF;
+			if (next < min || next > max) {
+				pos += i;
+				return REPLACEMENT;
+			}
+			min = 0x80;
+			max = 0xBF;
+			cp = (cp << 6) | (next & 0x3F);
+		}
+		pos += size;
+		// an encoded surrogate is replaced as a whole like the JDK decoder does
+		return cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE ? REPLACEMENT : cp;
+	}
+
+	private boolean fill() throws IOException {
+		pos = 0;
+		limit = 0;
+		return fillMore();
+	}
+
+	/**
+	 * Read more bytes after the current bytes. The unread bytes are moved to the
+	 * start of the buffer.
+	 *
+	 * @return {@code false} at the end of the stream
+	 * @throws IOException if an I/O error occurs
+	 */
+	private boolean fillMore() throws IOException {
+		if (eof) {
+			return false;
+		}
+		if (pos > 0) {
+			System.arraycopy(buf, pos, buf, 0, limit - pos);
+			limit -= pos;
+			pos = 0;
+		}
+		int read;
+		do {
+			read = in.read(buf, limit, buf.length - limit);
+		} while (read == 0);
+		if (read == -1) {
+			eof = true;
+			return false;
+		}
+		limit += read;
+		return true;
+	}
+
+	private void ensureOpen() throws IOException {
+		if (buf == null) {
+			throw new IOException("Stream closed");
+		}
+	}
+
+	@Override
+	public boolean ready() throws IOException {
+		ensureOpen();
+		return lowSurrogate != 0 || pos < limit || in.available() > 0;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (buf != null) {
+			try {
+				in.close();
+			} finally {
+				Io.recycleBytes(buf);
+				buf = null;
+				in = null;
+			}
+		}
+	}
+
+}
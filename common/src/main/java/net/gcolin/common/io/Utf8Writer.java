@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.common.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * An unsynchronized Writer that encodes in UTF-8 directly into a pooled byte
+ * array. It replaces an {@code OutputStreamWriter} with the UTF-8 charset
+ * without the {@code CharsetEncoder} and its intermediate buffers.
+ *
+ * <p>
+ * The ASCII characters are copied without branching on the surrogates. An
+ * unpaired surrogate is written as {@code '?'} like the JDK encoder does. A
+ * high surrogate at the end of a write is kept until the next write.
+ * </p>
+ *
+ * <p>
+ * Release the byte array on close
+ * </p>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class Utf8Writer extends Writer {
+
+	private static final int REPLACEMENT = '?';
+	private static final int MAX_CHAR_SIZE = 4;
+
+	private OutputStream out;
+	private byte[] buf;
+	private int index;
+	private char highSurrogate;
+
+	public Utf8Writer(OutputStream out) {
+		this.out = out;
+		buf = Io.takeBytes();
+	}
+
+	@Override
+	public void write(int ch) throws IOException {
+		ensureOpen();
+		if (buf.length - index < MAX_CHAR_SIZE) {
+			flushBuffer();
+		}
+		if (ch < 0x80 && highSurrogate == 0) {
+			buf[index++] = (byte) ch;
+		} else {
+			encode((char) ch);
+		}
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		ensureOpen();
+		int pos = off;
+		int end = off + len;
+		while (pos < end) {
+			if (buf.length - index < MAX_CHAR_SIZE) {
+				flushBuffer();
+			}
+			if (highSurrogate == 0) {
+				// ASCII fast path
+				byte[] b = buf;
+				int bi = index;
+				int limit = Math.min(end, pos + b.length - bi);
+				char ch;
+				while (pos < limit && (ch = cbuf[pos]) < 0x80) {
+					b[bi++] = (byte) ch;
+					pos++;
+				}
+				index = bi;
+				if (pos == end || buf.length - index < MAX_CHAR_SIZE) {
+					continue;
+				}
+			}
+			encode(cbuf[pos++]);
+		}
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		ensureOpen();
+		int pos = off;
+		int end = off + len;
+		while (pos < end) {
+			if (buf.length - index < MAX_CHAR_SIZE) {
+				flushBuffer();
+			}
+			if (highSurrogate == 0) {
+				// ASCII fast path
+				byte[] b = buf;
+				int bi = index;
+				int limit = Math.min(end, pos + b.length - bi);
+				char ch;
+				while (pos < limit && (ch = str.charAt(pos)) < 0x80) {
+					b[bi++] = (byte) ch;
+					pos++;
+				}
+				index = bi;
+				if (pos == end || buf.length - index < MAX_CHAR_SIZE) {
+					continue;
+				}
+			}
+			encode(str.charAt(pos++));
+		}
+	}
+
+	@Override
+	public Writer append(CharSequence csq) throws IOException {
+		CharSequence seq = csq == null ? "null" : csq;
+		write(seq.toString(), 0, seq.length());
+		return this;
+	}
+
+	@Override
+	public Writer append(CharSequence csq, int start, int end) throws IOException {
+		CharSequence seq = csq == null ? "null" : csq;
+		write(seq.subSequence(start, end).toString(), 0, end - start);
+		return this;
+	}
+
+	/**
+	 * Encode a char. The buffer must have room for {@link #MAX_CHAR_SIZE} bytes.
+	 *
+	 * @param ch the char
+	 */
+	private void encode(char ch) {
+		if (highSurrogate != 0) {
+			char high = highSurrogate;
+			highSurrogate = 0;
+			if (Character.isLowSurrogate(ch)) {
+				int cp = Character.toCodePoint(high, ch);
+				buf[index++] = (byte) (0xF0 | (cp >> 18));
+				buf[index++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+				buf[index++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+				buf[index++] = (byte) (0x80 | (cp & 0x3F));
+				return;
+			}
+			// an unpaired high surrogate and a char take at most MAX_CHAR_SIZE bytes
+			buf[index++] = REPLACEMENT;
+		}
+		if (ch < 0x80) {
+			buf[index++] = (byte) ch;
+		} else if (ch < 0x800) {
+			buf[index++] = (byte) (0xC0 | (ch >> 6));
+			buf[index++] = (byte) (0x80 | (ch & 0x3F));
+		} else if (Character.isHighSurrogate(ch)) {
+			highSurrogate = ch;
+		} else if (Character.isLowSurrogate(ch)) {
+			buf[index++] = REPLACEMENT;
+		} else {
+			buf[index++] = (byte) (0xE0 | (ch >> 12));
+			buf[index++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+			buf[index++] = (byte) (0x80 | (ch & 0x3F));
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if (buf == null) {
+			throw new IOException("Stream closed");
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		if (index > 0) {
+			out.write(buf, 0, index);
+			index = 0;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+		flushBuffer();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (buf != null) {
+			try {
+				if (highSurrogate != 0) {
+					highSurrogate = 0;
+					if (index == buf.length) {
+						flushBuffer();
+					}
+					buf[index++] = REPLACEMENT;
+				}
+				flushBuffer();
+				out.close();
+			} finally {
+				Io.recycleBytes(buf);
+				buf = null;
+				out = null;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.common.reflect;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read the header of a class file and its runtime visible annotations without
+ * loading the class.
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class ClassFileReader {
+
+	private static final int MAGIC = 0xCAFEBABE;
+	private static final int ACC_MODULE = 0x8000;
+	private static final String OBJECT = "java.lang.Object";
+	private static final String ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+	private ClassFileReader() {
+	}
+
+	/**
+	 * Read a class file.
+	 *
+	 * @param input the class file content
+	 * @return the index entry of the class or {@code null} if the file describes
+	 *         a module
+	 * @throws IOException if the class file cannot be read
+	 */
+	public static ScanIndex.Entry read(InputStream input) throws IOException {
+		DataInputStream in = new DataInputStream(input);
+		if (in.readInt() != MAGIC) {
+			throw new IOException("not a class file");
+		}
+		in.readInt(); // minor and major version
+
+		int size = in.readUnsignedShort();
+		String[] utf8 = new String[size];
+		int[] classes = new int[size];
+		for (int i = 1; i < size; i++) {
+			int tag = in.readUnsignedByte();
+			switch (tag) {
+			case 1:
+				utf8[i] = in.readUTF();
+				break;
+			case 7:
+				classes[i] = in.readUnsignedShort();
+				break;
+			case 8:
+			case 16:
+			case 19:
+			case 20:
+				skip(in, 2);
+				break;
+			case 15:
+				skip(in, 3);
+				break;
+			case 3:
+			case 4:
+			case 9:
+			case 10:
+			case 11:
+			case 12:
+			case 17:
+			case 18:
+				skip(in, 4);
+				break;
+			case 5:
+			case 6:
+				skip(in, 8);
+				i++;
+				break;
+			default:
+				throw new IOException("bad constant pool tag " + tag);
+			}
+		}
+
+		if ((in.readUnsignedShort() & ACC_MODULE) != 0) {
+			return null;
+		}
+		String name = className(utf8, classes, in.readUnsignedShort());
+		List<String> superTypes = new ArrayList<>();
+		int superClass = in.readUnsignedShort();
+		if (superClass != 0) {
+			String superName = className(utf8, classes, superClass);
+			if (!OBJECT.equals(superName)) {
+				superTypes.add(superName);
+			}
+		}
+		int interfaces = in.readUnsignedShort();
+		for (int i = 0; i < interfaces; i++) {
+			superTypes.add(className(utf8, classes, in.readUnsignedShort()));
+		}
+
+		skipMembers(in);
+		skipMembers(in);
+
+		List<String> annotations = new ArrayList<>();
+		int attributes = in.readUnsignedShort();
+		for (int i = 0; i < attributes; i++) {
+			String attribute = utf8[in.readUnsignedShort()];
+			int length = in.readInt();
+			if (ANNOTATIONS.equals(attribute)) {
+				int count = in.readUnsignedShort();
+				for (int j = 0; j < count; j++) {
+					String desc = utf8[in.readUnsignedShort()];
+					annotations.add(desc.substring(1, desc.length() - 1).replace('/', '.'));
+					skipPairs(in);
+				}
+			} else {
+				skip(in, length);
+			}
+		}
+		return new ScanIndex.Entry(name, superTypes.toArray(new String[superTypes.size()]),
+				annotations.toArray(new String[annotations.size()]));
+	}
+
+	private static String className(String[] utf8, int[] classes, int index) {
+		return utf8[classes[index]].replace('/', '.');
+	}
+
+	private static void skipMembers(DataInputStream in) throws IOException {
+		int count = in.readUnsignedShort();
+		for (int i = 0; i < count; i++) {
+			skip(in, 6); // access flags, name and descriptor
+			int attributes = in.readUnsignedShort();
+			for (int j = 0; j < attributes; j++) {
+				skip(in, 2);
+				skip(in, in.readInt());
+			}
+		}
+	}
+
+	private static void skipPairs(DataInputStream in) throws IOException {
+		int pairs = in.readUnsignedShort();
+		for (int i = 0; i < pairs; i++) {
+			skip(in, 2);
+			skipElementValue(in);
+		}
+	}
+
+	private static void skipElementValue(DataInputStream in) throws IOException {
+		int tag = in.readUnsignedByte();
+		switch (tag) {
+		case 'e':
+			skip(in, 4);
+			break;
+		case '@':
+			skip(in, 2);
+			skipPairs(in);
+			break;
+		case '[':
+			int count = in.readUnsignedShort();
+			for (int i = 0; i < count; i++) {
+				skipElementValue(in);
+			}
+			break;
+		default:
+			skip(in, 2);
+			break;
+		}
+	}
+
+	private static void skip(DataInputStream in, int length) throws IOException {
+		int remaining = length;
+		while (remaining > 0) {
+			int skipped = in.skipBytes(remaining);
+			if (skipped <= 0) {
+				throw new IOException("unexpected end of class file");
+			}
+			remaining -= skipped;
+		}
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.common.reflect;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+/**
+ * An annotation processor that writes the {@link ScanIndex} of the compiled
+ * types in {@code META-INF/smallee.idx}.
+ *
+ * <p>
+ * The processor is not registered as a service, so it does not run implicitly
+ * in the modules depending on common. A module opts in with
+ * {@code -processor net.gcolin.common.reflect.IndexProcessor} or with the
+ * {@code <annotationProcessors>} of the maven-compiler-plugin. It can be
+ * disabled with the compiler option {@code -Asmallee.index=false}.
+ * </p>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(IndexProcessor.OPTION)
+public class IndexProcessor extends AbstractProcessor {
+
+	public static final String OPTION = "smallee.index";
+	private static final String OBJECT = "java.lang.Object";
+
+	private final Map<String, ScanIndex.Entry> entries = new TreeMap<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if ("false".equals(processingEnv.getOptions().get(OPTION))) {
+			return false;
+		}
+		if (roundEnv.processingOver()) {
+			if (!entries.isEmpty()) {
+				write();
+			}
+		} else {
+			for (Element element : roundEnv.getRootElements()) {
+				if (element instanceof TypeElement) {
+					add((TypeElement) element);
+				}
+			}
+		}
+		return false;
+	}
+
+	private void add(TypeElement type) {
+		String name = binaryName(type);
+		List<String> superTypes = new ArrayList<>();
+		addSuperType(type.getSuperclass(), superTypes);
+		for (TypeMirror itf : type.getInterfaces()) {
+			addSuperType(itf, superTypes);
+		}
+		List<String> annotationNames = new ArrayList<>();
+		for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+			TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+			Retention retention = annotationType.getAnnotation(Retention.class);
+			if (retention != null && retention.value() == RetentionPolicy.RUNTIME) {
+				annotationNames.add(binaryName(annotationType));
+			}
+		}
+		entries.put(name, new ScanIndex.Entry(name, superTypes.toArray(new String[superTypes.size()]),
+				annotationNames.toArray(new String[annotationNames.size()])));
+		for (Element enclosed : type.getEnclosedElements()) {
+			if (enclosed instanceof TypeElement) {
+				add((TypeElement) enclosed);
+			}
+		}
+	}
+
+	private void addSuperType(TypeMirror type, List<String> superTypes) {
+		if (type.getKind() == TypeKind.DECLARED) {
+			String name = binaryName((TypeElement) ((DeclaredType) type).asElement());
+			if (!OBJECT.equals(name)) {
+				superTypes.add(name);
+			}
+		}
+	}
+
+	private String binaryName(TypeElement type) {
+		return processingEnv.getElementUtils().getBinaryName(type).toString();
+	}
+
+	private void write() {
+		Map<String, ScanIndex.Entry> all = new TreeMap<>();
+		readPrevious(all);
+		all.putAll(entries);
+		try {
+			FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+					ScanIndex.LOCATION);
+			try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+				for (ScanIndex.Entry entry : all.values()) {
+					writer.write(entry.toString());
+					writer.write('\n');
+				}
+			}
+		} catch (IOException ex) {
+			processingEnv.getMessager().printMessage(Kind.WARNING,
+					"cannot write " + ScanIndex.LOCATION + " : " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Keep the types of a previous compilation that still exist when the
+	 * compilation is incremental.
+	 */
+	private void readPrevious(Map<String, ScanIndex.Entry> all) {
+		try {
+			FileObject previous = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "",
+					ScanIndex.LOCATION);
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(previous.openInputStream(), StandardCharsets.UTF_8))) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.isEmpty() || line.startsWith("#")) {
+						continue;
+					}
+					ScanIndex.Entry entry = ScanIndex.Entry.parse(line);
+					if (processingEnv.getElementUtils()
+							.getTypeElement(entry.getName().replace('$', '.')) != null) {
+						all.put(entry.getName(), entry);
+					}
+				}
+			}
+		} catch (IOException | IllegalArgumentException ex) {
+			// no previous index
+		}
+	}
+
+}
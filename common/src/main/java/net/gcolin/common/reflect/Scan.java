@@ -17,11 +17,17 @@ package net.gcolin.common.reflect;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +52,9 @@ public class Scan {
 	public static final String CLASS = ".class";
 	private static final String JAR_PROTOCOL = "jar:";
 	private static final String FILE_PROTOCOL = "file:";
+	private static final String META_INF = "META-INF";
+	private static final String MODULE_INFO = "module-info.class";
+	private static final String PACKAGE_INFO = "package-info.class";
 	private static final Logger LOG = LoggerFactory.getLogger(Scan.class);
 
 	private Scan() {
@@ -75,22 +84,30 @@ public class Scan {
 	/**
 	 * Scan classes.
 	 * 
+	 * <p>
+	 * If the root contains a {@link ScanIndex}, the classes of the index are
+	 * loaded without exploring the root. Every class is still loaded: use
+	 * {@link #annotatedClasses(URL, Class, Consumer, ClassLoader)},
+	 * {@link #subClasses(URL, Class, Consumer, ClassLoader)} or a filter of the
+	 * index to load only the classes needed.
+	 * </p>
+	 * 
 	 * @param url         the URL of the root path to scan or the URL of a file in a
 	 *                    jar
 	 * @param consumer    The class analyzer
 	 * @param classLoader the class loader of the scanning classes
 	 */
 	public static void classes(URL url, Consumer<Class<?>> consumer, ClassLoader classLoader) {
+		ScanIndex index = ScanIndex.load(url);
+		if (index != null) {
+			for (ScanIndex.Entry entry : index.getEntries()) {
+				load(entry.getName(), consumer, classLoader);
+			}
+			return;
+		}
 		resources(url, (path, uprovider) -> {
 			if (path.endsWith(CLASS)) {
-				String name = Scan.toClassName(path);
-				try {
-					consumer.accept(classLoader.loadClass(name));
-				} catch (Exception ex) {
-					if (LOG.isDebugEnabled()) {
-						LOG.debug("cannot load class : " + name, ex);
-					}
-				}
+				load(Scan.toClassName(path), consumer, classLoader);
 			}
 		});
 	}
@@ -109,6 +126,192 @@ public class Scan {
 		}
 	}
 
+	/**
+	 * Get the index of a root.
+	 * 
+	 * <p>
+	 * If the root does not contain a {@link ScanIndex}, the index is built by
+	 * reading the class files without loading them.
+	 * </p>
+	 * 
+	 * @param url the URL of the root path to scan or the URL of a file in a jar
+	 * @return the index of the root
+	 */
+	public static ScanIndex index(URL url) {
+		ScanIndex index = ScanIndex.load(url);
+		if (index != null) {
+			return index;
+		}
+		ScanIndex built = new ScanIndex();
+		resources(url, (path, uprovider) -> {
+			if (path.endsWith(CLASS) && !path.startsWith(META_INF) && !path.endsWith(MODULE_INFO)
+					&& !path.endsWith(PACKAGE_INFO)) {
+				try (InputStream in = uprovider.get().openStream()) {
+					ScanIndex.Entry entry = ClassFileReader.read(in);
+					if (entry != null) {
+						built.add(entry);
+					}
+				} catch (IOException ex) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("cannot read class file : " + path, ex);
+					}
+				}
+			}
+		});
+		return built;
+	}
+
+	/**
+	 * Get the index of all the roots of a class loader. The roots are read in
+	 * parallel in the common fork join pool.
+	 * 
+	 * @param classLoader a class loader
+	 * @return the merged index of the roots
+	 */
+	public static ScanIndex index(ClassLoader classLoader) {
+		ScanIndex index = new ScanIndex();
+		if (classLoader instanceof URLClassLoader) {
+			List<ScanIndex> indexes = Arrays.stream(((URLClassLoader) classLoader).getURLs()).parallel()
+					.map(Scan::index).collect(Collectors.toList());
+			for (ScanIndex i : indexes) {
+				index.addAll(i);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Scan the classes whose index entry match a filter. The classes that do not
+	 * match are not loaded.
+	 * 
+	 * @param url         the URL of the root path to scan or the URL of a file in a
+	 *                    jar
+	 * @param filter      the index entry filter
+	 * @param consumer    The class analyzer
+	 * @param classLoader the class loader of the scanning classes
+	 */
+	public static void classes(URL url, Predicate<ScanIndex.Entry> filter, Consumer<Class<?>> consumer,
+			ClassLoader classLoader) {
+		classes(index(url), filter, consumer, classLoader);
+	}
+
+	/**
+	 * Scan the classes whose index entry match a filter. The classes that do not
+	 * match are not loaded.
+	 * 
+	 * @param filter      the index entry filter
+	 * @param consumer    The class analyzer
+	 * @param classLoader the class loader of the scanning classes
+	 */
+	public static void classes(Predicate<ScanIndex.Entry> filter, Consumer<Class<?>> consumer,
+			ClassLoader classLoader) {
+		classes(index(classLoader), filter, consumer, classLoader);
+	}
+
+	private static void classes(ScanIndex index, Predicate<ScanIndex.Entry> filter, Consumer<Class<?>> consumer,
+			ClassLoader classLoader) {
+		for (ScanIndex.Entry entry : index.getEntries()) {
+			if (filter.test(entry)) {
+				load(entry.getName(), consumer, classLoader);
+			}
+		}
+	}
+
+	/**
+	 * Scan the classes having an annotation directly present. Only the matching
+	 * classes are loaded.
+	 * 
+	 * @param url         the URL of the root path to scan or the URL of a file in a
+	 *                    jar
+	 * @param annotation  the annotation
+	 * @param consumer    The class analyzer
+	 * @param classLoader the class loader of the scanning classes
+	 */
+	public static void annotatedClasses(URL url, Class<? extends Annotation> annotation,
+			Consumer<Class<?>> consumer, ClassLoader classLoader) {
+		String name = annotation.getName();
+		classes(url, e -> e.hasAnnotation(name), consumer, classLoader);
+	}
+
+	/**
+	 * Scan the classes having an annotation directly present. Only the matching
+	 * classes are loaded.
+	 * 
+	 * @param annotation  the annotation
+	 * @param consumer    The class analyzer
+	 * @param classLoader the class loader of the scanning classes
+	 */
+	public static void annotatedClasses(Class<? extends Annotation> annotation, Consumer<Class<?>> consumer,
+			ClassLoader classLoader) {
+		String name = annotation.getName();
+		classes(e -> e.hasAnnotation(name), consumer, classLoader);
+	}
+
+	/**
+	 * Scan the classes extending or implementing a type. The type itself is not
+	 * given to the consumer.
+	 * 
+	 * <p>
+	 * Only the matching classes and the classes whose hierarchy leaves the root
+	 * are loaded.
+	 * </p>
+	 * 
+	 * @param url         the URL of the root path to scan or the URL of a file in a
+	 *                    jar
+	 * @param type        the super type
+	 * @param consumer    The class analyzer
+	 * @param classLoader the class loader of the scanning classes
+	 */
+	public static void subClasses(URL url, Class<?> type, Consumer<Class<?>> consumer, ClassLoader classLoader) {
+		subClasses(index(url), type, consumer, classLoader);
+	}
+
+	/**
+	 * Scan the classes extending or implementing a type. The type itself is not
+	 * given to the consumer.
+	 * 
+	 * <p>
+	 * The hierarchy is resolved across all the roots of the class loader so only
+	 * the matching classes and the classes extending a type outside the roots
+	 * are loaded.
+	 * </p>
+	 * 
+	 * @param type        the super type
+	 * @param consumer    The class analyzer
+	 * @param classLoader the class loader of the scanning classes
+	 */
+	public static void subClasses(Class<?> type, Consumer<Class<?>> consumer, ClassLoader classLoader) {
+		subClasses(index(classLoader), type, consumer, classLoader);
+	}
+
+	private static void subClasses(ScanIndex index, Class<?> type, Consumer<Class<?>> consumer,
+			ClassLoader classLoader) {
+		Consumer<Class<?>> filter = c -> {
+			if (c != type && type.isAssignableFrom(c)) {
+				consumer.accept(c);
+			}
+		};
+		String name = type.getName();
+		for (ScanIndex.Entry entry : index.getEntries()) {
+			Boolean subtype = index.isSubtype(entry.getName(), name);
+			if (subtype == null) {
+				load(entry.getName(), filter, classLoader);
+			} else if (subtype && !entry.getName().equals(name)) {
+				load(entry.getName(), consumer, classLoader);
+			}
+		}
+	}
+
+	private static void load(String name, Consumer<Class<?>> consumer, ClassLoader classLoader) {
+		try {
+			consumer.accept(classLoader.loadClass(name));
+		} catch (Exception ex) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("cannot load class : " + name, ex);
+			}
+		}
+	}
+
 	/**
 	 * Scan classes.
 	 * 
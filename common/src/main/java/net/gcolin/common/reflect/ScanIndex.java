@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.common.reflect;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import net.gcolin.common.io.Io;
+
+/**
+ * The content of a {@code META-INF/smallee.idx} file generated by the
+ * {@link IndexProcessor} or the index built by {@link Scan#index(URL)} from the
+ * class files.
+ *
+ * <p>
+ * Each line describes a type with its binary name, its direct super types and
+ * the runtime annotations directly present on it:
+ * {@code name;super1,super2;annotation1,annotation2}. {@code java.lang.Object}
+ * is never written as a super type.
+ * </p>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class ScanIndex {
+
+	public static final String LOCATION = "META-INF/smallee.idx";
+	private static final String SEP = ";";
+	private static final String LIST_SEP = ",";
+	private static final String[] EMPTY = new String[0];
+
+	private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+	/**
+	 * Load the index of a classpath root.
+	 *
+	 * @param url the URL of the root path to scan or the URL of a file in a jar
+	 * @return the index or {@code null} if the root does not contain an index
+	 */
+	public static ScanIndex load(URL url) {
+		try (InputStream in = open(url)) {
+			if (in == null) {
+				return null;
+			}
+			ScanIndex index = new ScanIndex();
+			for (Entry entry : Io.readLines(in, Entry.class, Entry::parse, StandardCharsets.UTF_8)) {
+				index.add(entry);
+			}
+			return index;
+		} catch (IOException | URISyntaxException | IllegalArgumentException ex) {
+			throw new ScanException("cannot read the index of " + url, ex);
+		}
+	}
+
+	private static InputStream open(URL url) throws IOException, URISyntaxException {
+		if ("file".equals(url.getProtocol()) && !url.getPath().endsWith(".jar")) {
+			File file = new File(new File(url.toURI()), LOCATION);
+			return file.isFile() ? new FileInputStream(file) : null;
+		}
+		if ("jar".equals(url.getProtocol()) || url.getPath().endsWith(".jar")) {
+			URLConnection conn = new URL("jar:" + Scan.toRootPath(url.toString()) + "!/" + LOCATION)
+					.openConnection();
+			conn.setUseCaches(false);
+			try {
+				return conn.getInputStream();
+			} catch (FileNotFoundException ex) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	public void add(Entry entry) {
+		entries.put(entry.getName(), entry);
+	}
+
+	/**
+	 * Add the entries of another index. The entries already present are kept.
+	 *
+	 * @param index another index
+	 */
+	public void addAll(ScanIndex index) {
+		for (Entry entry : index.entries.values()) {
+			entries.putIfAbsent(entry.getName(), entry);
+		}
+	}
+
+	public Entry get(String name) {
+		return entries.get(name);
+	}
+
+	public Collection<Entry> getEntries() {
+		return Collections.unmodifiableCollection(entries.values());
+	}
+
+	/**
+	 * Tell if a type of the index extends or implements another type.
+	 *
+	 * @param name   the binary name of a type of the index
+	 * @param target the binary name of the super type
+	 * @return {@code TRUE} or {@code FALSE} or {@code null} if the hierarchy leaves
+	 *         the index before reaching the target and the class must be loaded
+	 *         to know.
+	 */
+	public Boolean isSubtype(String name, String target) {
+		return isSubtype(name, target, new HashSet<>());
+	}
+
+	private Boolean isSubtype(String name, String target, Set<String> visited) {
+		if (name.equals(target)) {
+			return Boolean.TRUE;
+		}
+		if (!visited.add(name)) {
+			return Boolean.FALSE;
+		}
+		Entry entry = entries.get(name);
+		if (entry == null) {
+			return null;
+		}
+		Boolean result = Boolean.FALSE;
+		for (String superType : entry.getSuperTypes()) {
+			Boolean sub = isSubtype(superType, target, visited);
+			if (sub == null) {
+				result = null;
+			} else if (sub) {
+				return Boolean.TRUE;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * A type of the index.
+	 *
+	 * @author Gaël COLIN
+	 * @since 1.4
+	 */
+	public static class Entry {
+
+		private final String name;
+		private final String[] superTypes;
+		private final String[] annotations;
+
+		public Entry(String name, String[] superTypes, String[] annotations) {
+			this.name = name;
+			this.superTypes = superTypes;
+			this.annotations = annotations;
+		}
+
+		/**
+		 * Parse a line of the index.
+		 *
+		 * @param line a line
+		 * @return an entry
+		 */
+		public static Entry parse(String line) {
+			String[] parts = line.split(SEP, -1);
+			if (parts.length != 3 || parts[0].isEmpty()) {
+				throw new IllegalArgumentException("bad index line : " + line);
+			}
+			return new Entry(parts[0], split(parts[1]), split(parts[2]));
+		}
+
+		private static String[] split(String str) {
+			return str.isEmpty() ? EMPTY : str.split(LIST_SEP);
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String[] getSuperTypes() {
+			return superTypes;
+		}
+
+		public String[] getAnnotations() {
+			return annotations;
+		}
+
+		/**
+		 * Tell if an annotation is directly present on the type.
+		 *
+		 * @param annotation the binary name of the annotation
+		 * @return {@code true} if the annotation is present
+		 */
+		public boolean hasAnnotation(String annotation) {
+			for (int i = 0; i < annotations.length; i++) {
+				if (annotations[i].equals(annotation)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public String toString() {
+			return name + SEP + String.join(LIST_SEP, superTypes) + SEP + String.join(LIST_SEP, annotations);
+		}
+	}
+}
@@ -25,7 +25,13 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 public class ByteArrayOutputStreamTest {
 
@@ -64,6 +70,67 @@ public class ByteArrayOutputStreamTest {
     Assert.assertArrayEquals(data, bout.toByteArray());
   }
 
+  @Test
+  public void testSegments() throws IOException {
+    byte[] data = big();
+    net.gcolin.common.io.ByteArrayOutputStream ba =
+        new net.gcolin.common.io.ByteArrayOutputStream();
+    try {
+      ba.write(data);
+
+      ByteBuffer[] buffers = ba.toByteBuffers();
+      Assert.assertEquals(data.length / Io.BUFFER_SIZE, buffers.length);
+      ByteBuffer all = ByteBuffer.allocate(data.length);
+      for (ByteBuffer buffer : buffers) {
+        all.put(buffer);
+      }
+      Assert.assertArrayEquals(data, all.array());
+
+      Path file = Files.createTempFile("segments", ".bin");
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+        Assert.assertEquals(data.length, ba.writeTo(channel));
+      }
+      Assert.assertArrayEquals(data, Files.readAllBytes(file));
+      Files.delete(file);
+
+      ByteArrayOutputStream bout = new ByteArrayOutputStream();
+      try (InputStream in = ba.toInputStream()) {
+        Assert.assertEquals(data.length, in.available());
+        int first = in.read();
+        Assert.assertEquals(data[0], first);
+        bout.write(first);
+        Io.copy(in, bout);
+      }
+      Assert.assertArrayEquals(data, bout.toByteArray());
+    } finally {
+      ba.release();
+    }
+  }
+
+  @Test
+  public void testBackfill() throws IOException {
+    net.gcolin.common.io.ByteArrayOutputStream ba =
+        new net.gcolin.common.io.ByteArrayOutputStream();
+    try {
+      ba.write(new byte[Io.BUFFER_SIZE - 2]);
+      int position = ba.reserve(4);
+      ba.write(1);
+      Assert.assertEquals(Io.BUFFER_SIZE + 3, ba.getSize());
+      ba.backfillInt(position, 0x01020304);
+      byte[] result = ba.toByteArray();
+      Assert.assertArrayEquals(new byte[] {1, 2, 3, 4, 1},
+          Arrays.copyOfRange(result, position, result.length));
+      try {
+        ba.backfillInt(Io.BUFFER_SIZE, 1);
+        Assert.fail();
+      } catch (IndexOutOfBoundsException ex) {
+        // ok
+      }
+    } finally {
+      ba.release();
+    }
+  }
+
   @Test
   public void testReset() throws IOException {
     testReset0(small());
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.gcolin.common.test;
+
+import net.gcolin.common.collection.CopyOnWriteIntObjectMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class CopyOnWriteIntObjectMapTest {
+
+	@Test
+	public void testSimple() {
+		CopyOnWriteIntObjectMap<String> map = new CopyOnWriteIntObjectMap<>();
+		Assert.assertNull(map.put(1, "a"));
+		Assert.assertEquals("a", map.put(1, "b"));
+		Assert.assertEquals("b", map.computeIfAbsent(1, k -> "c"));
+		Assert.assertEquals("2", map.computeIfAbsent(2, String::valueOf));
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals("b", map.remove(1));
+		Assert.assertNull(map.remove(1));
+		Assert.assertArrayEquals(new int[] { 2 }, map.keys());
+		map.clear();
+		Assert.assertTrue(map.isEmpty());
+	}
+
+	@Test
+	public void testConcurrent() throws InterruptedException {
+		CopyOnWriteIntObjectMap<Integer> map = new CopyOnWriteIntObjectMap<>();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		for (int t = 0; t < 4; t++) {
+			executor.execute(() -> {
+				for (int i = 0; i < 1000; i++) {
+					Assert.assertEquals(i, map.computeIfAbsent(i, k -> k).intValue());
+				}
+			});
+		}
+		executor.shutdown();
+		Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		Assert.assertEquals(1000, map.size());
+	}
+}
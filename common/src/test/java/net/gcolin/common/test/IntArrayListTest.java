@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.gcolin.common.test;
+
+import net.gcolin.common.collection.IntArrayList;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class IntArrayListTest {
+
+	@Test
+	public void testSimple() {
+		IntArrayList list = new IntArrayList(1);
+		Assert.assertTrue(list.isEmpty());
+		for (int i = 0; i < 100; i++) {
+			list.add(i);
+		}
+		list.addAll(100, 101);
+		Assert.assertEquals(102, list.size());
+		Assert.assertEquals(50, list.get(50));
+		Assert.assertEquals(50, list.set(50, -1));
+		Assert.assertEquals(50, list.indexOf(-1));
+		Assert.assertFalse(list.contains(50));
+		Assert.assertEquals(-1, list.removeAt(50));
+		Assert.assertEquals(51, list.get(50));
+		Assert.assertEquals(101, list.toArray().length);
+		list.clear();
+		Assert.assertEquals("[]", list.toString());
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testOutOfBounds() {
+		IntArrayList list = new IntArrayList();
+		list.add(1);
+		list.get(1);
+	}
+}
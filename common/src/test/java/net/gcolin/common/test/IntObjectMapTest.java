@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.gcolin.common.test;
+
+import net.gcolin.common.collection.IntObjectMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class IntObjectMapTest {
+
+	@Test
+	public void testSimple() {
+		IntObjectMap<String> map = new IntObjectMap<>();
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.put(0, "zero"));
+		Assert.assertNull(map.put(-5, "minus five"));
+		Assert.assertEquals("zero", map.put(0, "0"));
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals("0", map.get(0));
+		Assert.assertTrue(map.containsKey(-5));
+		Assert.assertFalse(map.containsKey(5));
+		Assert.assertNull(map.get(5));
+		Assert.assertEquals("5", map.computeIfAbsent(5, String::valueOf));
+		Assert.assertEquals("5", map.computeIfAbsent(5, k -> "other"));
+
+		int[] keys = map.keys();
+		Arrays.sort(keys);
+		Assert.assertArrayEquals(new int[] { -5, 0, 5 }, keys);
+
+		Assert.assertEquals("minus five", map.remove(-5));
+		Assert.assertNull(map.remove(-5));
+		Assert.assertEquals(2, map.copy().size());
+		map.clear();
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.get(0));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testNullValue() {
+		new IntObjectMap<String>().put(1, null);
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(42);
+		IntObjectMap<Integer> map = new IntObjectMap<>(2);
+		Map<Integer, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 100000; i++) {
+			int key = random.nextInt(2000) * 64;
+			if (random.nextInt(3) == 0) {
+				Assert.assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				Assert.assertEquals(expected.put(key, i), map.put(key, i));
+			}
+			Assert.assertEquals(expected.size(), map.size());
+		}
+		for (int key = 0; key < 2000 * 64; key += 64) {
+			Assert.assertEquals(expected.get(key), map.get(key));
+		}
+		Map<Integer, Integer> copy = new HashMap<>();
+		map.forEach(copy::put);
+		Assert.assertEquals(expected, copy);
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.gcolin.common.test;
+
+import net.gcolin.common.collection.LongObjectMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class LongObjectMapTest {
+
+	@Test
+	public void testSimple() {
+		LongObjectMap<String> map = new LongObjectMap<>();
+		Assert.assertNull(map.put(Long.MAX_VALUE, "max"));
+		Assert.assertNull(map.put(0L, "zero"));
+		Assert.assertEquals("max", map.get(Long.MAX_VALUE));
+		Assert.assertEquals("zero", map.remove(0L));
+		Assert.assertFalse(map.containsKey(0L));
+		Assert.assertEquals(1, map.size());
+		Assert.assertEquals("{" + Long.MAX_VALUE + "=max}", map.toString());
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(42);
+		LongObjectMap<Long> map = new LongObjectMap<>();
+		Map<Long, Long> expected = new HashMap<>();
+		for (int i = 0; i < 100000; i++) {
+			long key = (long) random.nextInt(2000) << 32;
+			if (random.nextInt(3) == 0) {
+				Assert.assertEquals(expected.remove(key), map.remove(key));
+			} else {
+				Assert.assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+			}
+		}
+		Map<Long, Long> copy = new HashMap<>();
+		map.forEach(copy::put);
+		Assert.assertEquals(expected, copy);
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.gcolin.common.test;
+
+import net.gcolin.common.collection.ObjectIntMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class ObjectIntMapTest {
+
+	@Test
+	public void testSimple() {
+		ObjectIntMap<String> map = new ObjectIntMap<>();
+		Assert.assertEquals(-1, map.get("a"));
+		Assert.assertEquals(-1, map.put("a", 1));
+		Assert.assertEquals(1, map.put("a", 2));
+		Assert.assertEquals(2, map.get("a"));
+		Assert.assertTrue(map.containsKey("a"));
+		Assert.assertEquals(2, map.remove("a"));
+		Assert.assertEquals(-1, map.remove("a"));
+		Assert.assertTrue(map.isEmpty());
+
+		ObjectIntMap<String> other = new ObjectIntMap<>(4, 0);
+		Assert.assertEquals(0, other.get("a"));
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(42);
+		ObjectIntMap<String> map = new ObjectIntMap<>();
+		Map<String, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 100000; i++) {
+			String key = "k" + random.nextInt(2000);
+			if (random.nextInt(3) == 0) {
+				Integer old = expected.remove(key);
+				Assert.assertEquals(old == null ? -1 : old.intValue(), map.remove(key));
+			} else {
+				Integer old = expected.put(key, i);
+				Assert.assertEquals(old == null ? -1 : old.intValue(), map.put(key, i));
+			}
+		}
+		Map<String, Integer> copy = new HashMap<>();
+		map.forEach(copy::put);
+		Assert.assertEquals(expected, copy);
+	}
+}
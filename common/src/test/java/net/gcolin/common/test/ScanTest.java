@@ -16,19 +16,28 @@
 package net.gcolin.common.test;
 
 import net.gcolin.common.io.Io;
+import net.gcolin.common.reflect.ClassFileReader;
 import net.gcolin.common.reflect.Scan;
+import net.gcolin.common.reflect.ScanIndex;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.logging.Logger;
 
@@ -36,6 +45,14 @@ public class ScanTest {
 
 	private static final Logger LOG = Logger.getLogger(ScanTest.class.getName());
 
+	@Retention(RetentionPolicy.RUNTIME)
+	public @interface Indexed {
+	}
+
+	@Indexed
+	public static class IndexedService implements Service {
+	}
+
 	@Test
 	public void scanBadUrl() throws MalformedURLException {
 		try {
@@ -133,4 +150,115 @@ public class ScanTest {
 		Assert.assertFalse(set.isEmpty());
 		Assert.assertEquals(1, set.size());
 	}
+
+	@Test
+	public void index() throws IOException {
+		ScanIndex index = ScanIndex.load(FileFinder.getTest().toURI().toURL());
+		Assert.assertNotNull(index);
+		ScanIndex.Entry entry = index.get(IndexedService.class.getName());
+		Assert.assertNotNull(entry);
+		Assert.assertArrayEquals(new String[] { Service.class.getName() }, entry.getSuperTypes());
+		Assert.assertTrue(entry.hasAnnotation(Indexed.class.getName()));
+		Assert.assertEquals(Boolean.TRUE, index.isSubtype(IndexedService.class.getName(), Service.class.getName()));
+		Assert.assertEquals(Boolean.FALSE, index.isSubtype(ScanTest.class.getName(), Service.class.getName()));
+		Assert.assertEquals(Boolean.FALSE, index.isSubtype(IndexedService.class.getName(), "java.lang.Runnable"));
+		Assert.assertNull(index.isSubtype("net.gcolin.common.test.BeanTest$IPair", "java.lang.Runnable"));
+		Assert.assertNull(ScanIndex.load(FileFinder.getMain().toURI().toURL()));
+	}
+
+	@Test
+	public void scanIndexed() throws IOException {
+		checkAnnotatedAndSubClasses(FileFinder.getTest().toURI().toURL());
+	}
+
+	@Test
+	public void scanIndexedJar() throws IOException {
+		File dir = FileFinder.getTest();
+		File tmpzip = new File(dir.getParentFile(), "test-classes.jar");
+		Io.zip(tmpzip, dir);
+
+		Assert.assertNotNull(ScanIndex.load(tmpzip.toURI().toURL()));
+		checkAnnotatedAndSubClasses(tmpzip.toURI().toURL());
+
+		if (!tmpzip.delete()) {
+			LOG.warning("cannot delete " + tmpzip);
+		}
+	}
+
+	@Test
+	public void scanNotIndexed() throws IOException {
+		Path dir = Files.createTempDirectory("scan");
+		try {
+			Io.copy(FileFinder.getTest().toPath(), dir);
+			Files.delete(dir.resolve(ScanIndex.LOCATION));
+			Assert.assertNull(ScanIndex.load(dir.toUri().toURL()));
+			checkAnnotatedAndSubClasses(dir.toUri().toURL());
+
+			ScanIndex index = Scan.index(dir.toUri().toURL());
+			ScanIndex generated = ScanIndex.load(FileFinder.getTest().toURI().toURL());
+			for (ScanIndex.Entry entry : generated.getEntries()) {
+				Assert.assertEquals(entry.toString(), index.get(entry.getName()).toString());
+			}
+		} finally {
+			Io.deleteDir(dir);
+		}
+	}
+
+	@Test
+	public void scanWithoutLoading() throws IOException {
+		List<String> names = new ArrayList<>();
+		Scan.classes(FileFinder.getMain().toURI().toURL(), e -> {
+			names.add(e.getName());
+			return false;
+		}, x -> Assert.fail(), ScanTest.class.getClassLoader());
+		Assert.assertTrue(names.contains(Scan.class.getName()));
+		Assert.assertTrue(names.contains(ScanIndex.Entry.class.getName()));
+	}
+
+	@Test
+	public void scanClassLoader() throws IOException {
+		Path dir = Files.createTempDirectory("scan");
+		try (URLClassLoader loader = new URLClassLoader(
+				new URL[] { dir.toUri().toURL(), FileFinder.getMain().toURI().toURL() },
+				ScanTest.class.getClassLoader())) {
+			Io.copy(FileFinder.getTest().toPath(), dir);
+			Files.delete(dir.resolve(ScanIndex.LOCATION));
+			ScanIndex index = Scan.index(loader);
+			Assert.assertNotNull(index.get(ScanTest.class.getName()));
+			Assert.assertNotNull(index.get(Scan.class.getName()));
+
+			Set<String> set = new HashSet<>();
+			Scan.subClasses(Service.class, x -> set.add(x.getName()), loader);
+			Assert.assertTrue(set.contains(Service1.class.getName()));
+			Assert.assertTrue(set.contains(IndexedService.class.getName()));
+		} finally {
+			Io.deleteDir(dir);
+		}
+	}
+
+	@Test
+	public void readClassFile() throws IOException {
+		try (InputStream in = ScanTest.class
+				.getResourceAsStream("/" + IndexedService.class.getName().replace('.', '/') + Scan.CLASS)) {
+			ScanIndex.Entry entry = ClassFileReader.read(in);
+			Assert.assertEquals(IndexedService.class.getName(), entry.getName());
+			Assert.assertArrayEquals(new String[] { Service.class.getName() }, entry.getSuperTypes());
+			Assert.assertArrayEquals(new String[] { Indexed.class.getName() }, entry.getAnnotations());
+		}
+	}
+
+	private void checkAnnotatedAndSubClasses(URL url) {
+		Set<Class<?>> set = new HashSet<>();
+		Scan.annotatedClasses(url, Indexed.class, x -> set.add(x), ScanTest.class.getClassLoader());
+		Assert.assertEquals(1, set.size());
+		Assert.assertTrue(set.contains(IndexedService.class));
+
+		set.clear();
+		Scan.subClasses(url, Service.class, x -> set.add(x), ScanTest.class.getClassLoader());
+		Assert.assertTrue(set.contains(Service1.class));
+		Assert.assertTrue(set.contains(Service2.class));
+		Assert.assertTrue(set.contains(IndexedService.class));
+		Assert.assertFalse(set.contains(Service.class));
+		Assert.assertFalse(set.contains(ScanTest.class));
+	}
 }
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.common.test;
+
+import net.gcolin.common.io.Io;
+import net.gcolin.common.io.Utf8Reader;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+public class Utf8ReaderTest {
+
+	@Test
+	public void testRead() throws IOException {
+		check("hello world");
+		check(Utf8WriterTest.MIXED);
+		check("\u007F\u0080߿ࠀ￿􏿿𝠀");
+		check(Utf8WriterTest.text(Io.BUFFER_SIZE * 3));
+		for (int i = 0; i < 4; i++) {
+			StringBuilder str = new StringBuilder();
+			for (int j = 0; j < Io.BUFFER_SIZE - i; j++) {
+				str.append('a');
+			}
+			check(str.append(Utf8WriterTest.MIXED).toString());
+		}
+	}
+
+	@Test
+	public void testSmallReads() throws IOException {
+		String text = Utf8WriterTest.text(1000);
+		// the input stream returns one byte at a time
+		InputStream in = new FilterInputStream(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))) {
+
+			@Override
+			public int read(byte[] buf, int off, int len) throws IOException {
+				return super.read(buf, off, Math.min(1, len));
+			}
+		};
+		StringBuilder str = new StringBuilder();
+		try (Reader reader = new Utf8Reader(in)) {
+			char[] chars = new char[3];
+			int read;
+			while ((read = reader.read(chars)) != -1) {
+				str.append(chars, 0, read);
+			}
+		}
+		Assert.assertEquals(text, str.toString());
+	}
+
+	@Test
+	public void testReadChar() throws IOException {
+		String text = Utf8WriterTest.text(1000);
+		StringBuilder str = new StringBuilder();
+		try (Reader reader = new Utf8Reader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)))) {
+			int ch;
+			while ((ch = reader.read()) != -1) {
+				str.append((char) ch);
+			}
+		}
+		Assert.assertEquals(text, str.toString());
+	}
+
+	@Test
+	public void testSurrogateSplit() throws IOException {
+		try (Reader reader = new Utf8Reader(
+				new ByteArrayInputStream("a😀".getBytes(StandardCharsets.UTF_8)))) {
+			char[] chars = new char[2];
+			Assert.assertEquals(2, reader.read(chars));
+			Assert.assertEquals('a', chars[0]);
+			Assert.assertEquals('\uD83D', chars[1]);
+			Assert.assertTrue(reader.ready());
+			Assert.assertEquals(1, reader.read(chars));
+			Assert.assertEquals('\uDE00', chars[0]);
+			Assert.assertEquals(-1, reader.read(chars));
+		}
+	}
+
+	@Test
+	public void testMalformed() throws IOException {
+		checkBytes(new byte[] {'a', (byte) 0x80, 'b'});
+		checkBytes(new byte[] {'a', (byte) 0xC0, (byte) 0xAF, 'b'});
+		checkBytes(new byte[] {'a', (byte) 0xE0, (byte) 0x80, (byte) 0xAF, 'b'});
+		checkBytes(new byte[] {'a', (byte) 0xED, (byte) 0xA0, (byte) 0x80, 'b'});
+		checkBytes(new byte[] {'a', (byte) 0xE2, (byte) 0x82, 'b'});
+		checkBytes(new byte[] {'a', (byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80});
+		checkBytes(new byte[] {'a', (byte) 0xF0, (byte) 0x9F, (byte) 0x98});
+		checkBytes(new byte[] {'a', (byte) 0xFF});
+	}
+
+	@Test
+	public void testClose() throws IOException {
+		Reader reader = new Utf8Reader(new ByteArrayInputStream(new byte[0]));
+		Assert.assertEquals(-1, reader.read());
+		reader.close();
+		reader.close();
+		try {
+			reader.read();
+			Assert.fail();
+		} catch (IOException ex) {
+			// expected
+		}
+	}
+
+	private void check(String str) throws IOException {
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		try (Reader reader = new Utf8Reader(new ByteArrayInputStream(bytes))) {
+			Assert.assertEquals(str, Io.toString(reader));
+		}
+	}
+
+	private void checkBytes(byte[] bytes) throws IOException {
+		try (Reader reader = new Utf8Reader(new ByteArrayInputStream(bytes))) {
+			Assert.assertEquals(new String(bytes, StandardCharsets.UTF_8), Io.toString(reader));
+		}
+	}
+}
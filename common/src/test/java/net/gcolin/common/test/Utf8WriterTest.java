@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.common.test;
+
+import net.gcolin.common.io.Io;
+import net.gcolin.common.io.Utf8Writer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+public class Utf8WriterTest {
+
+	static final String MIXED = "hello é € 😀 ok";
+
+	static String text(int len) {
+		StringBuilder str = new StringBuilder();
+		while (str.length() < len) {
+			str.append(MIXED);
+		}
+		return str.toString();
+	}
+
+	@Test
+	public void testAscii() throws IOException {
+		check("hello world");
+		check(text(Io.BUFFER_SIZE * 3).replaceAll("[^a-z ]", "x"));
+	}
+
+	@Test
+	public void testMultiBytes() throws IOException {
+		check(MIXED);
+		check("\u007F\u0080߿ࠀ￿􏿿");
+		// the multi-byte chars cross the buffer boundary
+		for (int i = 0; i < 4; i++) {
+			StringBuilder str = new StringBuilder();
+			for (int j = 0; j < Io.BUFFER_SIZE - i; j++) {
+				str.append('a');
+			}
+			check(str.append(MIXED).toString());
+		}
+		check(text(Io.BUFFER_SIZE * 3));
+	}
+
+	@Test
+	public void testSurrogateSplit() throws IOException {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		try (Writer writer = new Utf8Writer(bout)) {
+			writer.write("a\uD83D");
+			writer.write(new char[] {'\uDE00', 'b'});
+			writer.write('\uD83D');
+			writer.write('\uDE01');
+		}
+		Assert.assertEquals("a😀b😁", new String(bout.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testUnpairedSurrogate() throws IOException {
+		check("a\uDE00b");
+		check("a\uD83Db");
+		check("a\uD83D😀");
+		check("a\uD83D");
+	}
+
+	@Test
+	public void testChars() throws IOException {
+		String text = text(Io.BUFFER_SIZE * 2);
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		try (Writer writer = new Utf8Writer(bout)) {
+			char[] chars = text.toCharArray();
+			for (int i = 0; i < chars.length; i += 7) {
+				writer.write(chars, i, Math.min(7, chars.length - i));
+			}
+		}
+		Assert.assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), bout.toByteArray());
+		bout.reset();
+		try (Writer writer = new Utf8Writer(bout)) {
+			for (int i = 0; i < text.length(); i++) {
+				writer.write(text.charAt(i));
+			}
+		}
+		Assert.assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), bout.toByteArray());
+	}
+
+	@Test
+	public void testAppend() throws IOException {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		try (Writer writer = new Utf8Writer(bout)) {
+			writer.append("é").append(new StringBuilder("abc€d"), 3, 5).append(null).append('!');
+		}
+		Assert.assertEquals("é€dnull!", new String(bout.toByteArray(), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testFlushAndClose() throws IOException {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		Writer writer = new Utf8Writer(bout);
+		writer.write("é");
+		Assert.assertEquals(0, bout.size());
+		writer.flush();
+		Assert.assertEquals(2, bout.size());
+		writer.close();
+		writer.close();
+		try {
+			writer.write("a");
+			Assert.fail();
+		} catch (IOException ex) {
+			// expected
+		}
+	}
+
+	private void check(String str) throws IOException {
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		try (Writer writer = new Utf8Writer(bout)) {
+			writer.write(str);
+		}
+		Assert.assertArrayEquals(str.getBytes(StandardCharsets.UTF_8), bout.toByteArray());
+	}
+}
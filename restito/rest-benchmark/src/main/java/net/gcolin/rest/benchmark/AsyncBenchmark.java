@@ -0,0 +1,115 @@
+package net.gcolin.rest.benchmark;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.Application;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.gcolin.rest.Environment;
+import net.gcolin.rest.servlet.RestServlet;
+
+/**
+ * A load test with a slow backend. A batch of concurrent requests is served by
+ * a fixed pool of container threads. The blocking resource holds a container
+ * thread during the backend call whereas the CompletionStage resource releases
+ * it. The virtual thread resource blocks a virtual thread, before Java 21 it
+ * behaves like the blocking one.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsyncBenchmark {
+
+	@Param({ "8" })
+	int workers;
+
+	@Param({ "256" })
+	int requests;
+
+	@Param({ "5" })
+	long delay;
+
+	RestServlet servlet;
+	ExecutorService container;
+	ScheduledExecutorService backend;
+
+	@Setup
+	public void setup() throws ServletException {
+		container = Executors.newFixedThreadPool(workers);
+		backend = Executors.newScheduledThreadPool(2);
+		SlowResource resource = new SlowResource(backend, delay);
+		servlet = new RestServlet().env(new Environment()).app(new Application() {
+
+			@Override
+			public Set<Object> getSingletons() {
+				return Collections.singleton(resource);
+			}
+		});
+	}
+
+	@TearDown
+	public void tearDown() {
+		container.shutdownNow();
+		backend.shutdownNow();
+	}
+
+	private void load(String path) throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(requests);
+		AsyncContext asyncContext = Stubs.asyncContext(latch);
+		for (int i = 0; i < requests; i++) {
+			container.execute(() -> {
+				boolean[] async = new boolean[1];
+				HttpServletRequest request = Stubs.request(path, asyncContext, async);
+				HttpServletResponse response = Stubs.response();
+				try {
+					servlet.service(request, response);
+				} catch (Exception ex) {
+					throw new IllegalStateException(ex);
+				} finally {
+					if (!async[0]) {
+						latch.countDown();
+					}
+				}
+			});
+		}
+		if (!latch.await(1, TimeUnit.MINUTES)) {
+			throw new IllegalStateException("timeout");
+		}
+	}
+
+	@Benchmark
+	public void blocking() throws InterruptedException {
+		load("/slow/blocking");
+	}
+
+	@Benchmark
+	public void virtualThread() throws InterruptedException {
+		load("/slow/virtual");
+	}
+
+	@Benchmark
+	public void async() throws InterruptedException {
+		load("/slow/async");
+	}
+
+}
@@ -0,0 +1,80 @@
+package net.gcolin.rest.benchmark;
+
+import java.util.Collections;
+import java.util.Set;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.Application;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.gcolin.rest.Environment;
+import net.gcolin.rest.server.Invoker;
+import net.gcolin.rest.server.Invokers;
+import net.gcolin.rest.server.Resource;
+import net.gcolin.rest.servlet.RestServlet;
+
+/**
+ * The overhead of a request dispatch without I/O: routing, negotiation,
+ * parameters, invocation and writing to a discarding stream. The
+ * {@code reflect} invoker is the {@code Method.invoke} used before the method
+ * handles. The {@code invoke} benchmark measures the invoker alone.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchBenchmark {
+
+	private static final String PATH = "/dispatch/42";
+
+	@Param({ "reflect", "methodHandle" })
+	String invoker;
+
+	RestServlet servlet;
+	HttpServletRequest request;
+	HttpServletResponse response;
+	Invoker target;
+	Object instance = new DispatchResource();
+	Object[] args = { 42 };
+
+	@Setup
+	public void setup() throws ServletException, IllegalAccessException {
+		servlet = new RestServlet().env(new Environment()).app(new Application() {
+
+			@Override
+			public Set<Object> getSingletons() {
+				return Collections.singleton(new DispatchResource());
+			}
+		});
+		Resource resource = (Resource) servlet.getRouter().get(PATH.substring(1)).getResult().get("GET");
+		if ("reflect".equals(invoker)) {
+			resource.setInvoker(Invokers.reflect(resource.getResourceMethod()));
+		} else {
+			resource.setInvoker(Invokers.methodHandle(resource.getResourceMethod()));
+		}
+		target = resource.getInvoker();
+		request = Stubs.request(PATH, null, new boolean[1]);
+		response = Stubs.response();
+	}
+
+	@Benchmark
+	public void dispatch() throws Exception {
+		servlet.service(request, response);
+	}
+
+	@Benchmark
+	public Object invoke() throws Exception {
+		return target.invoke(instance, args);
+	}
+
+}
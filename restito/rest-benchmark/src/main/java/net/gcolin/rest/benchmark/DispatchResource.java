@@ -0,0 +1,22 @@
+package net.gcolin.rest.benchmark;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * A resource with a primitive parameter and a trivial body, so that the
+ * dispatch dominates.
+ */
+@Path("dispatch")
+@Produces(MediaType.TEXT_PLAIN)
+public class DispatchResource {
+
+	@GET
+	@Path("{id}")
+	public String get(@PathParam("id") int id) {
+		return id > 0 ? "ok" : "ko";
+	}
+}
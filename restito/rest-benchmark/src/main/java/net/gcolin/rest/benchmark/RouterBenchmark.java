@@ -0,0 +1,105 @@
+package net.gcolin.rest.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.gcolin.rest.router.CompiledRouter;
+import net.gcolin.rest.router.HasPath;
+import net.gcolin.rest.router.RouteMatch;
+import net.gcolin.rest.router.Router;
+import net.gcolin.rest.router.RouterResponse;
+
+/**
+ * Route lookups on a REST API with 600 resources. Run with {@code -prof gc}
+ * for comparing the allocations.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouterBenchmark {
+
+	private static final String[] ENTITIES = { "users", "orders", "items", "invoices", "products", "customers",
+			"carts", "payments", "shipments", "reviews", "categories", "stores", "employees", "suppliers", "coupons" };
+
+	@Param({ "600" })
+	int routes;
+
+	Router<Route> router;
+	CompiledRouter<Route> compiled;
+	String[] paths;
+	int index;
+	RouteMatch<Route> match = new RouteMatch<>();
+
+	@Setup
+	public void setup() {
+		router = new Router<>();
+		List<String> lookups = new ArrayList<>();
+		int count = 0;
+		for (int version = 1; count < routes; version++) {
+			for (int e = 0; e < ENTITIES.length && count < routes; e++) {
+				String base = "api/v" + version + "/" + ENTITIES[e];
+				String[] templates = { base, base + "/{id:\\d+}", base + "/{id:\\d+}/history", base + "/search/{term}",
+						base + "/{id:\\d+}/children/{child}", base + "/export", base + "/{slug:[a-z-]+}",
+						base + "/files/{file:.+}" };
+				String[] samples = { base, base + "/42", base + "/42/history", base + "/search/bob",
+						base + "/42/children/7", base + "/export", base + "/my-slug", base + "/files/a/b/c.txt" };
+				for (int t = 0; t < templates.length && count < routes; t++) {
+					router.add(new Route(templates[t]));
+					lookups.add(samples[t]);
+					count++;
+				}
+			}
+		}
+		compiled = router.compile();
+		List<String> shuffled = new ArrayList<>();
+		Random random = new Random(42);
+		for (int i = 0; i < 1024; i++) {
+			shuffled.add(lookups.get(random.nextInt(lookups.size())));
+		}
+		paths = shuffled.toArray(new String[0]);
+	}
+
+	private String next() {
+		String path = paths[index];
+		index = (index + 1) & (paths.length - 1);
+		return path;
+	}
+
+	@Benchmark
+	public void router(Blackhole bh) {
+		bh.consume(router.get(next(), 0, new RouterResponse<>()));
+	}
+
+	@Benchmark
+	public void compiled(Blackhole bh) {
+		bh.consume(compiled.get(next(), 0, match));
+		bh.consume(match.getResult());
+	}
+
+	public static class Route implements HasPath {
+
+		private final String path;
+
+		public Route(String path) {
+			this.path = path;
+		}
+
+		@Override
+		public String getPath() {
+			return path;
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+package net.gcolin.rest.benchmark;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+import net.gcolin.rest.servlet.VirtualThread;
+
+/**
+ * A resource calling a backend that answers after a delay.
+ */
+@Path("slow")
+@Produces(MediaType.TEXT_PLAIN)
+public class SlowResource {
+
+	private final ScheduledExecutorService backend;
+	private final long delay;
+
+	public SlowResource(ScheduledExecutorService backend, long delay) {
+		this.backend = backend;
+		this.delay = delay;
+	}
+
+	@GET
+	@Path("blocking")
+	public String blocking() throws InterruptedException {
+		Thread.sleep(delay);
+		return "ok";
+	}
+
+	@GET
+	@Path("virtual")
+	@VirtualThread
+	public String virtual() throws InterruptedException {
+		Thread.sleep(delay);
+		return "ok";
+	}
+
+	@GET
+	@Path("async")
+	public CompletionStage<String> async() {
+		CompletableFuture<String> result = new CompletableFuture<>();
+		backend.schedule(() -> result.complete("ok"), delay, TimeUnit.MILLISECONDS);
+		return result;
+	}
+}
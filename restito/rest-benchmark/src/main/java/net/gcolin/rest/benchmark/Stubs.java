@@ -0,0 +1,101 @@
+package net.gcolin.rest.benchmark;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Minimal servlet request and response for driving a RestServlet without a
+ * container. The latch is counted down when the response is completed.
+ */
+public class Stubs {
+
+	private static final ServletOutputStream DISCARD = new ServletOutputStream() {
+
+		@Override
+		public void write(int bt) throws IOException {
+			// discard
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			// discard
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+	};
+
+	private Stubs() {
+	}
+
+	public static HttpServletRequest request(String path, AsyncContext asyncContext, boolean[] async) {
+		return (HttpServletRequest) Proxy.newProxyInstance(Stubs.class.getClassLoader(),
+				new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "getMethod":
+						return "GET";
+					case "getPathInfo":
+						return path;
+					case "getHeaderNames":
+						return Collections.enumeration(Collections.singleton("Accept"));
+					case "getHeaders":
+						return Collections.enumeration(Collections.singleton("text/plain"));
+					case "getHeader":
+						return "Accept".equalsIgnoreCase((String) args[0]) ? "text/plain" : null;
+					case "startAsync":
+						async[0] = true;
+						return asyncContext;
+					case "isAsyncStarted":
+						return async[0];
+					default:
+						return defaultValue(method.getReturnType());
+					}
+				});
+	}
+
+	public static HttpServletResponse response() {
+		return (HttpServletResponse) Proxy.newProxyInstance(Stubs.class.getClassLoader(),
+				new Class<?>[] { HttpServletResponse.class }, (proxy, method, args) -> {
+					if ("getOutputStream".equals(method.getName())) {
+						return DISCARD;
+					}
+					return defaultValue(method.getReturnType());
+				});
+	}
+
+	public static AsyncContext asyncContext(CountDownLatch latch) {
+		return (AsyncContext) Proxy.newProxyInstance(Stubs.class.getClassLoader(), new Class<?>[] { AsyncContext.class },
+				(proxy, method, args) -> {
+					if ("complete".equals(method.getName())) {
+						latch.countDown();
+					}
+					return defaultValue(method.getReturnType());
+				});
+	}
+
+	private static Object defaultValue(Class<?> type) {
+		if (type == boolean.class) {
+			return false;
+		} else if (type == int.class) {
+			return 0;
+		} else if (type == long.class) {
+			return 0L;
+		}
+		return null;
+	}
+}
@@ -37,15 +37,26 @@ import javax.ws.rs.ext.RuntimeDelegate.HeaderDelegate;
  */
 public class FastMediaType extends MediaType {
 
+  /**
+   * The id of a media type that is not interned.
+   */
+  public static final int NO_ID = -1;
+  /**
+   * The maximum number of interned media types. Above, {@link #valueOf(String)}
+   * returns media types without id.
+   */
+  public static final int MAX_INTERNED = 1024;
   private static final int WILDCARD_INDEX = -1;
+  private static final int UNKNOWN_INDEX = -2;
+  private static final Object LOCK = new Object();
   private static Map<String, Integer> map = new ConcurrentHashMap<>();
   private static Map<String, FastMediaType> cache = new ConcurrentHashMap<>();
   private static final AtomicInteger INDEX = new AtomicInteger(0);
-  private static int idseq = 0;
+  private static final AtomicInteger ID_SEQUENCE = new AtomicInteger(0);
   private String mediaType;
   private int type;
   private int subtype;
-  private int id;
+  private int id = NO_ID;
   private Charset charset;
   private static final HeaderDelegate<MediaType> HD =
       RuntimeDelegate.getInstance().createHeaderDelegate(MediaType.class);
@@ -65,8 +76,8 @@ public class FastMediaType extends MediaType {
   public FastMediaType(String mediaType, String type, String subtype,
       Map<String, String> parameters) {
     super(type, subtype, parameters);
-    this.type = find(type);
-    this.subtype = find(subtype);
+    this.type = lookup(type);
+    this.subtype = lookup(subtype);
     this.mediaType = mediaType;
   }
 
@@ -86,6 +97,13 @@ public class FastMediaType extends MediaType {
   /**
    * Get a FastMediaType from a text representation.
    * 
+   * <p>
+   * The media types without parameter are interned up to
+   * {@link #MAX_INTERNED} and get a dense id, so the same text gives the same
+   * instance. When the table is full, the unknown media types are parsed at
+   * each call and have the id {@link #NO_ID}.
+   * </p>
+   * 
    * @param mediaType a text representation
    * @return a FastMediaType
    */
@@ -95,9 +113,7 @@ public class FastMediaType extends MediaType {
       int paramSplit = mediaType.indexOf(';');
       // don't cache parameters
       if (paramSplit == -1) {
-        mt = (FastMediaType) HD.fromString(mediaType);
-        mt.id = idseq++;
-        cache.put(mediaType, mt);
+        mt = intern(mediaType, (FastMediaType) HD.fromString(mediaType));
       } else {
         String basemediaType = mediaType.substring(0, paramSplit).trim();
         return valueOf(basemediaType).withParameters(mediaType, paramSplit);
@@ -106,6 +122,32 @@ public class FastMediaType extends MediaType {
     return mt;
   }
 
+  private static FastMediaType intern(String key, FastMediaType parsed) {
+    synchronized (LOCK) {
+      FastMediaType mt = cache.get(key);
+      if (mt != null) {
+        return mt;
+      }
+      if (cache.size() >= MAX_INTERNED) {
+        return parsed;
+      }
+      parsed.type = find(parsed.getType());
+      parsed.subtype = find(parsed.getSubtype());
+      parsed.id = ID_SEQUENCE.getAndIncrement();
+      cache.put(key, parsed);
+      return parsed;
+    }
+  }
+
+  /**
+   * Get the number of interned media types.
+   * 
+   * @return the number of interned media types
+   */
+  public static int getInternedCount() {
+    return ID_SEQUENCE.get();
+  }
+
   /**
    * Convert a MediaType to a FastMediaType.
    * 
@@ -136,13 +178,13 @@ public class FastMediaType extends MediaType {
     return mt;
   }
 
-  private int find(String representation) {
+  private static int find(String representation) {
+    return map.computeIfAbsent(representation, k -> INDEX.getAndIncrement());
+  }
+
+  private static int lookup(String representation) {
     Integer idx = map.get(representation);
-    if (idx == null) {
-      map.put(representation, INDEX.get());
-      idx = INDEX.getAndIncrement();
-    }
-    return idx;
+    return idx == null ? UNKNOWN_INDEX : idx;
   }
 
   /**
@@ -152,9 +194,17 @@ public class FastMediaType extends MediaType {
    * @return {@code true} if compatible
    */
   public boolean isCompatible(FastMediaType other) {
-    return other != null
-        && (isBothWildCard(other) || isBothSubTypeWildcard(other) || isBothSame(other));
+    if (other == null) {
+      return false;
+    }
+    if (isUnknown() || other.isUnknown()) {
+      return super.isCompatible(other);
+    }
+    return isBothWildCard(other) || isBothSubTypeWildcard(other) || isBothSame(other);
+  }
 
+  private boolean isUnknown() {
+    return type == UNKNOWN_INDEX || subtype == UNKNOWN_INDEX;
   }
 
   private boolean isBothWildCard(FastMediaType other) {
@@ -188,6 +238,11 @@ public class FastMediaType extends MediaType {
     return type == WILDCARD_INDEX;
   }
 
+  /**
+   * Get the id of the media type without parameter.
+   * 
+   * @return a dense id or {@link #NO_ID} if the media type is not interned
+   */
   public int getId() {
     return id;
   }
@@ -225,6 +225,16 @@ public class BuilderImpl implements Builder {
     return new InvocationImpl(null, uriBuilder, properties, headers, builder, clientImpl, null);
   }
 
+  /**
+   * Get an invoker that returns a CompletionStage.
+   * 
+   * @return a new invoker
+   */
+  public CompletionStageInvoker rx() {
+    clientImpl.checkOpen();
+    return new CompletionStageInvoker(this);
+  }
+
   @Override
   public Builder accept(String... mediaTypes) {
     for (String l : mediaTypes) {
@@ -21,6 +21,7 @@ import net.gcolin.rest.util.SslConfigurator;
 
 import java.security.KeyStore;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Supplier;
 
 import javax.net.ssl.HostnameVerifier;
@@ -43,6 +44,7 @@ public class ClientBuilderImpl extends ClientBuilder {
   private HostnameVerifier hostnameVerifier;
   private SSLContext sslContext;
   private SslConfigurator sslConfigurator;
+  private ClientTransportFactory transportFactory = new HttpClientTransportFactory();
 
   @Override
   public Configuration getConfiguration() {
@@ -152,6 +154,18 @@ public class ClientBuilderImpl extends ClientBuilder {
     return this;
   }
 
+  /**
+   * Set the HTTP layer of the clients.
+   * 
+   * @param transportFactory a factory, a {@link HttpClientTransportFactory} by
+   *        default
+   * @return this
+   */
+  public ClientBuilderImpl transport(ClientTransportFactory transportFactory) {
+    this.transportFactory = Objects.requireNonNull(transportFactory);
+    return this;
+  }
+
   @Override
   public Client build() {
     Supplier<SSLContext> sslContextSupplier;
@@ -173,7 +187,8 @@ public class ClientBuilderImpl extends ClientBuilder {
       sslContextSupplier = () -> sslContext;
     }
 
-    return new ClientImpl(configuration.newInstance(), hostnameVerifier, sslContextSupplier);
+    return new ClientImpl(configuration.newInstance(), hostnameVerifier, sslContextSupplier,
+        transportFactory);
   }
 
 }
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * A request sent by a {@link ClientTransport}.
+ * 
+ * <p>The headers are sent with the first call to {@link #body(long)} or
+ * {@link #response()}. The body is not buffered by the transport.</p>
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public interface ClientExchange {
+
+  /**
+   * Send the headers and get the stream of the request body. The request is
+   * completed when the stream is closed.
+   * 
+   * @param length the size of the body or {@code -1} if it is unknown
+   * @return the stream of the request body
+   * @throws IOException if an I/O error occurs.
+   */
+  OutputStream body(long length) throws IOException;
+
+  /**
+   * Wait for the response. The request is sent without a body if
+   * {@link #body(long)} was not called.
+   * 
+   * @return the response
+   * @throws IOException if an I/O error occurs.
+   */
+  TransportResponse response() throws IOException;
+
+  /**
+   * Release the resources of a request that fails before its response.
+   */
+  void abort();
+
+  /**
+   * Send the request without blocking the caller. A buffered body of the
+   * response is read before the stage completes, so the response can be read
+   * without blocking. Otherwise the stage completes with the headers and the
+   * body is streamed.
+   * 
+   * <p>Cancelling the stage cancels the request and closes a response received
+   * after the cancellation. By default, the request is sent by a task of the
+   * executor.</p>
+   * 
+   * @param body the body of the request or {@code null}
+   * @param buffer {@code true} for reading the body of the response in memory
+   * @param executor the executor of the client
+   * @return the response
+   */
+  default CompletionStage<TransportResponse> sendAsync(byte[] body, boolean buffer,
+      Executor executor) {
+    CompletableFuture<TransportResponse> result = new CompletableFuture<>();
+    executor.execute(() -> {
+      if (result.isCancelled()) {
+        return;
+      }
+      TransportResponse response = null;
+      try {
+        if (body != null) {
+          try (OutputStream out = body(body.length)) {
+            out.write(body);
+          }
+        }
+        response = response();
+        if (buffer) {
+          InputStream in = response.getInputStream();
+          TransportResponse buffered = new BufferedTransportResponse(response.getStatus(),
+              response.getHeaders(), in == null ? new byte[0] : in.readAllBytes());
+          response.close();
+          response = buffered;
+        }
+        if (!result.complete(response)) {
+          // received after the cancellation
+          response.close();
+        }
+      } catch (IOException | RuntimeException ex) {
+        if (response == null) {
+          abort();
+        } else {
+          response.close();
+        }
+        result.completeExceptionally(ex);
+      }
+    });
+    return result;
+  }
+
+}
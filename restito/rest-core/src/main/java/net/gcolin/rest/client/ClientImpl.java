@@ -66,12 +66,15 @@ public class ClientImpl extends ConfigurableImpl<Client> implements Client {
   private List<NewCookie> cookies = Collections.synchronizedList(new ArrayList<>());
   private ExecutorService asyncInvocationExecutor;
   private boolean closeExecutor;
+  private ClientTransportFactory transportFactory;
+  private ClientTransport transport;
 
   ClientImpl(RestConfiguration restConfiguration, HostnameVerifier hostnameVerifier,
-      Supplier<SSLContext> sslContext) {
+      Supplier<SSLContext> sslContext, ClientTransportFactory transportFactory) {
     super(restConfiguration);
     this.hostnameVerifier = hostnameVerifier;
     this.sslContext = sslContext;
+    this.transportFactory = transportFactory;
   }
 
   public List<NewCookie> getCookies() {
@@ -89,13 +92,26 @@ public class ClientImpl extends ConfigurableImpl<Client> implements Client {
         }
       }
       if (asyncInvocationExecutor == null) {
+        // only the blocking transports and the callbacks use it
         closeExecutor = true;
-        asyncInvocationExecutor = Executors.newSingleThreadExecutor();
+        asyncInvocationExecutor = Executors.newCachedThreadPool();
       }
     }
     return asyncInvocationExecutor;
   }
 
+  /**
+   * Get the transport of the client. It is created at the first request.
+   * 
+   * @return the transport
+   */
+  public synchronized ClientTransport getTransport() {
+    if (transport == null) {
+      transport = transportFactory.create(this);
+    }
+    return transport;
+  }
+
   public Environment getEnvironment() {
     return environment;
   }
@@ -133,6 +149,11 @@ public class ClientImpl extends ConfigurableImpl<Client> implements Client {
       if (closeExecutor && asyncInvocationExecutor != null) {
         asyncInvocationExecutor.shutdown();
       }
+      synchronized (this) {
+        if (transport != null) {
+          transport.close();
+        }
+      }
     }
   }
 
@@ -81,6 +81,10 @@ public class ClientRequestContextImpl implements ClientRequestContext {
     return abortResponse;
   }
 
+  Map<String, Object> getProperties() {
+    return properties;
+  }
+
   @Override
   public Object getProperty(String name) {
     return properties.get(name);
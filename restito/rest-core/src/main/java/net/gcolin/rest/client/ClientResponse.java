@@ -30,7 +30,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
-import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URLConnection;
 import java.util.Date;
@@ -60,7 +59,7 @@ import javax.ws.rs.ext.ReaderInterceptor;
  */
 public class ClientResponse extends AbstractResponse {
 
-	private URLConnection conn;
+	private TransportResponse transport;
 	private Object entity;
 	private ByteArrayInputStream buffer;
 	private MultivaluedMap<String, String> stringheaders;
@@ -78,11 +77,19 @@ public class ClientResponse extends AbstractResponse {
 	 * @throws IOException if an I/O error occurs.
 	 */
 	public ClientResponse(URLConnection conn, ClientFeatureBuilder builder) throws IOException {
-		this.conn = conn;
+		this(UrlConnectionTransport.response(conn), builder);
+	}
+
+	/**
+	 * Create a ClientResponse
+	 * 
+	 * @param transport a response of the transport
+	 * @param builder features helper
+	 */
+	public ClientResponse(TransportResponse transport, ClientFeatureBuilder builder) {
+		this.transport = transport;
 		this.builder = builder;
-		if (conn instanceof HttpURLConnection) {
-			status = ((HttpURLConnection) conn).getResponseCode();
-		}
+		status = transport.getStatus();
 		extractHeaders();
 	}
 
@@ -94,7 +101,7 @@ public class ClientResponse extends AbstractResponse {
 	public InputStream getInput() {
 		if (input == null) {
 			try {
-				input = hasHttpError() ? ((HttpURLConnection) conn).getErrorStream() : conn.getInputStream();
+				input = transport.getInputStream();
 			} catch (IOException ex) {
 				throw new ResponseProcessingException(this, "cannot get input", ex);
 			}
@@ -103,7 +110,7 @@ public class ClientResponse extends AbstractResponse {
 	}
 
 	public boolean hasHttpError() {
-		return status >= 400 && conn instanceof HttpURLConnection;
+		return status >= 400;
 	}
 
 	/**
@@ -190,7 +197,7 @@ public class ClientResponse extends AbstractResponse {
 		if (buffer == null) {
 			InputStream in = null;
 			try (ByteArrayOutputStream bout = new ByteArrayOutputStream()) {
-				in = conn.getInputStream();
+				in = getInput();
 				Io.copy(in, bout);
 				buffer = new ByteArrayInputStream(bout.toByteArray());
 				bout.release();
@@ -208,7 +215,7 @@ public class ClientResponse extends AbstractResponse {
 
 	@Override
 	public void close() {
-		Io.close(conn);
+		transport.close();
 	}
 
 	@Override
@@ -227,7 +234,7 @@ public class ClientResponse extends AbstractResponse {
 		MultivaluedMap<String, String> sheaders = pair.getValue();
 		MultivaluedMap<String, Object> ho = pair.getKey();
 
-		for (Entry<String, List<String>> header : conn.getHeaderFields().entrySet()) {
+		for (Entry<String, List<String>> header : transport.getHeaders().entrySet()) {
 			if (header.getKey() == null) {
 				continue;
 			}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The HTTP layer of the REST client. A transport is created for each
+ * {@link ClientImpl} by a {@link ClientTransportFactory} and is closed with it.
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public interface ClientTransport extends Closeable {
+
+  /**
+   * Prepare a request. Nothing is sent until the body or the response is asked.
+   * 
+   * @param uri the URI of the request
+   * @param method the HTTP method
+   * @param headers the headers of the request
+   * @return a new exchange
+   * @throws IOException if an I/O error occurs.
+   */
+  ClientExchange exchange(URI uri, String method, Map<String, List<String>> headers)
+      throws IOException;
+
+  /**
+   * Release the connections.
+   */
+  @Override
+  void close();
+
+}
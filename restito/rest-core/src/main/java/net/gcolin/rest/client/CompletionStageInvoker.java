@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.client;
+
+import java.util.concurrent.CompletionStage;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+
+/**
+ * An invoker that returns a CompletionStage, like the
+ * {@code CompletionStageRxInvoker} of JAX-RS 2.1. The requests are sent without
+ * blocking a thread.
+ * 
+ * @see BuilderImpl#rx()
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class CompletionStageInvoker {
+
+  private static final String GET = "GET";
+  private static final String PUT = "PUT";
+  private static final String POST = "POST";
+  private static final String DELETE = "DELETE";
+  private static final String HEAD = "HEAD";
+  private static final String OPTIONS = "OPTIONS";
+  private static final String TRACE = "TRACE";
+
+  private final BuilderImpl builder;
+
+  CompletionStageInvoker(BuilderImpl builder) {
+    this.builder = builder;
+  }
+
+  public CompletionStage<Response> get() {
+    return method(GET);
+  }
+
+  public <T> CompletionStage<T> get(Class<T> responseType) {
+    return method(GET, responseType);
+  }
+
+  public <T> CompletionStage<T> get(GenericType<T> responseType) {
+    return method(GET, responseType);
+  }
+
+  public CompletionStage<Response> put(Entity<?> entity) {
+    return method(PUT, entity);
+  }
+
+  public <T> CompletionStage<T> put(Entity<?> entity, Class<T> responseType) {
+    return method(PUT, entity, responseType);
+  }
+
+  public <T> CompletionStage<T> put(Entity<?> entity, GenericType<T> responseType) {
+    return method(PUT, entity, responseType);
+  }
+
+  public CompletionStage<Response> post(Entity<?> entity) {
+    return method(POST, entity);
+  }
+
+  public <T> CompletionStage<T> post(Entity<?> entity, Class<T> responseType) {
+    return method(POST, entity, responseType);
+  }
+
+  public <T> CompletionStage<T> post(Entity<?> entity, GenericType<T> responseType) {
+    return method(POST, entity, responseType);
+  }
+
+  public CompletionStage<Response> delete() {
+    return method(DELETE);
+  }
+
+  public <T> CompletionStage<T> delete(Class<T> responseType) {
+    return method(DELETE, responseType);
+  }
+
+  public <T> CompletionStage<T> delete(GenericType<T> responseType) {
+    return method(DELETE, responseType);
+  }
+
+  public CompletionStage<Response> head() {
+    return method(HEAD);
+  }
+
+  public CompletionStage<Response> options() {
+    return method(OPTIONS);
+  }
+
+  public <T> CompletionStage<T> options(Class<T> responseType) {
+    return method(OPTIONS, responseType);
+  }
+
+  public <T> CompletionStage<T> options(GenericType<T> responseType) {
+    return method(OPTIONS, responseType);
+  }
+
+  public CompletionStage<Response> trace() {
+    return method(TRACE);
+  }
+
+  public <T> CompletionStage<T> trace(Class<T> responseType) {
+    return method(TRACE, responseType);
+  }
+
+  public <T> CompletionStage<T> trace(GenericType<T> responseType) {
+    return method(TRACE, responseType);
+  }
+
+  public CompletionStage<Response> method(String name) {
+    return invocation(name, null).invokeAsync();
+  }
+
+  public <T> CompletionStage<T> method(String name, Class<T> responseType) {
+    return invocation(name, null).invokeAsync(responseType);
+  }
+
+  public <T> CompletionStage<T> method(String name, GenericType<T> responseType) {
+    return invocation(name, null).invokeAsync(responseType);
+  }
+
+  public CompletionStage<Response> method(String name, Entity<?> entity) {
+    return invocation(name, entity).invokeAsync();
+  }
+
+  public <T> CompletionStage<T> method(String name, Entity<?> entity, Class<T> responseType) {
+    return invocation(name, entity).invokeAsync(responseType);
+  }
+
+  public <T> CompletionStage<T> method(String name, Entity<?> entity,
+      GenericType<T> responseType) {
+    return invocation(name, entity).invokeAsync(responseType);
+  }
+
+  private InvocationImpl invocation(String name, Entity<?> entity) {
+    return (InvocationImpl) builder.build(name, entity);
+  }
+
+}
@@ -0,0 +1,465 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.client;
+
+import net.gcolin.common.io.Io;
+import net.gcolin.rest.Logs;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.ws.rs.ProcessingException;
+
+/**
+ * A {@link ClientTransport} backed by a {@link HttpClient}. The connections are
+ * pooled by the HttpClient and the requests to a HTTP/2 server are multiplexed
+ * on one connection. The asynchronous requests do not use a thread while they
+ * wait for the server.
+ * 
+ * <p>The number of concurrent requests to a host can be limited. The requests
+ * over the limit wait, for a bounded time, for a previous response to be read
+ * or closed.</p>
+ * 
+ * @see HttpClientTransportFactory
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class HttpClientTransport implements ClientTransport {
+
+  // set by the HttpClient
+  private static final Set<String> RESTRICTED_HEADERS = new HashSet<>(
+      Arrays.asList("connection", "content-length", "expect", "host", "upgrade"));
+
+  static final Duration DEFAULT_ACQUIRE_TIMEOUT = Duration.ofSeconds(30);
+  private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+  private final HttpClient client;
+  private final int maxRequestsPerHost;
+  private final long acquireTimeout;
+  private final Map<String, HostLimit> limits = new ConcurrentHashMap<>();
+
+  /**
+   * Create a HttpClientTransport.
+   * 
+   * @param client the HttpClient
+   * @param maxRequestsPerHost the maximum number of concurrent requests to a
+   *        host or {@code 0} for no limit
+   */
+  public HttpClientTransport(HttpClient client, int maxRequestsPerHost) {
+    this(client, maxRequestsPerHost, DEFAULT_ACQUIRE_TIMEOUT);
+  }
+
+  /**
+   * Create a HttpClientTransport.
+   * 
+   * @param client the HttpClient
+   * @param maxRequestsPerHost the maximum number of concurrent requests to a
+   *        host or {@code 0} for no limit
+   * @param acquireTimeout the maximum time a request waits for the limit of its
+   *        host
+   */
+  public HttpClientTransport(HttpClient client, int maxRequestsPerHost,
+      Duration acquireTimeout) {
+    this.client = client;
+    this.maxRequestsPerHost = maxRequestsPerHost;
+    this.acquireTimeout = acquireTimeout.toMillis();
+  }
+
+  public HttpClient getHttpClient() {
+    return client;
+  }
+
+  @Override
+  public ClientExchange exchange(URI uri, String method, Map<String, List<String>> headers)
+      throws IOException {
+    HttpRequest.Builder request = HttpRequest.newBuilder(uri);
+    for (Entry<String, List<String>> header : headers.entrySet()) {
+      if (RESTRICTED_HEADERS.contains(header.getKey().toLowerCase(Locale.ENGLISH))) {
+        continue;
+      }
+      try {
+        for (String value : header.getValue()) {
+          request.header(header.getKey(), value);
+        }
+      } catch (IllegalArgumentException ex) {
+        // Java 11 also restricts Date, From, Origin, Referer, Via and Warning
+        Logs.LOG.debug("the HttpClient does not send the header {}", header.getKey());
+      }
+    }
+    String host = null;
+    if (maxRequestsPerHost > 0) {
+      host = uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+    }
+    return new Exchange(request, method, host);
+  }
+
+  @Override
+  public void close() {
+    // the HttpClient releases its connections when it is garbage collected
+  }
+
+  private class Exchange implements ClientExchange {
+
+    private final HttpRequest.Builder request;
+    private final String method;
+    private final String host;
+    private final AtomicBoolean acquired = new AtomicBoolean();
+    private volatile HostLimit limit;
+    private RequestBodyPublisher body;
+    private CompletableFuture<HttpResponse<InputStream>> future;
+    private volatile CompletableFuture<?> sending;
+
+    Exchange(HttpRequest.Builder request, String method, String host) {
+      this.request = request;
+      this.method = method;
+      this.host = host;
+    }
+
+    private CompletableFuture<Void> permit() {
+      if (host == null) {
+        return GRANTED;
+      }
+      CompletableFuture<Void> permit;
+      do {
+        // an idle limit is removed and refuses the new requests
+        limit = limits.computeIfAbsent(host,
+            key -> new HostLimit(maxRequestsPerHost, key, limits));
+        permit = limit.acquire();
+      } while (permit == null);
+      return permit;
+    }
+
+    private void acquire() throws IOException {
+      if (host == null) {
+        return;
+      }
+      CompletableFuture<Void> permit = permit();
+      try {
+        permit.get(acquireTimeout, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException ex) {
+        giveBack(permit);
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      } catch (TimeoutException ex) {
+        giveBack(permit);
+        throw timeout();
+      } catch (ExecutionException ex) {
+        throw new IOException(ex.getCause());
+      }
+      acquired.set(true);
+    }
+
+    private void giveBack(CompletableFuture<Void> permit) {
+      if (!permit.cancel(false)) {
+        limit.release();
+      }
+    }
+
+    private ProcessingException timeout() {
+      return new ProcessingException(
+          "no request slot to " + host + " in " + acquireTimeout + " ms");
+    }
+
+    void release() {
+      if (acquired.compareAndSet(true, false)) {
+        limit.release();
+      }
+    }
+
+    private void send(BodyPublisher publisher) {
+      future = client.sendAsync(request.method(method, publisher).build(),
+          BodyHandlers.ofInputStream());
+    }
+
+    @Override
+    public OutputStream body(long length) throws IOException {
+      acquire();
+      if (length == 0) {
+        send(BodyPublishers.noBody());
+        return OutputStream.nullOutputStream();
+      }
+      body = new RequestBodyPublisher();
+      send(length > 0 ? BodyPublishers.fromPublisher(body, length)
+          : BodyPublishers.fromPublisher(body));
+      RequestBodyPublisher publisher = body;
+      future.whenComplete((response, ex) -> {
+        if (ex != null) {
+          publisher.fail(ex instanceof IOException ? (IOException) ex : new IOException(ex));
+        }
+      });
+      return body;
+    }
+
+    @Override
+    public TransportResponse response() throws IOException {
+      if (future == null) {
+        acquire();
+        send(BodyPublishers.noBody());
+      }
+      try {
+        return new Response(future.get(), this);
+      } catch (InterruptedException ex) {
+        abort();
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      } catch (ExecutionException ex) {
+        release();
+        if (ex.getCause() instanceof IOException) {
+          throw (IOException) ex.getCause();
+        }
+        throw new IOException(ex.getCause());
+      }
+    }
+
+    @Override
+    public CompletionStage<TransportResponse> sendAsync(byte[] data, boolean buffer,
+        Executor executor) {
+      CompletableFuture<Void> permit = permit();
+      if (!permit.isDone()) {
+        permit.orTimeout(acquireTimeout, TimeUnit.MILLISECONDS);
+      }
+      HttpRequest built = request.method(method,
+          data == null ? BodyPublishers.noBody() : BodyPublishers.ofByteArray(data)).build();
+      CompletableFuture<TransportResponse> result = new CompletableFuture<>();
+      permit.thenCompose(none -> {
+        acquired.set(host != null);
+        if (result.isCancelled()) {
+          throw new CancellationException();
+        }
+        CompletableFuture<TransportResponse> response;
+        if (buffer) {
+          CompletableFuture<HttpResponse<byte[]>> sent =
+              client.sendAsync(built, BodyHandlers.ofByteArray());
+          sending = sent;
+          response = sent.thenApply(r -> new BufferedTransportResponse(r.statusCode(),
+              r.headers().map(), r.body()));
+        } else {
+          future = client.sendAsync(built, BodyHandlers.ofInputStream());
+          sending = future;
+          // the permit is released when the body is read or closed
+          response = future.thenApply(r -> new Response(r, this));
+        }
+        if (result.isCancelled()) {
+          sending.cancel(true);
+        }
+        return response;
+      }).whenComplete((response, ex) -> {
+        if (buffer || ex != null) {
+          release();
+        }
+        if (ex != null) {
+          result.completeExceptionally(completion(ex));
+        } else if (!result.complete(response)) {
+          // received after the cancellation
+          response.close();
+        }
+      });
+      result.whenComplete((response, ex) -> {
+        if (result.isCancelled()) {
+          // a waiting request leaves the queue
+          permit.cancel(false);
+          CompletableFuture<?> sent = sending;
+          if (sent != null) {
+            sent.cancel(true);
+          }
+        }
+      });
+      return result;
+    }
+
+    private CompletionException completion(Throwable ex) {
+      Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+      if (cause instanceof TimeoutException) {
+        return new CompletionException(timeout());
+      }
+      return ex instanceof CompletionException ? (CompletionException) ex
+          : new CompletionException(ex);
+    }
+
+    @Override
+    public void abort() {
+      if (body != null) {
+        body.abort(new IOException("the request is aborted"));
+      }
+      if (future != null) {
+        future.cancel(true);
+      }
+      release();
+    }
+  }
+
+  private static class Response implements TransportResponse {
+
+    private final HttpResponse<InputStream> response;
+    private final Exchange exchange;
+    private final InputStream body;
+
+    Response(HttpResponse<InputStream> response, Exchange exchange) {
+      this.response = response;
+      this.exchange = exchange;
+      body = new BodyStream(response.body(), exchange);
+    }
+
+    @Override
+    public int getStatus() {
+      return response.statusCode();
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaders() {
+      return response.headers().map();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+      return body;
+    }
+
+    @Override
+    public void close() {
+      Io.close(response.body());
+      exchange.release();
+    }
+  }
+
+  /**
+   * The body of a response. The permit is released at the end of the body, the
+   * HttpClient reuses the connection.
+   */
+  private static class BodyStream extends FilterInputStream {
+
+    private final Exchange exchange;
+
+    BodyStream(InputStream in, Exchange exchange) {
+      super(in);
+      this.exchange = exchange;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int bt = super.read();
+      if (bt == -1) {
+        exchange.release();
+      }
+      return bt;
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws IOException {
+      int nb = super.read(buf, off, len);
+      if (nb == -1) {
+        exchange.release();
+      }
+      return nb;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        exchange.release();
+      }
+    }
+  }
+
+  /**
+   * The permits of a host. A waiting request gets the permit of the next read or
+   * closed response. An asynchronous request waits without a thread. The limit
+   * is removed from the transport when its last permit is released.
+   */
+  static class HostLimit {
+
+    private final int max;
+    private final String host;
+    private final Map<String, HostLimit> limits;
+    private final Deque<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+    private int active;
+    private boolean removed;
+
+    HostLimit(int max, String host, Map<String, HostLimit> limits) {
+      this.max = max;
+      this.host = host;
+      this.limits = limits;
+    }
+
+    /**
+     * Get a permit.
+     * 
+     * @return a permit or {@code null} if the limit is removed
+     */
+    synchronized CompletableFuture<Void> acquire() {
+      if (removed) {
+        return null;
+      }
+      if (active < max) {
+        active++;
+        return GRANTED;
+      }
+      CompletableFuture<Void> permit = new CompletableFuture<>();
+      waiting.add(permit);
+      return permit;
+    }
+
+    void release() {
+      CompletableFuture<Void> next;
+      do {
+        synchronized (this) {
+          next = waiting.poll();
+          if (next == null) {
+            if (--active == 0) {
+              removed = true;
+              limits.remove(host, this);
+            }
+            return;
+          }
+        }
+        // a cancelled request does not take the permit
+      } while (!next.complete(null));
+    }
+  }
+
+}
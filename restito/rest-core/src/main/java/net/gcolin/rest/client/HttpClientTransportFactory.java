@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.client;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpClient.Version;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+import javax.net.ssl.SSLContext;
+import javax.ws.rs.client.Client;
+
+/**
+ * Create a {@link HttpClientTransport} for each client. It is the default
+ * factory of the {@link ClientBuilderImpl}.
+ * 
+ * <p>The HttpClient uses the SSLContext of the client. It does not support a
+ * custom HostnameVerifier, a client with a HostnameVerifier gets a
+ * {@link UrlConnectionTransport} instead.</p>
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class HttpClientTransportFactory implements ClientTransportFactory {
+
+  private Version version = Version.HTTP_2;
+  private Duration connectTimeout;
+  private int maxRequestsPerHost;
+  private Duration acquireTimeout = HttpClientTransport.DEFAULT_ACQUIRE_TIMEOUT;
+  private Executor executor;
+
+  /**
+   * Set the preferred version of HTTP. A HTTP/2 client falls back to HTTP/1.1
+   * if the server does not support it.
+   * 
+   * @param version the version, HTTP/2 by default
+   * @return this
+   */
+  public HttpClientTransportFactory version(Version version) {
+    this.version = version;
+    return this;
+  }
+
+  public HttpClientTransportFactory connectTimeout(Duration connectTimeout) {
+    this.connectTimeout = connectTimeout;
+    return this;
+  }
+
+  /**
+   * Limit the number of concurrent requests to a host. With HTTP/1.1 it is the
+   * maximum number of connections to the host.
+   * 
+   * @param maxRequestsPerHost the limit or {@code 0} for no limit
+   * @return this
+   */
+  public HttpClientTransportFactory maxRequestsPerHost(int maxRequestsPerHost) {
+    this.maxRequestsPerHost = maxRequestsPerHost;
+    return this;
+  }
+
+  /**
+   * Set the maximum time a request waits for the limit of its host. The request
+   * fails with a {@code ProcessingException} after this time.
+   * 
+   * @param acquireTimeout the timeout, 30 seconds by default
+   * @return this
+   */
+  public HttpClientTransportFactory acquireTimeout(Duration acquireTimeout) {
+    this.acquireTimeout = acquireTimeout;
+    return this;
+  }
+
+  /**
+   * Set the executor of the asynchronous tasks of the HttpClient.
+   * 
+   * @param executor the executor or {@code null} for the executor of the
+   *        HttpClient
+   * @return this
+   */
+  public HttpClientTransportFactory executor(Executor executor) {
+    this.executor = executor;
+    return this;
+  }
+
+  @Override
+  public ClientTransport create(Client client) {
+    if (client.getHostnameVerifier() != null) {
+      // the HttpClient would ignore it
+      return new UrlConnectionTransport(client);
+    }
+    HttpClient.Builder builder = HttpClient.newBuilder().version(version)
+        .followRedirects(Redirect.NORMAL);
+    SSLContext sslContext = client.getSslContext();
+    if (sslContext != null) {
+      builder.sslContext(sslContext);
+    }
+    if (connectTimeout != null) {
+      builder.connectTimeout(connectTimeout);
+    }
+    if (executor != null) {
+      builder.executor(executor);
+    }
+    return new HttpClientTransport(builder.build(), maxRequestsPerHost, acquireTimeout);
+  }
+
+}
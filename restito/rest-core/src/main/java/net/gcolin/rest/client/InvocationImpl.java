@@ -15,7 +15,6 @@
 
 package net.gcolin.rest.client;
 
-import net.gcolin.common.io.ByteArrayOutputStream;
 import net.gcolin.common.io.Io;
 import net.gcolin.common.reflect.Reflect;
 import net.gcolin.rest.FastMediaType;
@@ -24,21 +23,22 @@ import net.gcolin.rest.Logs;
 import net.gcolin.rest.MessageBodyWriterDecorator;
 import net.gcolin.rest.util.HttpHeader;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Type;
-import java.net.HttpURLConnection;
 import java.net.URI;
-import java.net.URLConnection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Future;
 
-import javax.net.ssl.HttpsURLConnection;
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.client.AsyncInvoker;
 import javax.ws.rs.client.ClientRequestFilter;
 import javax.ws.rs.client.ClientResponseFilter;
@@ -59,6 +59,17 @@ import javax.ws.rs.ext.WriterInterceptor;
 /**
  * The Invocation, AsyncInvoker implementation for REST client.
  * 
+ * <p>
+ * The asynchronous invocations do not block a thread while they wait for the
+ * response: the entity of the request is buffered and the
+ * {@link ClientTransport} sends the request without blocking. The entity of
+ * the response is buffered only when it is read as an object, a
+ * {@link Response} or an InputStream is streamed. An InputStream entity of the
+ * request is not buffered, it is sent by the executor of the client. The
+ * returned futures are {@link CompletableFuture}s, cancelling one cancels the
+ * request.
+ * </p>
+ * 
  * @author Gaël COLIN
  * @since 1.0
  */
@@ -105,127 +116,291 @@ public class InvocationImpl implements Invocation, AsyncInvoker {
 		return this;
 	}
 
-	@SuppressWarnings({ "unchecked", "rawtypes" })
 	@Override
 	public Response invoke() {
 		URI uri = uriBuilder.buildFromMap(properties);
+		ClientRequestContextImpl ctx = newContext(uri);
+		RequestOutputStream out = new RequestOutputStream(client.getTransport(), ctx,
+				RequestOutputStream.THRESHOLD);
+		ctx.setEntityStream(out);
 
 		ClientResponse response = null;
-		ByteArrayOutputStream out = new ByteArrayOutputStream();
-		URLConnection conn = null;
 		try {
+			Response abortResponse = filter(ctx, uri);
+			if (abortResponse != null) {
+				return abortResponse;
+			}
+			writeEntity(ctx, out, true);
+			response = new ClientResponse(out.finish(ctx.getEntity() != null), builder);
+			complete(ctx, response);
+		} catch (IOException ex) {
+			if (response != null) {
+				response.close();
+			} else {
+				out.abort();
+			}
+			throw new ResponseProcessingException(response, "cannot send request", ex);
+		} catch (RuntimeException ex) {
+			if (response == null) {
+				out.abort();
+			}
+			throw ex;
+		} finally {
+			if (response != null && !response.hasEntity()) {
+				response.close();
+			}
+		}
+		return response;
+	}
 
-			Map<String, Object> properties = new HashMap<>(this.properties);
+	/**
+	 * Invoke the request without blocking. The filters and the MessageBodyWriter
+	 * are called by the caller thread, the response is received without a thread
+	 * if the transport supports it.
+	 * 
+	 * @return the response, its entity is streamed
+	 */
+	public CompletableFuture<Response> invokeAsync() {
+		return invokeAsync(false);
+	}
 
-			ClientRequestContextImpl ctx = new ClientRequestContextImpl(properties, uri, method, headers, client,
-					builder.getConfiguration(), entity, out);
+	private CompletableFuture<Response> invokeAsync(boolean buffer) {
+		URI uri = uriBuilder.buildFromMap(properties);
+		ClientRequestContextImpl ctx = newContext(uri);
+		RequestOutputStream out = new RequestOutputStream(client.getTransport(), ctx,
+				RequestOutputStream.UNBOUNDED);
+		ctx.setEntityStream(out);
 
-			if (!client.getCookies().isEmpty()) {
+		CompletionStage<TransportResponse> transport;
+		try {
+			Response abortResponse = filter(ctx, uri);
+			if (abortResponse != null) {
+				return CompletableFuture.completedFuture(abortResponse);
+			}
+			if (ctx.getEntity() instanceof InputStream) {
+				transport = streamAsync(ctx, out);
+			} else {
+				writeEntity(ctx, out, false);
+				transport = out.finishAsync(ctx.getEntity() != null, buffer,
+						client.getAsyncInvocationExecutor());
+			}
+		} catch (IOException ex) {
+			out.abort();
+			return failed(new ResponseProcessingException(null, "cannot send request", ex));
+		} catch (RuntimeException ex) {
+			out.abort();
+			return failed(ex);
+		}
 
-				List<NewCookie> list = client.getCookies();
-				for (int i = list.size() - 1; i >= 0; i--) {
-					NewCookie ncookie = list.get(i);
-					if (isExpired(ncookie)) {
-						list.remove(i);
-					} else if (!ncookie.isSecure() || uri.toString().startsWith("https")) {
-						ctx.getHeaders().addAll(HttpHeader.COOKIE, new Cookie(ncookie.getName(), ncookie.getValue()));
-					}
-				}
+		CompletableFuture<TransportResponse> source = transport.toCompletableFuture();
+		return cancellable(source, source.handle((result, error) -> {
+			if (error != null) {
+				Throwable cause = unwrap(error);
+				throw cause instanceof RuntimeException ? (RuntimeException) cause
+						: new ProcessingException("cannot send request", cause);
+			}
+			ClientResponse response = new ClientResponse(result, builder);
+			try {
+				complete(ctx, response);
+			} catch (IOException ex) {
+				response.close();
+				throw new ResponseProcessingException(response, "cannot send request", ex);
+			}
+			if (!response.hasEntity()) {
+				response.close();
 			}
+			return response;
+		}));
+	}
 
-			if (!builder.getClientRequestFilters().isEmpty()) {
-				for (ClientRequestFilter filter : builder.getClientRequestFilters()) {
-					filter.filter(ctx);
-					if (ctx.getAbortResponse() != null) {
-						return ctx.getAbortResponse();
-					}
-				}
+	/**
+	 * Cancel the source when the stage is cancelled. A value completed after the
+	 * cancellation is closed.
+	 */
+	private static <T> CompletableFuture<T> cancellable(CompletableFuture<?> source,
+			CompletableFuture<T> stage) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		stage.whenComplete((value, error) -> {
+			if (error != null) {
+				result.completeExceptionally(error);
+			} else if (!result.complete(value)) {
+				close(value);
 			}
+		});
+		result.whenComplete((value, error) -> {
+			if (result.isCancelled()) {
+				source.cancel(true);
+			}
+		});
+		return result;
+	}
 
-			if (ctx.getEntity() != null) {
-				MediaType mediaType = ctx.getMediaType();
-				if (mediaType != null) {
-					ctx.getHeaders().add(HttpHeader.CONTENT_TYPE, mediaType);
-				}
+	private static void close(Object value) {
+		if (value instanceof Response) {
+			((Response) value).close();
+		} else if (value instanceof Closeable) {
+			Io.close((Closeable) value);
+		}
+	}
 
-				if (!builder.getWriterInterceptors().isEmpty()) {
-					InvocationContext ictx = new InvocationContext(properties);
-					ictx.setWriter(builder.getProviders());
-					ictx.setProduce(FastMediaType.valueOf(mediaType));
-					MessageBodyWriterDecorator md = new MessageBodyWriterDecorator();
-					md.add(builder.getWriterInterceptors()
-							.toArray(new WriterInterceptor[builder.getWriterInterceptors().size()]));
-					md.writeTo(ictx, ctx.getEntity(), ctx.getEntityClass(), ctx.getEntityType(),
-							ctx.getEntityAnnotations(), ctx.getHeaders(), out);
-				} else if (ctx.getEntity() instanceof InputStream) {
-					out = new InputStreamOutputStream((InputStream) ctx.getEntity());
-				} else {
-					builder.getProviders().writeTo(ctx.getEntity(), ctx.getEntityClass(), ctx.getEntityType(),
-							ctx.getEntityAnnotations(), mediaType, ctx.getHeaders(), out);
+	/**
+	 * Send a request with an InputStream entity by a task of the executor. The
+	 * stream may block, it is copied to the transport without buffering.
+	 */
+	private CompletionStage<TransportResponse> streamAsync(ClientRequestContextImpl ctx,
+			RequestOutputStream out) {
+		CompletableFuture<TransportResponse> result = new CompletableFuture<>();
+		client.getAsyncInvocationExecutor().execute(() -> {
+			if (result.isCancelled()) {
+				return;
+			}
+			try {
+				writeEntity(ctx, out, true);
+				TransportResponse response = out.finish(true);
+				if (!result.complete(response)) {
+					// received after the cancellation
+					response.close();
 				}
+			} catch (IOException | RuntimeException ex) {
+				out.abort();
+				result.completeExceptionally(ex);
 			}
+		});
+		return result;
+	}
 
-			Logs.LOG_CLIENT.debug("query {} {}", ctx.getMethod(), uri);
-			conn = uri.toURL().openConnection();
-			boolean hasContent = !out.isEmpty();
+	/**
+	 * Invoke the request without blocking and read the entity of the response.
+	 * 
+	 * @param <T>          the type of the entity
+	 * @param responseType the type of the entity
+	 * @return the entity
+	 */
+	public <T> CompletableFuture<T> invokeAsync(Class<T> responseType) {
+		return invokeAsync(new GenericType<T>(responseType));
+	}
 
-			if (conn instanceof HttpsURLConnection) {
-				((HttpsURLConnection) conn).setSSLSocketFactory(client.getSslContext().getSocketFactory());
+	/**
+	 * Invoke the request without blocking and read the entity of the response.
+	 * 
+	 * @param <T>          the type of the entity
+	 * @param responseType the type of the entity
+	 * @return the entity
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> CompletableFuture<T> invokeAsync(GenericType<T> responseType) {
+		Class<?> type = responseType.getRawType();
+		// an object is read from memory, a stream is not buffered
+		boolean stream = type == Response.class || type == InputStream.class;
+		CompletableFuture<Response> source = invokeAsync(!stream);
+		return cancellable(source, source.thenApply(response -> {
+			if (type == Response.class) {
+				return (T) response;
+			}
+			if (type == InputStream.class) {
+				return (T) response.readEntity(InputStream.class);
 			}
+			try {
+				return response.readEntity(responseType);
+			} finally {
+				response.close();
+			}
+		}));
+	}
 
-			if (hasContent) {
-				if (!(out instanceof InputStreamOutputStream)) {
-					ctx.getHeaders().putSingle(HttpHeader.CONTENT_LENGTH, out.getSize());
+	private ClientRequestContextImpl newContext(URI uri) {
+		return new ClientRequestContextImpl(new HashMap<>(properties), uri, method, headers, client,
+				builder.getConfiguration(), entity, null);
+	}
+
+	private Response filter(ClientRequestContextImpl ctx, URI uri) throws IOException {
+		if (!client.getCookies().isEmpty()) {
+
+			List<NewCookie> list = client.getCookies();
+			for (int i = list.size() - 1; i >= 0; i--) {
+				NewCookie ncookie = list.get(i);
+				if (isExpired(ncookie)) {
+					list.remove(i);
+				} else if (!ncookie.isSecure() || uri.toString().startsWith("https")) {
+					ctx.getHeaders().addAll(HttpHeader.COOKIE, new Cookie(ncookie.getName(), ncookie.getValue()));
 				}
-				conn.setDoOutput(true);
 			}
+		}
 
-			addHeaders(conn, ctx.getStringHeaders());
-			if (conn instanceof HttpURLConnection) {
-				((HttpURLConnection) conn).setRequestMethod(ctx.getMethod());
+		if (!builder.getClientRequestFilters().isEmpty()) {
+			for (ClientRequestFilter filter : builder.getClientRequestFilters()) {
+				filter.filter(ctx);
+				if (ctx.getAbortResponse() != null) {
+					return ctx.getAbortResponse();
+				}
 			}
+		}
 
-			if (hasContent) {
-				out.writeTo(conn.getOutputStream());
-			}
+		Logs.LOG_CLIENT.debug("query {} {}", ctx.getMethod(), ctx.getUri());
+		return null;
+	}
 
-			conn.connect();
-			response = new ClientResponse(conn, builder);
-			List<NewCookie> newCookies = (List) response.getHeaders().get(HttpHeader.SET_COOKIE);
-			if (newCookies != null) {
-				for (NewCookie ncookie : newCookies) {
-					String name = ncookie.getName();
-					client.getCookies().removeIf(x -> x.getName().equals(name));
-					if (ncookie.getMaxAge() > 0) {
-						Date date = new Date(System.currentTimeMillis() + (ncookie.getMaxAge() * 1000));
-						if (ncookie.getExpiry() == null || ncookie.getExpiry().before(date)) {
-							ncookie = new NewCookie(ncookie.getName(), ncookie.getValue(), ncookie.getPath(),
-									ncookie.getDomain(), ncookie.getVersion(), ncookie.getComment(), 0, date,
-									ncookie.isSecure(), ncookie.isHttpOnly());
-						}
-					}
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void writeEntity(ClientRequestContextImpl ctx, RequestOutputStream out, boolean streaming)
+			throws IOException {
+		if (ctx.getEntity() == null) {
+			return;
+		}
+		// an interned media type lets the providers cache the selected writer
+		MediaType mediaType = FastMediaType.valueOf(ctx.getMediaType());
+		if (mediaType != null) {
+			ctx.getHeaders().add(HttpHeader.CONTENT_TYPE, mediaType);
+		}
 
-					if (!isExpired(ncookie)) {
-						client.getCookies().add(ncookie);
+		OutputStream entityStream = ctx.getEntityStream();
+		if (!builder.getWriterInterceptors().isEmpty()) {
+			InvocationContext ictx = new InvocationContext(ctx.getProperties());
+			ictx.setWriter(builder.getProviders());
+			ictx.setProduce((FastMediaType) mediaType);
+			MessageBodyWriterDecorator md = new MessageBodyWriterDecorator();
+			md.add(builder.getWriterInterceptors()
+					.toArray(new WriterInterceptor[builder.getWriterInterceptors().size()]));
+			md.writeTo(ictx, ctx.getEntity(), ctx.getEntityClass(), ctx.getEntityType(),
+					ctx.getEntityAnnotations(), ctx.getHeaders(), entityStream);
+		} else if (ctx.getEntity() instanceof InputStream) {
+			if (streaming) {
+				// the length is unknown, the stream is not buffered
+				out.stream();
+			}
+			Io.copy((InputStream) ctx.getEntity(), entityStream);
+		} else {
+			builder.getProviders().writeTo(ctx.getEntity(), ctx.getEntityClass(), ctx.getEntityType(),
+					ctx.getEntityAnnotations(), mediaType, ctx.getHeaders(), entityStream);
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void complete(ClientRequestContextImpl ctx, ClientResponse response) throws IOException {
+		List<NewCookie> newCookies = (List) response.getHeaders().get(HttpHeader.SET_COOKIE);
+		if (newCookies != null) {
+			for (NewCookie ncookie : newCookies) {
+				String name = ncookie.getName();
+				client.getCookies().removeIf(x -> x.getName().equals(name));
+				if (ncookie.getMaxAge() > 0) {
+					Date date = new Date(System.currentTimeMillis() + (ncookie.getMaxAge() * 1000));
+					if (ncookie.getExpiry() == null || ncookie.getExpiry().before(date)) {
+						ncookie = new NewCookie(ncookie.getName(), ncookie.getValue(), ncookie.getPath(),
+								ncookie.getDomain(), ncookie.getVersion(), ncookie.getComment(), 0, date,
+								ncookie.isSecure(), ncookie.isHttpOnly());
 					}
 				}
-			}
 
-			if (!builder.getClientResponseFilters().isEmpty()) {
-				for (ClientResponseFilter filter : builder.getClientResponseFilters()) {
-					filter.filter(ctx, response.getContext());
+				if (!isExpired(ncookie)) {
+					client.getCookies().add(ncookie);
 				}
 			}
-		} catch (IOException ex) {
-			out.release();
-			Io.close(conn);
-			throw new ResponseProcessingException(response, "cannot send request", ex);
-		} finally {
-			if (response != null && !response.hasEntity()) {
-				response.close();
+		}
+
+		if (!builder.getClientResponseFilters().isEmpty()) {
+			for (ClientResponseFilter filter : builder.getClientResponseFilters()) {
+				filter.filter(ctx, response.getContext());
 			}
 		}
-		return response;
 	}
 
 	@Override
@@ -252,32 +427,34 @@ public class InvocationImpl implements Invocation, AsyncInvoker {
 		return ncookie.getExpiry() != null && ncookie.getExpiry().before(new Date());
 	}
 
-	private void addHeaders(URLConnection conn, MultivaluedMap<String, String> headers) {
-		for (Entry<String, List<String>> header : headers.entrySet()) {
-			for (String value : header.getValue()) {
-				conn.addRequestProperty(header.getKey(), value);
-			}
-		}
+	private static <T> CompletableFuture<T> failed(Throwable ex) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		future.completeExceptionally(ex);
+		return future;
+	}
+
+	private static Throwable unwrap(Throwable ex) {
+		return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
 	}
 
 	@Override
-	public Future<Response> submit() {
-		return client.getAsyncInvocationExecutor().submit(() -> invoke());
+	public CompletableFuture<Response> submit() {
+		return invokeAsync();
 	}
 
 	@Override
-	public <T> Future<T> submit(Class<T> responseType) {
-		return client.getAsyncInvocationExecutor().submit(() -> invoke(responseType));
+	public <T> CompletableFuture<T> submit(Class<T> responseType) {
+		return invokeAsync(responseType);
 	}
 
 	@Override
-	public <T> Future<T> submit(GenericType<T> responseType) {
-		return client.getAsyncInvocationExecutor().submit(() -> invoke(responseType));
+	public <T> CompletableFuture<T> submit(GenericType<T> responseType) {
+		return invokeAsync(responseType);
 	}
 
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	@Override
-	public <T> Future<T> submit(InvocationCallback<T> callback) {
+	public <T> CompletableFuture<T> submit(InvocationCallback<T> callback) {
 		GenericType<T> genericType = (GenericType<T>) new GenericType<Object>() {
 		};
 		List<Type> typeInfo = Reflect.getGenericTypeArguments(InvocationCallback.class, callback.getClass(), null);
@@ -285,27 +462,22 @@ public class InvocationImpl implements Invocation, AsyncInvoker {
 			genericType = new GenericType(typeInfo.get(0));
 		}
 
-		final GenericType<T> responseType = genericType;
-		return client.getAsyncInvocationExecutor().submit(new Callable<T>() {
-			@Override
-			public T call() throws Exception {
-				T result = null;
-				try {
-					result = invoke(responseType);
-				} catch (Exception ex) {
-					callback.failed(ex);
-					throw ex;
-				}
-				try {
-					callback.completed(result);
-					return result;
-				} finally {
-					if (result != null && result instanceof Response) {
-						((Response) result).close();
-					}
+		CompletableFuture<T> source = invokeAsync(genericType);
+		return cancellable(source, source.handle((result, error) -> {
+			if (error != null) {
+				Throwable cause = unwrap(error);
+				callback.failed(cause);
+				throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+			}
+			try {
+				callback.completed(result);
+				return result;
+			} finally {
+				if (result instanceof Response) {
+					((Response) result).close();
 				}
 			}
-		});
+		}));
 	}
 
 	@Override
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+
+/**
+ * The body of a request sent by the {@link HttpClientTransport}. The bytes
+ * written by the thread of the invocation are published to the HttpClient as
+ * it requests them, so a large body is not buffered.
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+class RequestBodyPublisher extends OutputStream implements Flow.Publisher<ByteBuffer> {
+
+  private static final int CHUNK_SIZE = 8192;
+
+  private Flow.Subscriber<? super ByteBuffer> subscriber;
+  private long demand;
+  private IOException error;
+  private boolean closed;
+  private byte[] chunk;
+  private int pos;
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super ByteBuffer> sub) {
+    boolean first;
+    synchronized (this) {
+      first = subscriber == null;
+      if (first) {
+        subscriber = sub;
+        notifyAll();
+      }
+    }
+    if (!first) {
+      // a streamed body cannot be sent twice
+      sub.onSubscribe(new Flow.Subscription() {
+
+        @Override
+        public void request(long nb) {
+          // nothing to send
+        }
+
+        @Override
+        public void cancel() {
+          // nothing to cancel
+        }
+      });
+      sub.onError(new IllegalStateException("the request body cannot be sent again"));
+      return;
+    }
+    sub.onSubscribe(new Flow.Subscription() {
+
+      @Override
+      public void request(long nb) {
+        synchronized (RequestBodyPublisher.this) {
+          demand += nb;
+          if (demand < 0) {
+            demand = Long.MAX_VALUE;
+          }
+          RequestBodyPublisher.this.notifyAll();
+        }
+      }
+
+      @Override
+      public void cancel() {
+        fail(new IOException("the request body is cancelled"));
+      }
+    });
+  }
+
+  /**
+   * Stop the writer. Called when the request fails or is cancelled.
+   * 
+   * @param ex the cause
+   */
+  synchronized void fail(IOException ex) {
+    if (error == null) {
+      error = ex;
+    }
+    notifyAll();
+  }
+
+  /**
+   * Stop the writer and tell the HttpClient that the body cannot be completed.
+   * 
+   * @param ex the cause
+   */
+  void abort(IOException ex) {
+    Flow.Subscriber<? super ByteBuffer> sub;
+    synchronized (this) {
+      fail(ex);
+      sub = closed ? null : subscriber;
+      closed = true;
+    }
+    if (sub != null) {
+      sub.onError(ex);
+    }
+  }
+
+  private Flow.Subscriber<? super ByteBuffer> await() throws IOException {
+    synchronized (this) {
+      try {
+        while (error == null && (subscriber == null || demand == 0)) {
+          wait();
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+      if (error != null) {
+        throw new IOException(error.getMessage(), error);
+      }
+      demand--;
+      return subscriber;
+    }
+  }
+
+  private void publish() throws IOException {
+    ByteBuffer buf = ByteBuffer.wrap(chunk, 0, pos);
+    chunk = null;
+    pos = 0;
+    await().onNext(buf);
+  }
+
+  @Override
+  public void write(int bt) throws IOException {
+    write(new byte[] {(byte) bt}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] data, int off, int len) throws IOException {
+    if (closed) {
+      throw new IOException("closed");
+    }
+    while (len > 0) {
+      if (chunk == null) {
+        chunk = new byte[CHUNK_SIZE];
+      }
+      int nb = Math.min(len, CHUNK_SIZE - pos);
+      System.arraycopy(data, off, chunk, pos, nb);
+      pos += nb;
+      off += nb;
+      len -= nb;
+      if (pos == CHUNK_SIZE) {
+        publish();
+      }
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (pos > 0 && !closed) {
+      publish();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    flush();
+    Flow.Subscriber<? super ByteBuffer> sub;
+    synchronized (this) {
+      closed = true;
+      sub = subscriber;
+    }
+    if (sub == null) {
+      // wait for the subscription without consuming the demand
+      synchronized (this) {
+        try {
+          while (error == null && subscriber == null) {
+            wait();
+          }
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException();
+        }
+        if (error != null) {
+          throw new IOException(error.getMessage(), error);
+        }
+        sub = subscriber;
+      }
+    }
+    sub.onComplete();
+  }
+
+}
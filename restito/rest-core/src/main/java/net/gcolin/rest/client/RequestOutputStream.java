@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.client;
+
+import net.gcolin.common.io.ByteArrayOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+import javax.ws.rs.client.ClientRequestContext;
+
+/**
+ * The entity stream of a client request.
+ * 
+ * <p>The entity is buffered up to a threshold so that the
+ * {@code Content-Length} can be sent and the MessageBodyWriter can still modify
+ * the headers. When the threshold is exceeded, the request is sent and the
+ * entity is streamed by the {@link ClientTransport}.</p>
+ * 
+ * <p>An asynchronous request buffers the whole entity so that it is sent
+ * without blocking. An InputStream entity is streamed by a task of the
+ * executor of the client instead.</p>
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+class RequestOutputStream extends OutputStream {
+
+  static final int THRESHOLD = 64 * 1024;
+  static final int UNBOUNDED = -1;
+
+  private final ClientTransport transport;
+  private final ClientRequestContext ctx;
+  private final int threshold;
+  private ByteArrayOutputStream buffer;
+  private ClientExchange exchange;
+  private OutputStream out;
+
+  RequestOutputStream(ClientTransport transport, ClientRequestContext ctx, int threshold) {
+    this.transport = transport;
+    this.ctx = ctx;
+    this.threshold = threshold;
+  }
+
+  private ClientExchange exchange() throws IOException {
+    if (exchange == null) {
+      exchange = transport.exchange(ctx.getUri(), ctx.getMethod(), ctx.getStringHeaders());
+    }
+    return exchange;
+  }
+
+  /**
+   * Send the request and stream the entity.
+   * 
+   * @throws IOException if an I/O error occurs.
+   */
+  void stream() throws IOException {
+    if (out != null) {
+      return;
+    }
+    out = exchange().body(-1);
+    if (buffer != null) {
+      buffer.writeTo(out);
+      buffer.release();
+      buffer = null;
+    }
+  }
+
+  @Override
+  public void write(int bt) throws IOException {
+    if (out == null && !canBuffer(1)) {
+      stream();
+    }
+    if (out == null) {
+      buffer().write(bt);
+    } else {
+      out.write(bt);
+    }
+  }
+
+  @Override
+  public void write(byte[] data, int off, int len) throws IOException {
+    if (out == null && !canBuffer(len)) {
+      stream();
+    }
+    if (out == null) {
+      buffer().write(data, off, len);
+    } else {
+      out.write(data, off, len);
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (out != null) {
+      out.flush();
+    }
+  }
+
+  /**
+   * Do nothing. Many MessageBodyWriters close the entity stream, the request is
+   * completed by {@link #finish(boolean)}.
+   */
+  @Override
+  public void close() throws IOException {
+    // Do nothing
+  }
+
+  private boolean canBuffer(int len) {
+    return threshold < 0 || size() + len <= threshold;
+  }
+
+  private int size() {
+    return buffer == null ? 0 : buffer.getSize();
+  }
+
+  private ByteArrayOutputStream buffer() {
+    if (buffer == null) {
+      buffer = new ByteArrayOutputStream();
+    }
+    return buffer;
+  }
+
+  /**
+   * Complete the request and wait for the response.
+   * 
+   * @param hasEntity {@code true} if the request has an entity, even an empty
+   *        one
+   * @return the response
+   * @throws IOException if an I/O error occurs.
+   */
+  TransportResponse finish(boolean hasEntity) throws IOException {
+    if (out == null && hasEntity) {
+      out = exchange().body(size());
+      if (buffer != null) {
+        buffer.writeTo(out);
+      }
+    }
+    release();
+    if (out != null) {
+      out.close();
+    }
+    return exchange().response();
+  }
+
+  /**
+   * Complete the request without blocking.
+   * 
+   * @param hasEntity {@code true} if the request has an entity, even an empty
+   *        one
+   * @param bufferResponse {@code true} for reading the body of the response in
+   *        memory
+   * @param executor the executor of the client
+   * @return the response
+   * @throws IOException if an I/O error occurs.
+   */
+  CompletionStage<TransportResponse> finishAsync(boolean hasEntity, boolean bufferResponse,
+      Executor executor) throws IOException {
+    byte[] body = null;
+    if (hasEntity) {
+      body = buffer == null ? new byte[0] : buffer.toByteArray();
+    }
+    release();
+    return exchange().sendAsync(body, bufferResponse, executor);
+  }
+
+  /**
+   * Release the buffer and abort the request.
+   */
+  void abort() {
+    release();
+    if (exchange != null) {
+      exchange.abort();
+    }
+  }
+
+  private void release() {
+    if (buffer != null) {
+      buffer.release();
+      buffer = null;
+    }
+  }
+
+}
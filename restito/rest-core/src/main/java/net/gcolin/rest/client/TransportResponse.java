@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A response received by a {@link ClientTransport}.
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public interface TransportResponse extends Closeable {
+
+  int getStatus();
+
+  /**
+   * Get the headers of the response.
+   * 
+   * @return the headers, the names may have any case
+   */
+  Map<String, List<String>> getHeaders();
+
+  /**
+   * Get the body of the response, including the body of an error.
+   * 
+   * @return the body
+   * @throws IOException if an I/O error occurs.
+   */
+  InputStream getInputStream() throws IOException;
+
+  /**
+   * Release the connection.
+   */
+  @Override
+  void close();
+
+}
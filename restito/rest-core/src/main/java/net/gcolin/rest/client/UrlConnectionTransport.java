@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.client;
+
+import net.gcolin.common.io.Io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URLConnection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.ws.rs.client.Client;
+
+/**
+ * A {@link ClientTransport} that opens a {@link URLConnection} for each
+ * request. The connections are kept alive by the JDK.
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class UrlConnectionTransport implements ClientTransport {
+
+  private final Client client;
+
+  public UrlConnectionTransport(Client client) {
+    this.client = client;
+  }
+
+  @Override
+  public ClientExchange exchange(URI uri, String method, Map<String, List<String>> headers)
+      throws IOException {
+    URLConnection conn = uri.toURL().openConnection();
+    if (conn instanceof HttpsURLConnection) {
+      SSLContext sslContext = client.getSslContext();
+      if (sslContext != null) {
+        ((HttpsURLConnection) conn).setSSLSocketFactory(sslContext.getSocketFactory());
+      }
+      if (client.getHostnameVerifier() != null) {
+        ((HttpsURLConnection) conn).setHostnameVerifier(client.getHostnameVerifier());
+      }
+    }
+    for (Entry<String, List<String>> header : headers.entrySet()) {
+      for (String value : header.getValue()) {
+        conn.addRequestProperty(header.getKey(), value);
+      }
+    }
+    if (conn instanceof HttpURLConnection) {
+      ((HttpURLConnection) conn).setRequestMethod(method);
+    }
+    return new Exchange(conn);
+  }
+
+  /**
+   * Wrap a connection that is already opened.
+   * 
+   * @param conn a connection
+   * @return the response of the connection
+   * @throws IOException if an I/O error occurs.
+   */
+  public static TransportResponse response(URLConnection conn) throws IOException {
+    return new Response(conn);
+  }
+
+  @Override
+  public void close() {
+    // the connections are shared by the JVM
+  }
+
+  private static class Exchange implements ClientExchange {
+
+    private final URLConnection conn;
+
+    Exchange(URLConnection conn) {
+      this.conn = conn;
+    }
+
+    @Override
+    public OutputStream body(long length) throws IOException {
+      conn.setDoOutput(true);
+      if (conn instanceof HttpURLConnection) {
+        if (length >= 0) {
+          ((HttpURLConnection) conn).setFixedLengthStreamingMode(length);
+        } else {
+          ((HttpURLConnection) conn).setChunkedStreamingMode(0);
+        }
+      }
+      return conn.getOutputStream();
+    }
+
+    @Override
+    public TransportResponse response() throws IOException {
+      conn.connect();
+      return new Response(conn);
+    }
+
+    @Override
+    public void abort() {
+      if (conn instanceof HttpURLConnection) {
+        ((HttpURLConnection) conn).disconnect();
+      }
+    }
+  }
+
+  private static class Response implements TransportResponse {
+
+    private final URLConnection conn;
+    private int status;
+    private InputStream input;
+
+    Response(URLConnection conn) throws IOException {
+      this.conn = conn;
+      if (conn instanceof HttpURLConnection) {
+        status = ((HttpURLConnection) conn).getResponseCode();
+      }
+    }
+
+    @Override
+    public int getStatus() {
+      return status;
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaders() {
+      return conn.getHeaderFields();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+      if (input == null) {
+        input = status >= 400 && conn instanceof HttpURLConnection
+            ? ((HttpURLConnection) conn).getErrorStream() : conn.getInputStream();
+      }
+      return input;
+    }
+
+    @Override
+    public void close() {
+      if (input == null) {
+        Io.close(conn);
+      } else {
+        Io.close(input);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.multipart;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read a multipart stream part by part with a Boyer-Moore-Horspool search of
+ * the delimiter. The memory used does not depend on the size of the parts.
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+final class BoundaryScanner {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final InputStream in;
+	private final byte[] delimiter;
+	private final int[] shift = new int[256];
+	private final byte[] buf;
+	private int pos;
+	private int limit;
+
+	/**
+	 * Create a BoundaryScanner.
+	 *
+	 * @param in       the multipart stream
+	 * @param boundary the boundary parameter of the media type
+	 */
+	BoundaryScanner(InputStream in, String boundary) {
+		this.in = in;
+		delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+		int len = delimiter.length;
+		for (int i = 0; i < shift.length; i++) {
+			shift[i] = len;
+		}
+		for (int i = 0; i < len - 1; i++) {
+			shift[delimiter[i] & 0xFF] = len - 1 - i;
+		}
+		buf = new byte[Math.max(BUFFER_SIZE, len * 2)];
+		// the first delimiter may be at the beginning of the stream
+		buf[0] = '\r';
+		buf[1] = '\n';
+		limit = 2;
+	}
+
+	/**
+	 * Copy the bytes until the next delimiter and skip the delimiter.
+	 *
+	 * @param out the destination or {@code null} for discarding the bytes
+	 * @throws IOException if an I/O error occurs or if the stream ends before
+	 *                     the delimiter.
+	 */
+	void copyTo(OutputStream out) throws IOException {
+		int len = delimiter.length;
+		while (true) {
+			int index = indexOf();
+			if (index != -1) {
+				write(out, index - pos);
+				pos = index + len;
+				return;
+			}
+			// the last bytes may be the beginning of the delimiter
+			int safe = limit - len + 1;
+			if (safe > pos) {
+				write(out, safe - pos);
+			}
+			if (fill() == -1) {
+				throw new EOFException("the multipart stream has no closing boundary");
+			}
+		}
+	}
+
+	private void write(OutputStream out, int nb) throws IOException {
+		if (out != null && nb > 0) {
+			out.write(buf, pos, nb);
+		}
+		pos += nb;
+	}
+
+	private int indexOf() {
+		int len = delimiter.length;
+		int last = len - 1;
+		int index = pos;
+		while (index <= limit - len) {
+			int j = last;
+			while (buf[index + j] == delimiter[j]) {
+				if (j == 0) {
+					return index;
+				}
+				j--;
+			}
+			index += shift[buf[index + last] & 0xFF];
+		}
+		return -1;
+	}
+
+	private int fill() throws IOException {
+		if (pos > 0) {
+			System.arraycopy(buf, pos, buf, 0, limit - pos);
+			limit -= pos;
+			pos = 0;
+		}
+		int nb = in.read(buf, limit, buf.length - limit);
+		if (nb > 0) {
+			limit += nb;
+		}
+		return nb;
+	}
+
+	/**
+	 * Read a byte after a delimiter.
+	 *
+	 * @return the byte or {@code -1} at the end of the stream
+	 * @throws IOException if an I/O error occurs.
+	 */
+	int read() throws IOException {
+		while (pos == limit) {
+			if (fill() == -1) {
+				return -1;
+			}
+		}
+		return buf[pos++] & 0xFF;
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.multipart;
+
+/**
+ * Read the parameters of a {@code Content-Disposition} header.
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+final class ContentDisposition {
+
+	static final String HEADER = "Content-Disposition";
+
+	private ContentDisposition() {
+	}
+
+	/**
+	 * Get a parameter of a {@code Content-Disposition} header. The value may be
+	 * a token or a quoted string.
+	 *
+	 * @param header the header or {@code null}
+	 * @param name   the name of the parameter
+	 * @return the value or {@code null}
+	 */
+	static String parameter(String header, String name) {
+		if (header == null) {
+			return null;
+		}
+		int len = header.length();
+		int index = header.indexOf(';');
+		while (index != -1 && index < len) {
+			index++;
+			while (index < len && header.charAt(index) == ' ') {
+				index++;
+			}
+			int eq = header.indexOf('=', index);
+			if (eq == -1) {
+				return null;
+			}
+			String key = header.substring(index, eq).trim();
+			StringBuilder value = new StringBuilder();
+			index = eq + 1;
+			while (index < len && header.charAt(index) == ' ') {
+				index++;
+			}
+			if (index < len && header.charAt(index) == '"') {
+				index++;
+				while (index < len && header.charAt(index) != '"') {
+					char ch = header.charAt(index);
+					if (ch == '\\' && index + 1 < len) {
+						ch = header.charAt(++index);
+					}
+					value.append(ch);
+					index++;
+				}
+				index = header.indexOf(';', index);
+			} else {
+				int end = header.indexOf(';', index);
+				value.append(header.substring(index, end == -1 ? len : end).trim());
+				index = end;
+			}
+			if (key.equalsIgnoreCase(name)) {
+				return value.toString();
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.multipart;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * A part read by {@link MultiPartInput}. A small part is kept in memory and a
+ * large part is stored in a temporary file until it is moved or deleted.
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class InputPart {
+
+	private final MultivaluedMap<String, String> headers;
+	private final byte[] data;
+	private Path file;
+	private final long size;
+
+	InputPart(MultivaluedMap<String, String> headers, byte[] data, Path file, long size) {
+		this.headers = headers;
+		this.data = data;
+		this.file = file;
+		this.size = size;
+	}
+
+	/**
+	 * Get the headers of the part. The names are case insensitive.
+	 *
+	 * @return the headers
+	 */
+	public MultivaluedMap<String, String> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * Get the name parameter of the {@code Content-Disposition} header.
+	 *
+	 * @return the name of the form field or {@code null}
+	 */
+	public String getName() {
+		return ContentDisposition.parameter(headers.getFirst(ContentDisposition.HEADER), "name");
+	}
+
+	/**
+	 * Get the filename parameter of the {@code Content-Disposition} header.
+	 *
+	 * @return the name of the uploaded file or {@code null}
+	 */
+	public String getFileName() {
+		return ContentDisposition.parameter(headers.getFirst(ContentDisposition.HEADER), "filename");
+	}
+
+	/**
+	 * Get the media type of the part, {@code text/plain} if the part has no
+	 * {@code Content-Type}.
+	 *
+	 * @return the media type
+	 */
+	public MediaType getMediaType() {
+		String contentType = headers.getFirst("Content-Type");
+		return contentType == null ? MediaType.TEXT_PLAIN_TYPE : MediaType.valueOf(contentType);
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public boolean isInMemory() {
+		return data != null;
+	}
+
+	/**
+	 * Open the content of the part.
+	 *
+	 * @return a new stream
+	 * @throws IOException if the part is deleted or an I/O error occurs.
+	 */
+	public InputStream getInputStream() throws IOException {
+		if (data != null) {
+			return new ByteArrayInputStream(data);
+		}
+		if (file == null) {
+			throw new IOException("the part is deleted");
+		}
+		return Files.newInputStream(file);
+	}
+
+	/**
+	 * Read the content of the part with the charset of its media type or
+	 * UTF-8.
+	 *
+	 * @return the content
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public String getString() throws IOException {
+		String charset = getMediaType().getParameters().get(MediaType.CHARSET_PARAMETER);
+		Charset cs = charset == null ? StandardCharsets.UTF_8 : Charset.forName(charset);
+		if (data != null) {
+			return new String(data, cs);
+		}
+		try (InputStream in = getInputStream()) {
+			return new String(in.readAllBytes(), cs);
+		}
+	}
+
+	/**
+	 * Write the content of the part to a file. The temporary file of a large
+	 * part is moved.
+	 *
+	 * @param target the destination
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public void moveTo(Path target) throws IOException {
+		if (data != null) {
+			Files.write(target, data);
+			return;
+		}
+		if (file == null) {
+			throw new IOException("the part is deleted");
+		}
+		Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+		file = null;
+	}
+
+	/**
+	 * Delete the temporary file of the part.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public void delete() throws IOException {
+		if (file != null) {
+			Files.deleteIfExists(file);
+			file = null;
+		}
+	}
+}
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.multipart;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+import net.gcolin.rest.util.IgnoreCaseMultivaluedMap;
+
+/**
+ * A multipart entity read part by part.
+ *
+ * <p>
+ * A part is read when it is requested. A part smaller than the threshold is
+ * kept in memory, a larger part is written to a temporary file, so the memory
+ * used does not depend on the size of the entity. The temporary files that are
+ * not moved are deleted by {@link #close()}.
+ * </p>
+ *
+ * <pre>
+ * try (MultiPartInput input = ...) {
+ *   for (InputPart part : input) {
+ *     ...
+ *   }
+ * }
+ * </pre>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class MultiPartInput implements Iterable<InputPart>, Closeable {
+
+	public static final int DEFAULT_THRESHOLD = 64 * 1024;
+	public static final int MAX_HEADER_SIZE = 16 * 1024;
+
+	private final BoundaryScanner scanner;
+	private final int threshold;
+	private final Path directory;
+	private final List<InputPart> spilled = new ArrayList<>();
+	private InputPart next;
+	private boolean started;
+	private boolean ended;
+
+	/**
+	 * Create a MultiPartInput with the default threshold and the default
+	 * temporary directory.
+	 *
+	 * @param in       the multipart stream
+	 * @param boundary the boundary parameter of the media type
+	 */
+	public MultiPartInput(InputStream in, String boundary) {
+		this(in, boundary, DEFAULT_THRESHOLD, null);
+	}
+
+	/**
+	 * Create a MultiPartInput.
+	 *
+	 * @param in        the multipart stream
+	 * @param boundary  the boundary parameter of the media type
+	 * @param threshold the maximum size in bytes of a part kept in memory
+	 * @param directory the directory of the temporary files or {@code null} for
+	 *                  the default temporary directory
+	 */
+	public MultiPartInput(InputStream in, String boundary, int threshold, Path directory) {
+		if (boundary == null || boundary.isEmpty()) {
+			throw new IllegalArgumentException("no boundary");
+		}
+		this.scanner = new BoundaryScanner(in, boundary);
+		this.threshold = threshold;
+		this.directory = directory;
+	}
+
+	/**
+	 * Read the next part.
+	 *
+	 * @return the part or {@code null} if there is no more part
+	 * @throws IOException if an I/O error occurs or if the entity is malformed.
+	 */
+	public InputPart nextPart() throws IOException {
+		if (next != null) {
+			InputPart part = next;
+			next = null;
+			return part;
+		}
+		return read();
+	}
+
+	private InputPart read() throws IOException {
+		if (ended) {
+			return null;
+		}
+		if (!started) {
+			// skip the preamble
+			scanner.copyTo(null);
+			started = true;
+		}
+		if (isLast()) {
+			ended = true;
+			return null;
+		}
+		MultivaluedMap<String, String> headers = readHeaders();
+		Spill out = new Spill();
+		try {
+			scanner.copyTo(out);
+		} catch (IOException ex) {
+			out.delete();
+			throw ex;
+		}
+		InputPart part = out.toPart(headers);
+		if (!part.isInMemory()) {
+			spilled.add(part);
+		}
+		return part;
+	}
+
+	/**
+	 * Read the end of a delimiter: {@code --} for the last one, or optional
+	 * white spaces followed by CRLF.
+	 */
+	private boolean isLast() throws IOException {
+		int ch = scanner.read();
+		if (ch == '-') {
+			if (scanner.read() != '-') {
+				throw new IOException("malformed multipart delimiter");
+			}
+			return true;
+		}
+		while (ch == ' ' || ch == '\t') {
+			ch = scanner.read();
+		}
+		if (ch != '\r' || scanner.read() != '\n') {
+			throw new IOException("malformed multipart delimiter");
+		}
+		return false;
+	}
+
+	private MultivaluedMap<String, String> readHeaders() throws IOException {
+		MultivaluedMap<String, String> headers = new IgnoreCaseMultivaluedMap<>(new MultivaluedHashMap<>());
+		ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int size = 0;
+		while (true) {
+			int ch = scanner.read();
+			if (ch == -1) {
+				throw new IOException("the multipart stream ends in the headers of a part");
+			}
+			if (++size > MAX_HEADER_SIZE) {
+				throw new IOException("the headers of a part are larger than " + MAX_HEADER_SIZE + " bytes");
+			}
+			if (ch != '\n') {
+				line.write(ch);
+				continue;
+			}
+			String header = line.toString(StandardCharsets.UTF_8.name());
+			line.reset();
+			if (header.endsWith("\r")) {
+				header = header.substring(0, header.length() - 1);
+			}
+			if (header.isEmpty()) {
+				return headers;
+			}
+			int colon = header.indexOf(':');
+			if (colon <= 0) {
+				throw new IOException("malformed header in a part: " + header);
+			}
+			headers.add(header.substring(0, colon).trim(), header.substring(colon + 1).trim());
+		}
+	}
+
+	@Override
+	public Iterator<InputPart> iterator() {
+		return new Iterator<InputPart>() {
+
+			@Override
+			public boolean hasNext() {
+				if (next == null) {
+					try {
+						next = read();
+					} catch (IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+				}
+				return next != null;
+			}
+
+			@Override
+			public InputPart next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				InputPart part = next;
+				next = null;
+				return part;
+			}
+		};
+	}
+
+	/**
+	 * Delete the temporary files of the parts that are not moved.
+	 */
+	@Override
+	public void close() throws IOException {
+		IOException error = null;
+		for (InputPart part : spilled) {
+			try {
+				part.delete();
+			} catch (IOException ex) {
+				error = ex;
+			}
+		}
+		spilled.clear();
+		next = null;
+		ended = true;
+		if (error != null) {
+			throw error;
+		}
+	}
+
+	/**
+	 * The content of a part in memory until the threshold is exceeded.
+	 */
+	private class Spill extends OutputStream {
+
+		private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+		private Path file;
+		private OutputStream out;
+		private long size;
+
+		@Override
+		public void write(int bt) throws IOException {
+			write(new byte[] { (byte) bt }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] data, int off, int len) throws IOException {
+			if (out == null && size + len > threshold) {
+				file = directory == null ? Files.createTempFile("multipart", ".tmp")
+						: Files.createTempFile(directory, "multipart", ".tmp");
+				out = Files.newOutputStream(file);
+				memory.writeTo(out);
+				memory = null;
+			}
+			if (out == null) {
+				memory.write(data, off, len);
+			} else {
+				out.write(data, off, len);
+			}
+			size += len;
+		}
+
+		InputPart toPart(MultivaluedMap<String, String> headers) throws IOException {
+			if (out == null) {
+				return new InputPart(headers, memory.toByteArray(), null, size);
+			}
+			out.close();
+			return new InputPart(headers, null, file, size);
+		}
+
+		void delete() throws IOException {
+			if (out != null) {
+				out.close();
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+}
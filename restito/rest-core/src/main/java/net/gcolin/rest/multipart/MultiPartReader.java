@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.multipart;
+
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.file.Path;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+
+/**
+ * Read a multipart entity as a {@link MultiPartInput}, on the server side or
+ * on the client side. The parts are read from the entity stream when they are
+ * iterated, so the entity stream must stay open until the last part is read.
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+@Consumes({"multipart/*"})
+public class MultiPartReader implements MessageBodyReader<MultiPartInput> {
+
+	private final int threshold;
+	private final Path directory;
+
+	public MultiPartReader() {
+		this(MultiPartInput.DEFAULT_THRESHOLD, null);
+	}
+
+	/**
+	 * Create a MultiPartReader.
+	 *
+	 * @param threshold the maximum size in bytes of a part kept in memory
+	 * @param directory the directory of the temporary files or {@code null} for
+	 *                  the default temporary directory
+	 */
+	public MultiPartReader(int threshold, Path directory) {
+		this.threshold = threshold;
+		this.directory = directory;
+	}
+
+	@Override
+	public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+		return type == MultiPartInput.class;
+	}
+
+	@Override
+	public MultiPartInput readFrom(Class<MultiPartInput> type, Type genericType, Annotation[] annotations,
+			MediaType mediaType, MultivaluedMap<String, String> httpHeaders, InputStream entityStream) {
+		String boundary = mediaType == null ? null : mediaType.getParameters().get(Boundary.BOUNDARY_PARAMETER);
+		if (boundary == null) {
+			throw new BadRequestException("the multipart entity has no boundary");
+		}
+		return new MultiPartInput(entityStream, boundary, threshold, directory);
+	}
+
+}
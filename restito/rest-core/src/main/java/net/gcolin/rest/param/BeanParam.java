@@ -49,6 +49,10 @@ public class BeanParam extends Param {
 		this.params = params;
 	}
 
+	public Param[] getParams() {
+		return params;
+	}
+
 	@Override
 	public Object update(ServerInvocationContext context) throws IOException {
 		Object obj = null;
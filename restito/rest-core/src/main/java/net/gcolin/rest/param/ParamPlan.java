@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.param;
+
+import net.gcolin.rest.server.ServerInvocationContext;
+
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The query parameters needed by a resource.
+ * 
+ * <p>
+ * The plan is built once with the params of the resource. For each request,
+ * the raw query string is scanned once and only the values of the needed names
+ * are decoded with the charset of the exchange, like the map of the
+ * {@code UriInfo}. No map of all the query parameters is created. The first
+ * value of a query parameter is kept.
+ * </p>
+ * 
+ * <p>
+ * The plan gives a slot to each planned {@link QueryParam}. The slots stay in
+ * the plan so a param shared by several resources keeps no state. The cookies
+ * are read from the {@code HttpHeaders} which parse the {@code Cookie} header
+ * once per request.
+ * </p>
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class ParamPlan {
+
+  private final String[] queries;
+  private final Map<Param, Integer> slots;
+
+  private ParamPlan(String[] queries, Map<Param, Integer> slots) {
+    this.queries = queries;
+    this.slots = slots;
+  }
+
+  /**
+   * Create the plan of the params of a resource.
+   * 
+   * @param params the params of the resource
+   * @return a plan or {@code null} if there is no query parameter
+   */
+  public static ParamPlan of(Param[] params) {
+    List<QueryParam> queryParams = new ArrayList<>();
+    collect(params, queryParams);
+    if (queryParams.isEmpty()) {
+      return null;
+    }
+    List<String> queryNames = new ArrayList<>();
+    Map<Param, Integer> slots = new IdentityHashMap<>();
+    for (QueryParam param : queryParams) {
+      int index = queryNames.indexOf(param.getName());
+      if (index == -1) {
+        index = queryNames.size();
+        queryNames.add(param.getName());
+      }
+      slots.put(param, index);
+    }
+    return new ParamPlan(queryNames.toArray(new String[queryNames.size()]), slots);
+  }
+
+  private static void collect(Param[] params, List<QueryParam> queryParams) {
+    if (params == null) {
+      return;
+    }
+    for (int i = 0; i < params.length; i++) {
+      Param param = params[i];
+      if (param instanceof QueryParam) {
+        queryParams.add((QueryParam) param);
+      } else if (param instanceof BeanParam) {
+        collect(((BeanParam) param).getParams(), queryParams);
+      }
+    }
+  }
+
+  /**
+   * Extract the values of the request.
+   * 
+   * @param context the context
+   * @return the extracted values
+   */
+  public Values extract(ServerInvocationContext context) {
+    String[] values = new String[queries.length];
+    String query = context.getQueryString();
+    if (query != null) {
+      scanQuery(query, context.getQueryCharset(), values);
+    }
+    return new Values(slots, values);
+  }
+
+  private void scanQuery(String query, Charset charset, String[] values) {
+    int found = 0;
+    int start = 0;
+    int len = query.length();
+    while (start < len && found < queries.length) {
+      int end = query.indexOf('&', start);
+      if (end == -1) {
+        end = len;
+      }
+      int eq = query.indexOf('=', start);
+      if (eq == -1 || eq > end) {
+        eq = end;
+      }
+      if (eq > start) {
+        int index = indexOf(queries, query, start, eq, charset);
+        if (index != -1 && values[index] == null) {
+          values[index] = eq == end ? "" : decode(query, eq + 1, end, charset);
+          found++;
+        }
+      }
+      start = end + 1;
+    }
+  }
+
+  private static int indexOf(String[] names, String str, int start, int end,
+      Charset charset) {
+    int len = end - start;
+    boolean encoded = isEncoded(str, start, end);
+    String decoded = encoded ? decode(str, start, end, charset) : null;
+    for (int i = 0; i < names.length; i++) {
+      String name = names[i];
+      if (encoded ? name.equals(decoded)
+          : name.length() == len && str.regionMatches(start, name, 0, len)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isEncoded(String str, int start, int end) {
+    for (int i = start; i < end; i++) {
+      char ch = str.charAt(i);
+      if (ch == '%' || ch == '+') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String decode(String str, int start, int end, Charset charset) {
+    String value = str.substring(start, end);
+    if (!isEncoded(str, start, end)) {
+      return value;
+    }
+    try {
+      return URLDecoder.decode(value, charset);
+    } catch (IllegalArgumentException ex) {
+      // a malformed escape is kept as is
+      return value;
+    }
+  }
+
+  /**
+   * The values extracted from a request by a plan.
+   * 
+   * @author Gaël COLIN
+   * @since 1.4
+   */
+  public static class Values {
+
+    private final Map<Param, Integer> slots;
+    private final String[] values;
+
+    Values(Map<Param, Integer> slots, String[] values) {
+      this.slots = slots;
+      this.values = values;
+    }
+
+    /**
+     * Check if the value of a param has been extracted.
+     * 
+     * @param param a param of the resource
+     * @return {@code true} if the param is in the plan
+     */
+    public boolean contains(Param param) {
+      return slots.containsKey(param);
+    }
+
+    /**
+     * Get the extracted value of a param.
+     * 
+     * @param param a param of the resource
+     * @return the value or {@code null} if absent
+     */
+    public String get(Param param) {
+      Integer slot = slots.get(param);
+      return slot == null ? null : values[slot];
+    }
+  }
+
+}
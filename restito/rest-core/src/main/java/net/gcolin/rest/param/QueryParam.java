@@ -34,8 +34,16 @@ public class QueryParam extends ParsableParam {
     this.name = name;
   }
 
+  public String getName() {
+    return name;
+  }
+
   @Override
   public Object update(ServerInvocationContext context) throws IOException {
+    ParamPlan.Values values = context.getParamValues();
+    if (values != null && values.contains(this)) {
+      return update(values.get(this));
+    }
     return update(context.getUriInfo().getQueryParameters().getFirst(name));
   }
 
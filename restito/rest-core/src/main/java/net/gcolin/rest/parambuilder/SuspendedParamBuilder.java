@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.parambuilder;
+
+import net.gcolin.rest.param.AsyncResponseParam;
+import net.gcolin.rest.param.Param;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.container.AsyncResponse;
+
+/**
+ * Build an AsyncResponseParam.
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ * @see javax.ws.rs.container.Suspended
+ *
+ */
+public class SuspendedParamBuilder implements ParamBuilder {
+
+  @Override
+  public Param build(Class<?> type, Type genericType, Annotation[] annotations, boolean multipart,
+      Annotation annotation) {
+    if (type != AsyncResponse.class) {
+      throw new IllegalArgumentException("@Suspended is only supported on AsyncResponse and not on " + type);
+    }
+    return new AsyncResponseParam();
+  }
+
+}
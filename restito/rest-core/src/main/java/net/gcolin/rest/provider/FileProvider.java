@@ -16,15 +16,18 @@
 package net.gcolin.rest.provider;
 
 import net.gcolin.common.io.Io;
+import net.gcolin.rest.util.FileTransfer;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.Produces;
@@ -34,6 +37,10 @@ import javax.ws.rs.core.MultivaluedMap;
 /**
  * Read/Write File entity.
  * 
+ * <p>The file is written with {@link FileChannel#transferTo}. If the entity
+ * stream is a {@link FileTransfer}, the container sends the file without
+ * buffering it.</p>
+ * 
  * @author Gaël COLIN
  * @since 1.0
  * @see File
@@ -62,13 +69,20 @@ public class FileProvider extends Provider<File> {
   public void writeTo(File entity, Class<?> type, Type genericType, Annotation[] annotations,
       MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
           throws IOException {
-    FileInputStream fin = null;
-    try {
-      fin = new FileInputStream(entity);
-      httpHeaders.add("fileName", entity.getName());
-      Io.copy(fin, entityStream);
-    } finally {
-      Io.close(fin);
+    httpHeaders.add("fileName", entity.getName());
+    transfer(entity.toPath(), entityStream);
+  }
+
+  /**
+   * Write a file to the entity stream.
+   * 
+   * @param path the file
+   * @param entityStream the entity stream
+   * @throws IOException if an I/O error occurs.
+   */
+  static void transfer(Path path, OutputStream entityStream) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      FileTransfer.transfer(channel, 0, channel.size(), entityStream);
     }
   }
 
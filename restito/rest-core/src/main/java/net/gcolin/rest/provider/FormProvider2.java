@@ -18,11 +18,9 @@ package net.gcolin.rest.provider;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map.Entry;
 
@@ -32,11 +30,15 @@ import javax.ws.rs.core.Form;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 
-import net.gcolin.common.lang.Strings;
+import net.gcolin.common.io.Utf8Writer;
+import net.gcolin.rest.util.FormParser;
 
 /**
  * Read/Write Form entity from Http payload.
  * 
+ * <p>The form is read with {@link FormParser}, the number of fields and the
+ * size of a field are limited.</p>
+ * 
  * @author Gaël COLIN
  * @since 1.1
  */
@@ -44,15 +46,30 @@ import net.gcolin.common.lang.Strings;
 @Consumes({MediaType.APPLICATION_FORM_URLENCODED})
 public class FormProvider2 extends Provider<Form> {
 
+  private final int maxFields;
+  private final int maxFieldSize;
+
   public FormProvider2() {
+    this(FormParser.DEFAULT_MAX_FIELDS, FormParser.DEFAULT_MAX_FIELD_SIZE);
+  }
+
+  /**
+   * Create a FormProvider2.
+   * 
+   * @param maxFields the maximum number of fields
+   * @param maxFieldSize the maximum size in bytes of a decoded name or value
+   */
+  public FormProvider2(int maxFields, int maxFieldSize) {
     super(Form.class);
+    this.maxFields = maxFields;
+    this.maxFieldSize = maxFieldSize;
   }
 
   @Override
   public void writeTo(Form map, Class<?> type, Type genericType,
       Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
       OutputStream entityStream) throws IOException {
-    try (Writer writer = new OutputStreamWriter(entityStream, StandardCharsets.UTF_8)) {
+    try (Writer writer = new Utf8Writer(entityStream)) {
       fillFormMap(map, writer);
     }
   }
@@ -79,21 +96,8 @@ public class FormProvider2 extends Provider<Form> {
       Type genericType, Annotation[] annotations, MediaType mediaType,
       MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
     Form map = new Form();
-    int ch;
-    String key = null;
-    StringBuilder str = new StringBuilder();
-    while ((ch = entityStream.read()) != -1) {
-      if (ch == '=') {
-        key = str.toString();
-        str.setLength(0);
-      } else if (ch == '&') {
-        map.param(Strings.decodeUrl(key), Strings.decodeUrl(str.toString()));
-        str.setLength(0);
-      } else {
-        str.append((char) ch);
-      }
-    }
-    map.param(Strings.decodeUrl(key), Strings.decodeUrl(str.toString()));
+    FormParser.parse(entityStream, FormParser.charset(mediaType), maxFields, maxFieldSize,
+        map::param);
     return map;
   }
 
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.provider;
+
+import net.gcolin.rest.util.FileTransfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * Read/Write Path entity.
+ * 
+ * <p>The file is written like a File entity, see {@link FileProvider} and
+ * {@link FileTransfer}.</p>
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ * @see Path
+ */
+@Produces({MediaType.APPLICATION_OCTET_STREAM, MediaType.WILDCARD})
+@Consumes({MediaType.APPLICATION_OCTET_STREAM, MediaType.WILDCARD})
+public class PathProvider extends Provider<Path> {
+
+  public PathProvider() {
+    super(Path.class);
+  }
+
+  @Override
+  public long getSize(Path entity, Class<?> type, Type genericType, Annotation[] annotations,
+      MediaType mediaType) {
+    try {
+      return Files.size(entity);
+    } catch (IOException ex) {
+      return -1;
+    }
+  }
+
+  @Override
+  public void writeTo(Path entity, Class<?> type, Type genericType, Annotation[] annotations,
+      MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+          throws IOException {
+    httpHeaders.add("fileName", String.valueOf(entity.getFileName()));
+    FileProvider.transfer(entity, entityStream);
+  }
+
+  @Override
+  public Path readFrom(Class<Path> type, Type genericType, Annotation[] annotations,
+      MediaType mediaType, MultivaluedMap<String, String> httpHeaders, InputStream entityStream)
+          throws IOException {
+    Path file = Files.createTempFile(httpHeaders.getFirst("fileName"), null);
+    Files.copy(entityStream, file, StandardCopyOption.REPLACE_EXISTING);
+    return file;
+  }
+
+}
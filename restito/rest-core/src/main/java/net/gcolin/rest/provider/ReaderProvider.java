@@ -17,13 +17,12 @@ package net.gcolin.rest.provider;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
 import javax.ws.rs.Consumes;
@@ -54,7 +53,7 @@ public class ReaderProvider extends Provider<Reader> {
       MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
           throws IOException {
     String charset = getCharset(httpHeaders);
-    try (Writer writer = new OutputStreamWriter(entityStream, charset)) {
+    try (Writer writer = Io.writer(entityStream, Charset.forName(charset))) {
       Io.copy(entity, writer);
     }
     Io.close(entity);
@@ -81,7 +80,7 @@ public class ReaderProvider extends Provider<Reader> {
   public Reader readFrom(Class<Reader> type, Type genericType, Annotation[] annotations,
       MediaType mediaType, MultivaluedMap<String, String> httpHeaders, InputStream entityStream)
           throws IOException {
-    return new InputStreamReader(entityStream, getCharset(httpHeaders));
+    return Io.reader(entityStream, Charset.forName(getCharset(httpHeaders)));
   }
 
 }
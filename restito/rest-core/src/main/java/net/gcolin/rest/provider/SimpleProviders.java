@@ -20,18 +20,15 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Array;
-import java.lang.reflect.Method;
 import java.lang.reflect.Type;
-import java.lang.reflect.TypeVariable;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.ServiceLoader;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 import javax.ws.rs.ConstrainedTo;
@@ -71,6 +68,13 @@ import net.gcolin.rest.util.ReflectRest;
 
 /**
  * the Providers implementation.
+ *
+ * <p>
+ * The MessageBodyReader/MessageBodyWriter selected for a type, a generic type
+ * and an interned media type is cached until a provider is added. The
+ * selections that probe a provider annotated with {@link DependsOnAnnotations}
+ * are not cached.
+ * </p>
  * 
  * @author Gaël COLIN
  * @since 1.0
@@ -78,10 +82,15 @@ import net.gcolin.rest.util.ReflectRest;
 public class SimpleProviders
     implements MessageBodyWriter<Object>, MessageBodyReader<Object>, Providers {
 
-  private MessageBodyWriter<?>[] writers;
-  private MessageBodyReader<?>[] readers;
+  private static final int SELECTION_CACHE_SIZE = 1024;
+
+  private MessageBodyWriter<?>[] writers = new MessageBodyWriter<?>[0];
+  private MessageBodyReader<?>[] readers = new MessageBodyReader<?>[0];
+  private volatile Selection<MessageBodyWriter<?>> writerSelection = new Selection<>(writers);
+  private volatile Selection<MessageBodyReader<?>> readerSelection = new Selection<>(readers);
   private Map<Class<?>, ExceptionMapper<Throwable>> exceptionMappers = new HashMap<>();
-  private Set<Class<?>> exceptionMappersExcluded = new HashSet<>();
+  private volatile ExceptionMapperResolver exceptionMapperResolver =
+      new ExceptionMapperResolver(new HashMap<>());
   private Map<Class<?>, Map<MediaType, Object>> contextResolvers = new HashMap<>();
   private BindingEnvironment<Supplier<Object>> contextProviders = new BindingEnvironment<>();
   private BindingEnvironment<Supplier<Object>> contextMetaProviders = new BindingEnvironment<>();
@@ -116,10 +125,11 @@ public class SimpleProviders
 
     contextResolvers.clear();
     exceptionMappers.clear();
-    exceptionMappersExcluded.clear();
+    resetExceptionMapperResolver();
 
     this.writers = load0(MessageBodyWriter.class);
     this.readers = load0(MessageBodyReader.class);
+    resetSelections();
 
     for (Configurator c : ServiceLoader.load(Configurator.class)) {
       c.configure(this);
@@ -157,8 +167,15 @@ public class SimpleProviders
       readers[i] = (MessageBodyReader<?>) env.decorate(readers[i], MessageBodyReader.class);
     }
     
+    resetSelections();
+
     exceptionMappers.replaceAll((type, ex) -> env.decorate(ex, ExceptionMapper.class));
-    exceptionMappersExcluded.clear();
+    resetExceptionMapperResolver();
+  }
+
+  private void resetSelections() {
+    writerSelection = new Selection<>(writers);
+    readerSelection = new Selection<>(readers);
   }
 
   /**
@@ -186,10 +203,12 @@ public class SimpleProviders
 
   public void add(MessageBodyReader<?> reader) {
     this.readers = Collections2.addToArray(this.readers, reader);
+    readerSelection = new Selection<>(readers);
   }
 
   public void add(MessageBodyWriter<?> writer) {
     this.writers = Collections2.addToArray(this.writers, writer);
+    writerSelection = new Selection<>(writers);
   }
 
   /**
@@ -199,21 +218,18 @@ public class SimpleProviders
    */
   public void add(ExceptionMapper<Throwable> exceptionMapper) {
     Class<?> type = TypedInvocationHandler.getRealType(exceptionMapper);
-    Class<?> exType = Throwable.class;
-
-    for(Method method: type.getMethods()) {
-    	if(method.getName().equals("toResponse") && method.getParameterCount() == 1) {
-    		Type t = method.getGenericParameterTypes()[0];
-    		if(t instanceof TypeVariable) {
-    			exType = Reflect.toClass(Reflect.getType(ExceptionMapper.class, type, t));
-    		} else {
-    			exType = Reflect.toClass(t);
-    		}
-    		break;
-    	}
+    Class<?> exType = Reflect.toClass(
+        Reflect.getGenericTypeArguments(ExceptionMapper.class, type, null).get(0));
+    if (!Throwable.class.isAssignableFrom(exType)) {
+      // a raw ExceptionMapper
+      exType = Throwable.class;
     }
     exceptionMappers.put(exType, exceptionMapper);
-    exceptionMappersExcluded.clear();
+    resetExceptionMapperResolver();
+  }
+
+  private void resetExceptionMapperResolver() {
+    exceptionMapperResolver = new ExceptionMapperResolver(new HashMap<>(exceptionMappers));
   }
 
   /**
@@ -276,9 +292,17 @@ public class SimpleProviders
   @Override
   public <T> MessageBodyReader<T> getMessageBodyReader(Class<T> type, Type genericType,
       Annotation[] annotations, MediaType mediaType) {
-    for (int i = 0, l = readers.length; i < l; i++) {
-      if (readers[i].isReadable(type, genericType, annotations, mediaType)) {
-        return (MessageBodyReader<T>) readers[i];
+    Selection<MessageBodyReader<?>> selection = readerSelection;
+    SelectionKey key = SelectionKey.of(type, genericType, mediaType);
+    MessageBodyReader<?> reader = selection.get(key);
+    if (reader != null) {
+      return (MessageBodyReader<T>) reader;
+    }
+    MessageBodyReader<?>[] array = selection.providers;
+    for (int i = 0, l = array.length; i < l; i++) {
+      if (array[i].isReadable(type, genericType, annotations, mediaType)) {
+        selection.put(key, i, array[i]);
+        return (MessageBodyReader<T>) array[i];
       }
     }
     throw new ProcessingException(
@@ -295,31 +319,32 @@ public class SimpleProviders
     if(genericType == null) {
       genericType = type;
     }
-    for (int i = 0, l = writers.length; i < l; i++) {
-      if (writers[i].isWriteable(type, genericType, annotations, mediaType)) {
-        return (MessageBodyWriter<T>) writers[i];
+    Selection<MessageBodyWriter<?>> selection = writerSelection;
+    SelectionKey key = SelectionKey.of(type, genericType, mediaType);
+    MessageBodyWriter<?> writer = selection.get(key);
+    if (writer != null) {
+      return (MessageBodyWriter<T>) writer;
+    }
+    MessageBodyWriter<?>[] array = selection.providers;
+    for (int i = 0, l = array.length; i < l; i++) {
+      if (array[i].isWriteable(type, genericType, annotations, mediaType)) {
+        selection.put(key, i, array[i]);
+        return (MessageBodyWriter<T>) array[i];
       }
     }
     throw new ProcessingException("cannot find MessageBodyWriter for " + genericType);
   }
 
+  /**
+   * Get the ExceptionMapper of the nearest super class of an exception type. The
+   * resolution is lock-free and cached for each exception type, including the
+   * types without mapper.
+   */
   @SuppressWarnings("unchecked")
   @Override
-  public synchronized <T extends Throwable> ExceptionMapper<T> getExceptionMapper(Class<T> type) {
-	  ExceptionMapper<T> result = (ExceptionMapper<T>) exceptionMappers.get(type);
-	  if(result == null) {
-		  for(Entry<Class<?>, ExceptionMapper<Throwable>> t : exceptionMappers.entrySet()) {
-			  if(t.getKey().isAssignableFrom(type)) {
-				  exceptionMappers.put(type, t.getValue());
-				  result = (ExceptionMapper<T>) t.getValue();
-				  break;
-			  }
-		  }
-		  if(result == null) {
-			  exceptionMappersExcluded.add(type);
-		  }
-	  }
-	  return result;
+  public <T extends Throwable> ExceptionMapper<T> getExceptionMapper(Class<T> type) {
+    ExceptionMapper<Throwable> mapper = exceptionMapperResolver.get(type);
+    return mapper == ExceptionMapperResolver.NONE ? null : (ExceptionMapper<T>) mapper;
   }
 
   @SuppressWarnings("unchecked")
@@ -355,4 +380,111 @@ public class SimpleProviders
         genericType, annotations, mediaType, httpHeaders, entityStream);
   }
 
+
+  /**
+   * Resolve the ExceptionMapper of an exception type from an immutable
+   * snapshot of the registered mappers. A new resolver is created when a mapper
+   * is added.
+   */
+  private static class ExceptionMapperResolver extends ClassValue<ExceptionMapper<Throwable>> {
+
+    static final ExceptionMapper<Throwable> NONE = ex -> null;
+
+    private final Map<Class<?>, ExceptionMapper<Throwable>> mappers;
+
+    ExceptionMapperResolver(Map<Class<?>, ExceptionMapper<Throwable>> mappers) {
+      this.mappers = mappers;
+    }
+
+    @Override
+    protected ExceptionMapper<Throwable> computeValue(Class<?> type) {
+      for (Class<?> cl = type; cl != null; cl = cl.getSuperclass()) {
+        ExceptionMapper<Throwable> mapper = mappers.get(cl);
+        if (mapper != null) {
+          return mapper;
+        }
+      }
+      return NONE;
+    }
+  }
+
+  /**
+   * The providers probed by a lookup and the providers already selected. A new
+   * selection is created when a provider is added, so a lookup sees a
+   * consistent array and cache.
+   */
+  private static class Selection<P> {
+
+    private final P[] providers;
+    private final int cacheable;
+    private final Map<SelectionKey, P> cache = new ConcurrentHashMap<>();
+
+    Selection(P[] providers) {
+      this.providers = providers;
+      int index = 0;
+      while (index < providers.length && !TypedInvocationHandler.getRealType(providers[index])
+          .isAnnotationPresent(DependsOnAnnotations.class)) {
+        index++;
+      }
+      cacheable = index;
+    }
+
+    P get(SelectionKey key) {
+      return key == null ? null : cache.get(key);
+    }
+
+    /**
+     * Cache a selection if none of the probed providers depends on the
+     * annotations.
+     */
+    void put(SelectionKey key, int index, P provider) {
+      if (key != null && index < cacheable && cache.size() < SELECTION_CACHE_SIZE) {
+        cache.putIfAbsent(key, provider);
+      }
+    }
+  }
+
+  private static final class SelectionKey {
+
+    private final Class<?> type;
+    private final Type genericType;
+    private final int mediaType;
+    private final int hash;
+
+    private SelectionKey(Class<?> type, Type genericType, int mediaType) {
+      this.type = type;
+      this.genericType = genericType;
+      this.mediaType = mediaType;
+      this.hash = (31 * type.hashCode() + Objects.hashCode(genericType)) * 31 + mediaType;
+    }
+
+    /**
+     * Create a key or return {@code null} if the media type is not interned.
+     */
+    static SelectionKey of(Class<?> type, Type genericType, MediaType mediaType) {
+      if (type == null || !(mediaType instanceof FastMediaType)) {
+        return null;
+      }
+      int id = ((FastMediaType) mediaType).getId();
+      return id == FastMediaType.NO_ID ? null : new SelectionKey(type, genericType, id);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof SelectionKey)) {
+        return false;
+      }
+      SelectionKey other = (SelectionKey) obj;
+      return mediaType == other.mediaType && type == other.type
+          && Objects.equals(genericType, other.genericType);
+    }
+  }
 }
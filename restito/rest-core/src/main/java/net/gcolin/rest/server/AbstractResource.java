@@ -50,8 +50,25 @@ public abstract class AbstractResource extends ResourceSelector implements Resou
 
   public abstract Class<?> getSource();
 
+  /**
+   * Call the service.
+   * 
+   * @param ctx the context
+   * @return the response or {@code null} if the response is suspended
+   * @throws IOException if an I/O error occurs.
+   */
   public abstract Response handle(ServerInvocationContext ctx) throws IOException;
 
+  /**
+   * Create the response of a resumed AsyncResponse.
+   * 
+   * @param ctx the context
+   * @param entity an entity, a Response or {@code null}
+   * @return the response
+   * @throws IOException if an I/O error occurs.
+   */
+  public abstract Response resume(ServerInvocationContext ctx, Object entity) throws IOException;
+
   public abstract Annotation[] getAnnotations();
 
   public abstract Supplier<Object> getInstance();
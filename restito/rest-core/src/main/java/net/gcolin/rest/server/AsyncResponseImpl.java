@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.server;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+import net.gcolin.common.reflect.Reflect;
+import net.gcolin.rest.Logs;
+
+/**
+ * The AsyncResponse implementation of the REST server side.
+ *
+ * <p>
+ * The response is written by the {@link Exchange} on the thread that resumes
+ * or cancels it. The timeouts are handled by a shared daemon thread so they do
+ * not depend on the container.
+ * </p>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class AsyncResponseImpl implements AsyncResponse {
+
+  private static final int SUSPENDED = 0;
+  private static final int RESUMED = 1;
+  private static final int CANCELLED = 2;
+
+  private final ServerInvocationContext context;
+  private final AtomicInteger state = new AtomicInteger(SUSPENDED);
+  private final List<CompletionCallback> completionCallbacks = new CopyOnWriteArrayList<>();
+  private volatile TimeoutHandler timeoutHandler;
+  private ScheduledFuture<?> timeout;
+
+  public AsyncResponseImpl(ServerInvocationContext context) {
+    this.context = context;
+  }
+
+  public ServerInvocationContext getContext() {
+    return context;
+  }
+
+  @Override
+  public boolean resume(Object response) {
+    return resume(response, RESUMED);
+  }
+
+  @Override
+  public boolean resume(Throwable response) {
+    return resume((Object) response, RESUMED);
+  }
+
+  private boolean resume(Object result, int newState) {
+    if (!state.compareAndSet(SUSPENDED, newState)) {
+      return false;
+    }
+    cancelTimeout();
+    context.getExchange().resume(this, result);
+    return true;
+  }
+
+  @Override
+  public boolean cancel() {
+    return cancel((Object) null);
+  }
+
+  @Override
+  public boolean cancel(int retryAfter) {
+    return cancel((Object) retryAfter);
+  }
+
+  @Override
+  public boolean cancel(Date retryAfter) {
+    return cancel((Object) retryAfter);
+  }
+
+  private boolean cancel(Object retryAfter) {
+    Response.ResponseBuilder builder = Response.status(HttpURLConnection.HTTP_UNAVAILABLE);
+    if (retryAfter != null) {
+      builder.header(HttpHeaders.RETRY_AFTER, retryAfter);
+    }
+    return resume(builder.build(), CANCELLED) || isCancelled();
+  }
+
+  @Override
+  public boolean isSuspended() {
+    return state.get() == SUSPENDED;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return state.get() == CANCELLED;
+  }
+
+  @Override
+  public boolean isDone() {
+    return state.get() != SUSPENDED;
+  }
+
+  @Override
+  public boolean setTimeout(long time, TimeUnit unit) {
+    if (!isSuspended()) {
+      return false;
+    }
+    synchronized (this) {
+      cancelTimeout();
+      if (time > 0) {
+        timeout = Timer.INSTANCE.schedule(this::onTimeout, time, unit);
+      }
+    }
+    return true;
+  }
+
+  private synchronized void cancelTimeout() {
+    if (timeout != null) {
+      timeout.cancel(false);
+      timeout = null;
+    }
+  }
+
+  private void onTimeout() {
+    if (!isSuspended()) {
+      return;
+    }
+    TimeoutHandler handler = timeoutHandler;
+    if (handler == null) {
+      resume(new ServiceUnavailableException());
+    } else {
+      try {
+        handler.handleTimeout(this);
+      } catch (RuntimeException ex) {
+        resume(ex);
+      }
+    }
+  }
+
+  @Override
+  public void setTimeoutHandler(TimeoutHandler handler) {
+    this.timeoutHandler = handler;
+  }
+
+  @Override
+  public Collection<Class<?>> register(Class<?> callback) {
+    return register(Reflect.newInstance(Objects.requireNonNull(callback)));
+  }
+
+  @Override
+  public Map<Class<?>, Collection<Class<?>>> register(Class<?> callback, Class<?>... callbacks) {
+    Map<Class<?>, Collection<Class<?>>> result = new HashMap<>();
+    result.put(callback, register(callback));
+    for (Class<?> cl : callbacks) {
+      result.put(cl, register(cl));
+    }
+    return result;
+  }
+
+  /**
+   * Register a callback. Only the {@link CompletionCallback} is supported, the
+   * servlet API does not notify the disconnections.
+   */
+  @Override
+  public Collection<Class<?>> register(Object callback) {
+    Objects.requireNonNull(callback);
+    List<Class<?>> registered = new ArrayList<>(1);
+    if (callback instanceof CompletionCallback) {
+      completionCallbacks.add((CompletionCallback) callback);
+      registered.add(CompletionCallback.class);
+    }
+    return Collections.unmodifiableList(registered);
+  }
+
+  @Override
+  public Map<Class<?>, Collection<Class<?>>> register(Object callback, Object... callbacks) {
+    Map<Class<?>, Collection<Class<?>>> result = new HashMap<>();
+    result.put(callback.getClass(), register(callback));
+    for (Object cb : callbacks) {
+      result.put(cb.getClass(), register(cb));
+    }
+    return result;
+  }
+
+  /**
+   * Notify the completion callbacks. Called by the {@link Exchange} after the
+   * response is written.
+   *
+   * @param error the error that occurs during the writing or {@code null}
+   */
+  public void complete(Throwable error) {
+    for (CompletionCallback callback : completionCallbacks) {
+      try {
+        callback.onComplete(error);
+      } catch (RuntimeException ex) {
+        Logs.LOG.error("error in completion callback " + callback, ex);
+      }
+    }
+  }
+
+  private static class Timer {
+
+    static final ScheduledThreadPoolExecutor INSTANCE = create();
+
+    private static ScheduledThreadPoolExecutor create() {
+      ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, run -> {
+        Thread thread = new Thread(run, "rest-async-timeout");
+        thread.setDaemon(true);
+        return thread;
+      });
+      executor.setRemoveOnCancelPolicy(true);
+      return executor;
+    }
+  }
+}
@@ -114,6 +114,11 @@ public class ContainerRequestFilterResource extends AbstractResource {
     return delegate.handle(ctx);
   }
 
+  @Override
+  public Response resume(ServerInvocationContext ctx, Object entity) throws IOException {
+    return delegate.resume(ctx, entity);
+  }
+
   @Override
   public Annotation[] getAnnotations() {
     return delegate.getAnnotations();
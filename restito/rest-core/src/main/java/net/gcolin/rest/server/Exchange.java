@@ -17,6 +17,8 @@ package net.gcolin.rest.server;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Locale;
 
 import javax.ws.rs.core.HttpHeaders;
@@ -55,4 +57,44 @@ public interface Exchange {
   SecurityContext securityContext();
 
   UriInfo uriInfo(ServerInvocationContext ctx);
+
+  /**
+   * Get the query string as it is sent by the client.
+   * 
+   * @param ctx the context
+   * @return the encoded query string or {@code null} if there is none
+   */
+  default String queryString(ServerInvocationContext ctx) {
+    return uriInfo(ctx).getRequestUri().getRawQuery();
+  }
+
+  /**
+   * Get the charset of the escaped characters of the query string.
+   * 
+   * @return the charset, UTF-8 by default
+   */
+  default Charset queryCharset() {
+    return StandardCharsets.UTF_8;
+  }
+
+  /**
+   * Switch to the asynchronous mode. Called by the request thread when a
+   * resource suspends the response.
+   * 
+   * @param response the suspended response
+   */
+  default void suspend(AsyncResponseImpl response) {
+    throw new UnsupportedOperationException("asynchronous processing is not supported");
+  }
+
+  /**
+   * Write the result of a suspended response and complete the exchange. Called
+   * by the thread that resumes the response.
+   * 
+   * @param response the resumed response
+   * @param result an entity, a Response or a Throwable
+   */
+  default void resume(AsyncResponseImpl response, Object result) {
+    throw new UnsupportedOperationException("asynchronous processing is not supported");
+  }
 }
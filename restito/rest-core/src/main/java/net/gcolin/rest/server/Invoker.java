@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.server;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Call the java method of a {@link Resource}.
+ *
+ * <p>
+ * The contract is the one of {@code Method.invoke}: an exception thrown by the
+ * method is wrapped in an {@code InvocationTargetException}.
+ * </p>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ * @see Invokers
+ */
+@FunctionalInterface
+public interface Invoker {
+
+	/**
+	 * Call the method.
+	 *
+	 * @param instance the resource instance
+	 * @param args     the parameters of the method or {@code null} if there is
+	 *                 none
+	 * @return the returned value, boxed if it is a primitive
+	 * @throws InvocationTargetException if the method throws an exception
+	 * @throws IllegalAccessException    if the method is not accessible
+	 */
+	Object invoke(Object instance, Object[] args) throws InvocationTargetException, IllegalAccessException;
+
+}
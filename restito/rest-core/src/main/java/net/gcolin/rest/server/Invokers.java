@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.server;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Create the {@link Invoker} of a resource method.
+ *
+ * <p>
+ * The method handle invoker is created once for each resource. It does not
+ * check the access and the parameters at each call like the reflection and it
+ * is inlined by the JIT when the resource is hot. The reflection is used when
+ * the method is not accessible with a public lookup.
+ * </p>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class Invokers {
+
+	private static final MethodType GENERIC = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+	private Invokers() {
+	}
+
+	/**
+	 * Create the fastest invoker of a method.
+	 *
+	 * @param method a resource method
+	 * @return an invoker
+	 */
+	public static Invoker of(Method method) {
+		try {
+			return methodHandle(method);
+		} catch (IllegalAccessException ex) {
+			return reflect(method);
+		}
+	}
+
+	/**
+	 * Create an invoker that calls {@code Method.invoke}.
+	 *
+	 * @param method a method
+	 * @return an invoker
+	 */
+	public static Invoker reflect(Method method) {
+		return method::invoke;
+	}
+
+	/**
+	 * Create an invoker with a spread method handle.
+	 *
+	 * @param method a public method of a public class
+	 * @return an invoker
+	 * @throws IllegalAccessException if the method is not accessible
+	 */
+	public static Invoker methodHandle(Method method) throws IllegalAccessException {
+		MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
+		if (Modifier.isStatic(method.getModifiers())) {
+			handle = MethodHandles.dropArguments(handle, 0, Object.class);
+		}
+		MethodHandle generic = handle.asSpreader(Object[].class, method.getParameterCount()).asType(GENERIC);
+		return new MethodHandleInvoker(generic);
+	}
+
+	private static class MethodHandleInvoker implements Invoker {
+
+		private final MethodHandle handle;
+
+		MethodHandleInvoker(MethodHandle handle) {
+			this.handle = handle;
+		}
+
+		@Override
+		public Object invoke(Object instance, Object[] args) throws InvocationTargetException {
+			try {
+				return handle.invokeExact(instance, args);
+			} catch (Throwable th) {
+				throw new InvocationTargetException(th);
+			}
+		}
+	}
+
+}
@@ -19,14 +19,20 @@ import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -48,11 +54,15 @@ import javax.ws.rs.ext.Providers;
 import javax.ws.rs.ext.ReaderInterceptor;
 import javax.ws.rs.ext.WriterInterceptor;
 
+import net.gcolin.common.collection.CopyOnWriteIntObjectMap;
+import net.gcolin.common.reflect.Reflect;
 import net.gcolin.rest.Environment;
 import net.gcolin.rest.FastMediaType;
 import net.gcolin.rest.MessageBodyReaderDecorator;
 import net.gcolin.rest.MessageBodyWriterDecorator;
+import net.gcolin.rest.param.AsyncResponseParam;
 import net.gcolin.rest.param.Param;
+import net.gcolin.rest.param.ParamPlan;
 import net.gcolin.rest.param.PostParam;
 import net.gcolin.rest.provider.Provider;
 import net.gcolin.rest.provider.SimpleProviders;
@@ -68,27 +78,32 @@ import net.gcolin.rest.util.HttpHeader;
  */
 public class Resource extends AbstractResource implements HasPath, ResourceInfo {
 
+	// marks a negotiation without result in the tables
+	private static final FastMediaType NO_MEDIA_TYPE = new FastMediaType("", "", "", null);
+	private static final int ACCEPT_CACHE_SIZE = 128;
+
 	private String path;
 	private Method method;
+	private Invoker invoker;
 	private FastMediaType[] accept;
-	private FastMediaType[] acceptCompatibility = new FastMediaType[0];
-	private boolean[] isAcceptCompatibility = new boolean[0];
-	@SuppressWarnings("unchecked")
-	private MessageBodyWriter<Object>[] writers = new MessageBodyWriter[0];
+	// negotiation tables indexed by the id of the interned media types
+	private final CopyOnWriteIntObjectMap<FastMediaType> acceptCompatibility = new CopyOnWriteIntObjectMap<>();
+	private final CopyOnWriteIntObjectMap<MessageBodyWriter<Object>> writers = new CopyOnWriteIntObjectMap<>();
+	// the clients send a few distinct Accept headers
+	private final Map<String, FastMediaType> acceptCache = new ConcurrentHashMap<>();
 
 	private FastMediaType[] consume;
-	private FastMediaType[] consumeCompatibility = new FastMediaType[0];
-	private boolean[] isConsumeCompatibility = new boolean[0];
-	@SuppressWarnings("unchecked")
-	private MessageBodyReader<Object>[] readers = new MessageBodyReader[0];
+	private final CopyOnWriteIntObjectMap<Consumed> consumeCompatibility = new CopyOnWriteIntObjectMap<>();
 	private PostParam postParam;
 	private boolean isvoid;
 	private Supplier<Object> instance;
 	private Param[] params;
+	private ParamPlan paramPlan;
 	private Class<?> source;
 	private Annotation[] annotations;
 	private Type genericType;
 	private Class<?> type;
+	private Type asyncType;
 	private Providers providers;
 	private MessageBodyWriterDecorator writerDecorator;
 	private List<ContainerResponseFilter> responseFilters;
@@ -110,11 +125,25 @@ public class Resource extends AbstractResource implements HasPath, ResourceInfo
 			Class<?> source, SimpleProviders providers) {
 		this.providers = providers;
 		this.method = method;
+		invoker = Invokers.of(method);
 		genericType = method.getGenericReturnType();
 		type = method.getReturnType();
 
-		isvoid = method.getReturnType() == Void.TYPE;
-		if (method.getReturnType() == Void.TYPE) {
+		boolean completionStage = CompletionStage.class.isAssignableFrom(type);
+		boolean async = completionStage || hasAsyncResponse(params);
+		isvoid = method.getReturnType() == Void.TYPE && !async;
+		if (async) {
+			if (completionStage) {
+				Type entityType = Reflect.getGenericTypeArguments(CompletionStage.class, genericType, null).get(0);
+				if (entityType instanceof Class || entityType instanceof ParameterizedType) {
+					asyncType = entityType;
+				}
+			}
+			// the entity type is known when the response is resumed
+			type = Response.class;
+			genericType = Response.class;
+			responseStrategy = new AsyncResponseStrategy();
+		} else if (method.getReturnType() == Void.TYPE) {
 			responseStrategy = new VoidResponseStrategy();
 		} else if (method.getReturnType() == Response.class) {
 			responseStrategy = new ResponseResponseStrategy();
@@ -190,43 +219,30 @@ public class Resource extends AbstractResource implements HasPath, ResourceInfo
 		}
 	}
 
-	private void addReader(MessageBodyReader<Object> reader, FastMediaType fastMediaType) {
-		if (readers.length <= fastMediaType.getId()) {
-			@SuppressWarnings("unchecked")
-			MessageBodyReader<Object>[] tmp = new MessageBodyReader[fastMediaType.getId() + 1];
-			System.arraycopy(readers, 0, tmp, 0, readers.length);
-			readers = tmp;
-		}
-		readers[fastMediaType.getId()] = reader;
-	}
-
-	@SuppressWarnings("unchecked")
-	private MessageBodyWriter<Object> addWriter(FastMediaType fastMediaType) {
-		Method met = getResourceMethod();
-		return addWriter((MessageBodyWriter<Object>) providers.getMessageBodyWriter(met.getReturnType(),
-				met.getGenericReturnType(), met.getAnnotations(), fastMediaType), fastMediaType);
-	}
-
-	private MessageBodyWriter<Object> addWriter(MessageBodyWriter<Object> writer, FastMediaType fastMediaType) {
-		if (writers.length <= fastMediaType.getId()) {
-			@SuppressWarnings("unchecked")
-			MessageBodyWriter<Object>[] tmp = new MessageBodyWriter[fastMediaType.getId() + 1];
-			System.arraycopy(writers, 0, tmp, 0, writers.length);
-			writers = tmp;
+	private static boolean hasAsyncResponse(Param[] params) {
+		if (params != null) {
+			for (int i = 0; i < params.length; i++) {
+				if (params[i] instanceof AsyncResponseParam) {
+					return true;
+				}
+			}
 		}
-		writers[fastMediaType.getId()] = writer;
-		return writer;
+		return false;
 	}
 
 	@Override
 	public Response handle(ServerInvocationContext context) throws IOException {
 		try {
-			Object response = method.invoke(instance.get(), createParams(context));
+			Object response = invoker.invoke(instance.get(), createParams(context));
 
 			return responseStrategy.send(context, response);
 		} catch (InvocationTargetException ex) {
 			Throwable th = ex.getTargetException();
-			if (th instanceof WebApplicationException) {
+			if (context.isSuspended()) {
+				// the response is sent by the async path
+				context.getAsyncResponse().resume(th);
+				return null;
+			} else if (th instanceof WebApplicationException) {
 				throw (WebApplicationException) th;
 			} else {
 				throw new WebApplicationException(th);
@@ -236,6 +252,21 @@ public class Resource extends AbstractResource implements HasPath, ResourceInfo
 		}
 	}
 
+	@Override
+	public Response resume(ServerInvocationContext context, Object entity) throws IOException {
+		if (entity == null) {
+			return new VoidResponseStrategy().send(context, null);
+		} else if (entity instanceof Response) {
+			return new ResponseResponseStrategy().send(context, entity);
+		} else if (entity instanceof GenericEntity) {
+			return new GenericEntityResponseStrategy().send(context, entity);
+		} else {
+			Type entityType = asyncType != null && Reflect.toClass(asyncType).isInstance(entity) ? asyncType
+					: entity.getClass();
+			return writeTo(context, entity, entity.getClass(), entityType, null);
+		}
+	}
+
 	private Response writeTo(ServerInvocationContext context, Object entity, Class<?> type, Type genericType,
 			MultivaluedMap<String, String> httpHeaders) throws IOException {
 		context.setEntityClass(type);
@@ -288,106 +319,110 @@ public class Resource extends AbstractResource implements HasPath, ResourceInfo
 		}
 	}
 
+	@SuppressWarnings("unchecked")
 	private MessageBodyWriter<Object> findWriter(FastMediaType responseMediaType) {
-		if (responseMediaType.getId() >= writers.length) {
-			addWriter(responseMediaType);
-		}
-		MessageBodyWriter<Object> writer = writers[responseMediaType.getId()];
+		int id = responseMediaType.getId();
+		MessageBodyWriter<Object> writer = id == FastMediaType.NO_ID ? null : writers.get(id);
 		if (writer == null) {
-			writer = addWriter(responseMediaType);
+			writer = (MessageBodyWriter<Object>) providers.getMessageBodyWriter(type, genericType,
+					getResourceMethod().getAnnotations(), responseMediaType);
+			if (writer != null && id != FastMediaType.NO_ID) {
+				writers.put(id, writer);
+			}
 		}
 		return writer;
 	}
 
+	private Consumed findConsume(ServerInvocationContext context) {
+		String contentTypeHeader = context.getHeaderString(HttpHeaders.CONTENT_TYPE);
+		if (contentTypeHeader == null) {
+			return null;
+		}
+		FastMediaType contentMediaType = FastMediaType.valueOf(contentTypeHeader);
+		int id = contentMediaType.getId();
+		Consumed consumed = id == FastMediaType.NO_ID ? negotiateConsume(contentMediaType)
+				: consumeCompatibility.computeIfAbsent(id, k -> negotiateConsume(contentMediaType));
+		return consumed == Consumed.NONE ? null : consumed;
+	}
+
 	@SuppressWarnings("rawtypes")
-  private FastMediaType findConsumeMediatype(ServerInvocationContext context) {
-    String contentTypeHeader = context.getHeaderString(HttpHeaders.CONTENT_TYPE);
-    if (contentTypeHeader == null) {
-    	return null;
-    }
-    FastMediaType consumeMediaType = null;
-    FastMediaType contentMediaType = FastMediaType.valueOf(contentTypeHeader);
-    if (consumeCompatibility.length > contentMediaType.getId()) {
-      consumeMediaType = consumeCompatibility[contentMediaType.getId()];
-    }
-    if (consumeCompatibility.length <= contentMediaType.getId()
-        || !isConsumeCompatibility[contentMediaType.getId()]) {
-      if (consumeCompatibility.length <= contentMediaType.getId()) {
-        FastMediaType[] tmp = new FastMediaType[contentMediaType.getId() + 1];
-        System.arraycopy(consumeCompatibility, 0, tmp, 0, consumeCompatibility.length);
-        consumeCompatibility = tmp;
-
-        boolean[] tmp2 = new boolean[contentMediaType.getId() + 1];
-        System.arraycopy(isConsumeCompatibility, 0, tmp2, 0, isConsumeCompatibility.length);
-        isConsumeCompatibility = tmp2;
-      }
-      for (int i = 0, l = consume.length; i < l; i++) {
-        if (consume[i].isCompatible(contentMediaType)) {
-          consumeMediaType = consume[i];
-          if (postParam != null) {
-            MessageBodyReader<Object> reader = providers.getMessageBodyReader(postParam.getType(),
-                postParam.getGenericType(), postParam.getAnnotations(), consumeMediaType);
-            if (consumeMediaType.isWildcard() && reader instanceof Provider) {
-              consumeMediaType = ((Provider) reader).getDefaultConsumeMediaType();
-            }
-            addReader(reader, consumeMediaType);
-          }
-          consumeCompatibility[contentMediaType.getId()] = consumeMediaType;
-          break;
-        }
-      }
-      isConsumeCompatibility[contentMediaType.getId()] = true;
-    }
-    return consumeMediaType;
-  }
+	private Consumed negotiateConsume(FastMediaType contentMediaType) {
+		for (int i = 0, l = consume.length; i < l; i++) {
+			if (consume[i].isCompatible(contentMediaType)) {
+				FastMediaType consumeMediaType = consume[i];
+				MessageBodyReader<Object> reader = null;
+				if (postParam != null) {
+					reader = providers.getMessageBodyReader(postParam.getType(), postParam.getGenericType(),
+							postParam.getAnnotations(), consumeMediaType);
+					if (consumeMediaType.isWildcard() && reader instanceof Provider) {
+						consumeMediaType = ((Provider) reader).getDefaultConsumeMediaType();
+					}
+				}
+				return new Consumed(consumeMediaType, reader);
+			}
+		}
+		return Consumed.NONE;
+	}
 
 	private FastMediaType findResponseMediatype(ServerInvocationContext context) {
-		FastMediaType responseMediaType = null;
-		Iterator<FastMediaType> acceptMediaTypes = FastMediaType.iterator(context.getHeaderString(HttpHeaders.ACCEPT));
-		while (acceptMediaTypes.hasNext() && responseMediaType == null) {
-			FastMediaType acceptMediaType = acceptMediaTypes.next();
-			if (acceptCompatibility.length > acceptMediaType.getId()) {
-				responseMediaType = acceptCompatibility[acceptMediaType.getId()];
+		String header = context.getHeaderString(HttpHeaders.ACCEPT);
+		if (header == null) {
+			header = MediaType.WILDCARD;
+		}
+		FastMediaType responseMediaType = acceptCache.get(header);
+		if (responseMediaType == null) {
+			responseMediaType = negotiateAcceptHeader(header);
+			if (acceptCache.size() < ACCEPT_CACHE_SIZE) {
+				acceptCache.putIfAbsent(header, responseMediaType);
 			}
-			if (acceptCompatibility.length <= acceptMediaType.getId()
-					|| !isAcceptCompatibility[acceptMediaType.getId()]) {
-
-				if (acceptCompatibility.length <= acceptMediaType.getId()) {
-					FastMediaType[] tmp = new FastMediaType[acceptMediaType.getId() + 1];
-					System.arraycopy(acceptCompatibility, 0, tmp, 0, acceptCompatibility.length);
-					acceptCompatibility = tmp;
+		}
+		return responseMediaType == NO_MEDIA_TYPE ? null : responseMediaType;
+	}
 
-					boolean[] tmp2 = new boolean[acceptMediaType.getId() + 1];
-					System.arraycopy(isAcceptCompatibility, 0, tmp2, 0, isAcceptCompatibility.length);
-					isAcceptCompatibility = tmp2;
-				}
+	private FastMediaType negotiateAcceptHeader(String header) {
+		Iterator<FastMediaType> acceptMediaTypes = FastMediaType.iterator(header);
+		while (acceptMediaTypes.hasNext()) {
+			FastMediaType acceptMediaType = acceptMediaTypes.next();
+			int id = acceptMediaType.getId();
+			FastMediaType responseMediaType = id == FastMediaType.NO_ID ? negotiateAccept(acceptMediaType)
+					: acceptCompatibility.computeIfAbsent(id, k -> negotiateAccept(acceptMediaType));
+			if (responseMediaType != NO_MEDIA_TYPE) {
+				return responseMediaType;
+			}
+		}
+		return NO_MEDIA_TYPE;
+	}
 
-				for (int i = 0, l = accept.length; i < l; i++) {
-					if (accept[i].isCompatible(acceptMediaType)) {
-						responseMediaType = accept[i];
-						if (responseMediaType.isWildcardSubtype()) {
-							MessageBodyWriter<Object> writer = findWriter(responseMediaType);
-							if (writer instanceof Provider) {
-								responseMediaType = ((Provider<Object>) writer).getDefaultProduceMediaType();
-							}
-						}
-						acceptCompatibility[acceptMediaType.getId()] = responseMediaType;
-						break;
+	@SuppressWarnings("unchecked")
+	private FastMediaType negotiateAccept(FastMediaType acceptMediaType) {
+		for (int i = 0, l = accept.length; i < l; i++) {
+			if (accept[i].isCompatible(acceptMediaType)) {
+				FastMediaType responseMediaType = accept[i];
+				if (responseMediaType.isWildcardSubtype()) {
+					MessageBodyWriter<Object> writer = findWriter(responseMediaType);
+					if (writer instanceof Provider) {
+						responseMediaType = ((Provider<Object>) writer).getDefaultProduceMediaType();
 					}
 				}
-				isAcceptCompatibility[acceptMediaType.getId()] = true;
+				return responseMediaType;
 			}
-
 		}
-		return responseMediaType;
+		return NO_MEDIA_TYPE;
 	}
 
 	private Object[] createParams(ServerInvocationContext context) throws IOException {
 		if (getParams() != null) {
 			Param[] paramsArray = this.getParams();
 			Object[] oa = new Object[paramsArray.length];
-			for (int i = 0; i < paramsArray.length; i++) {
-				oa[i] = paramsArray[i].update(context);
+			if (paramPlan != null) {
+				context.setParamValues(paramPlan.extract(context));
+			}
+			try {
+				for (int i = 0; i < paramsArray.length; i++) {
+					oa[i] = paramsArray[i].update(context);
+				}
+			} finally {
+				context.setParamValues(null);
 			}
 			if (paramValidator != null) {
 				paramValidator.accept(oa);
@@ -427,12 +462,33 @@ public class Resource extends AbstractResource implements HasPath, ResourceInfo
 		return path;
 	}
 
+	public Invoker getInvoker() {
+		return invoker;
+	}
+
+	/**
+	 * Set the invoker of the method. Internal use only.
+	 * 
+	 * @param invoker the invoker
+	 * @see Invokers
+	 */
+	public void setInvoker(Invoker invoker) {
+		this.invoker = invoker;
+	}
+
 	public Param[] getParams() {
 		return params;
 	}
 
+	/**
+	 * Set the params and plan the extraction of their values.
+	 * 
+	 * @param params the parameters of the method
+	 * @see ParamPlan
+	 */
 	public void setParams(Param[] params) {
 		this.params = params;
+		paramPlan = ParamPlan.of(params);
 	}
 
 	@Override
@@ -488,6 +544,22 @@ public class Resource extends AbstractResource implements HasPath, ResourceInfo
 		this.allowedMethods = allowedMethods;
 	}
 
+	/**
+	 * The result of the negotiation of a request media type.
+	 */
+	private static final class Consumed {
+
+		static final Consumed NONE = new Consumed(null, null);
+
+		final FastMediaType mediaType;
+		final MessageBodyReader<Object> reader;
+
+		Consumed(FastMediaType mediaType, MessageBodyReader<Object> reader) {
+			this.mediaType = mediaType;
+			this.reader = reader;
+		}
+	}
+
 	interface ResponseStrategy {
 		Response send(ServerInvocationContext context, Object entity) throws IOException;
 	}
@@ -527,6 +599,36 @@ public class Resource extends AbstractResource implements HasPath, ResourceInfo
 
 	}
 
+	class AsyncResponseStrategy implements ResponseStrategy {
+
+		@Override
+		public Response send(ServerInvocationContext context, Object entity) throws IOException {
+			if (entity instanceof CompletionStage) {
+				AsyncResponseImpl asyncResponse = context.suspend();
+				((CompletionStage<?>) entity).whenComplete((value, error) -> {
+					if (error == null) {
+						asyncResponse.resume(value);
+					} else {
+						asyncResponse.resume(unwrap(error));
+					}
+				});
+			} else if (!context.isSuspended()) {
+				// a CompletionStage method that returns null
+				return resume(context, null);
+			}
+			return null;
+		}
+
+		private Throwable unwrap(Throwable error) {
+			Throwable th = error;
+			while ((th instanceof CompletionException || th instanceof ExecutionException) && th.getCause() != null) {
+				th = th.getCause();
+			}
+			return th;
+		}
+
+	}
+
 	class ResponseResponseStrategy implements ResponseStrategy {
 
 		@Override
@@ -570,17 +672,17 @@ public class Resource extends AbstractResource implements HasPath, ResourceInfo
 			context.setProduce(responseMediaType);
 		}
 		if (consume != null) {
-			FastMediaType consumeMediaType = findConsumeMediatype(context);
+			Consumed consumed = findConsume(context);
 
-			if (consumeMediaType == null) {
+			if (consumed == null) {
 				context.setProduce(null);
 				return null;
 			}
 
 			if (postParam != null) {
-				context.setReader(readers[consumeMediaType.getId()]);
+				context.setReader(consumed.reader);
 			}
-			context.setConsume(consumeMediaType);
+			context.setConsume(consumed.mediaType);
 		}
 		return this;
 	}
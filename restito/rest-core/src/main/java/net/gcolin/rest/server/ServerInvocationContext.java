@@ -17,6 +17,7 @@ package net.gcolin.rest.server;
 
 import net.gcolin.rest.FastMediaType;
 import net.gcolin.rest.InvocationContext;
+import net.gcolin.rest.param.ParamPlan;
 import net.gcolin.rest.util.LazyMultivaluedMap;
 
 import java.io.InputStream;
@@ -24,6 +25,7 @@ import java.io.OutputStream;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.net.URI;
+import java.nio.charset.Charset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
@@ -69,6 +71,8 @@ public class ServerInvocationContext extends InvocationContext implements Contai
   private Class<?> entityClass;
   private Type entityGenericType;
   private URI newUri;
+  private AsyncResponseImpl asyncResponse;
+  private ParamPlan.Values paramValues;
 
   public ServerInvocationContext(Exchange endpoint) {
     this.exchange = endpoint;
@@ -127,6 +131,38 @@ public class ServerInvocationContext extends InvocationContext implements Contai
     this.params = params;
   }
 
+  /**
+   * Get the raw query string.
+   * 
+   * @return the encoded query string or {@code null} if there is none
+   */
+  public String getQueryString() {
+    return exchange.queryString(this);
+  }
+
+  /**
+   * Get the charset of the escaped characters of the query string.
+   * 
+   * @return the charset of the exchange
+   */
+  public Charset getQueryCharset() {
+    return exchange.queryCharset();
+  }
+
+  /**
+   * Get the values extracted by the ParamPlan of the current resource.
+   * 
+   * @return the values or {@code null} outside of the parameter extraction
+   * @see ParamPlan
+   */
+  public ParamPlan.Values getParamValues() {
+    return paramValues;
+  }
+
+  public void setParamValues(ParamPlan.Values paramValues) {
+    this.paramValues = paramValues;
+  }
+
   @Override
   public UriInfo getUriInfo() {
     if (uriInfo == null) {
@@ -304,5 +340,27 @@ public class ServerInvocationContext extends InvocationContext implements Contai
     this.status = status;
   }
 
+  /**
+   * Suspend the response. The exchange switches to the asynchronous mode on the
+   * first call.
+   * 
+   * @return the suspended response
+   */
+  public AsyncResponseImpl suspend() {
+    if (asyncResponse == null) {
+      asyncResponse = new AsyncResponseImpl(this);
+      exchange.suspend(asyncResponse);
+    }
+    return asyncResponse;
+  }
+
+  public boolean isSuspended() {
+    return asyncResponse != null;
+  }
+
+  public AsyncResponseImpl getAsyncResponse() {
+    return asyncResponse;
+  }
+
 
 }
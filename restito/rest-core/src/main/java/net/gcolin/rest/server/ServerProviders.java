@@ -28,6 +28,7 @@ import net.gcolin.rest.parambuilder.MatrixParamBuilder;
 import net.gcolin.rest.parambuilder.ParamBuilder;
 import net.gcolin.rest.parambuilder.PathParamBuilder;
 import net.gcolin.rest.parambuilder.QueryParamBuilder;
+import net.gcolin.rest.parambuilder.SuspendedParamBuilder;
 import net.gcolin.rest.provider.SimpleProviders;
 import net.gcolin.rest.util.ParamConverterProviderImpl;
 
@@ -43,6 +44,7 @@ import javax.ws.rs.Encoded;
 import javax.ws.rs.FormParam;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.RuntimeType;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.ext.ParamConverter;
 import javax.ws.rs.ext.ParamConverterProvider;
@@ -71,6 +73,7 @@ public class ServerProviders extends SimpleProviders implements ParamConverterPr
     paramBuilders.put(javax.ws.rs.MatrixParam.class, new MatrixParamBuilder(this));
     paramBuilders.put(javax.ws.rs.BeanParam.class, new BeanParamBuilder(this));
     paramBuilders.put(Context.class, new ContextParamBuilder(this));
+    paramBuilders.put(Suspended.class, new SuspendedParamBuilder());
   }
 
   public Map<Class<?>, ParamBuilder> getParamBuilders() {
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * An entity stream that can send a region of a file without copying it into a
+ * buffer of the heap. The file MessageBodyWriters use it when the container
+ * provides it.
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public interface FileTransfer {
+
+  /**
+   * Send a region of a file.
+   * 
+   * @param channel an open channel of the file
+   * @param position the position of the first byte
+   * @param count the number of bytes to send
+   * @throws IOException if an I/O error occurs.
+   */
+  void transferFrom(FileChannel channel, long position, long count) throws IOException;
+
+  /**
+   * Write a region of a file to a stream with {@link FileChannel#transferTo}.
+   * A {@link FileTransfer} stream receives the channel.
+   * 
+   * @param channel an open channel of the file
+   * @param position the position of the first byte
+   * @param count the number of bytes to write
+   * @param out the output
+   * @throws IOException if an I/O error occurs.
+   */
+  static void transfer(FileChannel channel, long position, long count, OutputStream out)
+      throws IOException {
+    if (out instanceof FileTransfer) {
+      ((FileTransfer) out).transferFrom(channel, position, count);
+      return;
+    }
+    WritableByteChannel target =
+        out instanceof WritableByteChannel ? (WritableByteChannel) out : Channels.newChannel(out);
+    long pos = position;
+    long end = position + count;
+    while (pos < end) {
+      long nb = channel.transferTo(pos, end - pos, target);
+      if (nb <= 0) {
+        // the file is truncated
+        break;
+      }
+      pos += nb;
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.util;
+
+import net.gcolin.common.io.Io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ * Parse an {@code application/x-www-form-urlencoded} entity.
+ *
+ * <p>The bytes are percent-decoded in one pass as they are read from the
+ * stream, into buffers of the pool of {@link Io}. A field that contains only
+ * ASCII characters is converted to a String without a charset decoder.</p>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public final class FormParser {
+
+  public static final int DEFAULT_MAX_FIELDS = 10000;
+  public static final int DEFAULT_MAX_FIELD_SIZE = 2 * 1024 * 1024;
+
+  private final Charset charset;
+  private final boolean asciiCompatible;
+  private final int maxFields;
+  private final int maxFieldSize;
+  private final BiConsumer<String, String> consumer;
+  private byte[] field;
+  private int len;
+  private boolean ascii = true;
+  private String key;
+  private int fields;
+
+  private FormParser(Charset charset, int maxFields, int maxFieldSize,
+      BiConsumer<String, String> consumer) {
+    this.charset = charset;
+    this.asciiCompatible = charset == StandardCharsets.UTF_8
+        || charset == StandardCharsets.ISO_8859_1 || charset == StandardCharsets.US_ASCII;
+    this.maxFields = maxFields;
+    this.maxFieldSize = maxFieldSize;
+    this.consumer = consumer;
+  }
+
+  /**
+   * Get the charset of a form, UTF-8 if the media type has no charset.
+   * 
+   * @param mediaType the media type of the entity or {@code null}
+   * @return the charset
+   */
+  public static Charset charset(MediaType mediaType) {
+    String charset =
+        mediaType == null ? null : mediaType.getParameters().get(MediaType.CHARSET_PARAMETER);
+    return charset == null ? StandardCharsets.UTF_8 : Charset.forName(charset);
+  }
+
+  /**
+   * Parse a form.
+   * 
+   * @param in the entity stream
+   * @param charset the charset of the decoded bytes
+   * @param maxFields the maximum number of fields
+   * @param maxFieldSize the maximum size in bytes of a decoded name or value
+   * @param consumer receive the name and the value of each field
+   * @throws IOException if an I/O error occurs.
+   * @throws BadRequestException if a percent encoding is malformed.
+   * @throws ClientErrorException with the status 413 if a limit is exceeded.
+   */
+  public static void parse(InputStream in, Charset charset, int maxFields, int maxFieldSize,
+      BiConsumer<String, String> consumer) throws IOException {
+    new FormParser(charset, maxFields, maxFieldSize, consumer).parse(in);
+  }
+
+  private void parse(InputStream in) throws IOException {
+    byte[] buf = Io.takeBytes();
+    byte[] pooled = Io.takeBytes();
+    field = pooled;
+    try {
+      // -1 outside of a percent encoding, else the number of hex digits read
+      int hex = -1;
+      int high = 0;
+      int nb;
+      while ((nb = in.read(buf)) != -1) {
+        for (int i = 0; i < nb; i++) {
+          int bt = buf[i] & 0xFF;
+          if (hex == 0) {
+            high = digit(bt);
+            hex = 1;
+            continue;
+          } else if (hex == 1) {
+            bt = (high << 4) | digit(bt);
+            hex = -1;
+          } else if (bt == '&') {
+            end();
+            continue;
+          } else if (bt == '=' && key == null) {
+            key = string();
+            continue;
+          } else if (bt == '%') {
+            hex = 0;
+            continue;
+          } else if (bt == '+') {
+            bt = ' ';
+          }
+          append(bt);
+        }
+      }
+      if (hex != -1) {
+        throw new BadRequestException("truncated percent encoding in the form");
+      }
+      end();
+    } finally {
+      Io.recycleBytes(buf);
+      Io.recycleBytes(pooled);
+      field = null;
+    }
+  }
+
+  private static int digit(int bt) {
+    int digit = Character.digit(bt, 16);
+    if (digit == -1) {
+      throw new BadRequestException("bad percent encoding in the form");
+    }
+    return digit;
+  }
+
+  private void append(int bt) {
+    if (len >= maxFieldSize) {
+      throw new ClientErrorException(
+          "a field of the form is larger than " + maxFieldSize + " bytes",
+          Status.REQUEST_ENTITY_TOO_LARGE);
+    }
+    if (len == field.length) {
+      field = Arrays.copyOf(field, (int) Math.min(len * 2L, maxFieldSize));
+    }
+    field[len++] = (byte) bt;
+    ascii &= bt < 0x80;
+  }
+
+  private String string() {
+    String str;
+    if (len == 0) {
+      str = "";
+    } else if (ascii && asciiCompatible) {
+      str = new String(field, 0, len, StandardCharsets.ISO_8859_1);
+    } else {
+      str = new String(field, 0, len, charset);
+    }
+    len = 0;
+    ascii = true;
+    return str;
+  }
+
+  private void end() {
+    if (key == null && len == 0) {
+      // empty pair
+      return;
+    }
+    if (++fields > maxFields) {
+      throw new ClientErrorException("the form has more than " + maxFields + " fields",
+          Status.REQUEST_ENTITY_TOO_LARGE);
+    }
+    String value = string();
+    if (key == null) {
+      consumer.accept(value, "");
+    } else {
+      consumer.accept(key, value);
+      key = null;
+    }
+  }
+}
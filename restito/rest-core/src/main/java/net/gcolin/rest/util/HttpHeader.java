@@ -67,6 +67,10 @@ public class HttpHeader {
    * documentation&lt;/a&gt;.
    */
   public static final String ACCEPT_LANGUAGE = HttpHeaders.ACCEPT_LANGUAGE.toLowerCase();
+  /**
+   * See &lt;a href="https://tools.ietf.org/html/rfc7233#section-2.3"&gt;IETF RFC 7233&lt;/a&gt;.
+   */
+  public static final String ACCEPT_RANGES = "accept-ranges";
   /**
    * See &lt;a href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec14.html#sec14.7"&gt;HTTP/1.1
    * documentation&lt;/a&gt;.
@@ -110,6 +114,10 @@ public class HttpHeader {
    * documentation&lt;/a&gt;.
    */
   public static final String CONTENT_LOCATION = HttpHeaders.CONTENT_LOCATION.toLowerCase();
+  /**
+   * See &lt;a href="https://tools.ietf.org/html/rfc7233#section-4.2"&gt;IETF RFC 7233&lt;/a&gt;.
+   */
+  public static final String CONTENT_RANGE = "content-range";
   /**
    * See &lt;a href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec14.html#sec14.17"&gt;HTTP/1.1
    * documentation&lt;/a&gt;.
@@ -150,6 +158,10 @@ public class HttpHeader {
    * documentation&lt;/a&gt;.
    */
   public static final String IF_NONE_MATCH = HttpHeaders.IF_NONE_MATCH.toLowerCase();
+  /**
+   * See &lt;a href="https://tools.ietf.org/html/rfc7233#section-3.2"&gt;IETF RFC 7233&lt;/a&gt;.
+   */
+  public static final String IF_RANGE = "if-range";
   /**
    * See &lt;a href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec14.html#sec14.28"&gt;HTTP/1.1
    * documentation&lt;/a&gt;.
@@ -165,6 +177,10 @@ public class HttpHeader {
    * documentation&lt;/a&gt;.
    */
   public static final String LOCATION = HttpHeaders.LOCATION.toLowerCase();
+  /**
+   * See &lt;a href="https://tools.ietf.org/html/rfc7233#section-3.1"&gt;IETF RFC 7233&lt;/a&gt;.
+   */
+  public static final String RANGE = "range";
   /**
    * See &lt;a href="http://tools.ietf.org/html/rfc5988#page-6"&gt;Web Linking (IETF RFC-5988)
    * documentation&lt;/a&gt;.
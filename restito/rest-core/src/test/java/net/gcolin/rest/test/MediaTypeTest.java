@@ -23,9 +23,17 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.ext.RuntimeDelegate;
@@ -231,4 +239,59 @@ public class MediaTypeTest {
     Assert.assertEquals("*/*; q=.2", it.next().toString());
   }
 
+  @Test
+  public void concurrentInternTest() throws Exception {
+    int threads = 8;
+    int types = 100;
+    FastMediaType[][] results = new FastMediaType[threads][types];
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        futures.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < types; i++) {
+            results[thread][i] = FastMediaType.valueOf("application/x-intern-" + i);
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdown();
+    }
+    Set<Integer> ids = new HashSet<>();
+    for (int i = 0; i < types; i++) {
+      for (int t = 1; t < threads; t++) {
+        Assert.assertSame(results[0][i], results[t][i]);
+      }
+      int id = results[0][i].getId();
+      Assert.assertTrue(id >= 0 && id < FastMediaType.getInternedCount());
+      Assert.assertTrue(ids.add(id));
+    }
+  }
+
+  @Test
+  public void parametersShareIdTest() {
+    FastMediaType base = FastMediaType.valueOf("text/x-shared");
+    FastMediaType withParams = FastMediaType.valueOf("text/x-shared; charset=UTF-8");
+    Assert.assertEquals(base.getId(), withParams.getId());
+    Assert.assertEquals("UTF-8", withParams.getParameters().get("charset"));
+  }
+
+  @Test
+  public void notInternedTest() {
+    FastMediaType other = new FastMediaType("foo/bar", "foo", "bar", null);
+    Assert.assertEquals(FastMediaType.NO_ID, other.getId());
+    Assert.assertTrue(other.isCompatible(new FastMediaType("foo/*", "foo", "*", null)));
+    Assert.assertTrue(other.isCompatible(FastMediaType.valueOf(MediaType.WILDCARD)));
+    Assert.assertFalse(other.isCompatible(new FastMediaType("foo/baz", "foo", "baz", null)));
+    Assert.assertFalse(other.isCompatible(FastMediaType.valueOf(MediaType.TEXT_PLAIN)));
+  }
+
 }
@@ -0,0 +1,475 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.test.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import net.gcolin.common.io.Io;
+import net.gcolin.rest.client.BuilderImpl;
+import net.gcolin.rest.client.ClientBuilderImpl;
+import net.gcolin.rest.client.ClientTransportFactory;
+import net.gcolin.rest.client.HttpClientTransportFactory;
+import net.gcolin.rest.client.UrlConnectionTransport;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient.Version;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Test the client transports with the HTTP server of the JDK.
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class ClientTransportTest {
+
+  private HttpServer server;
+  private ExecutorService executor;
+  private Client client;
+  private final List<String> received = Collections.synchronizedList(new ArrayList<>());
+  private final List<String> lengths = Collections.synchronizedList(new ArrayList<>());
+  private final List<Integer> ports = Collections.synchronizedList(new ArrayList<>());
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicInteger maxActive = new AtomicInteger();
+  private volatile CountDownLatch block;
+
+  /**
+   * Start the server.
+   * 
+   * @throws IOException if an error occurs.
+   */
+  @Before
+  public void before() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.createContext("/echo", this::echo);
+    server.createContext("/missing", ex -> send(ex, 404, "not found"));
+    server.start();
+  }
+
+  /**
+   * Stop the server.
+   */
+  @After
+  public void after() {
+    if (client != null) {
+      client.close();
+    }
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void echo(HttpExchange ex) throws IOException {
+    int nb = active.incrementAndGet();
+    maxActive.accumulateAndGet(nb, Math::max);
+    try {
+      if (block != null) {
+        block.await(5, TimeUnit.SECONDS);
+      }
+      ByteArrayOutputStream bout = new ByteArrayOutputStream();
+      Io.copy(ex.getRequestBody(), bout);
+      received.add(new String(bout.toByteArray(), StandardCharsets.ISO_8859_1));
+      lengths.add(String.valueOf(ex.getRequestHeaders().getFirst("Content-Length")));
+      ports.add(ex.getRemoteAddress().getPort());
+      send(ex, 200, ex.getRequestMethod() + " " + bout.size());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      active.decrementAndGet();
+    }
+  }
+
+  private void send(HttpExchange ex, int status, String text) throws IOException {
+    byte[] data = text.getBytes(StandardCharsets.UTF_8);
+    ex.getResponseHeaders().add("Content-Type", "text/plain");
+    ex.sendResponseHeaders(status, data.length);
+    try (OutputStream out = ex.getResponseBody()) {
+      out.write(data);
+    }
+  }
+
+  private WebTarget target(ClientTransportFactory factory, String path) {
+    client = new ClientBuilderImpl().transport(factory).build();
+    return client.target("http://" + server.getAddress().getHostString() + ":"
+        + server.getAddress().getPort() + path);
+  }
+
+  private byte[] random(int size) {
+    byte[] data = new byte[size];
+    new Random(size).nextBytes(data);
+    return data;
+  }
+
+  @Test
+  public void defaultTest() {
+    client = new ClientBuilderImpl().build();
+    Assert.assertEquals("GET 0",
+        client.target("http://" + server.getAddress().getHostString() + ":"
+            + server.getAddress().getPort() + "/echo").request().get(String.class));
+  }
+
+  private void sendTest(ClientTransportFactory factory) {
+    WebTarget target = target(factory, "/echo");
+    Assert.assertEquals("GET 0", target.request().get(String.class));
+    Assert.assertEquals("POST 5", target.request().post(Entity.entity(
+        "hello".getBytes(StandardCharsets.UTF_8), MediaType.APPLICATION_OCTET_STREAM),
+        String.class));
+    Assert.assertEquals("hello", received.get(1));
+    Assert.assertEquals("5", lengths.get(1));
+
+    // larger than the buffer of the invocation
+    byte[] data = random(300 * 1024);
+    Assert.assertEquals("PUT " + data.length, target.request()
+        .put(Entity.entity(data, MediaType.APPLICATION_OCTET_STREAM), String.class));
+    Assert.assertEquals(new String(data, StandardCharsets.ISO_8859_1), received.get(2));
+    Assert.assertEquals("null", lengths.get(2));
+
+    // an InputStream is not buffered
+    Assert.assertEquals("POST " + data.length, target.request().post(
+        Entity.entity(new ByteArrayInputStream(data), MediaType.APPLICATION_OCTET_STREAM),
+        String.class));
+    Assert.assertEquals(new String(data, StandardCharsets.ISO_8859_1), received.get(3));
+  }
+
+  @Test
+  public void httpClientTest() {
+    sendTest(new HttpClientTransportFactory());
+  }
+
+  @Test
+  public void http11Test() {
+    sendTest(new HttpClientTransportFactory().version(Version.HTTP_1_1));
+  }
+
+  @Test
+  public void urlConnectionTest() {
+    sendTest(UrlConnectionTransport::new);
+  }
+
+  private void errorTest(ClientTransportFactory factory) {
+    Response response = target(factory, "/missing").request().get();
+    Assert.assertEquals(404, response.getStatus());
+    Assert.assertEquals("not found", response.readEntity(String.class));
+  }
+
+  @Test
+  public void errorTest() {
+    errorTest(new HttpClientTransportFactory());
+  }
+
+  @Test
+  public void urlConnectionErrorTest() {
+    errorTest(UrlConnectionTransport::new);
+  }
+
+  @Test
+  public void hostnameVerifierTest() {
+    client = new ClientBuilderImpl().hostnameVerifier((hostname, session) -> true).build();
+    Assert.assertTrue(new HttpClientTransportFactory().create(client)
+        instanceof UrlConnectionTransport);
+  }
+
+  @Test
+  public void restrictedHeadersTest() {
+    WebTarget target = target(new HttpClientTransportFactory(), "/echo");
+    Assert.assertEquals("GET 0", target.request().header("Connection", "close")
+        .header("Via", "1.1 proxy").header("Date", "Tue, 15 Nov 1994 08:12:31 GMT")
+        .get(String.class));
+  }
+
+  @Test
+  public void poolTest() {
+    WebTarget target =
+        target(new HttpClientTransportFactory().version(Version.HTTP_1_1), "/echo");
+    for (int i = 0; i < 5; i++) {
+      Assert.assertEquals("GET 0", target.request().get(String.class));
+    }
+    Assert.assertEquals(1, new HashSet<>(ports).size());
+  }
+
+  @Test
+  public void maxRequestsPerHostTest() throws Exception {
+    WebTarget target = target(new HttpClientTransportFactory().version(Version.HTTP_1_1)
+        .maxRequestsPerHost(2), "/echo");
+    block = new CountDownLatch(1);
+    ExecutorService callers = Executors.newFixedThreadPool(6);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < 6; i++) {
+        results.add(callers.submit(() -> target.request().get(String.class)));
+      }
+      Thread.sleep(300);
+      Assert.assertEquals(2, active.get());
+      block.countDown();
+      for (Future<String> result : results) {
+        Assert.assertEquals("GET 0", result.get(5, TimeUnit.SECONDS));
+      }
+      Assert.assertEquals(2, maxActive.get());
+    } finally {
+      block.countDown();
+      callers.shutdownNow();
+    }
+  }
+
+  @Test
+  public void acquireTimeoutTest() throws Exception {
+    WebTarget target = target(new HttpClientTransportFactory().version(Version.HTTP_1_1)
+        .maxRequestsPerHost(1).acquireTimeout(Duration.ofMillis(200)), "/echo");
+    block = new CountDownLatch(1);
+    try {
+      Future<String> first = target.request().async().get(String.class);
+      awaitActive(1);
+      try {
+        target.request().get(String.class);
+        Assert.fail();
+      } catch (ProcessingException ex) {
+        // expected
+      }
+      try {
+        target.request().async().get(String.class).get(5, TimeUnit.SECONDS);
+        Assert.fail();
+      } catch (ExecutionException ex) {
+        Assert.assertTrue(ex.getCause() instanceof ProcessingException);
+      }
+      block.countDown();
+      Assert.assertEquals("GET 0", first.get(5, TimeUnit.SECONDS));
+    } finally {
+      block.countDown();
+    }
+    Assert.assertEquals("GET 0", target.request().get(String.class));
+  }
+
+  @Test
+  public void readReleaseTest() throws Exception {
+    WebTarget target = target(new HttpClientTransportFactory().version(Version.HTTP_1_1)
+        .maxRequestsPerHost(1).acquireTimeout(Duration.ofSeconds(2)), "/echo");
+    Response response = target.request().get();
+    InputStream in = response.readEntity(InputStream.class);
+    Assert.assertEquals("GET 0", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    // the response is read but not closed
+    Assert.assertEquals("GET 0", target.request().get(String.class));
+    response.close();
+  }
+
+  private void awaitActive(int expected) throws InterruptedException {
+    for (int i = 0; i < 100 && active.get() < expected; i++) {
+      Thread.sleep(50);
+    }
+    Thread.sleep(100);
+    Assert.assertEquals(expected, active.get());
+  }
+
+  private void asyncTest(ClientTransportFactory factory) throws Exception {
+    WebTarget target = target(factory, "/echo");
+    block = new CountDownLatch(1);
+    List<Future<String>> results = new ArrayList<>();
+    try {
+      for (int i = 0; i < 5; i++) {
+        results.add(target.request().async().get(String.class));
+      }
+      // the requests are not serialized by the executor of the client
+      awaitActive(5);
+    } finally {
+      block.countDown();
+    }
+    for (Future<String> result : results) {
+      Assert.assertEquals("GET 0", result.get(5, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  public void asyncTest() throws Exception {
+    asyncTest(new HttpClientTransportFactory().version(Version.HTTP_1_1));
+  }
+
+  @Test
+  public void asyncUrlConnectionTest() throws Exception {
+    asyncTest(UrlConnectionTransport::new);
+  }
+
+  @Test
+  public void asyncStreamTest() throws Exception {
+    WebTarget target = target(new HttpClientTransportFactory(), "/echo");
+    byte[] data = random(300 * 1024);
+    InputStream in = target.request().async().post(
+        Entity.entity(new ByteArrayInputStream(data), MediaType.APPLICATION_OCTET_STREAM),
+        InputStream.class).get(5, TimeUnit.SECONDS);
+    try {
+      Assert.assertEquals("POST " + data.length,
+          new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    } finally {
+      in.close();
+    }
+    Assert.assertEquals(new String(data, StandardCharsets.ISO_8859_1), received.get(0));
+    // the InputStream is streamed by the executor
+    Assert.assertEquals("null", lengths.get(0));
+  }
+
+  @Test
+  public void asyncLimitTest() throws Exception {
+    WebTarget target = target(new HttpClientTransportFactory().version(Version.HTTP_1_1)
+        .maxRequestsPerHost(1), "/echo");
+    block = new CountDownLatch(1);
+    List<Future<Response>> results = new ArrayList<>();
+    try {
+      for (int i = 0; i < 4; i++) {
+        results.add(target.request().async().get());
+      }
+      awaitActive(1);
+    } finally {
+      block.countDown();
+    }
+    for (Future<Response> result : results) {
+      Response response = result.get(5, TimeUnit.SECONDS);
+      Assert.assertEquals("GET 0", response.readEntity(String.class));
+    }
+    Assert.assertEquals(1, maxActive.get());
+  }
+
+  @Test
+  public void cancelWaitingTest() throws Exception {
+    WebTarget target = target(new HttpClientTransportFactory().version(Version.HTTP_1_1)
+        .maxRequestsPerHost(1).acquireTimeout(Duration.ofSeconds(2)), "/echo");
+    block = new CountDownLatch(1);
+    Future<String> first;
+    try {
+      first = target.request().async().get(String.class);
+      awaitActive(1);
+      // waits for the permit of the first request
+      Future<Response> pending = target.request().async().get();
+      Assert.assertTrue(pending.cancel(true));
+    } finally {
+      block.countDown();
+    }
+    Assert.assertEquals("GET 0", first.get(5, TimeUnit.SECONDS));
+    Assert.assertEquals("GET 0", target.request().get(String.class));
+    // the cancelled request is not sent
+    Assert.assertEquals(2, received.size());
+  }
+
+  @Test
+  public void cancelSentTest() throws Exception {
+    WebTarget target = target(new HttpClientTransportFactory().version(Version.HTTP_1_1)
+        .maxRequestsPerHost(1).acquireTimeout(Duration.ofSeconds(2)), "/echo");
+    block = new CountDownLatch(1);
+    try {
+      Future<Response> pending = target.request().async().get();
+      awaitActive(1);
+      Assert.assertTrue(pending.cancel(true));
+    } finally {
+      block.countDown();
+    }
+    Assert.assertEquals("GET 0", target.request().get(String.class));
+  }
+
+  @Test
+  public void rxTest() throws Exception {
+    BuilderImpl builder = (BuilderImpl) target(new HttpClientTransportFactory(), "/echo").request();
+    Assert.assertEquals("POST 5",
+        builder.rx()
+            .post(Entity.entity("hello".getBytes(StandardCharsets.UTF_8),
+                MediaType.APPLICATION_OCTET_STREAM), String.class)
+            .thenApply(String::valueOf).toCompletableFuture().get(5, TimeUnit.SECONDS));
+    Assert.assertEquals("hello", received.get(0));
+    Assert.assertEquals("5", lengths.get(0));
+
+    Response response = builder.rx().delete().toCompletableFuture().get(5, TimeUnit.SECONDS);
+    Assert.assertEquals(200, response.getStatus());
+    Assert.assertEquals("DELETE 0", response.readEntity(String.class));
+  }
+
+  @Test
+  public void callbackTest() throws Exception {
+    AtomicReference<String> completed = new AtomicReference<>();
+    Future<String> future = target(new HttpClientTransportFactory(), "/echo").request().async()
+        .get(new InvocationCallback<String>() {
+
+          @Override
+          public void completed(String response) {
+            completed.set(response);
+          }
+
+          @Override
+          public void failed(Throwable throwable) {
+            // not expected
+          }
+        });
+    Assert.assertEquals("GET 0", future.get(5, TimeUnit.SECONDS));
+    Assert.assertEquals("GET 0", completed.get());
+  }
+
+  @Test
+  public void asyncErrorTest() throws Exception {
+    WebTarget target = target(new HttpClientTransportFactory(), "/echo");
+    server.stop(0);
+    AtomicReference<Throwable> failed = new AtomicReference<>();
+    Future<String> future = target.request().async().get(new InvocationCallback<String>() {
+
+      @Override
+      public void completed(String response) {
+        // not expected
+      }
+
+      @Override
+      public void failed(Throwable throwable) {
+        failed.set(throwable);
+      }
+    });
+    try {
+      future.get(5, TimeUnit.SECONDS);
+      Assert.fail();
+    } catch (ExecutionException ex) {
+      Assert.assertTrue(ex.getCause() instanceof ProcessingException);
+    }
+    Assert.assertTrue(failed.get() instanceof ProcessingException);
+  }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.test.parambuilder;
+
+import net.gcolin.common.reflect.Reflect;
+import net.gcolin.rest.Environment;
+import net.gcolin.rest.param.BeanParam;
+import net.gcolin.rest.param.CookieParam;
+import net.gcolin.rest.param.HeaderParam;
+import net.gcolin.rest.param.Param;
+import net.gcolin.rest.param.ParamPlan;
+import net.gcolin.rest.param.QueryParam;
+import net.gcolin.rest.server.ServerInvocationContext;
+import net.gcolin.rest.server.ServerProviders;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.ws.rs.core.Cookie;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.UriInfo;
+
+/**
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class ParamPlanTest {
+
+  ServerProviders providers;
+  ServerInvocationContext rc;
+
+  /**
+   * Initialize test.
+   */
+  @Before
+  public void before() {
+    providers = new ServerProviders();
+    providers.load(new Environment());
+    rc = Mockito.mock(ServerInvocationContext.class);
+    // the query map must not be used
+    Mockito.when(rc.getUriInfo()).thenThrow(new AssertionError("uri info"));
+    Mockito.when(rc.getQueryCharset()).thenReturn(StandardCharsets.UTF_8);
+  }
+
+  private QueryParam query(String name, Class<?> type) {
+    QueryParam param = new QueryParam(name);
+    param.setBoxer(providers.getConverter(type, type, new java.lang.annotation.Annotation[0]));
+    return param;
+  }
+
+  private Object[] update(Param[] params, String query, Cookie... cookies) throws IOException {
+    ParamPlan plan = ParamPlan.of(params);
+    Mockito.when(rc.getQueryString()).thenReturn(query);
+    Map<String, Cookie> map = new HashMap<>();
+    for (Cookie cookie : cookies) {
+      map.put(cookie.getName(), cookie);
+    }
+    HttpHeaders headers = Mockito.mock(HttpHeaders.class);
+    Mockito.when(headers.getCookies()).thenReturn(map);
+    Mockito.when(rc.getHttpHeaders()).thenReturn(headers);
+    ParamPlan.Values values = plan.extract(rc);
+    Mockito.when(rc.getParamValues()).thenReturn(values);
+    Object[] result = new Object[params.length];
+    for (int i = 0; i < params.length; i++) {
+      result[i] = params[i].update(rc);
+    }
+    return result;
+  }
+
+  @Test
+  public void queryTest() throws IOException {
+    Param[] params = {query("name", String.class), query("age", Integer.class),
+        query("missing", String.class), query("empty", String.class), query("flag", String.class)};
+    Object[] values = update(params, "other=1&name=J%C3%A9r%C3%B4me+D&age=42&name=second&empty=&flag");
+    Assert.assertEquals("Jérôme D", values[0]);
+    Assert.assertEquals(42, values[1]);
+    Assert.assertNull(values[2]);
+    Assert.assertEquals("", values[3]);
+    Assert.assertEquals("", values[4]);
+  }
+
+  @Test
+  public void charsetTest() throws IOException {
+    Mockito.when(rc.getQueryCharset()).thenReturn(StandardCharsets.ISO_8859_1);
+    Param[] params = {query("name", String.class), query("caf\u00e9", String.class)};
+    Object[] values = update(params, "name=J%E9r%F4me&caf%E9=1");
+    Assert.assertEquals("J\u00e9r\u00f4me", values[0]);
+    Assert.assertEquals("1", values[1]);
+  }
+
+  @Test
+  public void encodedNameTest() throws IOException {
+    Param[] params = {query("a b", String.class), query("bad", String.class)};
+    Object[] values = update(params, "a+b=1&bad=%zz");
+    Assert.assertEquals("1", values[0]);
+    Assert.assertEquals("%zz", values[1]);
+  }
+
+  @Test
+  public void defaultValueTest() throws IOException {
+    QueryParam param = query("size", Integer.class);
+    param.setDefaultValue("10");
+    Assert.assertEquals(10, update(new Param[] {param}, null)[0]);
+  }
+
+  @Test
+  public void cookieTest() throws IOException {
+    Param[] params = {new CookieParam("session"), new CookieParam("theme"),
+        new CookieParam("missing"), query("q", String.class)};
+    Object[] values = update(params, "q=x", new Cookie("session", "abc=def"),
+        new Cookie("theme", "dark"));
+    Assert.assertEquals("abc=def", values[0]);
+    Assert.assertEquals("dark", values[1]);
+    Assert.assertNull(values[2]);
+    Assert.assertEquals("x", values[3]);
+  }
+
+  @Test
+  public void sameNameTest() throws IOException {
+    Param[] params = {query("id", String.class), query("id", Long.class)};
+    Object[] values = update(params, "id=7");
+    Assert.assertEquals("7", values[0]);
+    Assert.assertEquals(7L, values[1]);
+  }
+
+  public static class Bean {
+    String query;
+    String cookie;
+  }
+
+  @Test
+  public void beanParamTest() throws Exception {
+    Field[] fields = {Bean.class.getDeclaredField("query"), Bean.class.getDeclaredField("cookie")};
+    for (Field field : fields) {
+      Reflect.enable(field);
+    }
+    Param[] params = {new BeanParam(Bean.class, fields,
+        new Param[] {query("q", String.class), new CookieParam("c")})};
+    Bean bean = (Bean) update(params, "q=1", new Cookie("c", "2"))[0];
+    Assert.assertEquals("1", bean.query);
+    Assert.assertEquals("2", bean.cookie);
+  }
+
+  @Test
+  public void noPlanTest() {
+    Assert.assertNull(ParamPlan.of(null));
+    Assert.assertNull(ParamPlan.of(new Param[] {new HeaderParam("X-Test")}));
+    Assert.assertNull(ParamPlan.of(new Param[] {new CookieParam("c")}));
+  }
+
+  @Test
+  public void sharedParamTest() throws IOException {
+    QueryParam shared = query("b", String.class);
+    ParamPlan plan = ParamPlan.of(new Param[] {query("a", String.class), shared});
+    // another resource plans the same param in another slot
+    ParamPlan.of(new Param[] {shared});
+    Mockito.when(rc.getQueryString()).thenReturn("a=1&b=2");
+    ParamPlan.Values values = plan.extract(rc);
+    Mockito.when(rc.getParamValues()).thenReturn(values);
+    Assert.assertEquals("2", shared.update(rc));
+  }
+
+  @Test
+  public void fallbackTest() throws IOException {
+    QueryParam param = query("name", String.class);
+    ParamPlan.of(new Param[] {param});
+    ServerInvocationContext ctx = Mockito.mock(ServerInvocationContext.class);
+    UriInfo info = Mockito.mock(UriInfo.class);
+    javax.ws.rs.core.MultivaluedHashMap<String, String> map =
+        new javax.ws.rs.core.MultivaluedHashMap<>();
+    map.add("name", "value");
+    Mockito.when(info.getQueryParameters()).thenReturn(map);
+    Mockito.when(ctx.getUriInfo()).thenReturn(info);
+    Assert.assertEquals("value", param.update(ctx));
+  }
+}
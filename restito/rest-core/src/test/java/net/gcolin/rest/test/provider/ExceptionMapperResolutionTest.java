@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.test.provider;
+
+import net.gcolin.rest.provider.SimpleProviders;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.RuntimeType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+
+/**
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class ExceptionMapperResolutionTest {
+
+  public static class RuntimeMapper implements ExceptionMapper<RuntimeException> {
+
+    @Override
+    public Response toResponse(RuntimeException exception) {
+      return Response.status(500).build();
+    }
+  }
+
+  public static class ArgumentMapper implements ExceptionMapper<IllegalArgumentException> {
+
+    @Override
+    public Response toResponse(IllegalArgumentException exception) {
+      return Response.status(400).build();
+    }
+  }
+
+  public static class IoMapper implements ExceptionMapper<IOException> {
+
+    @Override
+    public Response toResponse(IOException exception) {
+      return Response.status(503).build();
+    }
+  }
+
+  private SimpleProviders providers;
+  private RuntimeMapper runtimeMapper = new RuntimeMapper();
+  private ArgumentMapper argumentMapper = new ArgumentMapper();
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private void add(ExceptionMapper<?> mapper) {
+    providers.add((ExceptionMapper) mapper);
+  }
+
+  @Before
+  public void before() {
+    providers = new SimpleProviders(RuntimeType.SERVER);
+    add(runtimeMapper);
+    add(argumentMapper);
+  }
+
+  @Test
+  public void nearestSuperClassTest() {
+    Assert.assertSame(argumentMapper, providers.getExceptionMapper(IllegalArgumentException.class));
+    Assert.assertSame(argumentMapper, providers.getExceptionMapper(NumberFormatException.class));
+    Assert.assertSame(runtimeMapper, providers.getExceptionMapper(IllegalStateException.class));
+    Assert.assertSame(runtimeMapper, providers.getExceptionMapper(RuntimeException.class));
+  }
+
+  @Test
+  public void unmappedTest() {
+    Assert.assertNull(providers.getExceptionMapper(FileNotFoundException.class));
+    Assert.assertNull(providers.getExceptionMapper(FileNotFoundException.class));
+    Assert.assertNull(providers.getExceptionMapper(Throwable.class));
+  }
+
+  @Test
+  public void addInvalidatesTest() {
+    Assert.assertNull(providers.getExceptionMapper(FileNotFoundException.class));
+    IoMapper ioMapper = new IoMapper();
+    add(ioMapper);
+    Assert.assertSame(ioMapper, providers.getExceptionMapper(FileNotFoundException.class));
+    Assert.assertSame(argumentMapper, providers.getExceptionMapper(NumberFormatException.class));
+  }
+
+  @Test
+  public void concurrentTest() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Boolean>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < 10000; j++) {
+            if ((Object) providers.getExceptionMapper(NumberFormatException.class) != argumentMapper
+                || providers.getExceptionMapper(IOException.class) != null) {
+              return false;
+            }
+          }
+          return true;
+        }));
+      }
+      for (Future<Boolean> future : futures) {
+        Assert.assertTrue(future.get(10, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
@@ -18,15 +18,22 @@ package net.gcolin.rest.test.provider;
 import net.gcolin.common.io.Io;
 import net.gcolin.rest.Logs;
 import net.gcolin.rest.provider.FileProvider;
+import net.gcolin.rest.provider.PathProvider;
+import net.gcolin.rest.util.FileTransfer;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import javax.ws.rs.core.MultivaluedHashMap;
 
@@ -80,4 +87,47 @@ public class FileProviderTest {
     }
   }
 
+  @Test
+  public void transferTest() throws IOException {
+    class TransferStream extends ByteArrayOutputStream implements FileTransfer {
+
+      long count;
+
+      @Override
+      public void transferFrom(FileChannel channel, long position, long count) throws IOException {
+        this.count = count;
+        channel.transferTo(position, count, Channels.newChannel(this));
+      }
+    }
+
+    TransferStream out = new TransferStream();
+    new FileProvider().writeTo(file, File.class, File.class, null, null,
+        new MultivaluedHashMap<>(), out);
+    Assert.assertEquals(file.length(), out.count);
+    Assert.assertArrayEquals(Files.readAllBytes(file.toPath()), out.toByteArray());
+  }
+
+  @Test
+  public void pathTest() throws IOException {
+    Path path = file.toPath();
+    PathProvider provider = new PathProvider();
+    Assert.assertTrue(provider.isWriteable(path.getClass(), path.getClass(), null, null));
+    Assert.assertEquals(file.length(), provider.getSize(path, Path.class, Path.class, null, null));
+    MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    provider.writeTo(path, Path.class, Path.class, null, null, headers, bout);
+    Assert.assertEquals(file.getName(), headers.getFirst("fileName"));
+    Assert.assertArrayEquals(Files.readAllBytes(path), bout.toByteArray());
+
+    MultivaluedHashMap<String, String> rheaders = new MultivaluedHashMap<>();
+    rheaders.add("fileName", "hello.txt");
+    Path newP = provider.readFrom(Path.class, Path.class, null, null, rheaders,
+        new ByteArrayInputStream(bout.toByteArray()));
+    try {
+      Assert.assertArrayEquals(Files.readAllBytes(path), Files.readAllBytes(newP));
+    } finally {
+      Files.delete(newP);
+    }
+  }
+
 }
@@ -16,6 +16,7 @@
 package net.gcolin.rest.test.provider;
 
 import net.gcolin.rest.provider.FormProvider;
+import net.gcolin.rest.provider.FormProvider2;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -23,10 +24,14 @@ import org.junit.Test;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.annotation.Annotation;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.core.Form;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.MultivaluedMap;
@@ -63,4 +68,118 @@ public class FormProviderTest {
     Assert.assertEquals(Arrays.asList("!"), form.get("b"));
   }
 
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private MultivaluedMap<String, String> read(FormProvider provider, InputStream in,
+      MediaType mediaType) throws IOException {
+    return provider.readFrom((Class) MultivaluedMap.class, MultivaluedMap.class,
+        new Annotation[0], mediaType, null, in);
+  }
+
+  private MultivaluedMap<String, String> read(String text) throws IOException {
+    return read(new FormProvider(),
+        new ByteArrayInputStream(text.getBytes(StandardCharsets.ISO_8859_1)),
+        MediaType.APPLICATION_FORM_URLENCODED_TYPE);
+  }
+
+  @Test
+  public void decodeTest() throws IOException {
+    MultivaluedMap<String, String> form =
+        read("na%6De=a+b%26c%3Dd&caf%C3%A9=%E2%82%AC&x=1%2B1");
+    Assert.assertEquals(Arrays.asList("a b&c=d"), form.get("name"));
+    Assert.assertEquals(Arrays.asList("\u20ac"), form.get("caf\u00e9"));
+    Assert.assertEquals(Arrays.asList("1+1"), form.get("x"));
+  }
+
+  @Test
+  public void charsetTest() throws IOException {
+    MultivaluedMap<String, String> form = read(new FormProvider(),
+        new ByteArrayInputStream("a=caf%E9".getBytes(StandardCharsets.ISO_8859_1)),
+        MediaType.APPLICATION_FORM_URLENCODED_TYPE.withCharset("ISO-8859-1"));
+    Assert.assertEquals(Arrays.asList("caf\u00e9"), form.get("a"));
+  }
+
+  @Test
+  public void emptyTest() throws IOException {
+    Assert.assertTrue(read("").isEmpty());
+    MultivaluedMap<String, String> form = read("&a&&b=&c==d&");
+    Assert.assertEquals(3, form.size());
+    Assert.assertEquals(Arrays.asList(""), form.get("a"));
+    Assert.assertEquals(Arrays.asList(""), form.get("b"));
+    Assert.assertEquals(Arrays.asList("=d"), form.get("c"));
+  }
+
+  @Test
+  public void chunkTest() throws IOException {
+    byte[] data = "a=%C3%A9%20x&bb=%e2%82%ac".getBytes(StandardCharsets.US_ASCII);
+    // one byte at a time so that the percent encodings are split
+    InputStream in = new ByteArrayInputStream(data) {
+
+      @Override
+      public synchronized int read(byte[] buf, int off, int len) {
+        return super.read(buf, off, Math.min(len, 1));
+      }
+    };
+    MultivaluedMap<String, String> form =
+        read(new FormProvider(), in, MediaType.APPLICATION_FORM_URLENCODED_TYPE);
+    Assert.assertEquals(Arrays.asList("\u00e9 x"), form.get("a"));
+    Assert.assertEquals(Arrays.asList("\u20ac"), form.get("bb"));
+  }
+
+  @Test
+  public void largeTest() throws IOException {
+    StringBuilder str = new StringBuilder("a=");
+    for (int i = 0; i < 20000; i++) {
+      str.append("%C3%A9");
+    }
+    MultivaluedMap<String, String> form = read(str.toString());
+    Assert.assertEquals(20000, form.getFirst("a").length());
+    Assert.assertEquals('\u00e9', form.getFirst("a").charAt(19999));
+  }
+
+  @Test
+  public void badEncodingTest() throws IOException {
+    try {
+      read("a=%zz");
+      Assert.fail();
+    } catch (BadRequestException ex) {
+      // expected
+    }
+    try {
+      read("a=%4");
+      Assert.fail();
+    } catch (BadRequestException ex) {
+      // expected
+    }
+  }
+
+  private void assertTooLarge(FormProvider provider, String text) throws IOException {
+    try {
+      read(provider, new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)),
+          MediaType.APPLICATION_FORM_URLENCODED_TYPE);
+      Assert.fail();
+    } catch (ClientErrorException ex) {
+      Assert.assertEquals(413, ex.getResponse().getStatus());
+    }
+  }
+
+  @Test
+  public void limitTest() throws IOException {
+    FormProvider provider = new FormProvider(2, 4);
+    Assert.assertEquals(2, read(provider,
+        new ByteArrayInputStream("a=1234&b=%31%32%33%34".getBytes(StandardCharsets.US_ASCII)),
+        MediaType.APPLICATION_FORM_URLENCODED_TYPE).size());
+    assertTooLarge(provider, "a=1&b=2&c=3");
+    assertTooLarge(provider, "a=12345");
+    assertTooLarge(provider, "abcde=1");
+  }
+
+  @Test
+  public void form2Test() throws IOException {
+    Form form = new FormProvider2().readFrom(Form.class, Form.class, new Annotation[0],
+        MediaType.APPLICATION_FORM_URLENCODED_TYPE, null,
+        new ByteArrayInputStream("a=h%C3%A9llo&a=world&b=!".getBytes(StandardCharsets.UTF_8)));
+    Assert.assertEquals(Arrays.asList("h\u00e9llo", "world"), form.asMap().get("a"));
+    Assert.assertEquals(Arrays.asList("!"), form.asMap().get("b"));
+  }
+
 }
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package net.gcolin.rest.test.provider;
+
+import net.gcolin.rest.multipart.InputPart;
+import net.gcolin.rest.multipart.MultiPartInput;
+import net.gcolin.rest.multipart.MultiPartReader;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class MultiPartReaderTest {
+
+  private static final String BOUNDARY = "----Boundary7MA4YWxkTrZu0gW";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static byte[] ascii(String str) {
+    return str.getBytes(StandardCharsets.ISO_8859_1);
+  }
+
+  private static byte[] multipart(byte[] file) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(ascii("preamble\r\n--" + BOUNDARY + "\r\n"
+        + "Content-Disposition: form-data; name=\"title\"\r\n\r\n"
+        + "héllo\r\n--" + BOUNDARY + "  \r\n"
+        + "content-disposition: form-data; name=\"upload\"; filename=\"a \\\"b\\\".bin\"\r\n"
+        + "Content-Type: application/octet-stream\r\n\r\n"));
+    out.write(file);
+    out.write(ascii("\r\n--" + BOUNDARY + "\r\n"
+        + "Content-Disposition: form-data; name=empty\r\n\r\n"
+        + "\r\n--" + BOUNDARY + "--\r\nepilogue"));
+    return out.toByteArray();
+  }
+
+  private static byte[] payload(int size) {
+    byte[] payload = new byte[size];
+    new Random(size).nextBytes(payload);
+    // parts of the delimiter inside the content
+    byte[] fake = ascii("\r\n--" + BOUNDARY.substring(0, BOUNDARY.length() - 1));
+    for (int i = 0; i + fake.length < size; i += 1000) {
+      System.arraycopy(fake, 0, payload, i, fake.length);
+      payload[i + fake.length] = 'x';
+    }
+    return payload;
+  }
+
+  /**
+   * A stream that returns a few bytes at each read.
+   */
+  private static InputStream slow(InputStream in) {
+    return new FilterInputStream(in) {
+
+      @Override
+      public int read(byte[] buf, int off, int len) throws IOException {
+        return super.read(buf, off, Math.min(len, 7));
+      }
+    };
+  }
+
+  private static List<InputPart> parts(MultiPartInput input) {
+    List<InputPart> parts = new ArrayList<>();
+    for (InputPart part : input) {
+      parts.add(part);
+    }
+    return parts;
+  }
+
+  @Test
+  public void readTest() throws IOException {
+    byte[] file = payload(5000);
+    try (MultiPartInput input = new MultiPartInput(
+        slow(new ByteArrayInputStream(multipart(file))), BOUNDARY)) {
+      List<InputPart> parts = parts(input);
+      Assert.assertEquals(3, parts.size());
+
+      InputPart title = parts.get(0);
+      Assert.assertEquals("title", title.getName());
+      Assert.assertNull(title.getFileName());
+      Assert.assertEquals(MediaType.TEXT_PLAIN_TYPE, title.getMediaType());
+      Assert.assertEquals(new String(ascii("héllo"), StandardCharsets.UTF_8), title.getString());
+
+      InputPart upload = parts.get(1);
+      Assert.assertEquals("upload", upload.getName());
+      Assert.assertEquals("a \"b\".bin", upload.getFileName());
+      Assert.assertEquals("application/octet-stream",
+          upload.getHeaders().getFirst("content-type"));
+      Assert.assertTrue(upload.isInMemory());
+      Assert.assertEquals(file.length, upload.getSize());
+      try (InputStream in = upload.getInputStream()) {
+        Assert.assertArrayEquals(file, in.readAllBytes());
+      }
+
+      Assert.assertEquals("empty", parts.get(2).getName());
+      Assert.assertEquals(0, parts.get(2).getSize());
+      Assert.assertNull(input.nextPart());
+    }
+  }
+
+  @Test
+  public void spillTest() throws IOException {
+    Path dir = folder.newFolder().toPath();
+    byte[] file = payload(300000);
+    InputPart upload;
+    try (MultiPartInput input = new MultiPartInput(new ByteArrayInputStream(multipart(file)),
+        BOUNDARY, 1024, dir)) {
+      Assert.assertTrue(input.nextPart().isInMemory());
+      upload = input.nextPart();
+      Assert.assertFalse(upload.isInMemory());
+      Assert.assertEquals(file.length, upload.getSize());
+      try (InputStream in = upload.getInputStream()) {
+        Assert.assertArrayEquals(file, in.readAllBytes());
+      }
+      Assert.assertEquals(1, dir.toFile().list().length);
+      Assert.assertEquals("empty", input.nextPart().getName());
+    }
+    Assert.assertEquals(0, dir.toFile().list().length);
+    try {
+      upload.getInputStream();
+      Assert.fail();
+    } catch (IOException ex) {
+      // deleted
+    }
+  }
+
+  @Test
+  public void moveToTest() throws IOException {
+    Path dir = folder.newFolder().toPath();
+    Path target = folder.getRoot().toPath().resolve("upload.bin");
+    byte[] file = payload(10000);
+    try (MultiPartInput input = new MultiPartInput(new ByteArrayInputStream(multipart(file)),
+        BOUNDARY, 1024, dir)) {
+      input.nextPart();
+      input.nextPart().moveTo(target);
+    }
+    Assert.assertArrayEquals(file, Files.readAllBytes(target));
+    Assert.assertEquals(0, dir.toFile().list().length);
+  }
+
+  @Test
+  public void lazyTest() throws IOException {
+    byte[] data = multipart(payload(100));
+    int end = new String(data, StandardCharsets.ISO_8859_1).indexOf("\r\n--" + BOUNDARY + "  ");
+    InputStream failing = new InputStream() {
+
+      @Override
+      public int read() throws IOException {
+        throw new IOException("not lazy");
+      }
+    };
+    InputStream in = slow(new SequenceInputStream(new ByteArrayInputStream(data, 0, end + 4 + BOUNDARY.length()),
+        failing));
+    try (MultiPartInput input = new MultiPartInput(in, BOUNDARY)) {
+      Iterator<InputPart> it = input.iterator();
+      Assert.assertTrue(it.hasNext());
+      Assert.assertEquals("title", it.next().getName());
+      try {
+        it.hasNext();
+        Assert.fail();
+      } catch (UncheckedIOException ex) {
+        Assert.assertEquals("not lazy", ex.getCause().getMessage());
+      }
+    }
+  }
+
+  @Test(expected = EOFException.class)
+  public void truncatedTest() throws IOException {
+    byte[] data = multipart(payload(100));
+    try (MultiPartInput input = new MultiPartInput(
+        new ByteArrayInputStream(data, 0, data.length - 20), BOUNDARY)) {
+      while (input.nextPart() != null) {
+        // read all
+      }
+    }
+  }
+
+  @Test
+  public void readerTest() throws IOException {
+    MultiPartReader reader = new MultiPartReader();
+    MediaType mediaType = new MediaType("multipart", "form-data",
+        Collections.singletonMap("boundary", BOUNDARY));
+    Assert.assertTrue(reader.isReadable(MultiPartInput.class, MultiPartInput.class, null, mediaType));
+    Assert.assertFalse(reader.isReadable(String.class, String.class, null, mediaType));
+    byte[] file = payload(1000);
+    try (MultiPartInput input = reader.readFrom(MultiPartInput.class, MultiPartInput.class, null,
+        mediaType, null, new ByteArrayInputStream(multipart(file)))) {
+      Assert.assertEquals(3, parts(input).size());
+    }
+    try {
+      reader.readFrom(MultiPartInput.class, MultiPartInput.class, null,
+          MediaType.MULTIPART_FORM_DATA_TYPE, null, new ByteArrayInputStream(new byte[0]));
+      Assert.fail();
+    } catch (BadRequestException ex) {
+      // no boundary
+    }
+  }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.test.provider;
+
+import net.gcolin.rest.FastMediaType;
+import net.gcolin.rest.provider.DependsOnAnnotations;
+import net.gcolin.rest.provider.SimpleProviders;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.RuntimeType;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+/**
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class SelectionCacheTest {
+
+  public static class Item {
+  }
+
+  public static class ItemProvider implements MessageBodyWriter<Item>, MessageBodyReader<Item> {
+
+    AtomicInteger probes = new AtomicInteger();
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations,
+        MediaType mediaType) {
+      probes.incrementAndGet();
+      return type == Item.class;
+    }
+
+    @Override
+    public long getSize(Item item, Class<?> type, Type genericType, Annotation[] annotations,
+        MediaType mediaType) {
+      return -1;
+    }
+
+    @Override
+    public void writeTo(Item item, Class<?> type, Type genericType, Annotation[] annotations,
+        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+        OutputStream entityStream) throws IOException, WebApplicationException {
+      // nothing
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations,
+        MediaType mediaType) {
+      probes.incrementAndGet();
+      return type == Item.class;
+    }
+
+    @Override
+    public Item readFrom(Class<Item> type, Type genericType, Annotation[] annotations,
+        MediaType mediaType, MultivaluedMap<String, String> httpHeaders, InputStream entityStream)
+        throws IOException, WebApplicationException {
+      return new Item();
+    }
+  }
+
+  @DependsOnAnnotations
+  public static class AnnotationItemProvider extends ItemProvider {
+  }
+
+  private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+  private static final MediaType JSON = FastMediaType.valueOf(MediaType.APPLICATION_JSON);
+
+  private SimpleProviders providers;
+
+  @Before
+  public void before() {
+    providers = new SimpleProviders(RuntimeType.SERVER);
+    providers.load();
+  }
+
+  private MessageBodyWriter<Item> writer(MediaType mediaType) {
+    return providers.getMessageBodyWriter(Item.class, Item.class, NO_ANNOTATIONS, mediaType);
+  }
+
+  private MessageBodyReader<Item> reader(MediaType mediaType) {
+    return providers.getMessageBodyReader(Item.class, Item.class, NO_ANNOTATIONS, mediaType);
+  }
+
+  @Test
+  public void writerTest() {
+    ItemProvider provider = new ItemProvider();
+    providers.add((MessageBodyWriter<?>) provider);
+    Assert.assertSame(provider, writer(JSON));
+    Assert.assertSame(provider, writer(JSON));
+    Assert.assertEquals(1, provider.probes.get());
+  }
+
+  @Test
+  public void readerTest() {
+    ItemProvider provider = new ItemProvider();
+    providers.add((MessageBodyReader<?>) provider);
+    Assert.assertSame(provider, reader(JSON));
+    Assert.assertSame(provider, reader(JSON));
+    Assert.assertEquals(1, provider.probes.get());
+  }
+
+  @Test
+  public void addTest() {
+    ItemProvider provider = new ItemProvider();
+    providers.add((MessageBodyWriter<?>) provider);
+    writer(JSON);
+    providers.add((MessageBodyWriter<?>) new ItemProvider());
+    Assert.assertSame(provider, writer(JSON));
+    Assert.assertEquals(2, provider.probes.get());
+  }
+
+  @Test
+  public void mediaTypeTest() {
+    ItemProvider provider = new ItemProvider();
+    providers.add((MessageBodyWriter<?>) provider);
+    writer(JSON);
+    writer(FastMediaType.valueOf(MediaType.APPLICATION_XML));
+    Assert.assertEquals(2, provider.probes.get());
+    writer(FastMediaType.valueOf(MediaType.APPLICATION_XML));
+    Assert.assertEquals(2, provider.probes.get());
+  }
+
+  @Test
+  public void notInternedTest() {
+    ItemProvider provider = new ItemProvider();
+    providers.add((MessageBodyWriter<?>) provider);
+    writer(MediaType.APPLICATION_JSON_TYPE);
+    writer(MediaType.APPLICATION_JSON_TYPE);
+    Assert.assertEquals(2, provider.probes.get());
+  }
+
+  @Test
+  public void dependsOnAnnotationsTest() {
+    ItemProvider annotated = new AnnotationItemProvider();
+    ItemProvider provider = new ItemProvider();
+    providers.add((MessageBodyWriter<?>) annotated);
+    providers.add((MessageBodyWriter<?>) provider);
+    Assert.assertSame(annotated, writer(JSON));
+    Assert.assertSame(annotated, writer(JSON));
+    Assert.assertEquals(2, annotated.probes.get());
+  }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.test.server;
+
+import net.gcolin.rest.server.AsyncResponseImpl;
+import net.gcolin.rest.server.Exchange;
+import net.gcolin.rest.server.ServerInvocationContext;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.container.CompletionCallback;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+
+/**
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class AsyncResponseImplTest {
+
+  private Exchange exchange;
+  private AsyncResponseImpl async;
+
+  @Before
+  public void before() {
+    exchange = Mockito.mock(Exchange.class);
+    async = new AsyncResponseImpl(new ServerInvocationContext(exchange));
+  }
+
+  @Test
+  public void resumeOnceTest() {
+    Assert.assertTrue(async.isSuspended());
+    Assert.assertTrue(async.resume("hello"));
+    Assert.assertFalse(async.resume("world"));
+    Assert.assertFalse(async.cancel());
+    Assert.assertTrue(async.isDone());
+    Assert.assertFalse(async.isCancelled());
+    Assert.assertFalse(async.setTimeout(1, TimeUnit.SECONDS));
+    Mockito.verify(exchange).resume(async, "hello");
+    Mockito.verifyNoMoreInteractions(exchange);
+  }
+
+  @Test
+  public void cancelTest() {
+    Assert.assertTrue(async.cancel(10));
+    Assert.assertTrue(async.cancel());
+    Assert.assertTrue(async.isCancelled());
+    Assert.assertFalse(async.resume("hello"));
+    ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+    Mockito.verify(exchange).resume(Mockito.eq(async), captor.capture());
+    Response response = (Response) captor.getValue();
+    Assert.assertEquals(503, response.getStatus());
+    Assert.assertEquals("10", response.getHeaderString(HttpHeaders.RETRY_AFTER));
+  }
+
+  @Test
+  public void timeoutTest() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    AtomicReference<Object> result = new AtomicReference<>();
+    Mockito.doAnswer(inv -> {
+      result.set(inv.getArguments()[1]);
+      latch.countDown();
+      return null;
+    }).when(exchange).resume(Mockito.eq(async), Mockito.any());
+    Assert.assertTrue(async.setTimeout(10, TimeUnit.MILLISECONDS));
+    Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+    Assert.assertTrue(result.get() instanceof ServiceUnavailableException);
+  }
+
+  @Test
+  public void timeoutHandlerTest() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    Mockito.doAnswer(inv -> {
+      latch.countDown();
+      return null;
+    }).when(exchange).resume(async, "late");
+    async.setTimeoutHandler(ar -> ar.resume("late"));
+    async.setTimeout(10, TimeUnit.MILLISECONDS);
+    Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void completionCallbackTest() {
+    AtomicReference<Throwable> error = new AtomicReference<>();
+    CountDownLatch latch = new CountDownLatch(1);
+    CompletionCallback callback = th -> {
+      error.set(th);
+      latch.countDown();
+    };
+    Assert.assertEquals(1, async.register(callback).size());
+    Assert.assertTrue(async.register(new Object()).isEmpty());
+    IllegalStateException ex = new IllegalStateException();
+    async.complete(ex);
+    Assert.assertEquals(0, latch.getCount());
+    Assert.assertSame(ex, error.get());
+  }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.test.server;
+
+import net.gcolin.rest.server.Invoker;
+import net.gcolin.rest.server.Invokers;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class InvokersTest {
+
+  public static class Target {
+
+    public String concat(String str, int nb, boolean flag) {
+      return str + nb + flag;
+    }
+
+    public long sum(long left, long right) {
+      return left + right;
+    }
+
+    public void nothing() {
+      // nothing
+    }
+
+    public String fail() throws IOException {
+      throw new IOException("fail");
+    }
+
+    public static String hello() {
+      return "hello";
+    }
+
+    String hidden() {
+      return "hidden";
+    }
+  }
+
+  private static Method method(String name) {
+    for (Method method : Target.class.getDeclaredMethods()) {
+      if (method.getName().equals(name)) {
+        return method;
+      }
+    }
+    throw new IllegalArgumentException(name);
+  }
+
+  @Test
+  public void parametersTest() throws Exception {
+    Invoker invoker = Invokers.methodHandle(method("concat"));
+    Assert.assertEquals("a1true", invoker.invoke(new Target(), new Object[] {"a", 1, true}));
+  }
+
+  @Test
+  public void primitiveReturnTest() throws Exception {
+    Invoker invoker = Invokers.methodHandle(method("sum"));
+    Assert.assertEquals(5L, invoker.invoke(new Target(), new Object[] {2L, 3L}));
+  }
+
+  @Test
+  public void noParameterTest() throws Exception {
+    Invoker invoker = Invokers.methodHandle(method("nothing"));
+    Assert.assertNull(invoker.invoke(new Target(), null));
+    Assert.assertNull(invoker.invoke(new Target(), new Object[0]));
+  }
+
+  @Test
+  public void staticTest() throws Exception {
+    Invoker invoker = Invokers.methodHandle(method("hello"));
+    Assert.assertEquals("hello", invoker.invoke(null, null));
+  }
+
+  @Test
+  public void exceptionTest() throws Exception {
+    for (Invoker invoker : new Invoker[] {Invokers.methodHandle(method("fail")),
+        Invokers.reflect(method("fail"))}) {
+      try {
+        invoker.invoke(new Target(), null);
+        Assert.fail();
+      } catch (InvocationTargetException ex) {
+        Assert.assertTrue(ex.getTargetException() instanceof IOException);
+        Assert.assertEquals("fail", ex.getTargetException().getMessage());
+      }
+    }
+  }
+
+  @Test(expected = IllegalAccessException.class)
+  public void inaccessibleTest() throws Exception {
+    Invokers.of(method("hidden")).invoke(new Target(), null);
+  }
+}
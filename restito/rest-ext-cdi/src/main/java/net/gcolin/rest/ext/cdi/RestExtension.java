@@ -88,6 +88,7 @@ public class RestExtension implements Extension {
 					restServlet.addMapping(path);
 					restServlet.setMultipartConfig(
 							new MultipartConfigElement(RestServlet.class.getAnnotation(MultipartConfig.class)));
+					restServlet.setAsyncSupported(true);
 					restServlet.setLoadOnStartup(1);
 					servlets.put(path, servlet);
 				} else {
@@ -17,10 +17,10 @@ package net.gcolin.rest.ext.freemarker;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.nio.charset.Charset;
 
 import javax.ws.rs.ConstrainedTo;
 import javax.ws.rs.Produces;
@@ -32,6 +32,7 @@ import javax.ws.rs.ext.MessageBodyWriter;
 import freemarker.template.Configuration;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
+import net.gcolin.common.io.Io;
 
 /**
  * Write JspView.
@@ -44,7 +45,7 @@ import freemarker.template.TemplateException;
 public class FreemarkerProvider implements MessageBodyWriter<FreemarkerView> {
 
 	private Configuration configuration;
-	private String charset;
+	private Charset charset;
 
 	public FreemarkerProvider(Configuration configuration) {
 		this(configuration, "UTF-8");
@@ -52,7 +53,7 @@ public class FreemarkerProvider implements MessageBodyWriter<FreemarkerView> {
 
 	public FreemarkerProvider(Configuration configuration, String charset) {
 		this.configuration = configuration;
-		this.charset = charset;
+		this.charset = Charset.forName(charset);
 	}
 
 	@Override
@@ -72,7 +73,7 @@ public class FreemarkerProvider implements MessageBodyWriter<FreemarkerView> {
 			throws IOException {
 		Template tmpl = configuration.getTemplate(entity.getPath());
 
-		try (Writer writer = new OutputStreamWriter(entityStream, charset)) {
+		try (Writer writer = Io.writer(entityStream, charset)) {
 			tmpl.process(entity.getModel(), writer);
 		} catch (TemplateException ex) {
 			throw new IOException(ex);
@@ -12,19 +12,35 @@
  * or implied. See the License for the specific language governing permissions and limitations under
  * the License.
  */
-
 package net.gcolin.rest.ext.gzip;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Supplier;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.MutableConfiguration;
 import javax.ws.rs.core.Application;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriInfo;
 import javax.ws.rs.ext.ReaderInterceptor;
 import javax.ws.rs.ext.ReaderInterceptorContext;
 import javax.ws.rs.ext.WriterInterceptor;
@@ -36,6 +52,21 @@ import javax.ws.rs.ext.WriterInterceptorContext;
  * <p>For using it, add GZipInterceptor.class in you Application 
  * and place GZip annotation on method or class.</p>
  * 
+ * <p>An entity is compressed if the client accepts gzip, if it is larger than
+ * the minimum size and if its media type is not already compressed. The
+ * Deflaters and the Inflaters are pooled. For changing the defaults, add a
+ * configured instance in the singletons of the Application.</p>
+ * 
+ * <p>A large response that rarely changes can be compressed once per version:</p>
+ * <ul>
+ * <li>a File entity is served from its {@code .gz} sibling if it is up to date,
+ * the sibling can be created by the interceptor with
+ * {@link #writeSiblings(boolean)},</li>
+ * <li>the compressed body of a response with a strong ETag is kept in the
+ * cache given to {@link #representations(Cache)}.</li>
+ * </ul>
+ * <p>The entity is not written again for these responses, the precompressed
+ * bytes are sent as is.</p>
  * 
  * @author Gaël COLIN
  * @since 1.0
@@ -44,29 +75,318 @@ import javax.ws.rs.ext.WriterInterceptorContext;
 @GZip
 public class GZipInterceptor implements WriterInterceptor, ReaderInterceptor {
 
+  /**
+   * The default minimum size in bytes of a compressed entity. A smaller entity
+   * would not fill a network packet anyway.
+   */
+  public static final int DEFAULT_MIN_SIZE = 1024;
+
+  /**
+   * The media types that are not compressed by default.
+   */
+  public static final Set<String> DEFAULT_EXCLUDED_MEDIA_TYPES =
+      Collections.unmodifiableSet(new HashSet<>(Arrays.asList("image/png", "image/jpeg",
+          "image/gif", "image/webp", "image/avif", "video/*", "audio/*", "font/woff",
+          "font/woff2", "application/zip", "application/gzip", "application/x-gzip",
+          "application/x-bzip2", "application/x-xz", "application/x-7z-compressed",
+          "application/x-rar-compressed", "application/zstd")));
+
+  /**
+   * The name of the cache created by {@link #representations(CacheManager)}.
+   */
+  public static final String REPRESENTATIONS = "net.gcolin.rest.gzip.representations";
+
   private static final String GZIP = "gzip";
-  
+  private static final String CONTENT_RANGE = "Content-Range";
+  private static final Pool<Inflater> INFLATERS =
+      new Pool<>(() -> new Inflater(true), Inflater::reset, Inflater::end);
+
   @Context
   private Supplier<HttpHeaders> requestHeaders;
+  @Context
+  private Supplier<UriInfo> uriInfo;
+  private int minSize = DEFAULT_MIN_SIZE;
+  private int level = Deflater.DEFAULT_COMPRESSION;
+  private Set<String> excludedMediaTypes = DEFAULT_EXCLUDED_MEDIA_TYPES;
+  private volatile Pool<Deflater> deflaters = createDeflaters(level);
+  private boolean writeSiblings;
+  private Cache<String, byte[]> representations;
+
+  private static Pool<Deflater> createDeflaters(int level) {
+    return new Pool<>(() -> new Deflater(level, true), Deflater::reset, Deflater::end);
+  }
+
+  public int getMinSize() {
+    return minSize;
+  }
+
+  /**
+   * Set the minimum size of a compressed entity.
+   * 
+   * @param minSize the size in bytes, {@code 0} compresses all the entities
+   * @return the current interceptor
+   */
+  public GZipInterceptor minSize(int minSize) {
+    if (minSize < 0) {
+      throw new IllegalArgumentException("negative minimum size " + minSize);
+    }
+    this.minSize = minSize;
+    return this;
+  }
+
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * Set the compression level.
+   * 
+   * @param level from {@link Deflater#BEST_SPEED} to
+   *        {@link Deflater#BEST_COMPRESSION} or {@link Deflater#DEFAULT_COMPRESSION}
+   * @return the current interceptor
+   */
+  public GZipInterceptor level(int level) {
+    if ((level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION)
+        && level != Deflater.DEFAULT_COMPRESSION) {
+      throw new IllegalArgumentException("invalid compression level " + level);
+    }
+    Pool<Deflater> old = deflaters;
+    this.level = level;
+    deflaters = createDeflaters(level);
+    old.clear();
+    return this;
+  }
+
+  public Set<String> getExcludedMediaTypes() {
+    return excludedMediaTypes;
+  }
+
+  /**
+   * Set the media types that are never compressed.
+   * 
+   * @param mediaTypes media types like {@code image/png} or {@code video/*}
+   * @return the current interceptor
+   */
+  public GZipInterceptor excludedMediaTypes(String... mediaTypes) {
+    Set<String> set = new HashSet<>();
+    for (String mediaType : mediaTypes) {
+      set.add(mediaType.toLowerCase(Locale.ENGLISH));
+    }
+    excludedMediaTypes = Collections.unmodifiableSet(set);
+    return this;
+  }
+
+  public boolean isWriteSiblings() {
+    return writeSiblings;
+  }
+
+  /**
+   * Create the missing or outdated {@code .gz} sibling of a File entity when it
+   * is sent compressed. The directory of the file must be writable.
+   * 
+   * @param writeSiblings {@code true} for creating the siblings
+   * @return the current interceptor
+   */
+  public GZipInterceptor writeSiblings(boolean writeSiblings) {
+    this.writeSiblings = writeSiblings;
+    return this;
+  }
+
+  public Cache<String, byte[]> getRepresentations() {
+    return representations;
+  }
+
+  /**
+   * Keep the compressed body of the responses with a strong ETag. The key is
+   * the request path, the ETag and the media type, so a resource must change
+   * its ETag when its entity changes.
+   * 
+   * @param representations a cache or {@code null} for disabling it
+   * @return the current interceptor
+   */
+  public GZipInterceptor representations(Cache<String, byte[]> representations) {
+    this.representations = representations;
+    return this;
+  }
+
+  /**
+   * Keep the compressed body of the responses with a strong ETag in the cache
+   * {@link #REPRESENTATIONS} of a CacheManager. The cache is created if it does
+   * not exist.
+   * 
+   * @param cacheManager a CacheManager
+   * @return the current interceptor
+   */
+  public GZipInterceptor representations(CacheManager cacheManager) {
+    Cache<String, byte[]> cache = cacheManager.getCache(REPRESENTATIONS, String.class, byte[].class);
+    if (cache == null) {
+      cache = cacheManager.createCache(REPRESENTATIONS, new MutableConfiguration<String, byte[]>()
+          .setTypes(String.class, byte[].class).setStoreByValue(false));
+    }
+    return representations(cache);
+  }
 
   @Override
   public void aroundWriteTo(WriterInterceptorContext ctx) throws IOException {
     String encoding = requestHeaders.get().getHeaderString(HttpHeaders.ACCEPT_ENCODING);
-    if (encoding != null && encoding.contains(GZIP)) {
-      OutputStream old = ctx.getOutputStream();
-      GZIPOutputStream gzipOutputStream = new GZIPOutputStream(old);
-      ctx.setOutputStream(gzipOutputStream);
-      ctx.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
-      try {
-        ctx.proceed();
-      } finally {
-        ctx.setOutputStream(old);
-        gzipOutputStream.finish();
-        gzipOutputStream.close();
+    MultivaluedMap<String, Object> headers = ctx.getHeaders();
+    // a range is a part of the identity representation
+    if (!isExcluded(ctx.getMediaType()) && headers.getFirst(HttpHeaders.CONTENT_ENCODING) == null
+        && headers.getFirst(CONTENT_RANGE) == null) {
+      headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+      if (acceptsGzip(encoding)) {
+        if (ctx.getEntity() instanceof File && writeSibling(ctx, (File) ctx.getEntity())) {
+          return;
+        }
+        String key = representations == null ? null : key(uriInfo.get().getPath(false), headers,
+            ctx.getMediaType());
+        if (key == null) {
+          compress(ctx);
+        } else {
+          compress(ctx, key);
+        }
+        return;
       }
-    } else {
+    }
+    ctx.proceed();
+  }
+
+  private void compress(WriterInterceptorContext ctx) throws IOException {
+    OutputStream old = ctx.getOutputStream();
+    Pool<Deflater> pool = deflaters;
+    ThresholdOutputStream out = new ThresholdOutputStream(old, minSize, () -> {
+      setEncoding(ctx.getHeaders());
+      return new PooledGZipOutputStream(old, pool);
+    });
+    ctx.setOutputStream(out);
+    try {
+      ctx.proceed();
+    } finally {
+      ctx.setOutputStream(old);
+      out.finish();
+    }
+  }
+
+  private void compress(WriterInterceptorContext ctx, String key) throws IOException {
+    OutputStream old = ctx.getOutputStream();
+    byte[] compressed = representations.get(key);
+    if (compressed != null) {
+      setEncoding(ctx.getHeaders());
+      old.write(compressed);
+      return;
+    }
+    Pool<Deflater> pool = deflaters;
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    ThresholdOutputStream out = new ThresholdOutputStream(old, minSize, () -> {
+      setEncoding(ctx.getHeaders());
+      return new PooledGZipOutputStream(buffer, pool);
+    });
+    ctx.setOutputStream(out);
+    try {
       ctx.proceed();
+    } finally {
+      ctx.setOutputStream(old);
+      out.finish();
+    }
+    if (out.isCompressed()) {
+      compressed = buffer.toByteArray();
+      representations.put(key, compressed);
+      old.write(compressed);
+    }
+  }
+
+  private boolean writeSibling(WriterInterceptorContext ctx, File file) throws IOException {
+    if (!file.isFile() || file.length() <= minSize) {
+      return false;
+    }
+    File sibling = Siblings.find(file);
+    if (sibling == null && writeSiblings) {
+      sibling = Siblings.create(file, deflaters);
+    }
+    if (sibling == null) {
+      return false;
+    }
+    setEncoding(ctx.getHeaders());
+    Files.copy(sibling.toPath(), ctx.getOutputStream());
+    return true;
+  }
+
+  private static void setEncoding(MultivaluedMap<String, Object> headers) {
+    headers.putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+    headers.remove(HttpHeaders.CONTENT_LENGTH);
+  }
+
+  private static String key(String path, MultivaluedMap<String, Object> headers,
+      MediaType mediaType) {
+    Object etag = headers.getFirst(HttpHeaders.ETAG);
+    String value;
+    if (etag instanceof EntityTag) {
+      EntityTag tag = (EntityTag) etag;
+      value = tag.isWeak() ? null : '"' + tag.getValue() + '"';
+    } else {
+      value = etag == null || etag.toString().startsWith("W/") ? null : etag.toString();
+    }
+    if (value == null) {
+      return null;
+    }
+    // two resources may compute the same entity tag
+    StringBuilder key = new StringBuilder(path).append(' ').append(value);
+    if (mediaType != null) {
+      key.append(' ').append(mediaType.getType()).append('/').append(mediaType.getSubtype());
+      for (Map.Entry<String, String> param : mediaType.getParameters().entrySet()) {
+        key.append(';').append(param.getKey()).append('=').append(param.getValue());
+      }
+    }
+    return key.toString();
+  }
+
+  private boolean isExcluded(MediaType mediaType) {
+    if (mediaType == null || excludedMediaTypes.isEmpty()) {
+      return false;
+    }
+    String type = mediaType.getType().toLowerCase(Locale.ENGLISH);
+    return excludedMediaTypes.contains(type + "/*") || excludedMediaTypes
+        .contains(type + "/" + mediaType.getSubtype().toLowerCase(Locale.ENGLISH));
+  }
+
+  /**
+   * Tell if an {@code Accept-Encoding} header accepts gzip. A coding with
+   * {@code q=0} is refused and {@code *} stands for the codings not listed.
+   * 
+   * @param header the value of the header or {@code null}
+   * @return {@code true} if the response can be compressed in gzip
+   */
+  public static boolean acceptsGzip(String header) {
+    if (header == null) {
+      return false;
+    }
+    float gzip = -1;
+    float any = -1;
+    for (String coding : header.split(",")) {
+      int split = coding.indexOf(';');
+      String name = (split == -1 ? coding : coding.substring(0, split)).trim();
+      float quality = split == -1 ? 1 : quality(coding.substring(split + 1));
+      if (GZIP.equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) {
+        gzip = Math.max(gzip, quality);
+      } else if ("*".equals(name)) {
+        any = Math.max(any, quality);
+      }
+    }
+    return gzip == -1 ? any > 0 : gzip > 0;
+  }
+
+  private static float quality(String params) {
+    for (String param : params.split(";")) {
+      int split = param.indexOf('=');
+      if (split != -1 && "q".equalsIgnoreCase(param.substring(0, split).trim())) {
+        try {
+          return Float.parseFloat(param.substring(split + 1).trim());
+        } catch (NumberFormatException ex) {
+          return 0;
+        }
+      }
     }
+    return 1;
   }
 
   @Override
@@ -74,12 +394,20 @@ public class GZipInterceptor implements WriterInterceptor, ReaderInterceptor {
     String contentEncoding = context.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
     if (contentEncoding != null && contentEncoding.contains(GZIP)) {
       InputStream old = context.getInputStream();
-      context.setInputStream(new GZIPInputStream(old));
+      PooledGZipInputStream in = new PooledGZipInputStream(old, INFLATERS);
+      context.setInputStream(in);
       context.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+      boolean release = true;
       try {
-        return context.proceed();
+        Object entity = context.proceed();
+        // a stream entity is read later, its Inflater is released when it is closed
+        release = !(entity instanceof InputStream || entity instanceof Reader);
+        return entity;
       } finally {
         context.setInputStream(old);
+        if (release) {
+          in.release();
+        }
       }
     } else {
       return context.proceed();
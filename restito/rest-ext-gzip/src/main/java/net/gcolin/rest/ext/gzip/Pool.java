@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.gcolin.rest.ext.gzip;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of Deflater or Inflater. An instance holds native memory
+ * until it is ended, so the instances released when the pool is full are
+ * ended.
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+final class Pool<T> {
+
+  static final int CAPACITY = Runtime.getRuntime().availableProcessors() * 2;
+
+  private final BlockingQueue<T> queue = new ArrayBlockingQueue<>(CAPACITY);
+  private final Supplier<T> factory;
+  private final Consumer<T> reset;
+  private final Consumer<T> end;
+
+  Pool(Supplier<T> factory, Consumer<T> reset, Consumer<T> end) {
+    this.factory = factory;
+    this.reset = reset;
+    this.end = end;
+  }
+
+  T acquire() {
+    T instance = queue.poll();
+    return instance == null ? factory.get() : instance;
+  }
+
+  void release(T instance) {
+    reset.accept(instance);
+    if (!queue.offer(instance)) {
+      end.accept(instance);
+    }
+  }
+
+  int size() {
+    return queue.size();
+  }
+
+  void clear() {
+    T instance;
+    while ((instance = queue.poll()) != null) {
+      end.accept(instance);
+    }
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.gcolin.rest.ext.gzip;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * A GZIP input stream with an Inflater of a {@link Pool}. The Inflater is
+ * released when the stream is closed or by {@link #release()}.
+ *
+ * <p>
+ * Only the first member of a GZIP file is read, an HTTP body has one.
+ * </p>
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+final class PooledGZipInputStream extends InflaterInputStream {
+
+  private static final int GZIP_MAGIC = 0x8b1f;
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+  private static final int BUFFER_SIZE = 8192;
+
+  private final CRC32 crc = new CRC32();
+  private final Pool<Inflater> pool;
+  private boolean eos;
+  private boolean released;
+
+  PooledGZipInputStream(InputStream in, Pool<Inflater> pool) throws IOException {
+    this(in, pool, pool.acquire());
+  }
+
+  private PooledGZipInputStream(InputStream in, Pool<Inflater> pool, Inflater inflater)
+      throws IOException {
+    super(in, inflater, BUFFER_SIZE);
+    this.pool = pool;
+    try {
+      readHeader();
+    } catch (IOException ex) {
+      release();
+      throw ex;
+    }
+  }
+
+  @Override
+  public int read(byte[] buf, int off, int len) throws IOException {
+    if (released) {
+      throw new IOException("Stream closed");
+    }
+    if (eos) {
+      return -1;
+    }
+    int nb = super.read(buf, off, len);
+    if (nb == -1) {
+      readTrailer();
+      eos = true;
+    } else {
+      crc.update(buf, off, nb);
+    }
+    return nb;
+  }
+
+  @Override
+  public int available() throws IOException {
+    return eos ? 0 : super.available();
+  }
+
+  /**
+   * Give back the Inflater to the pool without closing the underlying stream.
+   */
+  void release() {
+    if (!released) {
+      released = true;
+      pool.release(inf);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    release();
+    super.close();
+  }
+
+  private void readHeader() throws IOException {
+    CheckedInputStream checked = new CheckedInputStream(in, crc);
+    crc.reset();
+    if (readShort(checked) != GZIP_MAGIC) {
+      throw new ZipException("Not in GZIP format");
+    }
+    if (readByte(checked) != 8) {
+      throw new ZipException("Unsupported compression method");
+    }
+    int flags = readByte(checked);
+    // modification time, extra flags and operating system
+    skipBytes(checked, 6);
+    if ((flags & FEXTRA) == FEXTRA) {
+      skipBytes(checked, readShort(checked));
+    }
+    if ((flags & FNAME) == FNAME) {
+      while (readByte(checked) != 0) {
+        // skip the file name
+      }
+    }
+    if ((flags & FCOMMENT) == FCOMMENT) {
+      while (readByte(checked) != 0) {
+        // skip the comment
+      }
+    }
+    if ((flags & FHCRC) == FHCRC) {
+      int value = (int) crc.getValue() & 0xffff;
+      if (readShort(checked) != value) {
+        throw new ZipException("Corrupt GZIP header");
+      }
+    }
+    crc.reset();
+  }
+
+  private void readTrailer() throws IOException {
+    // the trailer may be partially read in the buffer of the inflater
+    byte[] trailer = new byte[8];
+    int remaining = Math.min(inf.getRemaining(), trailer.length);
+    System.arraycopy(buf, len - inf.getRemaining(), trailer, 0, remaining);
+    for (int i = remaining; i < trailer.length; i++) {
+      trailer[i] = (byte) readByte(in);
+    }
+    if (readInt(trailer, 0) != (int) crc.getValue()
+        || readInt(trailer, 4) != (int) inf.getBytesWritten()) {
+      throw new ZipException("Corrupt GZIP trailer");
+    }
+  }
+
+  private static int readInt(byte[] buf, int offset) {
+    return (buf[offset] & 0xff) | (buf[offset + 1] & 0xff) << 8 | (buf[offset + 2] & 0xff) << 16
+        | (buf[offset + 3] & 0xff) << 24;
+  }
+
+  private static int readShort(InputStream in) throws IOException {
+    return readByte(in) | readByte(in) << 8;
+  }
+
+  private static int readByte(InputStream in) throws IOException {
+    int bt = in.read();
+    if (bt == -1) {
+      throw new EOFException();
+    }
+    return bt;
+  }
+
+  private static void skipBytes(InputStream in, int nb) throws IOException {
+    for (int i = 0; i < nb; i++) {
+      readByte(in);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.gcolin.rest.ext.gzip;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * A GZIP output stream with a Deflater of a {@link Pool}. The Deflater is
+ * released at the end of the stream.
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+final class PooledGZipOutputStream extends DeflaterOutputStream {
+
+  private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+  private static final int BUFFER_SIZE = 8192;
+
+  private final CRC32 crc = new CRC32();
+  private final Pool<Deflater> pool;
+  private boolean finished;
+
+  PooledGZipOutputStream(OutputStream out, Pool<Deflater> pool) throws IOException {
+    this(out, pool, pool.acquire());
+  }
+
+  private PooledGZipOutputStream(OutputStream out, Pool<Deflater> pool, Deflater deflater)
+      throws IOException {
+    super(out, deflater, BUFFER_SIZE, true);
+    this.pool = pool;
+    try {
+      out.write(HEADER);
+    } catch (IOException ex) {
+      finished = true;
+      pool.release(deflater);
+      throw ex;
+    }
+  }
+
+  @Override
+  public void write(byte[] buf, int off, int len) throws IOException {
+    if (finished) {
+      throw new IOException("write beyond end of stream");
+    }
+    super.write(buf, off, len);
+    crc.update(buf, off, len);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (finished) {
+      out.flush();
+    } else {
+      super.flush();
+    }
+  }
+
+  /**
+   * Write the remaining compressed data and the GZIP trailer, then release the
+   * Deflater. The underlying stream is not closed.
+   */
+  @Override
+  public void finish() throws IOException {
+    if (finished) {
+      return;
+    }
+    finished = true;
+    try {
+      super.finish();
+      byte[] trailer = new byte[8];
+      writeInt((int) crc.getValue(), trailer, 0);
+      writeInt((int) def.getBytesRead(), trailer, 4);
+      out.write(trailer);
+    } finally {
+      pool.release(def);
+    }
+  }
+
+  private static void writeInt(int value, byte[] buf, int offset) {
+    buf[offset] = (byte) value;
+    buf[offset + 1] = (byte) (value >> 8);
+    buf[offset + 2] = (byte) (value >> 16);
+    buf[offset + 3] = (byte) (value >> 24);
+  }
+}
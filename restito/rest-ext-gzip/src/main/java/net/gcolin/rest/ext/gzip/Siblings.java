@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.gcolin.rest.ext.gzip;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.Deflater;
+
+/**
+ * The {@code .gz} siblings of the static files. A sibling is used only if it
+ * is not older than the file.
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+final class Siblings {
+
+  static final String EXTENSION = ".gz";
+
+  private Siblings() {}
+
+  /**
+   * Get the up-to-date sibling of a file.
+   * 
+   * @param file a file
+   * @return the sibling or {@code null}
+   */
+  static File find(File file) {
+    File sibling = new File(file.getPath() + EXTENSION);
+    return sibling.isFile() && sibling.lastModified() >= file.lastModified() ? sibling : null;
+  }
+
+  /**
+   * Compress a file into its sibling. The sibling is written in a temporary
+   * file and moved, so a concurrent request never reads a partial sibling.
+   * 
+   * @param file a file
+   * @param pool the Deflaters
+   * @return the sibling or {@code null} if the directory is not writable
+   * @throws IOException if an I/O error occurs.
+   */
+  static File create(File file, Pool<Deflater> pool) throws IOException {
+    File dir = file.getAbsoluteFile().getParentFile();
+    if (dir == null || !dir.canWrite()) {
+      return null;
+    }
+    File tmp = File.createTempFile(file.getName(), EXTENSION + ".tmp", dir);
+    try {
+      try (InputStream in = Files.newInputStream(file.toPath());
+          OutputStream out = Files.newOutputStream(tmp.toPath());
+          PooledGZipOutputStream gzip = new PooledGZipOutputStream(out, pool)) {
+        byte[] buf = new byte[8192];
+        int nb;
+        while ((nb = in.read(buf)) != -1) {
+          gzip.write(buf, 0, nb);
+        }
+        gzip.finish();
+      }
+      File sibling = new File(file.getPath() + EXTENSION);
+      Files.move(tmp.toPath(), sibling.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      return sibling;
+    } finally {
+      Files.deleteIfExists(tmp.toPath());
+    }
+  }
+}
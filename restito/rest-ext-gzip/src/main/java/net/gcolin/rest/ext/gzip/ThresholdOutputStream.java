@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.gcolin.rest.ext.gzip;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Hold the beginning of an entity until it exceeds a threshold. A small
+ * entity is written as is, a larger one goes through the stream created by
+ * the compressor.
+ *
+ * <p>
+ * A flush before the threshold commits the entity uncompressed, because the
+ * bytes already sent cannot be compressed anymore.
+ * </p>
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+final class ThresholdOutputStream extends OutputStream {
+
+  /**
+   * Create the compressing stream when the threshold is exceeded.
+   */
+  interface Compressor {
+    OutputStream open() throws IOException;
+  }
+
+  private final OutputStream out;
+  private final int threshold;
+  private final Compressor compressor;
+  private byte[] buffer;
+  private int count;
+  private OutputStream target;
+
+  ThresholdOutputStream(OutputStream out, int threshold, Compressor compressor) {
+    this.out = out;
+    this.threshold = threshold;
+    this.compressor = compressor;
+  }
+
+  /**
+   * Tell if the entity is compressed.
+   * 
+   * @return {@code true} if the threshold is exceeded
+   */
+  boolean isCompressed() {
+    return target != null && target != out;
+  }
+
+  @Override
+  public void write(int bt) throws IOException {
+    if (target == null) {
+      if (count < threshold) {
+        if (buffer == null) {
+          buffer = new byte[threshold];
+        }
+        buffer[count++] = (byte) bt;
+        return;
+      }
+      open(compressor.open());
+    }
+    target.write(bt);
+  }
+
+  @Override
+  public void write(byte[] buf, int off, int len) throws IOException {
+    if (target == null) {
+      if (count + len <= threshold) {
+        if (buffer == null) {
+          buffer = new byte[threshold];
+        }
+        System.arraycopy(buf, off, buffer, count, len);
+        count += len;
+        return;
+      }
+      open(compressor.open());
+    }
+    target.write(buf, off, len);
+  }
+
+  private void open(OutputStream stream) throws IOException {
+    target = stream;
+    if (count > 0) {
+      target.write(buffer, 0, count);
+    }
+    buffer = null;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (target == null) {
+      open(out);
+    }
+    target.flush();
+  }
+
+  /**
+   * Write the held bytes or the end of the compressed entity. The underlying
+   * stream is not closed.
+   * 
+   * @throws IOException if an I/O error occurs.
+   */
+  void finish() throws IOException {
+    if (target == null) {
+      open(out);
+    } else if (target instanceof PooledGZipOutputStream) {
+      ((PooledGZipOutputStream) target).finish();
+    }
+  }
+
+  /**
+   * Do nothing. Many MessageBodyWriters close the entity stream, the entity is
+   * completed by {@link #finish()}.
+   */
+  @Override
+  public void close() throws IOException {
+    // Do nothing
+  }
+}
@@ -17,23 +17,33 @@ package net.gcolin.rest.ext.gzip.test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
 import java.util.function.Supplier;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.UriInfo;
 import javax.ws.rs.ext.ReaderInterceptorContext;
 import javax.ws.rs.ext.WriterInterceptorContext;
 
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -50,8 +60,12 @@ import net.gcolin.rest.ext.gzip.GZipInterceptor;
  */
 public class GZipInterceptorTest {
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   int nb;
   OutputStream bout;
+  String path = "docs/manual";
   InputStream bin;
 
   @Before
@@ -91,7 +105,7 @@ public class GZipInterceptorTest {
         return null;
       }
     }).when(ctx).proceed();
-    GZipInterceptor interceptor = new GZipInterceptor();
+    GZipInterceptor interceptor = new GZipInterceptor().minSize(0);
     BeanAccess.setProperty(interceptor, "requestHeaders", new Supplier<HttpHeaders>() {
 
       @Override
@@ -204,4 +218,309 @@ public class GZipInterceptorTest {
     Assert.assertNull(headers.getFirst(HttpHeaders.CONTENT_ENCODING));
   }
 
+  private byte[] write(GZipInterceptor interceptor, String acceptEncoding, MediaType mediaType,
+      MultivaluedHashMap<String, Object> headers, byte[] payload) throws IOException {
+    return write(interceptor, acceptEncoding, mediaType, headers, payload, payload);
+  }
+
+  private byte[] write(GZipInterceptor interceptor, String acceptEncoding, MediaType mediaType,
+      MultivaluedHashMap<String, Object> headers, Object entity, byte[] payload)
+      throws IOException {
+    WriterInterceptorContext ctx = Mockito.mock(WriterInterceptorContext.class);
+    Mockito.when(ctx.getHeaders()).thenReturn(headers);
+    Mockito.when(ctx.getMediaType()).thenReturn(mediaType);
+    Mockito.when(ctx.getEntity()).thenReturn(entity);
+    bout = new ByteArrayOutputStream();
+    Mockito.when(ctx.getOutputStream()).then(invocation -> bout);
+    Mockito.doAnswer(invocation -> {
+      bout = (OutputStream) invocation.getArguments()[0];
+      return null;
+    }).when(ctx).setOutputStream(Mockito.any(OutputStream.class));
+    Mockito.doAnswer(invocation -> {
+      nb++;
+      OutputStream out = ctx.getOutputStream();
+      // write the payload in several calls
+      int half = payload.length / 2;
+      out.write(payload, 0, half);
+      for (int i = half; i < payload.length; i++) {
+        out.write(payload[i]);
+      }
+      out.close();
+      return null;
+    }).when(ctx).proceed();
+    HttpHeaders httpHeaders = Mockito.mock(HttpHeaders.class);
+    Mockito.when(httpHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING)).thenReturn(acceptEncoding);
+    BeanAccess.setProperty(interceptor, "requestHeaders", (Supplier<HttpHeaders>) () -> httpHeaders);
+    UriInfo uriInfo = Mockito.mock(UriInfo.class);
+    Mockito.when(uriInfo.getPath(false)).thenReturn(path);
+    BeanAccess.setProperty(interceptor, "uriInfo", (Supplier<UriInfo>) () -> uriInfo);
+    interceptor.aroundWriteTo(ctx);
+    return ((ByteArrayOutputStream) bout).toByteArray();
+  }
+
+  private static byte[] payload(int size) {
+    byte[] payload = new byte[size];
+    Random random = new Random(size);
+    for (int i = 0; i < size; i++) {
+      payload[i] = (byte) ('a' + random.nextInt(4));
+    }
+    return payload;
+  }
+
+  private static byte[] gunzip(byte[] data) throws IOException {
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      Io.copy(in, out);
+      return out.toByteArray();
+    }
+  }
+
+  @Test
+  public void pooledDeflaterTest() throws IOException {
+    GZipInterceptor interceptor = new GZipInterceptor().level(9);
+    for (int i = 0; i < 5; i++) {
+      byte[] payload = payload(10000 + i);
+      MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+      headers.add(HttpHeaders.CONTENT_LENGTH, payload.length);
+      byte[] out = write(interceptor, "gzip, deflate", MediaType.APPLICATION_JSON_TYPE, headers, payload);
+      Assert.assertEquals("gzip", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+      Assert.assertNull(headers.getFirst(HttpHeaders.CONTENT_LENGTH));
+      Assert.assertEquals(HttpHeaders.ACCEPT_ENCODING, headers.getFirst(HttpHeaders.VARY));
+      Assert.assertTrue(out.length < payload.length);
+      Assert.assertArrayEquals(payload, gunzip(out));
+    }
+  }
+
+  @Test
+  public void minSizeTest() throws IOException {
+    GZipInterceptor interceptor = new GZipInterceptor();
+    MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+    byte[] payload = payload(GZipInterceptor.DEFAULT_MIN_SIZE);
+    Assert.assertArrayEquals(payload,
+        write(interceptor, "gzip", MediaType.APPLICATION_JSON_TYPE, headers, payload));
+    Assert.assertNull(headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+
+    payload = payload(GZipInterceptor.DEFAULT_MIN_SIZE + 1);
+    Assert.assertArrayEquals(payload,
+        gunzip(write(interceptor, "gzip", MediaType.APPLICATION_JSON_TYPE, headers, payload)));
+    Assert.assertEquals("gzip", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+  }
+
+  @Test
+  public void refusedTest() throws IOException {
+    GZipInterceptor interceptor = new GZipInterceptor().minSize(0);
+    MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+    byte[] payload = payload(2000);
+    Assert.assertArrayEquals(payload,
+        write(interceptor, "gzip;q=0, identity", MediaType.TEXT_PLAIN_TYPE, headers, payload));
+    Assert.assertNull(headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+  }
+
+  @Test
+  public void excludedMediaTypeTest() throws IOException {
+    GZipInterceptor interceptor = new GZipInterceptor().minSize(0);
+    MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+    byte[] payload = payload(2000);
+    Assert.assertArrayEquals(payload,
+        write(interceptor, "gzip", new MediaType("image", "png"), headers, payload));
+    Assert.assertArrayEquals(payload,
+        write(interceptor, "gzip", new MediaType("video", "mp4"), headers, payload));
+    Assert.assertNull(headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+
+    interceptor.excludedMediaTypes("application/json");
+    write(interceptor, "gzip", new MediaType("image", "png"), headers, payload);
+    Assert.assertEquals("gzip", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+  }
+
+  @Test
+  public void contentRangeTest() throws IOException {
+    MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+    headers.add("Content-Range", "bytes 0-1999/5000");
+    byte[] payload = payload(2000);
+    Assert.assertArrayEquals(payload,
+        write(new GZipInterceptor(), "gzip", MediaType.TEXT_PLAIN_TYPE, headers, payload));
+    Assert.assertNull(headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+  }
+
+  @Test
+  public void acceptsGzipTest() {
+    Assert.assertTrue(GZipInterceptor.acceptsGzip("gzip"));
+    Assert.assertTrue(GZipInterceptor.acceptsGzip("deflate, GZIP;q=0.5"));
+    Assert.assertTrue(GZipInterceptor.acceptsGzip("x-gzip"));
+    Assert.assertTrue(GZipInterceptor.acceptsGzip("*"));
+    Assert.assertFalse(GZipInterceptor.acceptsGzip(null));
+    Assert.assertFalse(GZipInterceptor.acceptsGzip("identity"));
+    Assert.assertFalse(GZipInterceptor.acceptsGzip("gzip;q=0"));
+    Assert.assertFalse(GZipInterceptor.acceptsGzip("*, gzip;q=0.0"));
+    Assert.assertFalse(GZipInterceptor.acceptsGzip("*;q=0"));
+    Assert.assertFalse(GZipInterceptor.acceptsGzip("gzip;q=abc"));
+  }
+
+  @Test
+  public void aroundReadFromLargeTest() throws WebApplicationException, IOException {
+    byte[] payload = payload(100000);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream gout = new GZIPOutputStream(compressed)) {
+      gout.write(payload);
+    }
+    for (int i = 0; i < 3; i++) {
+      ReaderInterceptorContext ctx = Mockito.mock(ReaderInterceptorContext.class);
+      MultivaluedHashMap<String, String> headers = new MultivaluedHashMap<>();
+      headers.add(HttpHeaders.CONTENT_ENCODING, "gzip");
+      Mockito.when(ctx.getHeaders()).thenReturn(headers);
+      bin = new ByteArrayInputStream(compressed.toByteArray());
+      Mockito.when(ctx.getInputStream()).then(invocation -> bin);
+      Mockito.doAnswer(invocation -> {
+        bin = (InputStream) invocation.getArguments()[0];
+        return null;
+      }).when(ctx).setInputStream(Mockito.any(InputStream.class));
+      Mockito.when(ctx.proceed()).then(invocation -> {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Io.copy(ctx.getInputStream(), out);
+        return out.toByteArray();
+      });
+      Assert.assertArrayEquals(payload, (byte[]) new GZipInterceptor().aroundReadFrom(ctx));
+    }
+  }
+
+  @Test
+  public void representationsTest() throws IOException {
+    CacheManager manager = Caching
+        .getCachingProvider("net.gcolin.cache.CachingProviderImpl").getCacheManager();
+    try {
+      GZipInterceptor interceptor = new GZipInterceptor().representations(manager);
+      Cache<String, byte[]> cache = interceptor.getRepresentations();
+      Assert.assertSame(cache, manager.getCache(GZipInterceptor.REPRESENTATIONS,
+          String.class, byte[].class));
+      byte[] payload = payload(5000);
+      MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+      headers.add(HttpHeaders.ETAG, "\"v1\"");
+      byte[] first = write(interceptor, "gzip", MediaType.TEXT_PLAIN_TYPE, headers, payload);
+      Assert.assertEquals(1, nb);
+      Assert.assertArrayEquals(payload, gunzip(first));
+      Assert.assertArrayEquals(first, cache.get("docs/manual \"v1\" text/plain"));
+
+      headers = new MultivaluedHashMap<>();
+      headers.add(HttpHeaders.ETAG, "\"v1\"");
+      headers.add(HttpHeaders.CONTENT_LENGTH, payload.length);
+      Assert.assertArrayEquals(first,
+          write(interceptor, "gzip", MediaType.TEXT_PLAIN_TYPE, headers, payload));
+      Assert.assertEquals(1, nb);
+      Assert.assertEquals("gzip", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+      Assert.assertNull(headers.getFirst(HttpHeaders.CONTENT_LENGTH));
+
+      // the identity is not cached
+      headers = new MultivaluedHashMap<>();
+      headers.add(HttpHeaders.ETAG, "\"v1\"");
+      Assert.assertArrayEquals(payload,
+          write(interceptor, null, MediaType.TEXT_PLAIN_TYPE, headers, payload));
+      Assert.assertEquals(2, nb);
+
+      // another resource with the same entity tag
+      path = "docs/other";
+      byte[] other = payload(6000);
+      headers = new MultivaluedHashMap<>();
+      headers.add(HttpHeaders.ETAG, "\"v1\"");
+      Assert.assertArrayEquals(other,
+          gunzip(write(interceptor, "gzip", MediaType.TEXT_PLAIN_TYPE, headers, other)));
+      Assert.assertEquals(3, nb);
+    } finally {
+      manager.destroyCache(GZipInterceptor.REPRESENTATIONS);
+    }
+  }
+
+  @Test
+  public void representationsWeakTest() throws IOException {
+    CacheManager manager = Caching
+        .getCachingProvider("net.gcolin.cache.CachingProviderImpl").getCacheManager();
+    try {
+      GZipInterceptor interceptor = new GZipInterceptor().representations(manager);
+      byte[] payload = payload(5000);
+      for (Object etag : new Object[] {null, "W/\"v1\""}) {
+        MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+        if (etag != null) {
+          headers.add(HttpHeaders.ETAG, etag);
+        }
+        Assert.assertArrayEquals(payload,
+            gunzip(write(interceptor, "gzip", MediaType.TEXT_PLAIN_TYPE, headers, payload)));
+      }
+      Assert.assertEquals(2, nb);
+      Assert.assertFalse(interceptor.getRepresentations().iterator().hasNext());
+
+      // under the threshold
+      MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+      headers.add(HttpHeaders.ETAG, "\"v1\"");
+      payload = payload(100);
+      Assert.assertArrayEquals(payload,
+          write(interceptor, "gzip", MediaType.TEXT_PLAIN_TYPE, headers, payload));
+      Assert.assertNull(headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+      Assert.assertFalse(interceptor.getRepresentations().iterator().hasNext());
+    } finally {
+      manager.destroyCache(GZipInterceptor.REPRESENTATIONS);
+    }
+  }
+
+  private File file(byte[] payload) throws IOException {
+    File file = folder.newFile("static.js");
+    Files.write(file.toPath(), payload);
+    return file;
+  }
+
+  @Test
+  public void siblingTest() throws IOException {
+    byte[] payload = payload(5000);
+    File file = file(payload);
+    File sibling = new File(file.getPath() + ".gz");
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(sibling.toPath()))) {
+      out.write(payload);
+    }
+    MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+    byte[] out = write(new GZipInterceptor(), "gzip", MediaType.TEXT_PLAIN_TYPE, headers, file,
+        payload);
+    Assert.assertEquals(0, nb);
+    Assert.assertEquals("gzip", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+    Assert.assertArrayEquals(Files.readAllBytes(sibling.toPath()), out);
+
+    // outdated
+    Assert.assertTrue(sibling.setLastModified(file.lastModified() - 10000));
+    headers = new MultivaluedHashMap<>();
+    out = write(new GZipInterceptor(), "gzip", MediaType.TEXT_PLAIN_TYPE, headers, file, payload);
+    Assert.assertEquals(1, nb);
+    Assert.assertArrayEquals(payload, gunzip(out));
+    Assert.assertEquals(file.lastModified() - 10000, sibling.lastModified());
+
+    // not accepted
+    headers = new MultivaluedHashMap<>();
+    Assert.assertTrue(sibling.setLastModified(file.lastModified()));
+    Assert.assertArrayEquals(payload,
+        write(new GZipInterceptor(), null, MediaType.TEXT_PLAIN_TYPE, headers, file, payload));
+    Assert.assertEquals(2, nb);
+  }
+
+  @Test
+  public void writeSiblingsTest() throws IOException {
+    byte[] payload = payload(5000);
+    File file = file(payload);
+    File sibling = new File(file.getPath() + ".gz");
+    GZipInterceptor interceptor = new GZipInterceptor().writeSiblings(true);
+    Assert.assertTrue(interceptor.isWriteSiblings());
+    for (int i = 0; i < 2; i++) {
+      MultivaluedHashMap<String, Object> headers = new MultivaluedHashMap<>();
+      byte[] out = write(interceptor, "gzip", MediaType.TEXT_PLAIN_TYPE, headers, file, payload);
+      Assert.assertEquals("gzip", headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+      Assert.assertArrayEquals(payload, gunzip(out));
+      Assert.assertArrayEquals(Files.readAllBytes(sibling.toPath()), out);
+    }
+    Assert.assertEquals(0, nb);
+    Assert.assertEquals(2, folder.getRoot().list().length);
+
+    // too small
+    File small = folder.newFile("small.js");
+    Files.write(small.toPath(), payload(100));
+    write(interceptor, "gzip", MediaType.TEXT_PLAIN_TYPE, new MultivaluedHashMap<>(), small,
+        payload(100));
+    Assert.assertEquals(1, nb);
+    Assert.assertFalse(new File(small.getPath() + ".gz").exists());
+  }
+
 }
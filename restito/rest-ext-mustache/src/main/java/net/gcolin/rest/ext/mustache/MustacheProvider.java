@@ -17,10 +17,10 @@ package net.gcolin.rest.ext.mustache;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import java.nio.charset.Charset;
 
 import javax.ws.rs.ConstrainedTo;
 import javax.ws.rs.Produces;
@@ -30,6 +30,7 @@ import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.MessageBodyWriter;
 
 import net.gcolin.common.Priority;
+import net.gcolin.common.io.Io;
 import net.gcolin.mustache.MustacheContext;
 
 /**
@@ -44,7 +45,7 @@ import net.gcolin.mustache.MustacheContext;
 public class MustacheProvider implements MessageBodyWriter<MustacheView> {
 
 	private MustacheContext context;
-	private String charset;
+	private Charset charset;
 
 	public MustacheProvider(MustacheContext context) {
 		this(context, "utf-8");
@@ -52,7 +53,7 @@ public class MustacheProvider implements MessageBodyWriter<MustacheView> {
 
 	public MustacheProvider(MustacheContext context, String charset) {
 		this.context = context;
-		this.charset = charset;
+		this.charset = Charset.forName(charset);
 	}
 
 	@Override
@@ -70,7 +71,7 @@ public class MustacheProvider implements MessageBodyWriter<MustacheView> {
 	public void writeTo(MustacheView entity, Class<?> type, Type genericType, Annotation[] annotations,
 			MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, final OutputStream entityStream)
 			throws IOException {
-		try (Writer writer = new OutputStreamWriter(entityStream, charset)) {
+		try (Writer writer = Io.writer(entityStream, charset)) {
 			context.getTemplate(entity.getPath()).render(entity.getModel(), writer);
 		}
 	}
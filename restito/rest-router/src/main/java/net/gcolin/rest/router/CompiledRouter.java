@@ -0,0 +1,396 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.router;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * An immutable snapshot of a {@link Router} optimized for the lookups. It is
+ * built by {@link Router#compile()} once all the resources are added.
+ *
+ * <p>
+ * The static segments of a node are indexed by their first char in a jump
+ * table and compared in place with {@link String#regionMatches}. The simple
+ * regular expressions of the variables ({@code \d+}, {@code [a-z0-9-]+}...) are
+ * compiled into char tables. The path parameters are stored as offsets in a
+ * {@link RouteMatch}, so a lookup does not allocate. The other regular
+ * expressions still use {@link Pattern}.
+ * </p>
+ *
+ * <p>
+ * The lookup gives the same result as {@link Router#get(String, int, RouterResponse)}.
+ * </p>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ * @param <T> the resource type
+ */
+public final class CompiledRouter<T extends HasPath> {
+
+	private final Node<T> root;
+
+	CompiledRouter(Node<T> root) {
+		this.root = root;
+	}
+
+	/**
+	 * Get a resource.
+	 *
+	 * @param path  the finding path
+	 * @param match the match to fill
+	 * @return {@code true} if a resource is found
+	 */
+	public boolean get(String path, RouteMatch<T> match) {
+		return get(path, 0, match);
+	}
+
+	/**
+	 * Get a resource.
+	 *
+	 * @param path       the finding path
+	 * @param offsetInit the offset
+	 * @param match      the match to fill
+	 * @return {@code true} if a resource is found
+	 */
+	public boolean get(String path, int offsetInit, RouteMatch<T> match) {
+		if (path == null) {
+			return false;
+		}
+		match.reset(path);
+		Node<T> current = root;
+		int offset = offsetInit;
+		int length = path.length();
+		while (true) {
+			if (offset == length) {
+				return match.found(current.leaf, current.pathParamNames);
+			}
+			Edge<T> edge = current.find(path, offset);
+			if (edge != null) {
+				current = edge.next;
+				offset += edge.length;
+				continue;
+			}
+			if (current.variables == null) {
+				return false;
+			}
+			int end = path.indexOf('/', offset);
+			if (end == -1) {
+				end = length;
+			}
+			Variable<T> variable = current.select(path, offset, end);
+			if (variable == null) {
+				return false;
+			}
+			if (variable.terminal) {
+				end = length;
+			}
+			match.add(offset, end);
+			if (end == length) {
+				return match.found(variable.leaf, variable.pathParamNames);
+			}
+			offset = end;
+			current = variable.next;
+		}
+	}
+
+	static final class Node<T extends HasPath> {
+
+		T leaf;
+		String[] pathParamNames;
+		char minChar;
+		Edge<T>[][] table;
+		Variable<T>[] variables;
+
+		/**
+		 * Build the jump table. The edges are kept in the priority order of the
+		 * Router.
+		 *
+		 * @param edges the static children
+		 */
+		@SuppressWarnings("unchecked")
+		void setEdges(List<Edge<T>> edges) {
+			if (edges.isEmpty()) {
+				return;
+			}
+			char min = Character.MAX_VALUE;
+			char max = 0;
+			for (Edge<T> edge : edges) {
+				char ch = edge.segment.charAt(0);
+				min = (char) Math.min(min, ch);
+				max = (char) Math.max(max, ch);
+			}
+			minChar = min;
+			int[] counts = new int[max - min + 1];
+			for (Edge<T> edge : edges) {
+				counts[edge.segment.charAt(0) - min]++;
+			}
+			table = new Edge[counts.length][];
+			for (Edge<T> edge : edges) {
+				int index = edge.segment.charAt(0) - min;
+				Edge<T>[] candidates = table[index];
+				if (candidates == null) {
+					candidates = new Edge[counts[index]];
+					table[index] = candidates;
+					counts[index] = 0;
+				}
+				candidates[counts[index]++] = edge;
+			}
+		}
+
+		Edge<T> find(String path, int offset) {
+			if (table == null) {
+				return null;
+			}
+			int index = path.charAt(offset) - minChar;
+			if (index < 0 || index >= table.length) {
+				return null;
+			}
+			Edge<T>[] candidates = table[index];
+			if (candidates == null) {
+				return null;
+			}
+			int remaining = path.length() - offset;
+			for (int i = 0; i < candidates.length; i++) {
+				Edge<T> edge = candidates[i];
+				// the first char is already compared by the jump table
+				if (edge.length <= remaining && path.regionMatches(offset + 1, edge.segment, 1, edge.length - 1)) {
+					return edge;
+				}
+			}
+			return null;
+		}
+
+		Variable<T> select(String path, int start, int end) {
+			for (int i = 0; i < variables.length; i++) {
+				Variable<T> variable = variables[i];
+				if (variable.matcher == null || variable.matcher.matches(path, start, end)) {
+					return variable;
+				}
+			}
+			return null;
+		}
+	}
+
+	static final class Edge<T extends HasPath> {
+
+		final String segment;
+		final int length;
+		final Node<T> next;
+
+		Edge(String segment, Node<T> next) {
+			this.segment = segment;
+			this.length = segment.length();
+			this.next = next;
+		}
+	}
+
+	static final class Variable<T extends HasPath> {
+
+		final SegmentMatcher matcher;
+		final boolean terminal;
+		final Node<T> next;
+		final T leaf;
+		final String[] pathParamNames;
+
+		Variable(SegmentMatcher matcher, boolean terminal, Node<T> next, T leaf, String[] pathParamNames) {
+			this.matcher = matcher;
+			this.terminal = terminal;
+			this.next = next;
+			this.leaf = leaf;
+			this.pathParamNames = pathParamNames;
+		}
+	}
+
+	/**
+	 * Match a path segment in place.
+	 */
+	interface SegmentMatcher {
+
+		boolean matches(String path, int start, int end);
+
+		/**
+		 * Compile a regular expression of a path variable.
+		 *
+		 * @param regExpr the regular expression
+		 * @return a char table matcher if the expression is a simple char class
+		 *         with a quantifier else a {@link Pattern} matcher
+		 */
+		static SegmentMatcher compile(String regExpr) {
+			SegmentMatcher matcher = CharClassMatcher.parse(regExpr);
+			if (matcher == null) {
+				Pattern pattern = Pattern.compile(regExpr);
+				matcher = (path, start, end) -> pattern.matcher(path).region(start, end).matches();
+			}
+			return matcher;
+		}
+	}
+
+	/**
+	 * A matcher for the expressions like {@code \d+}, {@code [a-zA-Z_-]*} or
+	 * {@code [^.]+}. Only the ASCII chars can be listed in the class. The path
+	 * variables cannot contain braces so there is no bounded quantifier.
+	 */
+	static final class CharClassMatcher implements SegmentMatcher {
+
+		private final boolean[] ascii = new boolean[128];
+		private boolean negated;
+		private int min;
+
+		@Override
+		public boolean matches(String path, int start, int end) {
+			if (end - start < min) {
+				return false;
+			}
+			for (int i = start; i < end; i++) {
+				char ch = path.charAt(i);
+				if (ch < 128 ? !ascii[ch] : !negated) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		static CharClassMatcher parse(String regExpr) {
+			CharClassMatcher matcher = new CharClassMatcher();
+			int index = matcher.parseClass(regExpr);
+			if (index == -1 || !matcher.parseQuantifier(regExpr, index)) {
+				return null;
+			}
+			if (matcher.negated) {
+				for (int i = 0; i < 128; i++) {
+					matcher.ascii[i] = !matcher.ascii[i];
+				}
+			}
+			return matcher;
+		}
+
+		/**
+		 * Parse the char class.
+		 *
+		 * @return the index after the class or {@code -1} if not supported
+		 */
+		private int parseClass(String expr) {
+			if (expr.length() < 2) {
+				return -1;
+			}
+			char ch = expr.charAt(0);
+			if (ch == '\\') {
+				char escaped = expr.charAt(1);
+				if (Character.isUpperCase(escaped)) {
+					negated = true;
+					escaped = Character.toLowerCase(escaped);
+				}
+				return addShorthand(escaped) ? 2 : -1;
+			}
+			if (ch != '[') {
+				return -1;
+			}
+			int index = 1;
+			if (index < expr.length() && expr.charAt(index) == '^') {
+				negated = true;
+				index++;
+			}
+			boolean first = true;
+			while (index < expr.length()) {
+				char current = expr.charAt(index);
+				if (current == ']' && !first) {
+					return index + 1;
+				}
+				first = false;
+				if (current == '[' || current == '&') {
+					// nested classes and intersections
+					return -1;
+				}
+				if (current == '\\') {
+					if (index + 1 >= expr.length()) {
+						return -1;
+					}
+					char escaped = expr.charAt(index + 1);
+					index += 2;
+					if (Character.isLetterOrDigit(escaped)) {
+						if (!addShorthand(escaped)) {
+							return -1;
+						}
+						continue;
+					}
+					current = escaped;
+				} else {
+					index++;
+				}
+				char last = current;
+				if (index + 1 < expr.length() && expr.charAt(index) == '-' && expr.charAt(index + 1) != ']') {
+					last = expr.charAt(index + 1);
+					if (last == '\\' || last == '[') {
+						return -1;
+					}
+					index += 2;
+				}
+				if (last >= 128 || last < current) {
+					return -1;
+				}
+				for (char c = current; c <= last; c++) {
+					ascii[c] = true;
+				}
+			}
+			return -1;
+		}
+
+		private boolean addShorthand(char escaped) {
+			switch (escaped) {
+				case 'd':
+					addRange('0', '9');
+					return true;
+				case 'w':
+					addRange('a', 'z');
+					addRange('A', 'Z');
+					addRange('0', '9');
+					ascii['_'] = true;
+					return true;
+				case 's':
+					ascii[' '] = true;
+					ascii['\t'] = true;
+					ascii['\n'] = true;
+					ascii[0x0B] = true;
+					ascii['\f'] = true;
+					ascii['\r'] = true;
+					return true;
+				default:
+					return false;
+			}
+		}
+
+		private void addRange(char from, char to) {
+			for (char c = from; c <= to; c++) {
+				ascii[c] = true;
+			}
+		}
+
+		private boolean parseQuantifier(String expr, int index) {
+			if (index != expr.length() - 1) {
+				return false;
+			}
+			char quantifier = expr.charAt(index);
+			if (quantifier == '+') {
+				min = 1;
+				return true;
+			} else if (quantifier == '*') {
+				return true;
+			}
+			return false;
+		}
+	}
+}
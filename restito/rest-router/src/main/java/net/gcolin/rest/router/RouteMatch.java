@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.router;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of a {@link CompiledRouter} query. The path parameters are kept as
+ * offsets in the path so a query does not allocate. The values are extracted
+ * on demand.
+ *
+ * <p>
+ * A RouteMatch can be reused for several queries by the same thread.
+ * </p>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ * @param <T> the resource type
+ */
+public class RouteMatch<T extends HasPath> {
+
+	private static final String[] NO_NAMES = new String[0];
+
+	private String path;
+	private T result;
+	private String[] names = NO_NAMES;
+	private int[] offsets = new int[8];
+	private int size;
+
+	void reset(String path) {
+		this.path = path;
+		result = null;
+		names = NO_NAMES;
+		size = 0;
+	}
+
+	void add(int start, int end) {
+		int index = size << 1;
+		if (index == offsets.length) {
+			int[] newOffsets = new int[offsets.length << 1];
+			System.arraycopy(offsets, 0, newOffsets, 0, offsets.length);
+			offsets = newOffsets;
+		}
+		offsets[index] = start;
+		offsets[index + 1] = end;
+		size++;
+	}
+
+	boolean found(T leaf, String[] paramNames) {
+		result = leaf;
+		if (leaf == null) {
+			return false;
+		}
+		if (paramNames != null) {
+			names = paramNames;
+		}
+		return true;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public T getResult() {
+		return result;
+	}
+
+	/**
+	 * Get the number of path parameters.
+	 *
+	 * @return the number of path parameters
+	 */
+	public int getParamCount() {
+		return Math.min(size, names.length);
+	}
+
+	public String getParamName(int index) {
+		return names[index];
+	}
+
+	/**
+	 * Get the start of a path parameter in the path.
+	 *
+	 * @param index the index of the path parameter
+	 * @return the offset of the first char (inclusive)
+	 */
+	public int getParamStart(int index) {
+		return offsets[index << 1];
+	}
+
+	/**
+	 * Get the end of a path parameter in the path.
+	 *
+	 * @param index the index of the path parameter
+	 * @return the offset of the last char (exclusive)
+	 */
+	public int getParamEnd(int index) {
+		return offsets[(index << 1) + 1];
+	}
+
+	public String getParamValue(int index) {
+		return path.substring(getParamStart(index), getParamEnd(index));
+	}
+
+	/**
+	 * Get the path parameters in a map like {@link RouterResponse#getParams()}.
+	 *
+	 * @return an unmodifiable empty map if there is no path parameter or a new
+	 *         map
+	 */
+	public Map<String, List<String>> getParams() {
+		int count = getParamCount();
+		if (count == 0) {
+			return Collections.emptyMap();
+		}
+		Map<String, List<String>> map = new HashMap<>();
+		for (int i = 0; i < count; i++) {
+			map.computeIfAbsent(names[i], k -> new ArrayList<>(1)).add(getParamValue(i));
+		}
+		return map;
+	}
+
+}
@@ -208,6 +208,42 @@ public class Router<T extends HasPath> {
 		return selectedNode;
 	}
 
+	/**
+	 * Build a snapshot of this router optimized for the lookups. The resources
+	 * added after the compilation are not visible in the snapshot.
+	 * 
+	 * @return a compiled router
+	 */
+	public CompiledRouter<T> compile() {
+		return new CompiledRouter<>(compileNode(this));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T extends HasPath> CompiledRouter.Node<T> compileNode(Router<T> router) {
+		CompiledRouter.Node<T> node = new CompiledRouter.Node<>();
+		node.leaf = router.leaf;
+		node.pathParamNames = router.pathParamNames;
+		if (router.children != null) {
+			List<CompiledRouter.Edge<T>> edges = new ArrayList<>(router.children.size());
+			for (Router<T> child : router.children) {
+				edges.add(new CompiledRouter.Edge<>(child.segment, compileNode(child)));
+			}
+			node.setEdges(edges);
+		}
+		if (router.pathParam) {
+			CompiledRouter.Variable<T>[] variables = new CompiledRouter.Variable[router.nodes.size()];
+			for (int i = 0; i < variables.length; i++) {
+				VariableNode<T> vn = router.nodes.get(i);
+				CompiledRouter.SegmentMatcher matcher = vn.pattern == null ? null
+						: CompiledRouter.SegmentMatcher.compile(vn.regExpr);
+				variables[i] = new CompiledRouter.Variable<>(matcher, vn.terminal, compileNode(vn.next), vn.leaf,
+						vn.pathParamNames);
+			}
+			node.variables = variables;
+		}
+		return node;
+	}
+
 	public T getResource(String path) {
 		return getResource(path, 0);
 	}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.test.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.gcolin.rest.router.CompiledRouter;
+import net.gcolin.rest.router.RouteMatch;
+import net.gcolin.rest.router.Router;
+import net.gcolin.rest.router.RouterResponse;
+import net.gcolin.rest.test.util.RouterTest.Resource;
+
+public class CompiledRouterTest {
+
+	private Router<Resource> router(String... paths) {
+		Router<Resource> router = new Router<>();
+		for (String path : paths) {
+			router.add(new Resource(path), 0, true);
+		}
+		return router;
+	}
+
+	private void assertSameResult(Router<Resource> router, String... paths) {
+		CompiledRouter<Resource> compiled = router.compile();
+		RouteMatch<Resource> match = new RouteMatch<>();
+		for (String path : paths) {
+			RouterResponse<Resource> expected = router.get(path, 0, new RouterResponse<>());
+			boolean found = compiled.get(path, match);
+			if (expected == null) {
+				Assert.assertFalse(path, found);
+			} else {
+				Assert.assertTrue(path, found);
+				Assert.assertSame(path, expected.getResult(), match.getResult());
+				Assert.assertEquals(path, expected.getParams(), match.getParams());
+			}
+		}
+	}
+
+	@Test
+	public void testStatic() {
+		assertSameResult(router("/hello", "/ch", "/ch2", "/hello/bob", "/hello/world", "/hellos/world", "/ǽȁ"), "/hello",
+				"/hella", "hello", "/hell", "/ch", "/ch2", "/ch3", "/hello/bob", "/hello/world", "/hellos/world",
+				"/hello/", "/", "", "/Є", "/ǽȁ", "/ǽ");
+	}
+
+	@Test
+	public void testVariable() {
+		assertSameResult(router("/hello/{name}", "/hello/{name}/2", "/hello/2", "/{word}/{word}", "/{word}/sync"),
+				"/hello/world", "/hello/world2/2", "/hello/2", "/hello/2/2", "/a/b", "/a/sync", "/sync", "/a/b/c");
+	}
+
+	@Test
+	public void testParams() {
+		Router<Resource> router = router("/hello/{w}/world/{word}");
+		RouteMatch<Resource> match = new RouteMatch<>();
+		Assert.assertTrue(router.compile().get("/hello/a/world/bc", match));
+		Assert.assertEquals(2, match.getParamCount());
+		Assert.assertEquals("w", match.getParamName(0));
+		Assert.assertEquals(7, match.getParamStart(0));
+		Assert.assertEquals(8, match.getParamEnd(0));
+		Assert.assertEquals("word", match.getParamName(1));
+		Assert.assertEquals("bc", match.getParamValue(1));
+		Assert.assertEquals("/hello/a/world/bc", match.getPath());
+	}
+
+	@Test
+	public void testOffset() {
+		Router<Resource> router = router("hello/{name}");
+		RouteMatch<Resource> match = new RouteMatch<>();
+		Assert.assertTrue(router.compile().get("/hello/bob", 1, match));
+		Assert.assertEquals("bob", match.getParamValue(0));
+		Assert.assertFalse(router.compile().get(null, match));
+	}
+
+	@Test
+	public void testRegExpr() {
+		assertSameResult(
+				router("/hello/{nb:\\d+}", "/hello/{name}", "/hello/{n : [a-zA-Z]+}", "/terminal/{n:.+}",
+						"/world/{n:\\d+}", "/config/application/new", "/config/application/{id:\\d+}",
+						"/config/application"),
+				"/hello/123", "/hello/gael123", "/hello/gael", "/terminal/123/456", "/terminal/123456", "/world/abc",
+				"/world/12", "/config/application", "/config/application/new", "/config/application/12",
+				"/config/application/x");
+	}
+
+	@Test
+	public void testCharClasses() {
+		assertSameResult(
+				router("/a/{x:\\d*}", "/b/{x:[^.]+}", "/c/{x:\\w*}/e", "/d/{x:v1|v2}", "/e/{x:[a-f0-9\\-]+}",
+						"/f/{x:\\D+}", "/g/{x:[\\d_]+}", "/h/{x:[.]+}", "/i/{x:\\s+}", "/j/{x:\\d\\d}"),
+				"/a/1", "/a/12", "/a/", "/a/ab", "/j/12", "/j/1", "/b/abc", "/b/a.c", "/b/é", "/c/abc_1/e", "/c//e",
+				"/c/a-b/e", "/d/v1", "/d/v2", "/d/v3", "/e/00ff-a", "/e/00fg", "/f/abc", "/f/ab1", "/f/é", "/g/1_2",
+				"/g/a_2", "/h/..", "/h/.", "/h/a", "/i/ ", "/i/a");
+	}
+
+	@Test
+	public void testRandom() {
+		Random random = new Random(42);
+		String[] words = { "api", "v1", "v2", "users", "user", "orders", "order", "items", "a", "ab", "abc", "x" };
+		String[] variables = { "{id}", "{id:\\d+}", "{name:[a-z]+}", "{rest:.+}" };
+		List<String> routes = new ArrayList<>();
+		for (int i = 0; i < 600; i++) {
+			StringBuilder path = new StringBuilder();
+			int depth = 1 + random.nextInt(5);
+			for (int j = 0; j < depth; j++) {
+				path.append('/');
+				if (random.nextInt(4) == 0) {
+					String variable = variables[random.nextInt(variables.length)];
+					path.append(variable);
+					if (variable.startsWith("{rest")) {
+						break;
+					}
+				} else {
+					path.append(words[random.nextInt(words.length)]);
+				}
+			}
+			routes.add(path.toString());
+		}
+		Router<Resource> router = router(routes.toArray(new String[0]));
+		List<String> paths = new ArrayList<>();
+		String[] values = { "api", "v1", "users", "12", "abc", "a", "x1", "order", "" };
+		for (int i = 0; i < 5000; i++) {
+			StringBuilder path = new StringBuilder();
+			int depth = 1 + random.nextInt(6);
+			for (int j = 0; j < depth; j++) {
+				path.append('/').append(values[random.nextInt(values.length)]);
+			}
+			paths.add(path.toString());
+		}
+		paths.addAll(Arrays.asList(routes.toArray(new String[0])));
+		assertSameResult(router, paths.toArray(new String[0]));
+	}
+
+}
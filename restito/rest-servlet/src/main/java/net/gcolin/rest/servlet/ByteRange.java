@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.servlet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * A single byte range of a file entity.
+ *
+ * <p>
+ * The {@code Range} header of a GET request for a File or a Path entity gives a
+ * {@code 206 Partial Content} response. A header with several ranges is
+ * ignored and the whole file is sent.
+ * </p>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public final class ByteRange {
+
+	/**
+	 * The range of a request that no byte of the file can satisfy.
+	 */
+	public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+	private static final String UNIT = "bytes";
+
+	private final long start;
+	private final long end;
+
+	private ByteRange(long start, long end) {
+		this.start = start;
+		this.end = end;
+	}
+
+	public long getStart() {
+		return start;
+	}
+
+	public long getLength() {
+		return end - start + 1;
+	}
+
+	public boolean isSatisfiable() {
+		return this != UNSATISFIABLE;
+	}
+
+	/**
+	 * Get the value of the {@code Content-Range} header.
+	 *
+	 * @param length the size of the file
+	 * @return the content range
+	 */
+	public String contentRange(long length) {
+		if (isSatisfiable()) {
+			return UNIT + ' ' + start + '-' + end + '/' + length;
+		}
+		return UNIT + " */" + length;
+	}
+
+	/**
+	 * Parse a {@code Range} header.
+	 *
+	 * @param header the header
+	 * @param length the size of the file
+	 * @return the range, {@link #UNSATISFIABLE} or {@code null} if the header is
+	 *         invalid or has several ranges
+	 */
+	public static ByteRange parse(String header, long length) {
+		if (header == null || !header.regionMatches(true, 0, UNIT + '=', 0, UNIT.length() + 1)) {
+			return null;
+		}
+		String spec = header.substring(UNIT.length() + 1).trim();
+		int dash = spec.indexOf('-');
+		if (dash == -1 || spec.indexOf(',') != -1) {
+			return null;
+		}
+		try {
+			if (dash == 0) {
+				long suffix = Long.parseLong(spec.substring(1).trim());
+				if (suffix < 0) {
+					return null;
+				}
+				if (suffix == 0 || length == 0) {
+					return UNSATISFIABLE;
+				}
+				return new ByteRange(Math.max(0, length - suffix), length - 1);
+			}
+			long first = Long.parseLong(spec.substring(0, dash).trim());
+			String last = spec.substring(dash + 1).trim();
+			long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+			if (first < 0 || end < first) {
+				return null;
+			}
+			if (first >= length) {
+				return UNSATISFIABLE;
+			}
+			return new ByteRange(first, Math.min(end, length - 1));
+		} catch (NumberFormatException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Check the {@code If-Range} header of a request. An entity tag is compared
+	 * with the strong {@code ETag} of the response, quoted or not, and a date
+	 * with its
+	 * {@code Last-Modified} header or the modification time of the file.
+	 *
+	 * @param ifRange      the {@code If-Range} header or {@code null}
+	 * @param etag         the {@code ETag} of the response or {@code null}
+	 * @param lastModified the {@code Last-Modified} of the response or
+	 *                     {@code null}
+	 * @param fileTime     the modification time of the file in milliseconds
+	 * @return {@code true} if the range can be sent
+	 */
+	public static boolean ifRange(String ifRange, String etag, String lastModified, long fileTime) {
+		if (ifRange == null) {
+			return true;
+		}
+		String value = ifRange.trim();
+		if (value.startsWith("\"")) {
+			return etag != null && !etag.startsWith("W/") && unquote(value).equals(unquote(etag));
+		}
+		if (value.startsWith("W/")) {
+			return false;
+		}
+		try {
+			long date = seconds(value);
+			return lastModified == null ? date == fileTime / 1000 : date == seconds(lastModified);
+		} catch (DateTimeParseException ex) {
+			return false;
+		}
+	}
+
+	private static String unquote(String tag) {
+		String value = tag.trim();
+		if (value.length() > 1 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+			return value.substring(1, value.length() - 1);
+		}
+		return value;
+	}
+
+	private static long seconds(String date) {
+		return ZonedDateTime.parse(date.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+	}
+
+	/**
+	 * Get the size of a file entity.
+	 *
+	 * @param entity an entity
+	 * @return the size or {@code -1} if the entity is not a file
+	 */
+	static long length(Object entity) {
+		if (entity instanceof File) {
+			File file = (File) entity;
+			return file.isFile() ? file.length() : -1;
+		}
+		if (entity instanceof Path) {
+			try {
+				return Files.size((Path) entity);
+			} catch (IOException ex) {
+				return -1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Get the modification time of a file entity.
+	 *
+	 * @param entity a File or a Path
+	 * @return the time in milliseconds
+	 */
+	static long lastModified(Object entity) {
+		if (entity instanceof File) {
+			return ((File) entity).lastModified();
+		}
+		try {
+			return Files.getLastModifiedTime((Path) entity).toMillis();
+		} catch (IOException ex) {
+			return 0;
+		}
+	}
+}
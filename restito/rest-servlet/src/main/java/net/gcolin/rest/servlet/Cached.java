@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.gcolin.rest.servlet;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache the serialized responses of the annotated GET resource method or of
+ * the GET methods of the annotated resource class.
+ *
+ * <p>
+ * A response is stored for a path, the query parameters of {@link #varyBy()}
+ * and the negotiated media type. The next requests get the stored body without
+ * invoking the resource, and a request with a matching {@code If-None-Match}
+ * gets a {@code 304 Not Modified}. Only the {@code 200 OK} responses are
+ * stored, and not the ones that set a cookie or are marked
+ * {@code Cache-Control: private} or {@code no-store}.
+ * </p>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ * @see ResponseCache
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cached {
+
+	/**
+	 * The time to live of a stored response. {@code 0} keeps the response until
+	 * the application is reloaded.
+	 *
+	 * @return the time to live
+	 */
+	long ttl() default 60;
+
+	/**
+	 * The unit of {@link #ttl()}.
+	 *
+	 * @return the unit of the time to live
+	 */
+	TimeUnit unit() default TimeUnit.SECONDS;
+
+	/**
+	 * The query parameters that select a stored response. The other query
+	 * parameters are ignored.
+	 *
+	 * @return the names of the query parameters
+	 */
+	String[] varyBy() default {};
+
+}
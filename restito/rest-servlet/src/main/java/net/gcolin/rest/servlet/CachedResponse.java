@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.gcolin.rest.servlet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.HttpHeaders;
+
+/**
+ * A serialized response stored by the {@link ResponseCache}.
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class CachedResponse implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String contentType;
+	private final Map<String, List<String>> headers;
+	private final byte[] body;
+	private final String etag;
+
+	/**
+	 * Create a CachedResponse.
+	 *
+	 * @param contentType the media type of the body
+	 * @param headers     the headers of the response, they are copied
+	 * @param body        the serialized entity
+	 * @param etag        the strong entity tag of the body
+	 */
+	public CachedResponse(String contentType, Map<String, List<String>> headers, byte[] body, String etag) {
+		this.contentType = contentType;
+		this.headers = new LinkedHashMap<>();
+		if (headers != null) {
+			for (Entry<String, List<String>> entry : headers.entrySet()) {
+				this.headers.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+			}
+		}
+		this.body = body;
+		this.etag = etag;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public Map<String, List<String>> getHeaders() {
+		return headers;
+	}
+
+	public byte[] getBody() {
+		return body;
+	}
+
+	public String getEtag() {
+		return etag;
+	}
+
+	/**
+	 * Write the stored response.
+	 *
+	 * @param response the servlet response
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public void writeTo(HttpServletResponse response) throws IOException {
+		for (Entry<String, List<String>> entry : headers.entrySet()) {
+			for (String value : entry.getValue()) {
+				response.addHeader(entry.getKey(), value);
+			}
+		}
+		if (contentType != null) {
+			response.setHeader(HttpHeaders.CONTENT_TYPE, contentType);
+		}
+		response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(body.length));
+		if (body.length > 0) {
+			OutputStream out = response.getOutputStream();
+			out.write(body);
+		}
+	}
+
+}
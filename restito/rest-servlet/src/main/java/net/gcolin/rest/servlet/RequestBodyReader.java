@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.servlet;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.core.Response.Status;
+
+import net.gcolin.common.io.ByteArrayOutputStream;
+import net.gcolin.common.io.Io;
+
+/**
+ * Read a request body with the non-blocking I/O of the servlet 3.1. The bytes
+ * are read when the container notifies that they are available so a slow
+ * client does not hold a thread.
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+class RequestBodyReader implements ReadListener {
+
+	private final ServletInputStream in;
+	private final long limit;
+	private final Consumer<ByteArrayOutputStream> onRead;
+	private final Consumer<Throwable> onError;
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	private boolean done;
+
+	/**
+	 * Create a RequestBodyReader.
+	 *
+	 * @param in      the servlet input stream
+	 * @param limit   the maximum size of the body in bytes
+	 * @param onRead  called with the body when all the bytes are read
+	 * @param onError called if the body is too large or if the reading fails
+	 */
+	RequestBodyReader(ServletInputStream in, long limit, Consumer<ByteArrayOutputStream> onRead,
+			Consumer<Throwable> onError) {
+		this.in = in;
+		this.limit = limit;
+		this.onRead = onRead;
+		this.onError = onError;
+	}
+
+	@Override
+	public void onDataAvailable() throws IOException {
+		if (done) {
+			return;
+		}
+		byte[] data = Io.takeBytes();
+		try {
+			int len;
+			while (in.isReady() && (len = in.read(data)) != -1) {
+				if (buffer.getSize() + (long) len > limit) {
+					fail(new ClientErrorException(Status.REQUEST_ENTITY_TOO_LARGE));
+					return;
+				}
+				buffer.write(data, 0, len);
+			}
+		} finally {
+			Io.recycleBytes(data);
+		}
+	}
+
+	@Override
+	public void onAllDataRead() throws IOException {
+		if (!done) {
+			done = true;
+			onRead.accept(buffer);
+		}
+	}
+
+	@Override
+	public void onError(Throwable th) {
+		fail(th);
+	}
+
+	private void fail(Throwable th) {
+		if (!done) {
+			done = true;
+			buffer.release();
+			onError.accept(th);
+		}
+	}
+
+}
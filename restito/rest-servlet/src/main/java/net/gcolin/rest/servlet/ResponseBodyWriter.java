@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.servlet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+import net.gcolin.common.io.ByteArrayOutputStream;
+import net.gcolin.rest.Logs;
+
+/**
+ * Write a buffered response with the non-blocking I/O of the servlet 3.1. A
+ * segment of the buffer is written each time the socket becomes writable so a
+ * slow client does not hold a thread.
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+class ResponseBodyWriter implements WriteListener {
+
+	private final ServletOutputStream out;
+	private final ByteArrayOutputStream buffer;
+	private final ByteBuffer[] segments;
+	private final Runnable onDone;
+	private int index;
+	private boolean done;
+
+	/**
+	 * Create a ResponseBodyWriter.
+	 *
+	 * @param out    the servlet output stream
+	 * @param buffer the response body, it is released at the end
+	 * @param onDone called when the body is written or when the writing fails
+	 */
+	ResponseBodyWriter(ServletOutputStream out, ByteArrayOutputStream buffer, Runnable onDone) {
+		this.out = out;
+		this.buffer = buffer;
+		this.segments = buffer.toByteBuffers();
+		this.onDone = onDone;
+	}
+
+	@Override
+	public void onWritePossible() throws IOException {
+		while (!done && out.isReady()) {
+			if (index == segments.length) {
+				finish();
+			} else {
+				ByteBuffer segment = segments[index++];
+				out.write(segment.array(), segment.arrayOffset() + segment.position(), segment.remaining());
+			}
+		}
+	}
+
+	@Override
+	public void onError(Throwable th) {
+		Logs.LOG.debug("cannot write the response", th);
+		finish();
+	}
+
+	private void finish() {
+		if (!done) {
+			done = true;
+			buffer.release();
+			onDone.run();
+		}
+	}
+
+}
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package net.gcolin.rest.servlet;
+
+import java.lang.reflect.Method;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.expiry.Duration;
+import javax.cache.expiry.EternalExpiryPolicy;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+
+import net.gcolin.rest.server.AbstractResource;
+import net.gcolin.rest.server.Resource;
+
+/**
+ * The responses of the resources annotated with {@link Cached}.
+ *
+ * <p>
+ * Each resource has its own JCache cache so that it has its own time to live.
+ * The caches are created in the {@link CacheManager} of the default
+ * {@code CachingProvider}, or in the one given with
+ * {@link #setCacheManager(CacheManager)}, and destroyed when the application is
+ * reloaded. The values are stored by reference.
+ * </p>
+ *
+ * <p>
+ * A cache hit does not call the resource, so the resources behind a
+ * {@code ContainerRequestFilter} or with a {@code ContainerResponseFilter} are
+ * never cached: the filters must see every request and every response.
+ * </p>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class ResponseCache {
+
+	private static final Policy NONE = new Policy(null, null, null);
+	private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+	private final Map<AbstractResource, Policy> policies = new ConcurrentHashMap<>();
+	private final String prefix = "net.gcolin.rest.response." + SEQUENCE.incrementAndGet() + ".";
+	private final AtomicInteger cacheSequence = new AtomicInteger();
+	private volatile CacheManager cacheManager;
+
+	public CacheManager getCacheManager() {
+		CacheManager manager = cacheManager;
+		if (manager == null) {
+			synchronized (this) {
+				manager = cacheManager;
+				if (manager == null) {
+					manager = Caching.getCachingProvider().getCacheManager();
+					cacheManager = manager;
+				}
+			}
+		}
+		return manager;
+	}
+
+	/**
+	 * Set the CacheManager of the response caches. The current caches are
+	 * destroyed.
+	 *
+	 * @param cacheManager a CacheManager
+	 */
+	public void setCacheManager(CacheManager cacheManager) {
+		clear();
+		this.cacheManager = cacheManager;
+	}
+
+	private static boolean isCacheable(AbstractResource resource) {
+		// a ContainerRequestFilterResource wraps the resources with request filters
+		List<ContainerResponseFilter> filters = resource.getResponseFilters();
+		return resource instanceof Resource && (filters == null || filters.isEmpty());
+	}
+
+	/**
+	 * Get the cache policy of a resource.
+	 *
+	 * @param resource the resource selected for a request
+	 * @param request  the servlet request
+	 * @return the policy or {@code null} if the response is not cached
+	 */
+	public Policy get(AbstractResource resource, HttpServletRequest request) {
+		if (!HttpMethod.GET.equals(request.getMethod())) {
+			return null;
+		}
+		Policy policy = policies.computeIfAbsent(resource, this::create);
+		return policy == NONE ? null : policy;
+	}
+
+	private Policy create(AbstractResource resource) {
+		Method method = resource.getResourceMethod();
+		Cached cached = method == null ? null : method.getAnnotation(Cached.class);
+		if (cached == null && resource.getResourceClass() != null) {
+			cached = resource.getResourceClass().getAnnotation(Cached.class);
+		}
+		if (cached == null || !isCacheable(resource)) {
+			return NONE;
+		}
+		MutableConfiguration<String, CachedResponse> config = new MutableConfiguration<String, CachedResponse>()
+				.setTypes(String.class, CachedResponse.class).setStoreByValue(false)
+				.setExpiryPolicyFactory(cached.ttl() > 0
+						? CreatedExpiryPolicy.factoryOf(new Duration(cached.unit(), cached.ttl()))
+						: EternalExpiryPolicy.factoryOf());
+		// the annotation of the class applies to the resources without method
+		String name = prefix + cacheSequence.incrementAndGet() + "."
+				+ (method == null ? resource.getResourceClass().getSimpleName() : method.getName());
+		return new Policy(name, getCacheManager().createCache(name, config), cached.varyBy());
+	}
+
+	/**
+	 * Destroy the response caches.
+	 */
+	public void clear() {
+		List<Policy> list = new ArrayList<>(policies.values());
+		policies.clear();
+		for (Policy policy : list) {
+			if (policy != NONE && !cacheManager.isClosed()) {
+				cacheManager.destroyCache(policy.name);
+			}
+		}
+	}
+
+	/**
+	 * Tell if an {@code If-None-Match} header matches an entity tag. The weak
+	 * comparison is used.
+	 *
+	 * @param ifNoneMatch the value of the header
+	 * @param etag        a strong entity tag
+	 * @return {@code true} if the client has the representation
+	 */
+	public static boolean matches(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if ("*".equals(tag) || tag.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Tell if a response can be shared with the other clients. A response that
+	 * sets a cookie or with a {@code Cache-Control} {@code private} or
+	 * {@code no-store} directive is not stored.
+	 *
+	 * @param headers the headers of the response
+	 * @return {@code true} if the response can be stored
+	 */
+	public static boolean isStorable(Map<String, List<String>> headers) {
+		for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+			if (HttpHeaders.SET_COOKIE.equalsIgnoreCase(entry.getKey())) {
+				return false;
+			}
+			if (HttpHeaders.CACHE_CONTROL.equalsIgnoreCase(entry.getKey())) {
+				for (String value : entry.getValue()) {
+					for (String directive : value.split(",")) {
+						int eq = directive.indexOf('=');
+						String name = (eq == -1 ? directive : directive.substring(0, eq)).trim();
+						if ("private".equalsIgnoreCase(name) || "no-store".equalsIgnoreCase(name)) {
+							return false;
+						}
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Compute the strong entity tag of a body.
+	 *
+	 * @param body the serialized entity
+	 * @return a quoted entity tag
+	 */
+	public static String etag(byte[] body) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+			return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + '"';
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * The cache of a resource.
+	 */
+	public static class Policy {
+
+		private final String name;
+		private final Cache<String, CachedResponse> cache;
+		private final String[] varyBy;
+
+		Policy(String name, Cache<String, CachedResponse> cache, String[] varyBy) {
+			this.name = name;
+			this.cache = cache;
+			this.varyBy = varyBy;
+		}
+
+		/**
+		 * Build the key of a request. The values are prefixed by their length so
+		 * two different requests cannot have the same key. The
+		 * {@code Accept-Encoding} is a part of the key because a
+		 * WriterInterceptor may compress the body.
+		 *
+		 * @param request   the servlet request
+		 * @param mediaType the negotiated media type
+		 * @return the key
+		 */
+		public String key(HttpServletRequest request, MediaType mediaType) {
+			String path = request.getPathInfo();
+			StringBuilder str = new StringBuilder(path == null ? "" : path);
+			for (String param : varyBy) {
+				String[] values = request.getParameterValues(param);
+				str.append('&').append(values == null ? 0 : values.length);
+				if (values != null) {
+					for (String value : values) {
+						str.append(':').append(value.length()).append(':').append(value);
+					}
+				}
+			}
+			str.append(';').append(mediaType);
+			String encoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+			if (encoding != null) {
+				str.append(';').append(encoding);
+			}
+			return str.toString();
+		}
+
+		public CachedResponse get(String key) {
+			return cache.get(key);
+		}
+
+		/**
+		 * Store a response.
+		 *
+		 * @param key         the key of the request
+		 * @param contentType the media type of the body
+		 * @param headers     the headers of the response
+		 * @param body        the serialized entity
+		 * @param etag        the entity tag of the body
+		 * @return the stored response
+		 */
+		public CachedResponse put(String key, MediaType contentType, Map<String, List<String>> headers, byte[] body,
+				String etag) {
+			CachedResponse response = new CachedResponse(contentType == null ? null : contentType.toString(), headers,
+					body, etag);
+			cache.put(key, response);
+			return response;
+		}
+	}
+
+}
@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.servlet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+
+import net.gcolin.common.io.ByteArrayOutputStream;
+import net.gcolin.rest.util.FileTransfer;
+
+/**
+ * The stream given to a MessageBodyWriter by the {@link RestServlet}.
+ *
+ * <p>
+ * The entity is buffered up to a threshold so that the {@code Content-Length}
+ * can be sent. When the threshold is exceeded or when the writer flushes, the
+ * headers are committed and the entity is streamed to the servlet output
+ * stream. The container then uses a chunked transfer encoding.
+ * </p>
+ *
+ * <p>
+ * A threshold of {@code 0} streams directly and a negative threshold buffers
+ * the whole entity.
+ * </p>
+ *
+ * <p>
+ * A file sent with {@link #transferFrom(FileChannel, long, long)} is not
+ * buffered: the {@code Content-Length} is the size of the file and the file is
+ * transferred to the servlet output stream.
+ * </p>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class ResponseOutputStream extends OutputStream implements FileTransfer {
+
+	public static final int UNBOUNDED = -1;
+
+	private final HttpServletResponse response;
+	private final MediaType mediaType;
+	private final MultivaluedMap<String, String> headers;
+	private final int threshold;
+	private ByteArrayOutputStream buffer;
+	private OutputStream out;
+	private boolean transfer = true;
+	private long skip;
+	private long remaining = Long.MAX_VALUE;
+
+	/**
+	 * Create a ResponseOutputStream.
+	 *
+	 * @param response  the servlet response
+	 * @param mediaType the media type of the entity
+	 * @param headers   the headers of the response, they can be modified by the
+	 *                  MessageBodyWriter until the commit
+	 * @param threshold the maximum size of the buffer in bytes
+	 */
+	public ResponseOutputStream(HttpServletResponse response, MediaType mediaType,
+			MultivaluedMap<String, String> headers, int threshold) {
+		this.response = response;
+		this.mediaType = mediaType;
+		this.headers = headers;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Tell if the headers are committed and the entity is written to the servlet
+	 * output stream.
+	 *
+	 * @return {@code true} if the response is streamed
+	 */
+	public boolean isStreaming() {
+		return out != null;
+	}
+
+	/**
+	 * Get a copy of the buffered entity.
+	 *
+	 * @return the bytes written before the commit
+	 */
+	public byte[] toByteArray() {
+		return buffer == null ? new byte[0] : buffer.toByteArray();
+	}
+
+	/**
+	 * Buffer the files like the other entities. The whole body is needed by the
+	 * response cache and the non-blocking mode.
+	 */
+	void disableTransfer() {
+		transfer = false;
+	}
+
+	/**
+	 * Send only a range of the entity. The bytes outside the range are
+	 * discarded.
+	 *
+	 * @param offset the position of the first byte
+	 * @param length the number of bytes
+	 */
+	void range(long offset, long length) {
+		skip = offset;
+		remaining = length;
+	}
+
+	private boolean canBuffer(int len) {
+		if (threshold < 0) {
+			return true;
+		}
+		int size = buffer == null ? 0 : buffer.getSize();
+		return size + len <= threshold;
+	}
+
+	private ByteArrayOutputStream buffer() {
+		if (buffer == null) {
+			buffer = new ByteArrayOutputStream();
+		}
+		return buffer;
+	}
+
+	@Override
+	public void write(int bt) throws IOException {
+		if (skip > 0) {
+			skip--;
+			return;
+		}
+		if (remaining == 0) {
+			return;
+		}
+		remaining--;
+		if (out == null && !canBuffer(1)) {
+			stream();
+		}
+		if (out == null) {
+			buffer().write(bt);
+		} else {
+			out.write(bt);
+		}
+	}
+
+	@Override
+	public void write(byte[] data, int off, int len) throws IOException {
+		if (skip > 0) {
+			int skipped = (int) Math.min(skip, len);
+			skip -= skipped;
+			off += skipped;
+			len -= skipped;
+		}
+		if (len > remaining) {
+			len = (int) remaining;
+		}
+		if (len == 0) {
+			return;
+		}
+		remaining -= len;
+		if (out == null && !canBuffer(len)) {
+			stream();
+		}
+		if (out == null) {
+			buffer().write(data, off, len);
+		} else {
+			out.write(data, off, len);
+		}
+	}
+
+	/**
+	 * Commit the headers and send the buffered bytes if the buffer is bounded.
+	 * Else do nothing so that the {@code Content-Length} can be computed.
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (out == null && threshold >= 0) {
+			stream();
+		}
+		if (out != null) {
+			out.flush();
+		}
+	}
+
+	/**
+	 * Do nothing. Many MessageBodyWriters close the entity stream, the response
+	 * is completed by {@link #finish()}.
+	 */
+	@Override
+	public void close() throws IOException {
+		// Do nothing
+	}
+
+	/**
+	 * Send a region of a file. If the headers are not committed, the
+	 * {@code Content-Length} is set and the file is transferred without
+	 * buffering.
+	 */
+	@Override
+	public void transferFrom(FileChannel channel, long position, long count) throws IOException {
+		long skipped = Math.min(skip, count);
+		skip -= skipped;
+		long pos = position + skipped;
+		long len = Math.min(count - skipped, remaining);
+		remaining -= len;
+		if (out == null && transfer) {
+			stream((buffer == null ? 0 : buffer.getSize()) + len);
+		}
+		FileTransfer.transfer(channel, pos, len, out == null ? buffer() : out);
+	}
+
+	private void stream() throws IOException {
+		stream(-1);
+	}
+
+	private void stream(long length) throws IOException {
+		RestServlet.setHeaders(mediaType, response, headers);
+		if (length >= 0) {
+			response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(length));
+		}
+		out = response.getOutputStream();
+		if (buffer != null) {
+			buffer.writeTo(out);
+			buffer.release();
+			buffer = null;
+		}
+	}
+
+	/**
+	 * Complete the response. If the entity is still buffered, the headers and the
+	 * {@code Content-Length} are set and the buffer is written.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public void finish() throws IOException {
+		if (out == null) {
+			RestServlet.writeHeaders(mediaType, response, headers, buffer());
+		}
+	}
+
+	/**
+	 * Complete the response without blocking. A buffer larger than the buffer of
+	 * the container is drained by the exchange as the socket becomes writable.
+	 *
+	 * @param exchange the exchange in the non-blocking mode
+	 * @throws IOException if an I/O error occurs.
+	 */
+	void finish(ServletExchange exchange) throws IOException {
+		if (out != null || buffer == null || buffer.getSize() <= response.getBufferSize()) {
+			finish();
+			return;
+		}
+		RestServlet.setHeaders(mediaType, response, headers);
+		response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(buffer.getSize()));
+		ByteArrayOutputStream bout = buffer;
+		buffer = null;
+		exchange.drain(bout);
+	}
+
+	/**
+	 * Release the buffer.
+	 */
+	public void release() {
+		if (buffer != null) {
+			buffer.release();
+			buffer = null;
+		}
+	}
+
+}
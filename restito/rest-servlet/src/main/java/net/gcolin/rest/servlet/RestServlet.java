@@ -17,22 +17,30 @@ package net.gcolin.rest.servlet;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
+import javax.management.ObjectName;
 import javax.servlet.Servlet;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.annotation.MultipartConfig;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.BadRequestException;
+import javax.ws.rs.HttpMethod;
 import javax.ws.rs.NotAllowedException;
 import javax.ws.rs.NotFoundException;
 import javax.ws.rs.RuntimeType;
@@ -50,6 +58,7 @@ import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.RuntimeDelegate;
 
 import net.gcolin.common.io.ByteArrayOutputStream;
+import net.gcolin.common.jmx.Jmx;
 import net.gcolin.common.reflect.Reflect;
 import net.gcolin.rest.Environment;
 import net.gcolin.rest.FeatureBuilder;
@@ -60,8 +69,9 @@ import net.gcolin.rest.param.SingletonParam;
 import net.gcolin.rest.provider.Configurator;
 import net.gcolin.rest.provider.SimpleProviders;
 import net.gcolin.rest.provider.SingletonSupplier;
+import net.gcolin.rest.router.CompiledRouter;
+import net.gcolin.rest.router.RouteMatch;
 import net.gcolin.rest.router.Router;
-import net.gcolin.rest.router.RouterResponse;
 import net.gcolin.rest.server.AbstractResource;
 import net.gcolin.rest.server.Builder;
 import net.gcolin.rest.server.Contexts;
@@ -72,6 +82,7 @@ import net.gcolin.rest.server.ServerFeatureBuilder;
 import net.gcolin.rest.server.ServerInvocationContext;
 import net.gcolin.rest.server.ServerProviders;
 import net.gcolin.rest.server.ServerResponse;
+import net.gcolin.rest.util.HttpHeader;
 
 /**
  * Servlet for dispatching requests to Rest.
@@ -83,7 +94,38 @@ import net.gcolin.rest.server.ServerResponse;
 public class RestServlet implements RestContainer, Servlet {
 
 	private static final String JUIKITO_ENV = "di.env";
+	/**
+	 * The init parameter or the Application property with the size in bytes of
+	 * the response buffer. Above this size, the entity is streamed without a
+	 * {@code Content-Length}. {@code 0} streams directly and a negative value
+	 * buffers the whole entity.
+	 */
+	public static final String RESPONSE_BUFFER = "rest.response.buffer";
+	/**
+	 * The init parameter or the Application property for invoking all the
+	 * resources on virtual threads. Without this parameter, only the resources
+	 * annotated with {@link VirtualThread} are.
+	 */
+	public static final String VIRTUAL_THREADS = "rest.virtual.threads";
+	/**
+	 * The init parameter or the Application property for using the non-blocking
+	 * I/O of the servlet 3.1: the request body is read before the dispatch and
+	 * the large responses are drained as the socket becomes writable.
+	 */
+	public static final String NON_BLOCKING = "rest.nonblocking";
+	/**
+	 * The init parameter or the Application property with the maximum size in
+	 * bytes of a request body read with the non-blocking I/O.
+	 */
+	public static final String REQUEST_LIMIT = "rest.request.limit";
+	public static final long DEFAULT_REQUEST_LIMIT = 10L * 1024 * 1024;
+	/**
+	 * The init parameter or the Application property with the maximum number of
+	 * exact paths kept by the route cache. {@code 0} disables the cache.
+	 */
+	public static final String ROUTE_CACHE = "rest.route.cache";
 	private Router<ResourceArray> router;
+	private volatile CompiledRouter<ResourceArray> compiledRouter;
 	private ServerProviders providers = new ServerProviders();
 	private Environment env = new Environment();
 	private ServiceStrategy strategy = new SimpleServiceStrategy();
@@ -92,6 +134,14 @@ public class RestServlet implements RestContainer, Servlet {
 	private ServletConfig config;
 	private boolean dirty;
 	private long start;
+	private int responseBuffer = ResponseOutputStream.UNBOUNDED;
+	private boolean virtualThreads;
+	private boolean nonBlocking;
+	private long requestLimit = DEFAULT_REQUEST_LIMIT;
+	private final Map<AbstractResource, Boolean> virtualResources = new ConcurrentHashMap<>();
+	private final RouteCache routeCache = new RouteCache();
+	private final ResponseCache responseCache = new ResponseCache();
+	private String jmxName;
 	private static final Annotation[] NO_ANNOTATION = new Annotation[0];
 
 	public Builder newResource() {
@@ -104,6 +154,35 @@ public class RestServlet implements RestContainer, Servlet {
 		String envName = config.getInitParameter(JUIKITO_ENV);
 		env(envName);
 
+		String buffer = config.getInitParameter(RESPONSE_BUFFER);
+		if (buffer != null) {
+			responseBuffer = Integer.parseInt(buffer.trim());
+		}
+
+		String virtual = config.getInitParameter(VIRTUAL_THREADS);
+		if (virtual != null) {
+			virtualThreads(Boolean.parseBoolean(virtual.trim()));
+		}
+
+		String nonBlockingParam = config.getInitParameter(NON_BLOCKING);
+		if (nonBlockingParam != null) {
+			nonBlocking = Boolean.parseBoolean(nonBlockingParam.trim());
+		}
+
+		String limit = config.getInitParameter(REQUEST_LIMIT);
+		if (limit != null) {
+			requestLimit = Long.parseLong(limit.trim());
+		}
+
+		String routeCacheParam = config.getInitParameter(ROUTE_CACHE);
+		if (routeCacheParam != null) {
+			routeCache.setCapacity(Integer.parseInt(routeCacheParam.trim()));
+		}
+
+		String servletName = config.getServletName() == null ? getClass().getSimpleName() : config.getServletName();
+		jmxName = "net.gcolin.rest:type=RouteCache,name=" + ObjectName.quote(servletName);
+		Jmx.publish(jmxName, routeCache, RouteCacheBean.class);
+
 		String application = config.getInitParameter("javax.ws.rs.Application");
 
 		if (application != null) {
@@ -118,10 +197,105 @@ public class RestServlet implements RestContainer, Servlet {
 		}
 	}
 
+	/**
+	 * Get the router. The requests are routed by a snapshot compiled at the end
+	 * of {@link #initialize()}, call it after adding a resource.
+	 * 
+	 * @return the router
+	 */
 	public Router<ResourceArray> getRouter() {
 		return router;
 	}
 
+	/**
+	 * Get the cache of the paths without path parameter. It is published over
+	 * JMX with the name {@code net.gcolin.rest:type=RouteCache,name=<servlet>}.
+	 * 
+	 * @return the route cache
+	 */
+	public RouteCache getRouteCache() {
+		return routeCache;
+	}
+
+	/**
+	 * Get the cache of the responses of the resources annotated with
+	 * {@link Cached}.
+	 * 
+	 * @return the response cache
+	 */
+	public ResponseCache getResponseCache() {
+		return responseCache;
+	}
+
+	public int getResponseBuffer() {
+		return responseBuffer;
+	}
+
+	/**
+	 * Set the size of the response buffer.
+	 * 
+	 * @param responseBuffer the size in bytes, {@code 0} for streaming directly
+	 *                       or a negative value for buffering the whole entity
+	 * @return the current servlet
+	 */
+	public RestServlet responseBuffer(int responseBuffer) {
+		this.responseBuffer = responseBuffer;
+		return this;
+	}
+
+	public boolean isVirtualThreads() {
+		return virtualThreads;
+	}
+
+	/**
+	 * Invoke all the resources on virtual threads. If the JVM does not support
+	 * them, the resources are invoked on the container threads.
+	 * 
+	 * @param virtualThreads {@code true} for using the virtual threads
+	 * @return the current servlet
+	 * @see VirtualThread
+	 */
+	public RestServlet virtualThreads(boolean virtualThreads) {
+		if (virtualThreads && !VirtualThreads.isSupported()) {
+			Logs.LOG.warn("virtual threads are not supported by this JVM, "
+					+ "the resources are invoked on the container threads");
+		}
+		this.virtualThreads = virtualThreads;
+		virtualResources.clear();
+		return this;
+	}
+
+	public boolean isNonBlocking() {
+		return nonBlocking;
+	}
+
+	/**
+	 * Use the non-blocking I/O for the requests that support the asynchronous
+	 * mode.
+	 * 
+	 * @param nonBlocking {@code true} for using the non-blocking I/O
+	 * @return the current servlet
+	 */
+	public RestServlet nonBlocking(boolean nonBlocking) {
+		this.nonBlocking = nonBlocking;
+		return this;
+	}
+
+	public long getRequestLimit() {
+		return requestLimit;
+	}
+
+	/**
+	 * Set the maximum size of a request body read with the non-blocking I/O.
+	 * 
+	 * @param requestLimit the size in bytes
+	 * @return the current servlet
+	 */
+	public RestServlet requestLimit(long requestLimit) {
+		this.requestLimit = requestLimit;
+		return this;
+	}
+
 	public void clear() {
 		apps.clear();
 		initialize();
@@ -148,6 +322,28 @@ public class RestServlet implements RestContainer, Servlet {
 				env((String) envConfig);
 			}
 		}
+		Object buffer = app.getProperties().get(RESPONSE_BUFFER);
+		if (buffer != null) {
+			responseBuffer = buffer instanceof Number ? ((Number) buffer).intValue()
+					: Integer.parseInt(buffer.toString().trim());
+		}
+		Object virtual = app.getProperties().get(VIRTUAL_THREADS);
+		if (virtual != null) {
+			virtualThreads(Boolean.parseBoolean(virtual.toString().trim()));
+		}
+		Object nonBlockingProperty = app.getProperties().get(NON_BLOCKING);
+		if (nonBlockingProperty != null) {
+			nonBlocking = Boolean.parseBoolean(nonBlockingProperty.toString().trim());
+		}
+		Object limit = app.getProperties().get(REQUEST_LIMIT);
+		if (limit != null) {
+			requestLimit = limit instanceof Number ? ((Number) limit).longValue() : Long.parseLong(limit.toString().trim());
+		}
+		Object routeCacheProperty = app.getProperties().get(ROUTE_CACHE);
+		if (routeCacheProperty != null) {
+			routeCache.setCapacity(routeCacheProperty instanceof Number ? ((Number) routeCacheProperty).intValue()
+					: Integer.parseInt(routeCacheProperty.toString().trim()));
+		}
 		this.apps.add(app);
 		dirty = true;
 		if (init) {
@@ -176,6 +372,8 @@ public class RestServlet implements RestContainer, Servlet {
 			start = System.currentTimeMillis();
 			RuntimeDelegate.setInstance(new RuntimeDelegateImpl());
 			router = new Router<>();
+			virtualResources.clear();
+			responseCache.clear();
 			env.setProviders(providers);
 			providers.load(env);
 			providers.getContextProviders().bind(Application.class,
@@ -201,6 +399,8 @@ public class RestServlet implements RestContainer, Servlet {
 
 			featureBuilder.build();
 			providers.flush(env);
+			compiledRouter = router.compile();
+			routeCache.clear();
 
 			Logs.LOG.info("start jax rs application : {} in {}ms", apps, System.currentTimeMillis() - start);
 
@@ -251,23 +451,167 @@ public class RestServlet implements RestContainer, Servlet {
 		HttpServletResponse response = (HttpServletResponse) res;
 		HttpServletRequest request = (HttpServletRequest) req;
 
-		ServerInvocationContext ctx = new ServerInvocationContext(new ServletExchange(request, response, this));
+		ServletExchange sex = new ServletExchange(request, response, this);
+		ServerInvocationContext ctx = new ServerInvocationContext(sex);
+
+		if (nonBlocking && request.isAsyncSupported()) {
+			serviceNonBlocking(request, response, ctx, sex);
+			return;
+		}
+
+		ThreadLocal<ServerInvocationContext> tlocal = Contexts.instance();
+		tlocal.set(ctx);
+		try {
+			strategy.service(request, response, ctx);
+		} finally {
+			tlocal.remove();
+		}
+	}
+
+	private void serviceNonBlocking(HttpServletRequest request, HttpServletResponse response,
+			ServerInvocationContext ctx, ServletExchange sex) throws IOException {
+		sex.nonBlocking();
+		String contentType = request.getContentType();
+		boolean hasBody = request.getContentLengthLong() > 0 || request.getHeader("Transfer-Encoding") != null;
+		if (!hasBody || contentType != null && contentType.startsWith(MediaType.MULTIPART_FORM_DATA)) {
+			// the parts are read by the container
+			serviceAsync(request, response, ctx, sex);
+		} else if (request.getContentLengthLong() > requestLimit) {
+			response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+			sex.complete();
+		} else {
+			ServletInputStream in = request.getInputStream();
+			in.setReadListener(new RequestBodyReader(in, requestLimit, body -> {
+				sex.body(body);
+				serviceAsync(request, response, ctx, sex);
+			}, error -> {
+				try {
+					if (error instanceof WebApplicationException) {
+						response.sendError(((WebApplicationException) error).getResponse().getStatus());
+					} else {
+						Logs.LOG.debug("cannot read the request", error);
+						response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+					}
+				} catch (IOException ex) {
+					Logs.LOG.debug(ex.getMessage(), ex);
+				} finally {
+					sex.complete();
+				}
+			}));
+		}
+	}
 
+	private void serviceAsync(HttpServletRequest request, HttpServletResponse response, ServerInvocationContext ctx,
+			ServletExchange sex) {
 		ThreadLocal<ServerInvocationContext> tlocal = Contexts.instance();
 		tlocal.set(ctx);
 		try {
 			strategy.service(request, response, ctx);
+		} catch (IOException | RuntimeException ex) {
+			Logs.LOG.error("cannot handle " + request.getRequestURI(), ex);
+			sendInternalError(response);
+		} finally {
+			tlocal.remove();
+			// a suspended response is completed when it is resumed
+			if (!sex.isDetached() && !ctx.isSuspended()) {
+				sex.complete();
+			}
+		}
+	}
+
+	private static void sendInternalError(HttpServletResponse response) {
+		if (!response.isCommitted()) {
+			try {
+				response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+			} catch (IOException ex) {
+				Logs.LOG.debug(ex.getMessage(), ex);
+			}
+		}
+	}
+
+	private void dispatch(ServerInvocationContext context) throws IOException {
+		Executor executor = VirtualThreads.executor();
+		ServletExchange sex = (ServletExchange) context.getExchange();
+		// a filter or a mapping without async support runs on the container thread
+		if (executor == null || !isVirtual(context.getResource()) || !sex.getRequest().isAsyncSupported()) {
+			handleResource(context);
+			return;
+		}
+		sex.startAsync();
+		sex.detach();
+		executor.execute(() -> handleVirtual(context, sex));
+	}
+
+	private boolean isVirtual(AbstractResource resource) {
+		return virtualThreads || virtualResources.computeIfAbsent(resource, r -> {
+			Method method = r.getResourceMethod();
+			return method != null && method.isAnnotationPresent(VirtualThread.class)
+					|| r.getResourceClass() != null && r.getResourceClass().isAnnotationPresent(VirtualThread.class);
+		});
+	}
+
+	private void handleVirtual(ServerInvocationContext context, ServletExchange sex) {
+		ThreadLocal<ServerInvocationContext> tlocal = Contexts.instance();
+		tlocal.set(context);
+		try {
+			handleResource(context);
+		} catch (IOException | RuntimeException ex) {
+			Logs.LOG.error("cannot handle " + context.getResource().getResourceMethod(), ex);
+			sendInternalError(sex.getResponse());
 		} finally {
 			tlocal.remove();
+			// a suspended response is completed when it is resumed
+			if (!context.isSuspended()) {
+				sex.complete();
+			}
 		}
 	}
 
 	private void handleResource(ServerInvocationContext context) throws IOException {
 		ServletExchange sex = (ServletExchange) context.getExchange();
-		ByteArrayOutputStream bout = null;
+		ResponseCache.Policy policy = responseCache.get(context.getResource(), sex.getRequest());
+		if (policy == null) {
+			writeResponse(context, () -> context.getResource().handle(context), null, null);
+			return;
+		}
+		String key = policy.key(sex.getRequest(), context.getProduce());
+		CachedResponse cached = policy.get(key);
+		if (cached == null) {
+			writeResponse(context, () -> context.getResource().handle(context), policy, key);
+		} else if (ResponseCache.matches(sex.getRequest().getHeader(HttpHeaders.IF_NONE_MATCH), cached.getEtag())) {
+			sex.getResponse().setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			sex.getResponse().setHeader(HttpHeaders.ETAG, cached.getEtag());
+		} else {
+			cached.writeTo(sex.getResponse());
+		}
+	}
+
+	/**
+	 * Write the result of a resumed AsyncResponse.
+	 * 
+	 * @param context the context of the suspended request
+	 * @param result  an entity, a Response or a Throwable
+	 * @throws IOException if an I/O error occurs.
+	 */
+	void resume(ServerInvocationContext context, Object result) throws IOException {
+		writeResponse(context, () -> {
+			if (result instanceof RuntimeException) {
+				throw (RuntimeException) result;
+			} else if (result instanceof Throwable) {
+				throw new WebApplicationException((Throwable) result);
+			}
+			return context.getResource().resume(context, result);
+		}, null, null);
+	}
+
+	private void writeResponse(ServerInvocationContext context, IoSupplier<Response> supplier,
+			ResponseCache.Policy policy, String key) throws IOException {
+		ServletExchange sex = (ServletExchange) context.getExchange();
+		ResponseOutputStream out = null;
 		try {
-			ServerResponse response = (ServerResponse) context.getResource().handle(context);
-			if (sex.hasWritten()) {
+			ServerResponse response = (ServerResponse) supplier.get();
+			if (response == null || sex.hasWritten()) {
+				// suspended or written by the resource
 				return;
 			}
 
@@ -281,25 +625,46 @@ public class RestServlet implements RestContainer, Servlet {
 			if (response.getEntity() != null) {
 
 				AbstractResource resource = context.getResource();
-				bout = new ByteArrayOutputStream();
+				out = new ResponseOutputStream(sex.getResponse(), context.getProduce(), response.getStringHeaders(),
+						sex.isNonBlocking() || policy != null ? ResponseOutputStream.UNBOUNDED : responseBuffer);
+				if (sex.isNonBlocking() || policy != null) {
+					out.disableTransfer();
+				} else if (status == HttpURLConnection.HTTP_OK && !range(sex, response, out)) {
+					return;
+				}
 
 				if (resource.getWriterDecorator() == null) {
 					context.getWriter().writeTo(response.getEntity(), context.getEntityClass(),
 							context.getEntityGenericType(), response.getAllAnnotations(), context.getProduce(),
-							response.newContext().getHeaders(), bout);
+							response.newContext().getHeaders(), out);
 				} else {
 					resource.getWriterDecorator().writeTo(context, response.getEntity(), context.getEntityClass(),
 							context.getEntityGenericType(), response.getAllAnnotations(),
-							response.newContext().getHeaders(), bout);
+							response.newContext().getHeaders(), out);
 				}
-
+				if (policy != null && status == HttpURLConnection.HTTP_OK
+						&& ResponseCache.isStorable(response.getStringHeaders())
+						&& !sex.getResponse().containsHeader(HttpHeaders.SET_COOKIE)) {
+					store(policy, key, context.getProduce(), response, out.toByteArray());
+				}
+				if (sex.isNonBlocking()) {
+					out.finish(sex);
+				} else {
+					out.finish();
+				}
+			} else {
+				writeHeaders(context.getProduce(), sex.getResponse(), response.getStringHeaders(), null);
 			}
-			writeHeaders(context.getProduce(), sex.getResponse(), response.getStringHeaders(), bout);
 		} catch (NoContentException ex) {
 			if (!tryExceptionMapper(sex.getResponse(), new BadRequestException(ex))) {
 				sex.getResponse().sendError(HttpServletResponse.SC_BAD_REQUEST);
 			}
 		} catch (RuntimeException ex) {
+			if (out != null && out.isStreaming()) {
+				// the status is sent, the container aborts the response
+				Logs.LOG.error("cannot write " + context.getResource().getResourceMethod(), ex);
+				throw ex;
+			}
 			Throwable cause = ex.getCause();
 			if (ex.getClass() != WebApplicationException.class) {
 				cause = ex;
@@ -316,7 +681,8 @@ public class RestServlet implements RestContainer, Servlet {
 				Logs.LOG.error("cannot execute " + context.getResource().getResourceMethod(), ex);
 
 				if (ex instanceof WebApplicationException && ((WebApplicationException) ex).getResponse() != null) {
-					sendResponse(sex.getResponse(), ((WebApplicationException) ex).getResponse(), providers);
+					sendResponse(sex.getResponse(), ((WebApplicationException) ex).getResponse(), providers,
+							responseBuffer);
 					return;
 				}
 				if (ex.getMessage() != null) {
@@ -325,12 +691,60 @@ public class RestServlet implements RestContainer, Servlet {
 				sex.getResponse().sendError(HttpURLConnection.HTTP_INTERNAL_ERROR);
 			}
 		} finally {
-			if (bout != null) {
-				bout.release();
+			if (out != null) {
+				out.release();
 			}
 		}
 	}
 
+	private static void store(ResponseCache.Policy policy, String key, MediaType mediaType, ServerResponse response,
+			byte[] body) {
+		String etag = response.getStringHeaders().getFirst(HttpHeaders.ETAG);
+		if (etag == null) {
+			etag = ResponseCache.etag(body);
+			response.getMetadata().putSingle(HttpHeaders.ETAG, etag);
+		}
+		policy.put(key, mediaType, response.getStringHeaders(), body, etag);
+	}
+
+	/**
+	 * Apply the {@code Range} header of the request to a File or a Path entity.
+	 *
+	 * @return {@code false} if the range is not satisfiable and the response is
+	 *         sent
+	 */
+	private static boolean range(ServletExchange sex, ServerResponse response, ResponseOutputStream out)
+			throws IOException {
+		Object entity = response.getEntity();
+		long length = ByteRange.length(entity);
+		if (length < 0) {
+			return true;
+		}
+		HttpServletRequest request = sex.getRequest();
+		MultivaluedMap<String, String> headers = response.getStringHeaders();
+		response.getMetadata().putSingle(HttpHeader.ACCEPT_RANGES, "bytes");
+		String header = request.getHeader(HttpHeader.RANGE);
+		if (header == null || !HttpMethod.GET.equals(request.getMethod())
+				|| headers.getFirst(HttpHeaders.CONTENT_ENCODING) != null
+				|| !ByteRange.ifRange(request.getHeader(HttpHeader.IF_RANGE), headers.getFirst(HttpHeaders.ETAG),
+						headers.getFirst(HttpHeaders.LAST_MODIFIED), ByteRange.lastModified(entity))) {
+			return true;
+		}
+		ByteRange range = ByteRange.parse(header, length);
+		if (range == null) {
+			return true;
+		}
+		response.getMetadata().putSingle(HttpHeader.CONTENT_RANGE, range.contentRange(length));
+		if (!range.isSatisfiable()) {
+			sex.getResponse().setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+			writeHeaders(null, sex.getResponse(), headers, null);
+			return false;
+		}
+		sex.getResponse().setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+		out.range(range.getStart(), range.getLength());
+		return true;
+	}
+
 	private boolean shouldUpdateStatus(ServletExchange sex, int status) {
 		return status != HttpURLConnection.HTTP_OK && status > 0
 				&& (sex.getResponse().getStatus() == 0 || sex.getResponse().getStatus() == HttpURLConnection.HTTP_OK);
@@ -347,6 +761,26 @@ public class RestServlet implements RestContainer, Servlet {
 	 */
 	public static void writeHeaders(MediaType responseMediaType, HttpServletResponse response,
 			MultivaluedMap<String, String> headers, ByteArrayOutputStream bout) throws IOException {
+		setHeaders(responseMediaType, response, headers);
+		if (bout != null) {
+			if (!bout.isEmpty()) {
+				response.setHeader(HttpHeaders.CONTENT_LENGTH, bout.getSize() + "");
+				bout.writeTo(response.getOutputStream());
+			}
+		} else {
+			response.setHeader(HttpHeaders.CONTENT_LENGTH, "0");
+		}
+	}
+
+	/**
+	 * Set headers to an HttpServletResponse without the {@code Content-Length}.
+	 * 
+	 * @param responseMediaType output media type
+	 * @param response          servlet response
+	 * @param headers           map of headers
+	 */
+	static void setHeaders(MediaType responseMediaType, HttpServletResponse response,
+			MultivaluedMap<String, String> headers) {
 		if (headers != null && !headers.isEmpty()) {
 			for (Entry<String, List<String>> entry : headers.entrySet()) {
 				for (String e : entry.getValue()) {
@@ -357,15 +791,6 @@ public class RestServlet implements RestContainer, Servlet {
 		if (responseMediaType != null) {
 			response.setHeader(HttpHeaders.CONTENT_TYPE, responseMediaType.toString());
 		}
-
-		if (bout != null) {
-			if (!bout.isEmpty()) {
-				response.setHeader(HttpHeaders.CONTENT_LENGTH, bout.getSize() + "");
-				bout.writeTo(response.getOutputStream());
-			}
-		} else {
-			response.setHeader(HttpHeaders.CONTENT_LENGTH, "0");
-		}
 	}
 
 	@SuppressWarnings("unchecked")
@@ -373,7 +798,7 @@ public class RestServlet implements RestContainer, Servlet {
 		ExceptionMapper<Throwable> mapper = (ExceptionMapper<Throwable>) providers.getExceptionMapper(cause.getClass());
 		if (mapper != null) {
 			Response resp = mapper.toResponse(cause);
-			sendResponse(response, resp, providers);
+			sendResponse(response, resp, providers, responseBuffer);
 			return true;
 		}
 		return false;
@@ -396,7 +821,7 @@ public class RestServlet implements RestContainer, Servlet {
 				filter.filter(ctx);
 				if (ctx.getAbortResponse() != null) {
 					Response resp = ctx.getAbortResponse();
-					sendResponse(response, resp, providers);
+					sendResponse(response, resp, providers, responseBuffer);
 					return;
 				}
 			}
@@ -416,14 +841,27 @@ public class RestServlet implements RestContainer, Servlet {
 			if (pathInfo == null) {
 				pathInfo = "";
 			}
-			RouterResponse<ResourceArray> resp = router.get(pathInfo, pathInfo.isEmpty() ? 0 : 1,
-					new RouterResponse<ResourceArray>());
+			ResourceArray resources = routeCache.get(pathInfo);
+			Map<String, List<String>> params = Collections.emptyMap();
+			if (resources == null) {
+				// read before the router, a route of a replaced router is not kept
+				long generation = routeCache.getGeneration();
+				RouteMatch<ResourceArray> resp = new RouteMatch<>();
+				if (compiledRouter.get(pathInfo, pathInfo.isEmpty() ? 0 : 1, resp)) {
+					resources = resp.getResult();
+					if (resp.getParamCount() == 0) {
+						routeCache.put(pathInfo, resources, generation);
+					} else {
+						params = resp.getParams();
+					}
+				}
+			}
 
-			if (resp != null) {
-				ResourceSelector selector = resp.getResult().get(request.getMethod());
+			if (resources != null) {
+				ResourceSelector selector = resources.get(request.getMethod());
 				if (selector == null) {
 					if (!tryExceptionMapper(response,
-							new NotAllowedException((Throwable) null, resp.getResult().getAlloweds()))) {
+							new NotAllowedException((Throwable) null, resources.getAlloweds()))) {
 						response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
 					}
 				} else {
@@ -432,8 +870,8 @@ public class RestServlet implements RestContainer, Servlet {
 						response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE);
 					} else {
 						ctx.setResource(resource);
-						ctx.setParams(resp.getParams());
-						handleResource(ctx);
+						ctx.setParams(params);
+						dispatch(ctx);
 					}
 				}
 			} else if (!tryExceptionMapper(response, new NotFoundException())) {
@@ -451,15 +889,31 @@ public class RestServlet implements RestContainer, Servlet {
 	 * @param providers rest providers
 	 * @throws IOException if an I/O error occurs.
 	 */
-	@SuppressWarnings("unchecked")
 	public static void sendResponse(HttpServletResponse response, Response resp, SimpleProviders providers)
 			throws IOException {
+		sendResponse(response, resp, providers, ResponseOutputStream.UNBOUNDED);
+	}
+
+	/**
+	 * Send the response to the client.
+	 * 
+	 * @param response       servlet response
+	 * @param resp           rest response
+	 * @param providers      rest providers
+	 * @param responseBuffer the size of the response buffer
+	 * @throws IOException if an I/O error occurs.
+	 * @see ResponseOutputStream
+	 */
+	@SuppressWarnings("unchecked")
+	public static void sendResponse(HttpServletResponse response, Response resp, SimpleProviders providers,
+			int responseBuffer) throws IOException {
 		if (!resp.hasEntity() && resp.getStatus() >= 400) {
 			response.sendError(resp.getStatus());
 			return;
 		}
 
-		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ResponseOutputStream out = new ResponseOutputStream(response, resp.getMediaType(), resp.getStringHeaders(),
+				responseBuffer);
 		try {
 			response.setStatus(resp.getStatus());
 			if (resp.hasEntity()) {
@@ -482,11 +936,11 @@ public class RestServlet implements RestContainer, Servlet {
 						resp.getMediaType());
 
 				mw.writeTo(resp.getEntity(), type, genericType, annotations, resp.getMediaType(), resp.getMetadata(),
-						bout);
+						out);
 			}
-			writeHeaders(resp.getMediaType(), response, resp.getStringHeaders(), bout);
+			out.finish();
 		} finally {
-			bout.release();
+			out.release();
 		}
 	}
 
@@ -521,5 +975,10 @@ public class RestServlet implements RestContainer, Servlet {
 
 	@Override
 	public void destroy() {
+		responseCache.clear();
+		if (jmxName != null) {
+			Jmx.unpublish(jmxName);
+			jmxName = null;
+		}
 	}
 }
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.servlet;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.gcolin.rest.server.ResourceArray;
+
+/**
+ * A cache of the routes without path parameter.
+ *
+ * <p>
+ * An exact path such as {@code /api/health} is resolved by the router once,
+ * the next requests get the resources of the path without walking the router.
+ * The routes with variables are never cached, nor the paths that are not
+ * found, so the cache only contains paths of the application.
+ * </p>
+ *
+ * <p>
+ * The cache is bounded: when it is full, the new paths are not added. It is
+ * cleared when the router is rebuilt.
+ * </p>
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class RouteCache implements RouteCacheBean {
+
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	private final Map<String, ResourceArray> routes = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private volatile int capacity;
+	private volatile long generation;
+
+	public RouteCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public RouteCache(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Get the resources of an exact path.
+	 *
+	 * @param path the path info of the request
+	 * @return the resources or {@code null} if the path is not cached
+	 */
+	public ResourceArray get(String path) {
+		ResourceArray resources = routes.get(path);
+		if (resources == null) {
+			misses.increment();
+		} else {
+			hits.increment();
+		}
+		return resources;
+	}
+
+	/**
+	 * Get the generation of the cache. It changes each time the cache is
+	 * cleared. Read it before the router so that a route of a replaced router
+	 * is not kept.
+	 *
+	 * @return the generation
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Add the resources of a path matched without path parameter.
+	 *
+	 * @param path       the path info of the request
+	 * @param resources  the resources matched by the router
+	 * @param generation the generation read before the router
+	 */
+	public void put(String path, ResourceArray resources, long generation) {
+		if (routes.size() < capacity && generation == this.generation) {
+			routes.putIfAbsent(path, resources);
+			// the cache may be cleared between the check and the put
+			if (generation != this.generation) {
+				routes.remove(path, resources);
+			}
+		}
+	}
+
+	@Override
+	public long getHits() {
+		return hits.sum();
+	}
+
+	@Override
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	@Override
+	public double getHitRatio() {
+		long hit = hits.sum();
+		long total = hit + misses.sum();
+		return total == 0 ? 0 : (double) hit / total;
+	}
+
+	@Override
+	public int getSize() {
+		return routes.size();
+	}
+
+	@Override
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Set the maximum number of cached paths. {@code 0} disables the cache.
+	 *
+	 * @param capacity the maximum number of cached paths
+	 */
+	public void setCapacity(int capacity) {
+		this.capacity = capacity;
+		if (routes.size() > capacity) {
+			routes.clear();
+		}
+	}
+
+	/**
+	 * Remove all the paths. The statistics are kept.
+	 */
+	@Override
+	public void clear() {
+		synchronized (this) {
+			generation++;
+		}
+		routes.clear();
+	}
+
+}
@@ -15,15 +15,25 @@
 
 package net.gcolin.rest.servlet;
 
+import net.gcolin.common.io.ByteArrayOutputStream;
+import net.gcolin.rest.Logs;
+import net.gcolin.rest.server.AsyncResponseImpl;
+import net.gcolin.rest.server.Contexts;
 import net.gcolin.rest.server.Exchange;
 import net.gcolin.rest.server.ServerInvocationContext;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Locale;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletConfig;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
@@ -46,6 +56,12 @@ public class ServletExchange implements Exchange {
   private RestServlet servlet;
   private HttpResponseObserver responseObserver;
   private OutputStream output;
+  private AsyncContext asyncContext;
+  private ByteArrayOutputStream body;
+  private boolean nonBlocking;
+  private boolean detached;
+  private boolean draining;
+  private boolean completeRequested;
 
   /**
    * Create a ServletExchange.
@@ -130,11 +146,17 @@ public class ServletExchange implements Exchange {
 
   @Override
   public int length() {
+    if (body != null) {
+      return body.getSize();
+    }
     return request.getContentLength();
   }
 
   @Override
   public InputStream inputStream() {
+    if (body != null) {
+      return body.toInputStream();
+    }
     try {
       return request.getInputStream();
     } catch (IOException ex) {
@@ -165,4 +187,170 @@ public class ServletExchange implements Exchange {
     return new ServletUriInfo(request, ctx);
   }
 
+  @Override
+  public String queryString(ServerInvocationContext ctx) {
+    return request.getQueryString();
+  }
+
+  @Override
+  public Charset queryCharset() {
+    // the parameter map of the request is decoded with the same charset
+    String encoding = request.getCharacterEncoding();
+    if (encoding != null) {
+      try {
+        return Charset.forName(encoding);
+      } catch (IllegalArgumentException ex) {
+        Logs.LOG.debug("unsupported request encoding {}", encoding);
+      }
+    }
+    return StandardCharsets.UTF_8;
+  }
+
+  public AsyncContext getAsyncContext() {
+    return asyncContext;
+  }
+
+  /**
+   * Put the request in the asynchronous mode if it is not already.
+   *
+   * @return the AsyncContext of the request
+   */
+  public AsyncContext startAsync() {
+    if (asyncContext == null) {
+      asyncContext = request.startAsync(request, response);
+      // the timeouts are handled by the framework
+      asyncContext.setTimeout(0);
+    }
+    return asyncContext;
+  }
+
+  /**
+   * Tell if the request uses the non-blocking I/O.
+   *
+   * @return {@code true} if the body is read before the dispatch and the large
+   *         responses are drained with a WriteListener
+   */
+  public boolean isNonBlocking() {
+    return nonBlocking;
+  }
+
+  void nonBlocking() {
+    nonBlocking = true;
+    startAsync();
+  }
+
+  /**
+   * Set the request body read by a {@link RequestBodyReader}.
+   *
+   * @param body the request body
+   */
+  void body(ByteArrayOutputStream body) {
+    this.body = body;
+  }
+
+  /**
+   * Tell that the request is handled by another thread, which completes it.
+   */
+  void detach() {
+    detached = true;
+  }
+
+  boolean isDetached() {
+    return detached;
+  }
+
+  /**
+   * Write a buffer with a WriteListener. The request is completed after the
+   * last byte is written.
+   *
+   * @param buffer the buffer to write, it is released at the end
+   * @throws IOException if an I/O error occurs.
+   */
+  void drain(ByteArrayOutputStream buffer) throws IOException {
+    synchronized (this) {
+      draining = true;
+    }
+    ServletOutputStream out = response.getOutputStream();
+    out.setWriteListener(new ResponseBodyWriter(out, buffer, this::drained));
+  }
+
+  private synchronized void drained() {
+    draining = false;
+    if (completeRequested) {
+      doComplete();
+    }
+  }
+
+  /**
+   * Complete the asynchronous request. If a response is being drained, the
+   * request is completed at the end of the drain.
+   */
+  public synchronized void complete() {
+    if (draining) {
+      completeRequested = true;
+    } else {
+      doComplete();
+    }
+  }
+
+  private void doComplete() {
+    if (body != null) {
+      body.release();
+      body = null;
+    }
+    asyncContext.complete();
+  }
+
+  @Override
+  public void suspend(AsyncResponseImpl asyncResponse) {
+    startAsync().addListener(new AsyncListener() {
+
+      @Override
+      public void onTimeout(AsyncEvent event) throws IOException {
+        asyncResponse.cancel();
+      }
+
+      @Override
+      public void onStartAsync(AsyncEvent event) throws IOException {
+        // nothing
+      }
+
+      @Override
+      public void onError(AsyncEvent event) throws IOException {
+        asyncResponse.cancel();
+      }
+
+      @Override
+      public void onComplete(AsyncEvent event) throws IOException {
+        // nothing
+      }
+    });
+  }
+
+  @Override
+  public void resume(AsyncResponseImpl asyncResponse, Object result) {
+    ServerInvocationContext ctx = asyncResponse.getContext();
+    ThreadLocal<ServerInvocationContext> tlocal = Contexts.instance();
+    ServerInvocationContext previous = tlocal.get();
+    tlocal.set(ctx);
+    Throwable error = null;
+    try {
+      servlet.resume(ctx, result);
+    } catch (IOException | RuntimeException ex) {
+      error = ex;
+      Logs.LOG.error("cannot write the response of " + ctx.getResource().getResourceMethod(), ex);
+    } finally {
+      if (previous == null) {
+        tlocal.remove();
+      } else {
+        tlocal.set(previous);
+      }
+      try {
+        complete();
+      } finally {
+        asyncResponse.complete(error);
+      }
+    }
+  }
+
 }
@@ -88,6 +88,29 @@ public class ServletHttpHeaders extends AbstractHttpHeaders {
     return FastMediaType.valueOf(request.getContentType());
   }
 
+  /**
+   * Get the values of a header without copying all the headers.
+   */
+  @Override
+  public String getHeaderString(String name) {
+    if (headers != null) {
+      return super.getHeaderString(name);
+    }
+    Enumeration<String> values = request.getHeaders(name);
+    if (values == null || !values.hasMoreElements()) {
+      return null;
+    }
+    String first = values.nextElement();
+    if (!values.hasMoreElements()) {
+      return first;
+    }
+    StringBuilder str = new StringBuilder(first);
+    while (values.hasMoreElements()) {
+      str.append(',').append(values.nextElement());
+    }
+    return str.toString();
+  }
+
   @Override
   public MultivaluedMap<String, String> getRequestHeaders() {
     if (headers == null) {
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.servlet;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import net.gcolin.rest.Logs;
+
+/**
+ * Give access to the virtual threads without depending on Java 21.
+ *
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public final class VirtualThreads {
+
+	private static final Executor EXECUTOR = create();
+
+	private VirtualThreads() {
+	}
+
+	private static Executor create() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (Executor) method.invoke(null);
+		} catch (NoSuchMethodException ex) {
+			return null;
+		} catch (ReflectiveOperationException | RuntimeException ex) {
+			// preview feature not enabled
+			Logs.LOG.debug("virtual threads are not available", ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Tell if the JVM supports the virtual threads.
+	 *
+	 * @return {@code true} if the virtual threads are available
+	 */
+	public static boolean isSupported() {
+		return EXECUTOR != null;
+	}
+
+	/**
+	 * Get an Executor that starts a virtual thread for each task.
+	 *
+	 * @return an Executor or {@code null} if the virtual threads are not
+	 *         available
+	 */
+	public static Executor executor() {
+		return EXECUTOR;
+	}
+}
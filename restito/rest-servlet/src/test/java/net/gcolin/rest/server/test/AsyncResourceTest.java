@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.server.test;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class AsyncResourceTest {
+
+  static volatile AsyncResponse current;
+  static volatile CompletableFuture<String> future;
+
+  @Path("async")
+  @Produces(MediaType.TEXT_PLAIN)
+  public static class AsyncResource {
+
+    @GET
+    @Path("suspended")
+    public void suspended(@Suspended AsyncResponse response) {
+      current = response;
+    }
+
+    @GET
+    @Path("timeout")
+    public void timeout(@Suspended AsyncResponse response) {
+      response.setTimeout(10, TimeUnit.MILLISECONDS);
+    }
+
+    @GET
+    @Path("stage")
+    public CompletionStage<String> stage() {
+      return future;
+    }
+
+    @GET
+    @Path("failed")
+    public CompletionStage<String> failed() {
+      CompletableFuture<String> result = new CompletableFuture<>();
+      result.completeExceptionally(new IllegalStateException());
+      return result;
+    }
+  }
+
+  public static class AsyncApplication extends Application {
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Collections.singleton(AsyncResource.class));
+    }
+  }
+
+  private ServletFixture fixture;
+  private AsyncContext asyncContext;
+  private CountDownLatch completed;
+
+  @Before
+  public void before() throws ServletException {
+    fixture = new ServletFixture(new AsyncApplication(), "*/*");
+    asyncContext = Mockito.mock(AsyncContext.class);
+    completed = new CountDownLatch(1);
+    Mockito.when(fixture.request.startAsync(fixture.request, fixture.response))
+        .thenReturn(asyncContext);
+    Mockito.doAnswer(inv -> {
+      completed.countDown();
+      return null;
+    }).when(asyncContext).complete();
+  }
+
+  @Test
+  public void suspendedTest() throws Exception {
+    fixture.service("/async/suspended");
+    Mockito.verify(fixture.request).startAsync(fixture.request, fixture.response);
+    Mockito.verify(asyncContext, Mockito.never()).complete();
+    Assert.assertTrue(current.isSuspended());
+
+    Thread thread = new Thread(() -> current.resume("hello"));
+    thread.start();
+    Assert.assertTrue(completed.await(5, TimeUnit.SECONDS));
+    Assert.assertEquals("hello", fixture.body());
+    Assert.assertTrue(current.isDone());
+    Assert.assertFalse(current.resume("again"));
+  }
+
+  @Test
+  public void timeoutTest() throws Exception {
+    fixture.service("/async/timeout");
+    Assert.assertTrue(completed.await(5, TimeUnit.SECONDS));
+    Mockito.verify(fixture.response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+  }
+
+  @Test
+  public void completionStageTest() throws Exception {
+    future = new CompletableFuture<>();
+    fixture.service("/async/stage");
+    Mockito.verify(asyncContext, Mockito.never()).complete();
+    future.complete("world");
+    Assert.assertTrue(completed.await(5, TimeUnit.SECONDS));
+    Assert.assertEquals("world", fixture.body());
+  }
+
+  @Test
+  public void completedStageTest() throws Exception {
+    future = CompletableFuture.completedFuture("done");
+    fixture.service("/async/stage");
+    Assert.assertTrue(completed.await(5, TimeUnit.SECONDS));
+    Assert.assertEquals("done", fixture.body());
+  }
+
+  @Test
+  public void failedStageTest() throws Exception {
+    fixture.service("/async/failed");
+    Assert.assertTrue(completed.await(5, TimeUnit.SECONDS));
+    Mockito.verify(fixture.response).sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+  }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.server.test;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class NegotiationTest {
+
+  @Path("negotiation")
+  public static class NegotiationResource {
+
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    public String plain() {
+      return "plain";
+    }
+
+    @GET
+    @Produces(MediaType.TEXT_HTML)
+    public String html() {
+      return "<b>html</b>";
+    }
+  }
+
+  public static class NegotiationApplication extends Application {
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Collections.singleton(NegotiationResource.class));
+    }
+  }
+
+  private ServletFixture fixture;
+
+  @Before
+  public void before() throws ServletException {
+    fixture = new ServletFixture(new NegotiationApplication(), null);
+  }
+
+  private String get(String accept) throws Exception {
+    fixture.accept(accept);
+    return fixture.get("/negotiation");
+  }
+
+  @Test
+  public void repeatedTest() throws Exception {
+    for (int i = 0; i < 3; i++) {
+      Assert.assertEquals("<b>html</b>", get("text/html,application/xhtml+xml;q=0.9"));
+      Assert.assertEquals("plain", get("text/plain"));
+    }
+  }
+
+  @Test
+  public void wildcardTest() throws Exception {
+    Assert.assertEquals("plain", get("application/json, text/*"));
+    Assert.assertFalse(get("*/*").isEmpty());
+  }
+
+  @Test
+  public void missingAcceptTest() throws Exception {
+    Assert.assertFalse(get(null).isEmpty());
+  }
+
+  @Test
+  public void notAcceptableTest() throws Exception {
+    Assert.assertEquals("", get("image/png"));
+    Assert.assertEquals("", get("image/png"));
+    Mockito.verify(fixture.response, Mockito.times(2))
+        .sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE);
+  }
+
+  @Test
+  public void manyHeadersTest() throws Exception {
+    // more distinct headers than the cache holds
+    for (int i = 0; i < 300; i++) {
+      Assert.assertEquals("plain", get("text/plain;level=" + i));
+    }
+    Assert.assertEquals("<b>html</b>", get("text/html"));
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.server.test;
+
+import net.gcolin.rest.Environment;
+import net.gcolin.rest.servlet.RestServlet;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class NonBlockingTest {
+
+  static final String LARGE = String.join("", Collections.nCopies(10000, "0123456789"));
+
+  @Path("io")
+  @Produces(MediaType.TEXT_PLAIN)
+  public static class IoResource {
+
+    @POST
+    @Path("echo")
+    public String echo(String body) {
+      return body;
+    }
+
+    @GET
+    @Path("large")
+    public String large() {
+      return LARGE;
+    }
+  }
+
+  public static class IoApplication extends Application {
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Collections.singleton(IoResource.class));
+    }
+  }
+
+  static class Input extends ServletInputStream {
+
+    byte[] data;
+    int pos;
+    ReadListener listener;
+
+    Input(byte[] data) {
+      this.data = data;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return pos == data.length ? -1 : data[pos++] & 0xFF;
+    }
+
+    @Override
+    public boolean isFinished() {
+      return pos == data.length;
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setReadListener(ReadListener readListener) {
+      listener = readListener;
+    }
+  }
+
+  static class Output extends ServletOutputStream {
+
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    WriteListener listener;
+    int writable;
+
+    @Override
+    public void write(int bt) throws IOException {
+      bout.write(bt);
+    }
+
+    @Override
+    public void write(byte[] data, int off, int len) throws IOException {
+      if (listener != null) {
+        Assert.assertTrue(writable > 0);
+        writable--;
+      }
+      bout.write(data, off, len);
+    }
+
+    @Override
+    public boolean isReady() {
+      return writable > 0;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+      listener = writeListener;
+    }
+  }
+
+  private RestServlet servlet;
+  private HttpServletRequest request;
+  private HttpServletResponse response;
+  private AsyncContext asyncContext;
+  private Output output;
+  private Map<String, String> headers;
+
+  @Before
+  public void before() throws ServletException, IOException {
+    servlet = new RestServlet().env(new Environment()).app(new IoApplication()).nonBlocking(true);
+    request = Mockito.mock(HttpServletRequest.class);
+    response = Mockito.mock(HttpServletResponse.class);
+    asyncContext = Mockito.mock(AsyncContext.class);
+    output = new Output();
+    Mockito.when(request.isAsyncSupported()).thenReturn(true);
+    headers = new HashMap<>();
+    headers.put("Accept", "*/*");
+    Mockito.when(request.getHeaderNames()).thenAnswer(inv -> Collections.enumeration(headers.keySet()));
+    Mockito.when(request.getHeaders(Mockito.anyString()))
+        .thenAnswer(inv -> Collections.enumeration(Collections.singleton(headers.get(inv.getArguments()[0]))));
+    Mockito.when(request.getHeader(Mockito.anyString())).thenAnswer(inv -> headers.get(inv.getArguments()[0]));
+    Mockito.when(request.startAsync(request, response)).thenReturn(asyncContext);
+    Mockito.when(response.getOutputStream()).thenReturn(output);
+    Mockito.when(response.getBufferSize()).thenReturn(8192);
+  }
+
+  private Input post(byte[] body, long contentLength) throws ServletException, IOException {
+    Input input = new Input(body);
+    Mockito.when(request.getMethod()).thenReturn("POST");
+    Mockito.when(request.getPathInfo()).thenReturn("/io/echo");
+    Mockito.when(request.getContentType()).thenReturn(MediaType.TEXT_PLAIN);
+    headers.put("Content-Type", MediaType.TEXT_PLAIN);
+    Mockito.when(request.getContentLengthLong()).thenReturn(contentLength);
+    Mockito.when(request.getContentLength()).thenReturn((int) contentLength);
+    if (contentLength == -1) {
+      headers.put("Transfer-Encoding", "chunked");
+    }
+    Mockito.when(request.getInputStream()).thenReturn(input);
+    servlet.service(request, response);
+    return input;
+  }
+
+  @Test
+  public void readBeforeDispatchTest() throws Exception {
+    byte[] body = "hello".getBytes(StandardCharsets.UTF_8);
+    Input input = post(body, body.length);
+    Assert.assertNotNull(input.listener);
+    Assert.assertEquals(0, output.bout.size());
+    Mockito.verify(asyncContext, Mockito.never()).complete();
+
+    input.listener.onDataAvailable();
+    Assert.assertTrue(input.isFinished());
+    input.listener.onAllDataRead();
+    Assert.assertEquals("hello", new String(output.bout.toByteArray(), StandardCharsets.UTF_8));
+    Mockito.verify(asyncContext).complete();
+  }
+
+  @Test
+  public void contentLengthLimitTest() throws Exception {
+    servlet.requestLimit(4);
+    Input input = post("hello".getBytes(StandardCharsets.UTF_8), 5);
+    Assert.assertNull(input.listener);
+    Mockito.verify(response).sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+    Mockito.verify(asyncContext).complete();
+  }
+
+  @Test
+  public void chunkedLimitTest() throws Exception {
+    servlet.requestLimit(4);
+    Input input = post("hello".getBytes(StandardCharsets.UTF_8), -1);
+    input.listener.onDataAvailable();
+    Mockito.verify(response).sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+    Mockito.verify(asyncContext).complete();
+    input.listener.onAllDataRead();
+    Assert.assertEquals(0, output.bout.size());
+  }
+
+  @Test
+  public void drainTest() throws Exception {
+    Mockito.when(request.getMethod()).thenReturn("GET");
+    Mockito.when(request.getPathInfo()).thenReturn("/io/large");
+    servlet.service(request, response);
+    Assert.assertNotNull(output.listener);
+    Mockito.verify(response).setHeader("Content-Length", String.valueOf(LARGE.length()));
+    int calls = 0;
+    while (output.bout.size() < LARGE.length()) {
+      Mockito.verify(asyncContext, Mockito.never()).complete();
+      output.writable = 2;
+      output.listener.onWritePossible();
+      calls++;
+    }
+    Assert.assertTrue(calls > 1);
+    output.writable = 1;
+    output.listener.onWritePossible();
+    Mockito.verify(asyncContext).complete();
+    Assert.assertEquals(LARGE, new String(output.bout.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+}
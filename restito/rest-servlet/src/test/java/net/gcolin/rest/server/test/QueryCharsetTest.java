@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.server.test;
+
+import net.gcolin.rest.servlet.ServletExchange;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class QueryCharsetTest {
+
+  private ServletExchange exchange(String encoding) {
+    HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    Mockito.when(request.getCharacterEncoding()).thenReturn(encoding);
+    return new ServletExchange(request, Mockito.mock(HttpServletResponse.class), null);
+  }
+
+  @Test
+  public void encodingTest() {
+    Assert.assertEquals(StandardCharsets.ISO_8859_1, exchange("ISO-8859-1").queryCharset());
+  }
+
+  @Test
+  public void defaultTest() {
+    Assert.assertEquals(StandardCharsets.UTF_8, exchange(null).queryCharset());
+    Assert.assertEquals(StandardCharsets.UTF_8, exchange("unknown").queryCharset());
+  }
+
+}
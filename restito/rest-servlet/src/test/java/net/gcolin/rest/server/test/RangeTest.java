@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.server.test;
+
+import net.gcolin.rest.servlet.ByteRange;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class RangeTest {
+
+  @ClassRule
+  public static TemporaryFolder folder = new TemporaryFolder();
+
+  static File file;
+  static byte[] content;
+
+  @Path("files")
+  @Produces(MediaType.APPLICATION_OCTET_STREAM)
+  public static class FileResource {
+
+    @GET
+    @Path("file")
+    public File file() {
+      return file;
+    }
+
+    @GET
+    @Path("path")
+    public java.nio.file.Path path() {
+      return file.toPath();
+    }
+
+    @GET
+    @Path("tagged")
+    public Response tagged() {
+      return Response.ok(file).tag("v1").build();
+    }
+  }
+
+  public static class FileApplication extends Application {
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Collections.singleton(FileResource.class));
+    }
+  }
+
+  private ServletFixture fixture;
+  private HttpServletResponse response;
+
+  @Before
+  public void before() throws ServletException, IOException {
+    if (file == null) {
+      content = new byte[100000];
+      for (int i = 0; i < content.length; i++) {
+        content[i] = (byte) i;
+      }
+      file = folder.newFile("data.bin");
+      Files.write(file.toPath(), content);
+    }
+    fixture = new ServletFixture(new FileApplication(), "*/*");
+  }
+
+  @After
+  public void after() {
+    fixture.destroy();
+  }
+
+  private byte[] get(String path, String range, String ifRange) throws Exception {
+    response = fixture.newResponse();
+    Mockito.when(fixture.request.getHeader("range")).thenReturn(range);
+    Mockito.when(fixture.request.getHeader("if-range")).thenReturn(ifRange);
+    fixture.service(path);
+    return fixture.body.toByteArray();
+  }
+
+  private String header(String name) {
+    ArgumentCaptor<String> names = ArgumentCaptor.forClass(String.class);
+    ArgumentCaptor<String> values = ArgumentCaptor.forClass(String.class);
+    Mockito.verify(response, Mockito.atLeast(0)).addHeader(names.capture(), values.capture());
+    Mockito.verify(response, Mockito.atLeast(0)).setHeader(names.capture(), values.capture());
+    String value = null;
+    for (int i = 0; i < names.getAllValues().size(); i++) {
+      if (name.equalsIgnoreCase(names.getAllValues().get(i))) {
+        value = values.getAllValues().get(i);
+      }
+    }
+    return value;
+  }
+
+  @Test
+  public void fullTest() throws Exception {
+    Assert.assertArrayEquals(content, get("/files/file", null, null));
+    Assert.assertEquals(String.valueOf(content.length), header(HttpHeaders.CONTENT_LENGTH));
+    Assert.assertEquals("bytes", header("Accept-Ranges"));
+    Assert.assertNull(header("Content-Range"));
+    Mockito.verify(response, Mockito.never()).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+  }
+
+  @Test
+  public void rangeTest() throws Exception {
+    Assert.assertArrayEquals(Arrays.copyOfRange(content, 100, 200),
+        get("/files/file", "bytes=100-199", null));
+    Mockito.verify(response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+    Assert.assertEquals("bytes 100-199/100000", header("Content-Range"));
+    Assert.assertEquals("100", header(HttpHeaders.CONTENT_LENGTH));
+
+    Assert.assertArrayEquals(Arrays.copyOfRange(content, 99990, 100000),
+        get("/files/path", "bytes=-10", null));
+    Assert.assertEquals("bytes 99990-99999/100000", header("Content-Range"));
+
+    Assert.assertArrayEquals(Arrays.copyOfRange(content, 50000, 100000),
+        get("/files/path", "bytes=50000-", null));
+    Assert.assertEquals("50000", header(HttpHeaders.CONTENT_LENGTH));
+  }
+
+  @Test
+  public void unsatisfiableTest() throws Exception {
+    Assert.assertEquals(0, get("/files/file", "bytes=100000-", null).length);
+    Mockito.verify(response).setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+    Assert.assertEquals("bytes */100000", header("Content-Range"));
+  }
+
+  @Test
+  public void ignoredTest() throws Exception {
+    Assert.assertArrayEquals(content, get("/files/file", "bytes=0-1,5-6", null));
+    Assert.assertArrayEquals(content, get("/files/file", "items=0-1", null));
+    Assert.assertArrayEquals(content, get("/files/file", "bytes=5-1", null));
+    Mockito.verify(response, Mockito.never()).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+  }
+
+  @Test
+  public void ifRangeTest() throws Exception {
+    Assert.assertEquals(10, get("/files/tagged", "bytes=0-9", "\"v1\"").length);
+    Assert.assertArrayEquals(content, get("/files/tagged", "bytes=0-9", "\"v0\""));
+    Assert.assertArrayEquals(content, get("/files/tagged", "bytes=0-9", "W/\"v1\""));
+
+    String date = DateTimeFormatter.RFC_1123_DATE_TIME
+        .format(Instant.ofEpochMilli(file.lastModified()).atOffset(ZoneOffset.UTC));
+    Assert.assertEquals(10, get("/files/file", "bytes=0-9", date).length);
+    String old = DateTimeFormatter.RFC_1123_DATE_TIME
+        .format(Instant.ofEpochMilli(file.lastModified() - 60000).atOffset(ZoneOffset.UTC));
+    Assert.assertArrayEquals(content, get("/files/file", "bytes=0-9", old));
+  }
+
+  @Test
+  public void parseTest() {
+    ByteRange range = ByteRange.parse("bytes=0-0", 10);
+    Assert.assertEquals(0, range.getStart());
+    Assert.assertEquals(1, range.getLength());
+    range = ByteRange.parse("bytes=5-100", 10);
+    Assert.assertEquals("bytes 5-9/10", range.contentRange(10));
+    range = ByteRange.parse("Bytes=-100", 10);
+    Assert.assertEquals("bytes 0-9/10", range.contentRange(10));
+    List<String> invalids = Arrays.asList(null, "bytes=", "bytes=a-b", "bytes=--1", "bytes=3-2");
+    for (String invalid : invalids) {
+      Assert.assertNull(invalid, ByteRange.parse(invalid, 10));
+    }
+    Assert.assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-0", 10));
+    Assert.assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=10-", 10));
+    Assert.assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=0-", 0));
+  }
+
+}
@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.server.test;
+
+import net.gcolin.rest.servlet.Cached;
+import net.gcolin.rest.servlet.ResponseCache;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.GET;
+import javax.ws.rs.NameBinding;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.NewCookie;
+import javax.ws.rs.core.Response;
+
+/**
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class ResponseCacheTest {
+
+  static final AtomicInteger CALLS = new AtomicInteger();
+
+  @Path("catalog")
+  @Produces(MediaType.TEXT_PLAIN)
+  public static class CatalogResource {
+
+    @GET
+    @Path("cached")
+    @Cached(varyBy = "q")
+    public String cached(@QueryParam("q") String query) {
+      return "cached " + query + " " + CALLS.incrementAndGet();
+    }
+
+    @GET
+    @Path("short")
+    @Cached(ttl = 50, unit = TimeUnit.MILLISECONDS)
+    public String ttl() {
+      return "short " + CALLS.incrementAndGet();
+    }
+
+    @GET
+    @Path("plain")
+    public String plain() {
+      return "plain " + CALLS.incrementAndGet();
+    }
+
+    @GET
+    @Path("cookie")
+    @Cached
+    public Response cookie() {
+      return Response.ok("cookie " + CALLS.incrementAndGet())
+          .cookie(new NewCookie("session", "s" + CALLS.get())).build();
+    }
+
+    @GET
+    @Path("private")
+    @Cached
+    public Response privateResponse() {
+      return Response.ok("private " + CALLS.incrementAndGet())
+          .header(HttpHeaders.CACHE_CONTROL, "max-age=60, private").build();
+    }
+  }
+
+  @Path("daily")
+  @Produces(MediaType.TEXT_PLAIN)
+  @Cached
+  public static class DailyResource {
+
+    @GET
+    public String daily() {
+      return "daily " + CALLS.incrementAndGet();
+    }
+  }
+
+  @Target({ElementType.METHOD, ElementType.TYPE})
+  @Retention(RetentionPolicy.RUNTIME)
+  @NameBinding
+  public @interface Secured {
+  }
+
+  @Target({ElementType.METHOD, ElementType.TYPE})
+  @Retention(RetentionPolicy.RUNTIME)
+  @NameBinding
+  public @interface Stamped {
+  }
+
+  @Secured
+  public static class SecuredFilter implements ContainerRequestFilter {
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+      if (!"admin".equals(requestContext.getUriInfo().getQueryParameters().getFirst("q"))) {
+        requestContext.abortWith(Response.status(Response.Status.UNAUTHORIZED).build());
+      }
+    }
+  }
+
+  @Stamped
+  public static class StampedFilter implements ContainerResponseFilter {
+
+    @Override
+    public void filter(ContainerRequestContext requestContext,
+        ContainerResponseContext responseContext) throws IOException {
+      responseContext.getHeaders().add("X-Stamp", CALLS.get());
+    }
+  }
+
+  @Path("filtered")
+  @Produces(MediaType.TEXT_PLAIN)
+  public static class FilteredResource {
+
+    @GET
+    @Path("secured")
+    @Secured
+    @Cached
+    public String secured() {
+      return "secured " + CALLS.incrementAndGet();
+    }
+
+    @GET
+    @Path("stamped")
+    @Stamped
+    @Cached
+    public String stamped() {
+      return "stamped " + CALLS.incrementAndGet();
+    }
+  }
+
+  public static class CatalogApplication extends Application {
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Arrays.asList(CatalogResource.class, DailyResource.class,
+          FilteredResource.class, SecuredFilter.class, StampedFilter.class));
+    }
+  }
+
+  private ServletFixture fixture;
+  private HttpServletResponse response;
+
+  @Before
+  public void before() throws ServletException {
+    CALLS.set(0);
+    fixture = new ServletFixture(new CatalogApplication(), "text/plain");
+  }
+
+  @After
+  public void after() {
+    fixture.destroy();
+  }
+
+  private String get(String path, String query) throws Exception {
+    response = fixture.newResponse();
+    Mockito.when(fixture.request.getQueryString()).thenReturn(query == null ? null : "q=" + query);
+    Mockito.when(fixture.request.getParameterValues("q"))
+        .thenReturn(query == null ? null : new String[] {query});
+    Mockito.when(fixture.request.getParameterMap()).thenReturn(query == null
+        ? Collections.emptyMap() : Collections.singletonMap("q", new String[] {query}));
+    return fixture.get(path);
+  }
+
+  private String etag() {
+    ArgumentCaptor<String> names = ArgumentCaptor.forClass(String.class);
+    ArgumentCaptor<String> values = ArgumentCaptor.forClass(String.class);
+    Mockito.verify(response, Mockito.atLeastOnce()).addHeader(names.capture(), values.capture());
+    for (int i = 0; i < names.getAllValues().size(); i++) {
+      if (HttpHeaders.ETAG.equalsIgnoreCase(names.getAllValues().get(i))) {
+        return values.getAllValues().get(i);
+      }
+    }
+    throw new AssertionError("no ETag");
+  }
+
+  @Test
+  public void hitTest() throws Exception {
+    Assert.assertEquals("cached a 1", get("/catalog/cached", "a"));
+    String etag = etag();
+    Assert.assertEquals("cached a 1", get("/catalog/cached", "a"));
+    Assert.assertEquals(etag, etag());
+    Assert.assertEquals(1, CALLS.get());
+  }
+
+  @Test
+  public void varyByTest() throws Exception {
+    Assert.assertEquals("cached a 1", get("/catalog/cached", "a"));
+    Assert.assertEquals("cached b 2", get("/catalog/cached", "b"));
+    Assert.assertEquals("cached null 3", get("/catalog/cached", null));
+    Assert.assertEquals("cached b 2", get("/catalog/cached", "b"));
+  }
+
+  @Test
+  public void acceptEncodingTest() throws Exception {
+    Assert.assertEquals("cached a 1", get("/catalog/cached", "a"));
+    Mockito.when(fixture.request.getHeader(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip");
+    Assert.assertEquals("cached a 2", get("/catalog/cached", "a"));
+    Assert.assertEquals("cached a 2", get("/catalog/cached", "a"));
+  }
+
+  @Test
+  public void notModifiedTest() throws Exception {
+    get("/catalog/cached", "a");
+    String etag = etag();
+    Mockito.when(fixture.request.getHeader(HttpHeaders.IF_NONE_MATCH))
+        .thenReturn("\"other\", " + etag);
+    Assert.assertEquals("", get("/catalog/cached", "a"));
+    Mockito.verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    Mockito.verify(response).setHeader(HttpHeaders.ETAG, etag);
+    Assert.assertEquals(1, CALLS.get());
+  }
+
+  @Test
+  public void notCachedTest() throws Exception {
+    Assert.assertEquals("plain 1", get("/catalog/plain", null));
+    Assert.assertEquals("plain 2", get("/catalog/plain", null));
+  }
+
+  @Test
+  public void cookieTest() throws Exception {
+    Assert.assertEquals("cookie 1", get("/catalog/cookie", null));
+    Assert.assertEquals("cookie 2", get("/catalog/cookie", null));
+  }
+
+  @Test
+  public void privateTest() throws Exception {
+    Assert.assertEquals("private 1", get("/catalog/private", null));
+    Assert.assertEquals("private 2", get("/catalog/private", null));
+  }
+
+  @Test
+  public void classTest() throws Exception {
+    Assert.assertEquals("daily 1", get("/daily", null));
+    Assert.assertEquals("daily 1", get("/daily", null));
+  }
+
+  @Test
+  public void requestFilterTest() throws Exception {
+    Assert.assertEquals("secured 1", get("/filtered/secured", "admin"));
+    Assert.assertEquals("", get("/filtered/secured", "guest"));
+    Mockito.verify(response).sendError(HttpServletResponse.SC_UNAUTHORIZED);
+    Assert.assertEquals(1, CALLS.get());
+  }
+
+  @Test
+  public void responseFilterTest() throws Exception {
+    Assert.assertEquals("stamped 1", get("/filtered/stamped", null));
+    Assert.assertEquals("stamped 2", get("/filtered/stamped", null));
+  }
+
+  @Test
+  public void ttlTest() throws Exception {
+    Assert.assertEquals("short 1", get("/catalog/short", null));
+    Assert.assertEquals("short 1", get("/catalog/short", null));
+    Thread.sleep(100);
+    Assert.assertEquals("short 2", get("/catalog/short", null));
+  }
+
+  @Test
+  public void reloadTest() throws Exception {
+    Assert.assertEquals("cached a 1", get("/catalog/cached", "a"));
+    fixture.servlet.app(new CatalogApplication());
+    Assert.assertEquals("cached a 2", get("/catalog/cached", "a"));
+  }
+
+  @Test
+  public void matchesTest() {
+    Assert.assertTrue(ResponseCache.matches("\"a\"", "\"a\""));
+    Assert.assertTrue(ResponseCache.matches("W/\"a\"", "\"a\""));
+    Assert.assertTrue(ResponseCache.matches("*", "\"a\""));
+    Assert.assertFalse(ResponseCache.matches("\"b\"", "\"a\""));
+    Assert.assertFalse(ResponseCache.matches(null, "\"a\""));
+  }
+
+  @Test
+  public void storableTest() {
+    Assert.assertTrue(ResponseCache.isStorable(
+        Collections.singletonMap("Cache-Control", Arrays.asList("public, max-age=60"))));
+    Assert.assertFalse(ResponseCache.isStorable(
+        Collections.singletonMap("cache-control", Arrays.asList("no-store"))));
+    Assert.assertFalse(ResponseCache.isStorable(
+        Collections.singletonMap("Cache-Control", Arrays.asList("private=\"Set-Cookie\""))));
+    Assert.assertFalse(ResponseCache.isStorable(
+        Collections.singletonMap("Set-Cookie", Arrays.asList("a=b"))));
+  }
+
+}
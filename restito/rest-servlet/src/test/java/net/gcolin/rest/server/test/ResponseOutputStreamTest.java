@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.server.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+import net.gcolin.rest.servlet.ResponseOutputStream;
+
+/**
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class ResponseOutputStreamTest {
+
+	private HttpServletResponse response;
+	private ByteArrayOutputStream sent;
+	private MultivaluedMap<String, String> headers;
+
+	@Before
+	public void before() throws IOException {
+		sent = new ByteArrayOutputStream();
+		response = Mockito.mock(HttpServletResponse.class);
+		Mockito.when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+
+			@Override
+			public void write(int bt) throws IOException {
+				sent.write(bt);
+			}
+
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setWriteListener(WriteListener writeListener) {
+				throw new UnsupportedOperationException();
+			}
+		});
+		headers = new MultivaluedHashMap<>();
+		headers.add("X-Test", "a");
+	}
+
+	@Test
+	public void bufferedTest() throws IOException {
+		ResponseOutputStream out = new ResponseOutputStream(response, MediaType.TEXT_PLAIN_TYPE, headers, 10);
+		out.write("hello".getBytes());
+		out.close();
+		Assert.assertFalse(out.isStreaming());
+		Assert.assertEquals(0, sent.size());
+		out.finish();
+		out.release();
+		Assert.assertEquals("hello", sent.toString());
+		Mockito.verify(response).setHeader(HttpHeaders.CONTENT_LENGTH, "5");
+		Mockito.verify(response).setHeader(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN);
+		Mockito.verify(response).addHeader("X-Test", "a");
+	}
+
+	@Test
+	public void thresholdTest() throws IOException {
+		ResponseOutputStream out = new ResponseOutputStream(response, MediaType.TEXT_PLAIN_TYPE, headers, 10);
+		out.write("hello".getBytes());
+		// a header added by the MessageBodyWriter before the commit
+		headers.add("X-Writer", "b");
+		out.write(' ');
+		Assert.assertFalse(out.isStreaming());
+		out.write("world".getBytes());
+		Assert.assertTrue(out.isStreaming());
+		Assert.assertEquals("hello world", sent.toString());
+		out.write('!');
+		out.finish();
+		out.release();
+		Assert.assertEquals("hello world!", sent.toString());
+
+		InOrder order = Mockito.inOrder(response);
+		order.verify(response).addHeader("X-Writer", "b");
+		order.verify(response).getOutputStream();
+		order = Mockito.inOrder(response);
+		order.verify(response).setHeader(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN);
+		order.verify(response).getOutputStream();
+		Mockito.verify(response).addHeader("X-Test", "a");
+		Mockito.verify(response, Mockito.never()).setHeader(Mockito.eq(HttpHeaders.CONTENT_LENGTH),
+				Mockito.anyString());
+	}
+
+	@Test
+	public void flushTest() throws IOException {
+		ResponseOutputStream out = new ResponseOutputStream(response, null, headers, 100);
+		out.write("hello".getBytes());
+		out.flush();
+		Assert.assertTrue(out.isStreaming());
+		Assert.assertEquals("hello", sent.toString());
+		out.finish();
+		out.release();
+		Mockito.verify(response, Mockito.never()).setHeader(Mockito.eq(HttpHeaders.CONTENT_LENGTH),
+				Mockito.anyString());
+	}
+
+	@Test
+	public void unboundedTest() throws IOException {
+		ResponseOutputStream out = new ResponseOutputStream(response, null, headers, ResponseOutputStream.UNBOUNDED);
+		byte[] data = new byte[100000];
+		out.write(data);
+		out.flush();
+		Assert.assertFalse(out.isStreaming());
+		Assert.assertEquals(0, sent.size());
+		out.finish();
+		out.release();
+		Assert.assertEquals(data.length, sent.size());
+		Mockito.verify(response).setHeader(HttpHeaders.CONTENT_LENGTH, "100000");
+	}
+
+	@Test
+	public void streamingTest() throws IOException {
+		ResponseOutputStream out = new ResponseOutputStream(response, null, headers, 0);
+		out.write('a');
+		Assert.assertTrue(out.isStreaming());
+		Assert.assertEquals("a", sent.toString());
+		out.finish();
+		out.release();
+		Mockito.verify(response).addHeader("X-Test", "a");
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.server.test;
+
+import net.gcolin.rest.server.ResourceArray;
+import net.gcolin.rest.servlet.RestServlet;
+import net.gcolin.rest.servlet.RouteCache;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class RouteCacheTest {
+
+  @Path("cache")
+  @Produces(MediaType.TEXT_PLAIN)
+  public static class CacheResource {
+
+    @GET
+    @Path("health")
+    public String health() {
+      return "up";
+    }
+
+    @GET
+    @Path("item/{id}")
+    public String item(@PathParam("id") String id) {
+      return "item " + id;
+    }
+  }
+
+  public static class CacheApplication extends Application {
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Collections.singleton(CacheResource.class));
+    }
+  }
+
+  private ServletFixture fixture;
+
+  @Before
+  public void before() throws ServletException {
+    fixture = new ServletFixture(new CacheApplication(), "*/*");
+  }
+
+  private String call(String method, String path) throws Exception {
+    Mockito.when(fixture.request.getMethod()).thenReturn(method);
+    return fixture.get(path);
+  }
+
+  @Test
+  public void exactPathTest() throws Exception {
+    RouteCache cache = fixture.servlet.getRouteCache();
+    Assert.assertEquals("up", call("GET", "/cache/health"));
+    Assert.assertEquals(0, cache.getHits());
+    Assert.assertEquals(1, cache.getSize());
+    Assert.assertEquals("up", call("GET", "/cache/health"));
+    Assert.assertEquals("up", call("GET", "/cache/health"));
+    Assert.assertEquals(2, cache.getHits());
+    Assert.assertEquals(1, cache.getMisses());
+    Assert.assertEquals(2.0 / 3, cache.getHitRatio(), 0.0001);
+  }
+
+  @Test
+  public void pathParamTest() throws Exception {
+    RouteCache cache = fixture.servlet.getRouteCache();
+    Assert.assertEquals("item 1", call("GET", "/cache/item/1"));
+    Assert.assertEquals("item 2", call("GET", "/cache/item/2"));
+    Assert.assertEquals(0, cache.getSize());
+    Assert.assertEquals(0, cache.getHits());
+  }
+
+  @Test
+  public void notFoundTest() throws Exception {
+    call("GET", "/cache/missing");
+    Mockito.verify(fixture.response).sendError(HttpServletResponse.SC_NOT_FOUND);
+    Assert.assertEquals(0, fixture.servlet.getRouteCache().getSize());
+  }
+
+  @Test
+  public void methodNotAllowedTest() throws Exception {
+    call("GET", "/cache/health");
+    call("DELETE", "/cache/health");
+    Assert.assertEquals(1, fixture.servlet.getRouteCache().getHits());
+    Mockito.verify(fixture.response).sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+  }
+
+  @Test
+  public void initializeTest() throws Exception {
+    call("GET", "/cache/health");
+    Assert.assertEquals(1, fixture.servlet.getRouteCache().getSize());
+    fixture.servlet.app(new Application());
+    Assert.assertEquals(0, fixture.servlet.getRouteCache().getSize());
+    Assert.assertEquals("up", call("GET", "/cache/health"));
+  }
+
+  @Test
+  public void staleGenerationTest() throws Exception {
+    RouteCache cache = new RouteCache();
+    long generation = cache.getGeneration();
+    cache.clear();
+    cache.put("/cache/health", new ResourceArray("/cache/health"), generation);
+    Assert.assertEquals(0, cache.getSize());
+    cache.put("/cache/health", new ResourceArray("/cache/health"), cache.getGeneration());
+    Assert.assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  public void capacityTest() throws Exception {
+    fixture.servlet.getRouteCache().setCapacity(0);
+    Assert.assertEquals("up", call("GET", "/cache/health"));
+    Assert.assertEquals("up", call("GET", "/cache/health"));
+    Assert.assertEquals(0, fixture.servlet.getRouteCache().getSize());
+    Assert.assertEquals(0, fixture.servlet.getRouteCache().getHits());
+  }
+
+  @Test
+  public void jmxTest() throws Exception {
+    ServletConfig config = Mockito.mock(ServletConfig.class);
+    Mockito.when(config.getServletName()).thenReturn("routes");
+    Mockito.when(config.getInitParameter(RestServlet.ROUTE_CACHE)).thenReturn("16");
+    fixture.servlet.init(config);
+    MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("net.gcolin.rest:type=RouteCache,name=\"routes\"");
+    try {
+      call("GET", "/cache/health");
+      call("GET", "/cache/health");
+      Assert.assertEquals(16, mbs.getAttribute(name, "Capacity"));
+      Assert.assertEquals(1L, mbs.getAttribute(name, "Hits"));
+      Assert.assertEquals(0.5, (Double) mbs.getAttribute(name, "HitRatio"), 0.0001);
+    } finally {
+      fixture.destroy();
+    }
+    Assert.assertFalse(mbs.isRegistered(name));
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.server.test;
+
+import net.gcolin.rest.Environment;
+import net.gcolin.rest.servlet.RestServlet;
+
+import org.mockito.Mockito;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.core.Application;
+
+/**
+ * A RestServlet called with a mocked GET request. The body of the mocked
+ * response is collected in {@link #body}.
+ * 
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class ServletFixture {
+
+  final RestServlet servlet;
+  final HttpServletRequest request;
+  final ByteArrayOutputStream body = new ByteArrayOutputStream();
+  HttpServletResponse response;
+
+  /**
+   * Create a fixture.
+   * 
+   * @param application the application of the servlet
+   * @param accept the {@code Accept} header of the request
+   * @throws ServletException if the application cannot be loaded
+   */
+  public ServletFixture(Application application, String accept) throws ServletException {
+    servlet = new RestServlet().env(new Environment()).app(application);
+    request = Mockito.mock(HttpServletRequest.class);
+    Mockito.when(request.getMethod()).thenReturn("GET");
+    accept(accept);
+    newResponse();
+  }
+
+  /**
+   * Change the {@code Accept} header of the request.
+   * 
+   * @param accept the header or {@code null}
+   */
+  public void accept(String accept) {
+    Set<String> names = accept == null ? Collections.emptySet() : Collections.singleton("Accept");
+    Set<String> values = accept == null ? Collections.emptySet() : Collections.singleton(accept);
+    Mockito.when(request.getHeaderNames()).thenAnswer(inv -> Collections.enumeration(names));
+    Mockito.when(request.getHeaders("Accept")).thenAnswer(inv -> Collections.enumeration(values));
+    Mockito.when(request.getHeader("Accept")).thenReturn(accept);
+  }
+
+  /**
+   * Replace the response by a new mock that writes in {@link #body}.
+   * 
+   * @return the new response
+   */
+  public HttpServletResponse newResponse() {
+    response = Mockito.mock(HttpServletResponse.class);
+    try {
+      Mockito.when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+
+        @Override
+        public void write(int bt) throws IOException {
+          body.write(bt);
+        }
+
+        @Override
+        public void write(byte[] data, int off, int len) throws IOException {
+          body.write(data, off, len);
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+      });
+    } catch (IOException ex) {
+      throw new AssertionError(ex);
+    }
+    return response;
+  }
+
+  /**
+   * Send the request to the servlet.
+   * 
+   * @param path the path info of the request
+   * @throws ServletException if the servlet fails
+   * @throws IOException if an I/O error occurs
+   */
+  public void service(String path) throws ServletException, IOException {
+    body.reset();
+    Mockito.when(request.getPathInfo()).thenReturn(path);
+    servlet.service(request, response);
+  }
+
+  /**
+   * Send the request to the servlet and get the body of the response.
+   * 
+   * @param path the path info of the request
+   * @return the body written by the servlet
+   * @throws ServletException if the servlet fails
+   * @throws IOException if an I/O error occurs
+   */
+  public String get(String path) throws ServletException, IOException {
+    service(path);
+    return body();
+  }
+
+  public String body() {
+    return new String(body.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  public void destroy() {
+    servlet.destroy();
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to You under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package net.gcolin.rest.server.test;
+
+import net.gcolin.rest.servlet.VirtualThread;
+import net.gcolin.rest.servlet.VirtualThreads;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * @author Gaël COLIN
+ * @since 1.4
+ */
+public class VirtualThreadTest {
+
+  @Path("thread")
+  @Produces(MediaType.TEXT_PLAIN)
+  public static class ThreadResource {
+
+    @GET
+    @Path("virtual")
+    @VirtualThread
+    public String virtual() {
+      return kind();
+    }
+
+    @GET
+    @Path("platform")
+    public String platform() {
+      return kind();
+    }
+
+    private String kind() {
+      return Thread.currentThread().toString().startsWith("VirtualThread") ? "virtual" : "platform";
+    }
+  }
+
+  public static class ThreadApplication extends Application {
+
+    @Override
+    public Set<Class<?>> getClasses() {
+      return new HashSet<>(Collections.singleton(ThreadResource.class));
+    }
+  }
+
+  private ServletFixture fixture;
+  private CountDownLatch completed;
+
+  @Before
+  public void before() throws ServletException {
+    fixture = new ServletFixture(new ThreadApplication(), "*/*");
+    AsyncContext asyncContext = Mockito.mock(AsyncContext.class);
+    completed = new CountDownLatch(1);
+    Mockito.when(fixture.request.isAsyncSupported()).thenReturn(true);
+    Mockito.when(fixture.request.startAsync(fixture.request, fixture.response))
+        .thenReturn(asyncContext);
+    Mockito.doAnswer(inv -> {
+      completed.countDown();
+      return null;
+    }).when(asyncContext).complete();
+  }
+
+  private String get(String path) throws Exception {
+    fixture.service(path);
+    if (VirtualThreads.isSupported()) {
+      Assert.assertTrue(completed.await(5, TimeUnit.SECONDS));
+      Mockito.verify(fixture.request).startAsync(fixture.request, fixture.response);
+    } else {
+      Mockito.verify(fixture.request, Mockito.never())
+          .startAsync(fixture.request, fixture.response);
+    }
+    return fixture.body();
+  }
+
+  private String expected() {
+    return VirtualThreads.isSupported() ? "virtual" : "platform";
+  }
+
+  @Test
+  public void supportedTest() {
+    Assert.assertEquals(Runtime.version().feature() >= 21, VirtualThreads.isSupported());
+  }
+
+  @Test
+  public void annotatedTest() throws Exception {
+    Assert.assertEquals(expected(), get("/thread/virtual"));
+  }
+
+  @Test
+  public void notAnnotatedTest() throws Exception {
+    Assert.assertEquals("platform", fixture.get("/thread/platform"));
+    Mockito.verify(fixture.request, Mockito.never())
+        .startAsync(fixture.request, fixture.response);
+  }
+
+  @Test
+  public void asyncNotSupportedTest() throws Exception {
+    Mockito.when(fixture.request.isAsyncSupported()).thenReturn(false);
+    Assert.assertEquals("platform", fixture.get("/thread/virtual"));
+    Mockito.verify(fixture.request, Mockito.never())
+        .startAsync(fixture.request, fixture.response);
+  }
+
+  @Test
+  public void allTest() throws Exception {
+    fixture.servlet.virtualThreads(true);
+    Assert.assertTrue(fixture.servlet.isVirtualThreads());
+    Assert.assertEquals(expected(), get("/thread/platform"));
+  }
+
+}